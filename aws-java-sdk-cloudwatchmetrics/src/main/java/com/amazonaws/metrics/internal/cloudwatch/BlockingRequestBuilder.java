@@ -18,22 +18,22 @@ import static com.amazonaws.metrics.internal.cloudwatch.CloudWatchMetricConfig.N
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricHistogram;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.metrics.internal.cloudwatch.spi.Dimensions;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
 import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
-import com.amazonaws.services.cloudwatch.model.StatisticSet;
 import com.amazonaws.util.AwsHostNameUtils;
-import com.amazonaws.util.json.Jackson;
 
 /**
  * An internal builder used to retrieve the next batch of requests to be sent to
@@ -41,13 +41,16 @@ import com.amazonaws.util.json.Jackson;
  * necessary.
  */
 class BlockingRequestBuilder {
+    private static final Log log = LogFactory.getLog(BlockingRequestBuilder.class);
     private static final String OS_METRIC_NAME = MachineMetric.getOSMetricName();
     private final MachineMetricFactory machineMetricFactory = new MachineMetricFactory();
-    private final BlockingQueue<MetricDatum> queue;
+    private final MetricAccumulator accumulator;
     private final long timeoutNano;
+    private final MetricHistogramExporter histogramExporter;
 
-    BlockingRequestBuilder(CloudWatchMetricConfig config, BlockingQueue<MetricDatum> queue) {
-        this.queue = queue;
+    BlockingRequestBuilder(CloudWatchMetricConfig config, MetricAccumulator accumulator) {
+        this.accumulator = accumulator;
+        this.histogramExporter = config.getHistogramExporter();
         this.timeoutNano = TimeUnit.MILLISECONDS.toNanos(config.getQueuePollTimeoutMilli());
     }
 
@@ -60,94 +63,58 @@ class BlockingRequestBuilder {
      * milliseconds.
      */
     Iterable<PutMetricDataRequest> nextUploadUnits() throws InterruptedException {
-        final Map<String,MetricDatum> uniqueMetrics = new HashMap<String,MetricDatum>();
         long startNano = System.nanoTime();
-        
-        while(true) {
-            final long elapsedNano = System.nanoTime() - startNano;
-            if (elapsedNano >= timeoutNano) {
-                return toPutMetricDataRequests(uniqueMetrics);
-            }
-            MetricDatum datum = queue.poll(timeoutNano - elapsedNano, TimeUnit.NANOSECONDS);
-            if (datum == null) {
-                // timed out
-                if (uniqueMetrics.size() > 0) {
-                    // return whatever we have so far
-                    return toPutMetricDataRequests(uniqueMetrics);
-                }
-                // zero AWS related metrics
-                if (AwsSdkMetrics.isMachineMetricExcluded()) {
-                    // Short note: nothing to do, so just wait indefinitely.
-                    // (Long note: There exists a pedagogical case where the
-                    // next statement is executed followed by no subsequent AWS
-                    // traffic whatsoever, and then the machine metric is enabled 
-                    // via JMX.
-                    // In such case, we require the metric generation to be
-                    // disabled and then re-enabled (eg via JMX).
-                    // So why not always wake up periodically instead of going
-                    // into long wait ?
-                    // I (hchar@) think we should optimize for the most typical
-                    // cases instead of the edge cases. Going into long wait has
-                    // the benefit of relatively less runtime footprint.)
-                    datum = queue.take();   
-                    startNano = System.nanoTime();
-                }
+        if (!accumulator.awaitPending(timeoutNano, TimeUnit.NANOSECONDS)) {
+            // zero AWS related metrics
+            if (AwsSdkMetrics.isMachineMetricExcluded()) {
+                // Short note: nothing to do, so just wait indefinitely.
+                // (Long note: There exists a pedagogical case where the
+                // next statement is executed followed by no subsequent AWS
+                // traffic whatsoever, and then the machine metric is enabled 
+                // via JMX.
+                // In such case, we require the metric generation to be
+                // disabled and then re-enabled (eg via JMX).
+                // So why not always wake up periodically instead of going
+                // into long wait ?
+                // I (hchar@) think we should optimize for the most typical
+                // cases instead of the edge cases. Going into long wait has
+                // the benefit of relatively less runtime footprint.)
+                accumulator.awaitPending();
+                startNano = System.nanoTime();
             }
-            // Note at this point datum is null if and only if there is no
-            // pending AWS related metrics but machine metrics is enabled
-            if (datum != null)
-                summarize(datum, uniqueMetrics);
         }
-    }
-
-    /**
-     * Summarizes the given datum into the statistics of the respective unique metric.
-     */
-    private void summarize(MetricDatum datum, Map<String, MetricDatum> uniqueMetrics) {
-        Double value = datum.getValue();
-        if (value == null) {
-            return;
-        }
-        List<Dimension> dims = datum.getDimensions();
-        Collections.sort(dims, DimensionComparator.INSTANCE);
-        String metricName = datum.getMetricName();
-        String key = metricName + Jackson.toJsonString(dims);
-        MetricDatum statDatum = uniqueMetrics.get(key);
-        if (statDatum == null) {
-            statDatum = new MetricDatum()
-                .withDimensions(datum.getDimensions())
-                .withMetricName(metricName)
-                .withUnit(datum.getUnit())
-                .withStatisticValues(new StatisticSet()
-                    .withMaximum(value)
-                    .withMinimum(value)
-                    .withSampleCount(0.0)
-                    .withSum(0.0))
-                ;
-            uniqueMetrics.put(key, statDatum);
-        }
-        StatisticSet stat = statDatum.getStatisticValues();
-        stat.setSampleCount(stat.getSampleCount() + 1.0);
-        stat.setSum(stat.getSum() + value);
-        if (value > stat.getMaximum()) {
-            stat.setMaximum(value);
-        } else if (value < stat.getMinimum()) {
-            stat.setMinimum(value);
+        // Let the statistics accumulate for the rest of the polling interval
+        final long remainingNano = timeoutNano - (System.nanoTime() - startNano);
+        if (remainingNano > 0) {
+            TimeUnit.NANOSECONDS.sleep(remainingNano);
         }
+        return toPutMetricDataRequests();
     }
+
     /**
-     * Consolidates the input metrics into a list of PutMetricDataRequest, each
-     * within the maximum size limit imposed by CloudWatch.
+     * Drains the accumulated statistics into a list of PutMetricDataRequest,
+     * each within the maximum size limit imposed by CloudWatch.
      */
-    private Iterable<PutMetricDataRequest> toPutMetricDataRequests(Map<String, MetricDatum> uniqueMetrics) {
+    private Iterable<PutMetricDataRequest> toPutMetricDataRequests() {
         // Opportunistically generates some machine metrics whenever there
         // is metrics consolidation
         for (MetricDatum datum: machineMetricFactory.generateMetrics()) {
-            summarize(datum, uniqueMetrics);
+            accumulator.record(datum);
+        }
+        Map<String, MetricHistogram.Snapshot> histograms = histogramExporter == null
+            ? null
+            : new TreeMap<String, MetricHistogram.Snapshot>();
+        List<MetricDatum> drained = accumulator.drain(histograms);
+        if (histograms != null && !histograms.isEmpty()) {
+            try {
+                histogramExporter.export(histograms);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to export the latency histograms", ex);
+            }
         }
         List<PutMetricDataRequest> list = new ArrayList<PutMetricDataRequest>();
         List<MetricDatum> data = new ArrayList<MetricDatum>();
-        for (MetricDatum m: uniqueMetrics.values()) {
+        for (MetricDatum m: drained) {
             data.add(m);
             if (data.size() == CloudWatchMetricConfig.MAX_METRICS_DATUM_SIZE) {
                 list.addAll(newPutMetricDataRequests(data));
@@ -93,6 +93,12 @@ public class CloudWatchMetricConfig {
     
     private int metricQueueSize = DEFAULT_METRICS_QSIZE;
 
+    /**
+     * Used to export the latency histograms at the end of each polling
+     * interval; or null if they are not to be exported.
+     */
+    private MetricHistogramExporter histogramExporter;
+
     /**
      * Returns the credential provider that holds the credentials to connect to
      * Amazon CloudWatch.
@@ -159,7 +165,9 @@ public class CloudWatchMetricConfig {
 
     /**
      * Configure the metric queue size, overriding the default. Must be at
-     * least 1.
+     * least 1. The default collector summarizes metrics in memory as they are
+     * collected, and uses this as the maximum number of unique metrics held
+     * between two uploads.
      * 
      * @see #DEFAULT_METRICS_QSIZE
      */
@@ -174,4 +182,26 @@ public class CloudWatchMetricConfig {
         setMetricQueueSize(metricQueueSize);
         return this;
     }
+
+    /**
+     * Returns the exporter of the latency histograms; or null if they are not
+     * to be exported.
+     */
+    public MetricHistogramExporter getHistogramExporter() {
+        return histogramExporter;
+    }
+
+    /**
+     * Sets the exporter to be called with the latency histograms of each
+     * polling interval; or null if they are not to be exported. The
+     * histograms remain available over JMX either way.
+     */
+    public void setHistogramExporter(MetricHistogramExporter histogramExporter) {
+        this.histogramExporter = histogramExporter;
+    }
+
+    public CloudWatchMetricConfig withHistogramExporter(MetricHistogramExporter histogramExporter) {
+        setHistogramExporter(histogramExporter);
+        return this;
+    }
 }
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.metrics.MetricHistogram;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.services.cloudwatch.model.StatisticSet;
+
+/**
+ * An in-memory summary of the metric data collected between two uploads to
+ * Amazon CloudWatch. Each unique metric, as identified by its name and
+ * dimensions, accumulates its sample count, sum, minimum and maximum in a
+ * small array of stripes, so that concurrent request threads recording the
+ * same metric seldom contend, and recording a sample costs a few atomic
+ * updates rather than a trip through a shared queue. Metrics measured in
+ * milliseconds additionally record each sample into a latency histogram.
+ * <p>
+ * A metric with no sample recorded during an interval is evicted by the
+ * drain, so the maximum number of unique metrics applies per interval rather
+ * than over the lifetime of the accumulator. Its latency histogram is kept.
+ */
+@ThreadSafe
+class MetricAccumulator {
+    private static final int NUM_STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+    private static final String LATENCY_UNIT = StandardUnit.Milliseconds.toString();
+    /**
+     * A key per thread, reset to the metric of each datum recorded, with
+     * which to look up its statistics.
+     */
+    private static final ThreadLocal<MetricKey> PROBES = new ThreadLocal<MetricKey>() {
+        @Override
+        protected MetricKey initialValue() {
+            return new MetricKey();
+        }
+    };
+
+    private final ConcurrentMap<MetricKey, StripedStatistic> statistics =
+            new ConcurrentHashMap<MetricKey, StripedStatistic>();
+    private final ConcurrentMap<String, MetricHistogram> latencyHistograms =
+            new ConcurrentHashMap<String, MetricHistogram>();
+    /**
+     * The snapshot of each latency histogram as of the last drain; only
+     * accessed by the draining thread.
+     */
+    private final Map<String, MetricHistogram.Snapshot> drainedHistograms =
+            new HashMap<String, MetricHistogram.Snapshot>();
+    private final int maxMetrics;
+    /** True if a sample has been recorded since the last drain. */
+    private volatile boolean pending;
+
+    /**
+     * @param maxMetrics
+     *            the maximum number of unique metrics to accumulate between
+     *            two drains; samples of any further metric are dropped to
+     *            prevent resource exhaustion.
+     */
+    MetricAccumulator(int maxMetrics) {
+        if (maxMetrics < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.maxMetrics = maxMetrics;
+    }
+
+    /**
+     * Records the value of the given datum into the statistics of the
+     * respective unique metric, returning true if successful or false if the
+     * maximum number of unique metrics has been reached.
+     */
+    boolean record(MetricDatum datum) {
+        Double value = datum.getValue();
+        if (value == null) {
+            return true;
+        }
+        MetricKey probe = PROBES.get().reset(datum.getMetricName(), datum.getDimensions());
+        try {
+            StripedStatistic stat = statistics.get(probe);
+            while (stat == null || !stat.record(value)) {
+                // New, or evicted by a concurrent drain
+                if (statistics.size() >= maxMetrics) {
+                    return false;
+                }
+                MetricKey key = probe.copy();
+                StripedStatistic created = new StripedStatistic(key, datum.getUnit(),
+                        latencyHistogramOf(key, datum.getUnit()));
+                StripedStatistic existing = statistics.putIfAbsent(key, created);
+                stat = existing == null ? created : existing;
+            }
+        } finally {
+            // Not to retain the dimensions of the datum
+            probe.reset(null, null);
+        }
+        if (!pending) {
+            synchronized (this) {
+                pending = true;
+                notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the latency histogram of the given metric, creating it if
+     * necessary; or null if the metric is not a latency.
+     */
+    private MetricHistogram latencyHistogramOf(MetricKey key, String unit) {
+        if (!LATENCY_UNIT.equals(unit)) {
+            return null;
+        }
+        MetricHistogram histogram = latencyHistograms.get(key.getName());
+        if (histogram == null) {
+            histogram = new MetricHistogram();
+            MetricHistogram existing = latencyHistograms.putIfAbsent(key.getName(), histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Blocks up to the given timeout until a sample has been recorded since
+     * the last drain, returning true if there is one.
+     */
+    synchronized boolean awaitPending(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNano = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + remainingNano;
+        while (!pending && remainingNano > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNano);
+            remainingNano = deadline - System.nanoTime();
+        }
+        return pending;
+    }
+
+    /**
+     * Blocks indefinitely until a sample has been recorded since the last
+     * drain.
+     */
+    synchronized void awaitPending() throws InterruptedException {
+        while (!pending) {
+            wait();
+        }
+    }
+
+    /**
+     * Returns the latency histograms of all the metrics measured in
+     * milliseconds, keyed by the name of the metric followed by the names and
+     * values of its dimensions.
+     */
+    Map<String, MetricHistogram> getLatencyHistograms() {
+        return Collections.unmodifiableMap(latencyHistograms);
+    }
+
+    /**
+     * Returns a metric datum with the statistic values of each unique metric
+     * recorded since the last drain, and evicts the metrics with none. A
+     * sample recorded concurrently with a drain may have its count and sum
+     * reported by this drain and the next, but is never counted twice.
+     *
+     * @param intervalHistograms
+     *            if not null, receives a snapshot of the values recorded into
+     *            each non-empty latency histogram since the last drain.
+     */
+    List<MetricDatum> drain(Map<String, MetricHistogram.Snapshot> intervalHistograms) {
+        pending = false;
+        if (intervalHistograms != null) {
+            for (Map.Entry<String, MetricHistogram> e : latencyHistograms.entrySet()) {
+                MetricHistogram.Snapshot snapshot = e.getValue().getSnapshot();
+                MetricHistogram.Snapshot drained = drainedHistograms.put(e.getKey(), snapshot);
+                MetricHistogram.Snapshot interval = drained == null
+                        ? snapshot
+                        : snapshot.since(drained);
+                if (interval.getCount() > 0) {
+                    intervalHistograms.put(e.getKey(), interval);
+                }
+            }
+        }
+        List<MetricDatum> data = new ArrayList<MetricDatum>(statistics.size());
+        for (StripedStatistic stat : statistics.values()) {
+            MetricDatum datum = stat.drain();
+            if (datum == null && statistics.remove(stat.key, stat)) {
+                // Samples may have been recorded since it was drained
+                datum = stat.retire();
+            }
+            if (datum != null) {
+                data.add(datum);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the number of stripes, as the smallest power of two no less than
+     * the given number of processors, capped at 64.
+     */
+    private static int stripesFor(int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * Identifies a unique metric by its name and dimensions, in any order. The
+     * per-thread probe key is reset to the metric of each datum recorded, so
+     * looking it up allocates and sorts nothing. Only a new metric gets a key
+     * of its own, with its dimensions copied and sorted and its name computed
+     * once, which then serves as the precomputed id of the metric for its
+     * lifetime in the map.
+     */
+    private static final class MetricKey {
+        private String metricName;
+        private List<Dimension> dimensions;
+        private int hashCode;
+        /** The name of a copied key; or null for a probe. */
+        private String name;
+
+        /**
+         * Resets this probe to the given metric. The hash code doesn't depend
+         * on the order of the dimensions.
+         */
+        MetricKey reset(String metricName, List<Dimension> dimensions) {
+            this.metricName = metricName;
+            this.dimensions = dimensions;
+            int hash = 0;
+            if (dimensions != null) {
+                for (Dimension dim : dimensions) {
+                    hash += 31 * hashOf(dim.getName()) + hashOf(dim.getValue());
+                }
+            }
+            this.hashCode = 31 * hashOf(metricName) + hash;
+            return this;
+        }
+
+        /**
+         * Returns a key of its own for the metric of this probe.
+         */
+        MetricKey copy() {
+            Dimension[] sorted = dimensions == null
+                    ? new Dimension[0]
+                    : dimensions.toArray(new Dimension[dimensions.size()]);
+            Arrays.sort(sorted, DimensionComparator.INSTANCE);
+            MetricKey key = new MetricKey().reset(metricName, Arrays.asList(sorted));
+            StringBuilder sb = new StringBuilder(String.valueOf(metricName));
+            for (Dimension dim : sorted) {
+                sb.append(CloudWatchMetricConfig.NAMESPACE_DELIMITER)
+                  .append(dim.getName()).append('=').append(dim.getValue());
+            }
+            key.name = sb.toString();
+            return key;
+        }
+
+        /**
+         * Returns the name of the metric followed by the names and values of
+         * its dimensions, such as
+         * "AmazonS3/MetricType=ClientExecuteTime/RequestType=GetObjectRequest",
+         * which is unique to the metric. Only available for a copied key.
+         */
+        String getName() {
+            return name;
+        }
+
+        private static int hashOf(String s) {
+            return s == null ? 0 : s.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MetricKey)) {
+                return false;
+            }
+            MetricKey that = (MetricKey) o;
+            if (hashCode != that.hashCode
+                    || size(dimensions) != size(that.dimensions)) {
+                return false;
+            }
+            if (metricName == null ? that.metricName != null : !metricName.equals(that.metricName)) {
+                return false;
+            }
+            for (int i = 0; i < size(dimensions); i++) {
+                if (!contains(that.dimensions, dimensions.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int size(List<Dimension> dimensions) {
+            return dimensions == null ? 0 : dimensions.size();
+        }
+
+        private static boolean contains(List<Dimension> dimensions, Dimension dim) {
+            for (int i = 0; i < dimensions.size(); i++) {
+                if (DimensionComparator.INSTANCE.compare(dim, dimensions.get(i)) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The statistics of a unique metric, striped by recording thread. Each
+     * drain reports and resets the count, sum, minimum and maximum of every
+     * stripe.
+     */
+    private static final class StripedStatistic {
+        private final MetricKey key;
+        private final String unit;
+        private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+        /** The latency histogram; or null if the metric is not a latency. */
+        private final MetricHistogram histogram;
+        /** Set once evicted, after which no sample is recorded. */
+        private volatile boolean retired;
+
+        StripedStatistic(MetricKey key, String unit, MetricHistogram histogram) {
+            this.key = key;
+            this.unit = unit;
+            this.histogram = histogram;
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        /**
+         * Records the given sample, returning true if successful or false if
+         * this statistic has been evicted.
+         */
+        boolean record(double value) {
+            Stripe stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+            stripe.writers.incrementAndGet();
+            try {
+                if (retired) {
+                    return false;
+                }
+                stripe.record(value);
+            } finally {
+                stripe.writers.decrementAndGet();
+            }
+            if (histogram != null) {
+                histogram.record(value);
+            }
+            return true;
+        }
+
+        /**
+         * Stops recording once evicted, waits for the samples being recorded
+         * to complete, and returns a metric datum with them; or null if there
+         * is none.
+         */
+        MetricDatum retire() {
+            retired = true;
+            for (Stripe stripe : stripes) {
+                while (stripe.writers.get() > 0) {
+                    Thread.yield();
+                }
+            }
+            return drain();
+        }
+
+        synchronized MetricDatum drain() {
+            long count = 0;
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Stripe stripe : stripes) {
+                // Reset the extremes first, so a sample racing with the drain
+                // is at worst reflected in the extremes of both intervals.
+                min = Math.min(min, Double.longBitsToDouble(
+                        stripe.min.getAndSet(Stripe.POSITIVE_INFINITY_BITS)));
+                max = Math.max(max, Double.longBitsToDouble(
+                        stripe.max.getAndSet(Stripe.NEGATIVE_INFINITY_BITS)));
+                long stripeCount = stripe.count.getAndSet(0);
+                if (stripeCount > 0) {
+                    // Otherwise the sum is left to the next interval, along
+                    // with the count of the sample it belongs to
+                    count += stripeCount;
+                    sum += Double.longBitsToDouble(stripe.sum.getAndSet(Stripe.ZERO_BITS));
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (min > max) {
+                // Only samples whose extremes were already reported
+                min = max = sum / count;
+            }
+            return new MetricDatum()
+                .withMetricName(key.metricName)
+                .withDimensions(key.dimensions)
+                .withUnit(unit)
+                .withStatisticValues(new StatisticSet()
+                    .withSampleCount((double) count)
+                    .withSum(sum)
+                    .withMinimum(min)
+                    .withMaximum(max));
+        }
+    }
+
+    /**
+     * One stripe of the statistics of a metric. Doubles are held as their raw
+     * long bits so they can be updated atomically.
+     */
+    private static final class Stripe {
+        static final long ZERO_BITS = Double.doubleToRawLongBits(0.0);
+        static final long POSITIVE_INFINITY_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        static final long NEGATIVE_INFINITY_BITS = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+        /** The number of threads recording into this stripe. */
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sum = new AtomicLong(ZERO_BITS);
+        final AtomicLong min = new AtomicLong(POSITIVE_INFINITY_BITS);
+        final AtomicLong max = new AtomicLong(NEGATIVE_INFINITY_BITS);
+
+        void record(double value) {
+            long bits;
+            do {
+                bits = sum.get();
+            } while (!sum.compareAndSet(bits,
+                    Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + value)));
+            count.incrementAndGet();
+            while (value < Double.longBitsToDouble(bits = min.get())) {
+                if (min.compareAndSet(bits, Double.doubleToRawLongBits(value))) {
+                    break;
+                }
+            }
+            while (value > Double.longBitsToDouble(bits = max.get())) {
+                if (max.compareAndSet(bits, Double.doubleToRawLongBits(value))) {
+                    break;
+                }
+            }
+        }
+    }
+}
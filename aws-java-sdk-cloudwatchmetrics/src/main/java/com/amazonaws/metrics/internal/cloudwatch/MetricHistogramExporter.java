@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics.internal.cloudwatch;
+
+import java.util.Map;
+
+import com.amazonaws.metrics.MetricHistogram;
+
+/**
+ * Used to export the latency histograms of the default AWS SDK metric
+ * collector, such as to a monitoring system that supports percentiles.
+ * Statistic sets uploaded to Amazon CloudWatch cannot carry percentiles.
+ * 
+ * @see CloudWatchMetricConfig#setHistogramExporter(MetricHistogramExporter)
+ */
+public interface MetricHistogramExporter {
+    /**
+     * Called by the metric uploader thread at the end of each polling
+     * interval, before the statistics of the interval are uploaded to Amazon
+     * CloudWatch.
+     * 
+     * @param intervalHistograms
+     *            a snapshot of the latencies recorded during the interval,
+     *            keyed by the name of the metric followed by the names and
+     *            values of its dimensions, such as
+     *            "AmazonS3/MetricType=ClientExecuteTime/RequestType=GetObjectRequest";
+     *            histograms with no latencies recorded during the interval
+     *            are omitted.
+     */
+    public void export(Map<String, MetricHistogram.Snapshot> intervalHistograms);
+}
@@ -14,6 +14,8 @@
  */
 package com.amazonaws.metrics.internal.cloudwatch;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import org.apache.commons.logging.Log;
@@ -23,6 +25,7 @@ import org.apache.http.annotation.ThreadSafe;
 import com.amazonaws.Request;
 import com.amazonaws.Response;
 import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricHistogram;
 import com.amazonaws.metrics.MetricType;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.metrics.RequestMetricType;
@@ -40,10 +43,17 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
 {
     protected final static Log log = LogFactory.getLog(RequestMetricCollectorSupport.class);
     private final BlockingQueue<MetricDatum> queue;
+    private final MetricAccumulator accumulator;
     private final PredefinedMetricTransformer transformer = new PredefinedMetricTransformer();
 
     protected RequestMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
         this.queue = queue;
+        this.accumulator = null;
+    }
+
+    RequestMetricCollectorSupport(MetricAccumulator accumulator) {
+        this.queue = null;
+        this.accumulator = accumulator;
     }
 
     /**
@@ -91,11 +101,25 @@ public class RequestMetricCollectorSupport extends RequestMetricCollector
     }
 
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Returns the latency histograms of the default collector; or an empty map
+     * if metrics are added to a queue instead.
+     */
+    @Override
+    public Map<String, MetricHistogram> getLatencyHistograms() {
+        return accumulator == null
+             ? Collections.<String, MetricHistogram>emptyMap()
+             : accumulator.getLatencyHistograms();
+    }
+
+    /**
+     * Adds the given metric to the queue, or summarizes it into the in-memory
+     * statistics of the default collector, returning true if successful or
+     * false if no space available.
      */
     protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+        return accumulator == null
+             ? queue.offer(metric)
+             : accumulator.record(metric);
     }
     /** Returns the predefined metrics transformer. */
     protected PredefinedMetricTransformer getTransformer() { return transformer; }
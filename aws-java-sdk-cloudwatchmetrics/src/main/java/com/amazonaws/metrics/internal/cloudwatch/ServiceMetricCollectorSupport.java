@@ -14,6 +14,8 @@
  */
 package com.amazonaws.metrics.internal.cloudwatch;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +26,7 @@ import org.apache.http.annotation.ThreadSafe;
 
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.ByteThroughputProvider;
+import com.amazonaws.metrics.MetricHistogram;
 import com.amazonaws.metrics.MetricType;
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.metrics.ServiceLatencyProvider;
@@ -47,9 +50,16 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
     static final double NANO_PER_SEC = TimeUnit.SECONDS.toNanos(1);
     protected final static Log log = LogFactory.getLog(ServiceMetricCollectorSupport.class);
     private final BlockingQueue<MetricDatum> queue;
+    private final MetricAccumulator accumulator;
 
     protected ServiceMetricCollectorSupport(BlockingQueue<MetricDatum> queue) {
         this.queue = queue;
+        this.accumulator = null;
+    }
+
+    ServiceMetricCollectorSupport(MetricAccumulator accumulator) {
+        this.queue = null;
+        this.accumulator = accumulator;
     }
 
     @Override
@@ -150,10 +160,24 @@ public class ServiceMetricCollectorSupport extends ServiceMetricCollector
         }
     }
     /**
-     * Adds the given metric to the queue, returning true if successful or false
-     * if no space available.
+     * Returns the latency histograms of the default collector; or an empty map
+     * if metrics are added to a queue instead.
+     */
+    @Override
+    public Map<String, MetricHistogram> getLatencyHistograms() {
+        return accumulator == null
+             ? Collections.<String, MetricHistogram>emptyMap()
+             : accumulator.getLatencyHistograms();
+    }
+
+    /**
+     * Adds the given metric to the queue, or summarizes it into the in-memory
+     * statistics of the default collector, returning true if successful or
+     * false if no space available.
      */
     protected boolean addMetricsToQueue(MetricDatum metric) {
-        return queue.offer(metric); 
+        return accumulator == null
+             ? queue.offer(metric)
+             : accumulator.record(metric);
     }
 }
@@ -19,6 +19,7 @@ import java.net.InetAddress;
 import org.apache.http.annotation.NotThreadSafe;
 
 import com.amazonaws.http.IdleConnectionReaper;
+import com.amazonaws.http.RetryScheduler;
 import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.util.VersionInfoUtils;
@@ -86,6 +87,18 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_TCP_KEEP_ALIVE = false;
 
+    /**
+     * The default on whether asynchronous clients wait out retry back-off
+     * delays without holding a worker thread.
+     */
+    public static final boolean DEFAULT_USE_NON_BLOCKING_RETRIES = false;
+
+    /**
+     * The default on whether asynchronous clients send requests over
+     * non-blocking I/O.
+     */
+    public static final boolean DEFAULT_USE_NIO_TRANSPORT = false;
+
     /**
      * The default response metadata cache size.
      */
@@ -213,6 +226,20 @@ public class ClientConfiguration {
      */
     private boolean tcpKeepAlive = DEFAULT_TCP_KEEP_ALIVE;
 
+    /**
+     * Optional whether asynchronous clients should schedule retries on the
+     * shared {@link RetryScheduler} instead of sleeping through the back-off
+     * delay on the thread that executes the request.
+     */
+    private boolean useNonBlockingRetries = DEFAULT_USE_NON_BLOCKING_RETRIES;
+
+    /**
+     * Optional whether asynchronous clients should send requests over
+     * non-blocking I/O instead of holding a worker thread for each request in
+     * flight.
+     */
+    private boolean useNioTransport = DEFAULT_USE_NIO_TRANSPORT;
+
     /**
      * Size of the response metadata cache.
      * <p>
@@ -258,6 +285,8 @@ public class ClientConfiguration {
         this.signerOverride              = other.signerOverride;
         this.responseMetadataCacheSize   = other.responseMetadataCacheSize;
         this.dnsResolver                 = other.dnsResolver;
+        this.useNonBlockingRetries       = other.useNonBlockingRetries;
+        this.useNioTransport             = other.useNioTransport;
         this.apacheHttpClientConfig =
             new ApacheHttpClientConfig(other.apacheHttpClientConfig);
     }
@@ -1276,6 +1305,86 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns whether or not asynchronous clients schedule retries without
+     * blocking a worker thread for the duration of the back-off delay.
+     */
+    public boolean useNonBlockingRetries() {
+        return useNonBlockingRetries;
+    }
+
+    /**
+     * Sets whether or not asynchronous clients should schedule retries on the
+     * shared {@link RetryScheduler} instead of sleeping through the back-off
+     * delay on the worker thread executing the request. With this enabled, a
+     * throttled request releases its worker thread while it waits, so a fixed
+     * size executor can keep many more throttled requests in flight.
+     * <p>
+     * This setting has no effect on synchronous clients, or on asynchronous
+     * clients that do not support non-blocking retries. By default, it is set
+     * to {@value #DEFAULT_USE_NON_BLOCKING_RETRIES}.
+     */
+    public void setUseNonBlockingRetries(boolean use) {
+        this.useNonBlockingRetries = use;
+    }
+
+    /**
+     * Sets whether or not asynchronous clients should schedule retries on the
+     * shared {@link RetryScheduler} instead of sleeping through the back-off
+     * delay on the worker thread executing the request.
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withNonBlockingRetries(boolean use) {
+        setUseNonBlockingRetries(use);
+        return this;
+    }
+
+    /**
+     * Returns whether or not asynchronous clients send requests over
+     * non-blocking I/O.
+     */
+    public boolean useNioTransport() {
+        return useNioTransport;
+    }
+
+    /**
+     * Sets whether or not asynchronous clients should send requests over
+     * non-blocking I/O, using Apache HttpAsyncClient, instead of executing
+     * each request on a worker thread that blocks until the response arrives.
+     * With this enabled, a request only occupies a worker thread while it is
+     * being marshalled and signed, and while its response is being
+     * unmarshalled; the number of requests in flight is bounded by
+     * {@link #getMaxConnections()} rather than by the size of the executor.
+     * Retries are scheduled without blocking, as with
+     * {@link #setUseNonBlockingRetries(boolean)}.
+     * <p>
+     * Responses are read in full before they are handed to the response
+     * handler, and request content is read on the I/O threads, so this is
+     * best suited to services whose payloads are held in memory. It requires
+     * <code>org.apache.httpcomponents:httpasyncclient</code> on the classpath.
+     * The I/O threads are started on the first asynchronous request.
+     * <p>
+     * This setting has no effect on synchronous clients, on asynchronous
+     * clients that do not support the non-blocking transport, or when a
+     * custom {@link ApacheHttpClientConfig#setSslSocketFactory SSL socket
+     * factory} is set, as it can't be used for non-blocking I/O. By default, it
+     * is set to {@value #DEFAULT_USE_NIO_TRANSPORT}.
+     */
+    public void setUseNioTransport(boolean use) {
+        this.useNioTransport = use;
+    }
+
+    /**
+     * Sets whether or not asynchronous clients should send requests over
+     * non-blocking I/O instead of executing each request on a blocking worker
+     * thread.
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withNioTransport(boolean use) {
+        setUseNioTransport(use);
+        return this;
+    }
+
     /**
      * Returns the DnsResolver that is used by the client for resolving AWS IP addresses.
      */
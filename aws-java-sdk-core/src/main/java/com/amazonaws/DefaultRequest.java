@@ -27,6 +27,7 @@ import org.apache.http.annotation.NotThreadSafe;
 import com.amazonaws.event.ProgressInputStream;
 import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.EncodedParameters;
 import com.amazonaws.util.json.Jackson;
 
 /**
@@ -77,6 +78,9 @@ public class DefaultRequest<T> implements Request<T> {
     /** All AWS Request metrics are collected into this object. */
     private AWSRequestMetrics metrics;
 
+    /** The last encoding of the parameters, shared by the signer and the HTTP body. */
+    private EncodedParameters encodedParameters;
+
     /**
      * Constructs a new DefaultRequest with the specified service name and the
      * original, user facing request object.
@@ -307,6 +311,25 @@ public class DefaultRequest<T> implements Request<T> {
         }
     }
 
+    /**
+     * Returns the encoding of the parameters last kept with this request, if
+     * any, which may no longer match them.
+     *
+     * @see EncodedParameters#of(SignableRequest)
+     */
+    public EncodedParameters getEncodedParameters() {
+        return encodedParameters;
+    }
+
+    /**
+     * Keeps the given encoding of the parameters with this request.
+     *
+     * @see EncodedParameters#of(SignableRequest)
+     */
+    public void setEncodedParameters(EncodedParameters encodedParameters) {
+        this.encodedParameters = encodedParameters;
+    }
+
     @SuppressWarnings("resource")
     @Override
     public InputStream getContentUnwrapped() {
@@ -28,16 +28,18 @@ import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_EXPIRES;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SECURITY_TOKEN;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNATURE;
 import static com.amazonaws.auth.internal.SignerConstants.X_AMZ_SIGNED_HEADER;
+import static com.amazonaws.util.StringUtils.UTF8;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import com.amazonaws.AmazonClientException;
@@ -46,12 +48,13 @@ import com.amazonaws.SignableRequest;
 import com.amazonaws.auth.internal.AWS4SignerRequestParams;
 import com.amazonaws.auth.internal.AWS4SignerUtils;
 import com.amazonaws.auth.internal.SignerKey;
-import com.amazonaws.internal.FIFOCache;
+import com.amazonaws.internal.ConcurrentFIFOCache;
 import com.amazonaws.log.InternalLogApi;
 import com.amazonaws.log.InternalLogFactory;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.SdkHttpUtils;
+import com.amazonaws.util.Utf8Builder;
 
 /**
  * Signer implementation that signs requests with the AWS4 signing protocol.
@@ -61,7 +64,39 @@ public class AWS4Signer extends AbstractAWSSigner implements
 
     protected static final InternalLogApi log = InternalLogFactory.getLog(AWS4Signer.class);
     private static final int SIGNER_CACHE_MAX_SIZE = 300;
-    private static final FIFOCache<SignerKey> signerCache = new FIFOCache<SignerKey>(SIGNER_CACHE_MAX_SIZE);
+    private static final ConcurrentFIFOCache<SignerKey> signerCache = new ConcurrentFIFOCache<SignerKey>(SIGNER_CACHE_MAX_SIZE);
+
+    /**
+     * The builder each signing thread writes canonical requests into, so that
+     * a canonical request is hashed without becoming a String. A builder
+     * grown past {@link #MAX_CANONICAL_REQUEST_BUILDER_CAPACITY} by a large
+     * request isn't kept.
+     */
+    private static final ThreadLocal<Utf8Builder> CANONICAL_REQUEST_BUILDER =
+            new ThreadLocal<Utf8Builder>() {
+                @Override
+                protected Utf8Builder initialValue() {
+                    return new Utf8Builder(1024);
+                }
+            };
+    private static final int MAX_CANONICAL_REQUEST_BUILDER_CAPACITY = 64 * 1024;
+
+    /**
+     * The String hooks of the first two steps of the calculation. A subclass
+     * overriding any of them is signed by calling them, as before; others are
+     * signed from the bytes of the canonical request.
+     */
+    private static final Object[][] CANONICAL_REQUEST_HOOKS = {
+        { "createCanonicalRequest", new Class<?>[] { SignableRequest.class, String.class } },
+        { "createStringToSign", new Class<?>[] { String.class, AWS4SignerRequestParams.class } },
+        { "getCanonicalizedResourcePath", new Class<?>[] { String.class, boolean.class } },
+        { "getCanonicalizedQueryString", new Class<?>[] { SignableRequest.class } },
+        { "getCanonicalizedQueryString", new Class<?>[] { Map.class } },
+        { "getCanonicalizedHeaderString", new Class<?>[] { SignableRequest.class } },
+        { "getSignedHeadersString", new Class<?>[] { SignableRequest.class } },
+    };
+    private static final ConcurrentMap<Class<?>, Boolean> overridesCanonicalRequestHooks =
+            new ConcurrentHashMap<Class<?>, Boolean>();
 
     /**
      * Service name override for use when the endpoint can't be used to
@@ -195,10 +230,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
             request.addHeader(X_AMZ_CONTENT_SHA256, contentSha256);
         }
 
-        final String canonicalRequest = createCanonicalRequest(request,
-                contentSha256);
-
-        final String stringToSign = createStringToSign(canonicalRequest,
+        final String stringToSign = createStringToSign(request, contentSha256,
                 signerParams);
 
         final byte[] signingKey = deriveSigningKey(sanitizedCredentials,
@@ -252,10 +284,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
 
         final String contentSha256 = calculateContentHashPresign(request);
 
-        final String canonicalRequest = createCanonicalRequest(request,
-                contentSha256);
-
-        final String stringToSign = createStringToSign(canonicalRequest,
+        final String stringToSign = createStringToSign(request, contentSha256,
                 signerRequestParams);
 
         final byte[] signingKey = deriveSigningKey(sanitizedCredentials,
@@ -308,7 +337,25 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected String createStringToSign(String canonicalRequest,
             AWS4SignerRequestParams signerParams) {
+        return createStringToSign(hash(canonicalRequest), signerParams);
+    }
 
+    /**
+     * Steps 1 and 2 of the AWS Signature version 4 calculation, through the
+     * String hooks if a subclass overrides any of them.
+     */
+    private String createStringToSign(SignableRequest<?> request,
+            String contentSha256, AWS4SignerRequestParams signerParams) {
+        if (overridesCanonicalRequestHooks()) {
+            return createStringToSign(
+                    createCanonicalRequest(request, contentSha256), signerParams);
+        }
+        return createStringToSign(hashCanonicalRequest(request, contentSha256),
+                signerParams);
+    }
+
+    private String createStringToSign(byte[] canonicalRequestHash,
+            AWS4SignerRequestParams signerParams) {
         final StringBuilder stringToSignBuilder = new StringBuilder(
                 signerParams.getSigningAlgorithm());
         stringToSignBuilder.append(LINE_SEPARATOR)
@@ -316,7 +363,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
                 .append(LINE_SEPARATOR)
                 .append(signerParams.getScope())
                 .append(LINE_SEPARATOR)
-                .append(BinaryUtils.toHex(hash(canonicalRequest)));
+                .append(BinaryUtils.toHex(canonicalRequestHash));
 
         final String stringToSign = stringToSignBuilder.toString();
 
@@ -326,6 +373,88 @@ public class AWS4Signer extends AbstractAWSSigner implements
         return stringToSign;
     }
 
+    /**
+     * Returns the hash of the canonical request, as returned by
+     * {@link #createCanonicalRequest(SignableRequest, String)}, written into
+     * the calling thread's builder.
+     */
+    byte[] hashCanonicalRequest(SignableRequest<?> request, String contentSha256) {
+        Utf8Builder canonicalRequest = CANONICAL_REQUEST_BUILDER.get();
+        if (canonicalRequest.capacity() > MAX_CANONICAL_REQUEST_BUILDER_CAPACITY) {
+            CANONICAL_REQUEST_BUILDER.remove();
+            canonicalRequest = CANONICAL_REQUEST_BUILDER.get();
+        }
+        canonicalRequest.setLength(0);
+        appendCanonicalRequest(canonicalRequest, request, contentSha256);
+
+        if (log.isDebugEnabled())
+            log.debug("AWS4 Canonical Request: '\"" + canonicalRequest + "\"");
+
+        return hash(canonicalRequest);
+    }
+
+    private void appendCanonicalRequest(Utf8Builder canonicalRequest,
+            SignableRequest<?> request, String contentSha256) {
+        /* This would url-encode the resource path for the first time. */
+        final String path = SdkHttpUtils.appendUri(
+                request.getEndpoint().getPath(), request.getResourcePath());
+
+        canonicalRequest.append(request.getHttpMethod().toString()).append('\n');
+        // This would optionally double url-encode the resource path
+        if (path == null || path.isEmpty()) {
+            canonicalRequest.append('/');
+        } else {
+            if (path.charAt(0) != '/') {
+                canonicalRequest.append('/');
+            }
+            if (doubleUrlEncode) {
+                canonicalRequest.appendUrlEncoded(path, true);
+            } else {
+                canonicalRequest.append(path);
+            }
+        }
+        canonicalRequest.append('\n');
+        if (!SdkHttpUtils.usePayloadForQueryParameters(request)) {
+            appendCanonicalizedQueryString(canonicalRequest, request.getParameters());
+        }
+        canonicalRequest.append('\n');
+        final List<String> sortedHeaders = getSortedHeaders(request);
+        appendCanonicalizedHeaders(canonicalRequest, sortedHeaders, request.getHeaders());
+        canonicalRequest.append('\n');
+        appendSignedHeaders(canonicalRequest, sortedHeaders);
+        canonicalRequest.append('\n').append(contentSha256);
+    }
+
+    /**
+     * Returns true if the class of this signer overrides any of the
+     * {@link #CANONICAL_REQUEST_HOOKS}.
+     */
+    private boolean overridesCanonicalRequestHooks() {
+        final Class<?> signerClass = getClass();
+        Boolean overrides = overridesCanonicalRequestHooks.get(signerClass);
+        if (overrides == null) {
+            overrides = declaresCanonicalRequestHooks(signerClass);
+            overridesCanonicalRequestHooks.put(signerClass, overrides);
+        }
+        return overrides;
+    }
+
+    private static boolean declaresCanonicalRequestHooks(Class<?> signerClass) {
+        for (Class<?> c = signerClass; c != AWS4Signer.class; c = c.getSuperclass()) {
+            for (Object[] hook : CANONICAL_REQUEST_HOOKS) {
+                try {
+                    c.getDeclaredMethod((String) hook[0], (Class<?>[]) hook[1]);
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // Not overridden by this class
+                } catch (SecurityException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Step 3 of the AWS Signature version 4 calculation. It involves deriving
      * the signing key and computing the signature. Refer to
@@ -384,7 +513,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
      */
     protected final byte[] computeSignature(String stringToSign,
             byte[] signingKey, AWS4SignerRequestParams signerRequestParams) {
-        return sign(stringToSign.getBytes(Charset.forName("UTF-8")), signingKey,
+        return sign(stringToSign.getBytes(UTF8), signingKey,
                 SigningAlgorithm.HmacSHA256);
     }
 
@@ -443,40 +572,79 @@ public class AWS4Signer extends AbstractAWSSigner implements
     }
 
     protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request.getHeaders()
-                .keySet());
+        final List<String> sortedHeaders = getSortedHeaders(request);
+        final Utf8Builder buffer = new Utf8Builder(sortedHeaders.size() * 32);
+        appendCanonicalizedHeaders(buffer, sortedHeaders, request.getHeaders());
+        return buffer.toString();
+    }
+
+    protected String getSignedHeadersString(SignableRequest<?> request) {
+        final List<String> sortedHeaders = getSortedHeaders(request);
+        final Utf8Builder buffer = new Utf8Builder(sortedHeaders.size() * 16);
+        appendSignedHeaders(buffer, sortedHeaders);
+        return buffer.toString();
+    }
+
+    private static List<String> getSortedHeaders(SignableRequest<?> request) {
+        final List<String> sortedHeaders = new ArrayList<String>(request
+                .getHeaders().keySet());
         Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        return sortedHeaders;
+    }
 
-        final Map<String, String> requestHeaders = request.getHeaders();
-        StringBuilder buffer = new StringBuilder();
+    private static void appendCanonicalizedHeaders(Utf8Builder buffer,
+            List<String> sortedHeaders, Map<String, String> requestHeaders) {
         for (String header : sortedHeaders) {
-            String key = header.toLowerCase().replaceAll("\\s+", " ");
             String value = requestHeaders.get(header);
 
-            buffer.append(key).append(":");
+            appendCompactedString(buffer, header.toLowerCase());
+            buffer.append(':');
             if (value != null) {
-                buffer.append(value.replaceAll("\\s+", " "));
+                appendCompactedString(buffer, value);
             }
 
-            buffer.append("\n");
+            buffer.append('\n');
         }
-
-        return buffer.toString();
     }
 
-    protected String getSignedHeadersString(SignableRequest<?> request) {
-        final List<String> sortedHeaders = new ArrayList<String>(request
-                .getHeaders().keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+    private static void appendSignedHeaders(Utf8Builder buffer,
+            List<String> sortedHeaders) {
+        for (int i = 0; i < sortedHeaders.size(); i++) {
+            if (i > 0)
+                buffer.append(';');
+            buffer.append(sortedHeaders.get(i).toLowerCase());
+        }
+    }
 
-        StringBuilder buffer = new StringBuilder();
-        for (String header : sortedHeaders) {
-            if (buffer.length() > 0)
-                buffer.append(";");
-            buffer.append(header.toLowerCase());
+    /**
+     * Appends the source to the destination with every run of whitespace
+     * collapsed into a single space. Equivalent to
+     * <code>source.replaceAll("\\s+", " ")</code> without compiling a pattern
+     * and allocating an intermediate string for every header.
+     */
+    private static void appendCompactedString(final Utf8Builder destination,
+            final String source) {
+        final int length = source.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (isWhiteSpace(source.charAt(i))) {
+                destination.append(source, start, i).append(' ');
+                while (i + 1 < length && isWhiteSpace(source.charAt(i + 1))) {
+                    i++;
+                }
+                start = i + 1;
+            }
         }
+        destination.append(source, start, length);
+    }
 
-        return buffer.toString();
+    /**
+     * Returns true for the characters matched by the <code>\s</code> regular
+     * expression class, i.e. <code>[ \t\n\x0B\f\r]</code>.
+     */
+    private static boolean isWhiteSpace(final char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000b'
+                || ch == '\f' || ch == '\r';
     }
 
     protected void addHostHeader(SignableRequest<?> request) {
@@ -572,7 +740,7 @@ public class AWS4Signer extends AbstractAWSSigner implements
     private byte[] newSigningKey(AWSCredentials credentials,
             String dateStamp, String regionName, String serviceName) {
         byte[] kSecret = ("AWS4" + credentials.getAWSSecretKey())
-                .getBytes(Charset.forName("UTF-8"));
+                .getBytes(UTF8);
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion,
@@ -22,14 +22,11 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -41,7 +38,9 @@ import com.amazonaws.SignableRequest;
 import com.amazonaws.internal.SdkDigestInputStream;
 import com.amazonaws.util.Base64;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.EncodedParameters;
 import com.amazonaws.util.SdkHttpUtils;
+import com.amazonaws.util.Utf8Builder;
 
 /**
  * Abstract base class for AWS signing protocol implementations. Provides
@@ -53,7 +52,25 @@ import com.amazonaws.util.SdkHttpUtils;
 public abstract class AbstractAWSSigner implements Signer {
     public static final String EMPTY_STRING_SHA256_HEX;
 
+    /**
+     * SHA-256 digest owned by each signing thread, so that hashing a request
+     * payload or canonical request doesn't look up a new provider instance
+     * every time.
+     */
+    private static final ThreadLocal<MessageDigest> SHA256_MESSAGE_DIGEST;
+
     static {
+        SHA256_MESSAGE_DIGEST = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new AmazonClientException(
+                            "Unable to get SHA256 Function: " + e.getMessage(), e);
+                }
+            }
+        };
         EMPTY_STRING_SHA256_HEX = BinaryUtils.toHex(doHash(""));
     }
 
@@ -107,7 +124,7 @@ public abstract class AbstractAWSSigner implements Signer {
     protected byte[] sign(byte[] data, byte[] key,
             SigningAlgorithm algorithm) throws AmazonClientException {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
+            Mac mac = algorithm.getMac();
             mac.init(new SecretKeySpec(key, algorithm.toString()));
             return mac.doFinal(data);
         } catch (Exception e) {
@@ -135,7 +152,7 @@ public abstract class AbstractAWSSigner implements Signer {
 
     private static byte[] doHash(String text) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(text.getBytes(UTF8));
             return md.digest();
         } catch (Exception e) {
@@ -147,7 +164,7 @@ public abstract class AbstractAWSSigner implements Signer {
 
     protected byte[] hash(InputStream input) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             @SuppressWarnings("resource")
             DigestInputStream digestInputStream = new SdkDigestInputStream(
                     input, md);
@@ -175,7 +192,7 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     public byte[] hash(byte[] data) throws AmazonClientException {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = getMessageDigestInstance();
             md.update(data);
             return md.digest();
         } catch (Exception e) {
@@ -184,6 +201,32 @@ public abstract class AbstractAWSSigner implements Signer {
                             + e.getMessage(), e);
         }
     }
+
+    /**
+     * Returns the SHA-256 hash of the bytes of the given builder, without
+     * copying them.
+     */
+    byte[] hash(Utf8Builder data) throws AmazonClientException {
+        try {
+            MessageDigest md = getMessageDigestInstance();
+            data.updateDigest(md);
+            return md.digest();
+        } catch (Exception e) {
+            throw new AmazonClientException(
+                    "Unable to compute hash while signing request: "
+                            + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the calling thread's SHA-256 digest, reset so that state left by
+     * a previous failed computation can't leak into the next one.
+     */
+    private static MessageDigest getMessageDigestInstance() {
+        MessageDigest messageDigest = SHA256_MESSAGE_DIGEST.get();
+        messageDigest.reset();
+        return messageDigest;
+    }
     /**
      * Examines the specified query string parameters and returns a
      * canonicalized form.
@@ -198,40 +241,99 @@ public abstract class AbstractAWSSigner implements Signer {
      * @return A canonicalized form for the specified query string parameters.
      */
     protected String getCanonicalizedQueryString(Map<String, List<String>> parameters) {
+        Utf8Builder canonical = new Utf8Builder(64 * parameters.size());
+        appendCanonicalizedQueryString(canonical, parameters);
+        return canonical.toString();
+    }
 
-        final SortedMap<String, List<String>> sorted = new TreeMap<String, List<String>>();
+    /**
+     * Appends the canonicalized form of the given query string parameters, as
+     * returned by {@link #getCanonicalizedQueryString(Map)}, to the given
+     * builder.
+     * <p>
+     * Each name and value is encoded once into a single scratch buffer, and
+     * the pairs are sorted by their positions in it, by name and then by
+     * value, so no string or list is created per parameter.
+     */
+    static void appendCanonicalizedQueryString(Utf8Builder canonical,
+            Map<String, List<String>> parameters) {
+        int pairs = 0;
+        for (List<String> values : parameters.values()) {
+            pairs += values.size();
+        }
+        if (pairs == 0) {
+            return;
+        }
 
-        /**
-         * Signing protocol expects the param values also to be sorted after url
-         * encoding in addition to sorted parameter names.
-         */
+        Utf8Builder encoded = new Utf8Builder(32 * pairs);
+        // The start and end of the encoded name and value of each pair
+        int[] regions = new int[4 * pairs];
+        int pair = 0;
         for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
-            final String encodedParamName = SdkHttpUtils.urlEncode(
-                    entry.getKey(), false);
-            final List<String> paramValues = entry.getValue();
-            final List<String> encodedValues = new ArrayList<String>(
-                    paramValues.size());
-            for (String value : paramValues) {
-                encodedValues.add(SdkHttpUtils.urlEncode(value, false));
+            int nameStart = encoded.length();
+            encoded.appendUrlEncoded(entry.getKey(), false);
+            int nameEnd = encoded.length();
+            for (String value : entry.getValue()) {
+                regions[4 * pair] = nameStart;
+                regions[4 * pair + 1] = nameEnd;
+                regions[4 * pair + 2] = encoded.length();
+                encoded.appendUrlEncoded(value, false);
+                regions[4 * pair + 3] = encoded.length();
+                pair++;
             }
-            Collections.sort(encodedValues);
-            sorted.put(encodedParamName, encodedValues);
+        }
 
+        int[] order = new int[pairs];
+        for (int i = 0; i < pairs; i++) {
+            order[i] = i;
         }
+        sortPairs(order, new int[pairs], 0, pairs, regions, encoded);
 
-        final StringBuilder result = new StringBuilder();
-        for(Map.Entry<String, List<String>> entry : sorted.entrySet()) {
-            for(String value : entry.getValue()) {
-                if (result.length() > 0) {
-                    result.append("&");
-                }
-                result.append(entry.getKey())
-                      .append("=")
-                      .append(value);
+        for (int i = 0; i < pairs; i++) {
+            if (i > 0) {
+                canonical.append('&');
             }
+            int region = 4 * order[i];
+            canonical.append(encoded, regions[region], regions[region + 1])
+                     .append('=')
+                     .append(encoded, regions[region + 2], regions[region + 3]);
         }
+    }
 
-        return result.toString();
+    /**
+     * Merge sorts the given range of pair indexes by the encoded name, then
+     * the encoded value, of each pair.
+     */
+    private static void sortPairs(int[] order, int[] scratch, int from, int to,
+            int[] regions, Utf8Builder encoded) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortPairs(order, scratch, from, middle, regions, encoded);
+        sortPairs(order, scratch, middle, to, regions, encoded);
+        System.arraycopy(order, from, scratch, from, to - from);
+        int i = from, j = middle;
+        for (int k = from; k < to; k++) {
+            if (j == to || (i < middle
+                    && comparePairs(scratch[i], scratch[j], regions, encoded) <= 0)) {
+                order[k] = scratch[i++];
+            } else {
+                order[k] = scratch[j++];
+            }
+        }
+    }
+
+    private static int comparePairs(int pair1, int pair2, int[] regions,
+            Utf8Builder encoded) {
+        int region1 = 4 * pair1, region2 = 4 * pair2;
+        int diff = encoded.compare(regions[region1], regions[region1 + 1],
+                regions[region2], regions[region2 + 1]);
+        if (diff != 0) {
+            return diff;
+        }
+        return encoded.compare(regions[region1 + 2], regions[region1 + 3],
+                regions[region2 + 2], regions[region2 + 3]);
     }
 
     protected String getCanonicalizedQueryString(SignableRequest<?> request) {
@@ -254,11 +356,11 @@ public abstract class AbstractAWSSigner implements Signer {
      */
     protected byte[] getBinaryRequestPayload(SignableRequest<?> request) {
         if (SdkHttpUtils.usePayloadForQueryParameters(request)) {
-            String encodedParameters = SdkHttpUtils.encodeParameters(request);
+            EncodedParameters encodedParameters = EncodedParameters.of(request);
             if (encodedParameters == null)
                 return new byte[0];
 
-            return encodedParameters.getBytes(UTF8);
+            return encodedParameters.toByteArray();
         }
 
         return getBinaryRequestPayloadWithoutQueryParams(request);
@@ -323,12 +425,11 @@ public abstract class AbstractAWSSigner implements Signer {
 
     protected InputStream getBinaryRequestPayloadStream(SignableRequest<?> request) {
         if (SdkHttpUtils.usePayloadForQueryParameters(request)) {
-            String encodedParameters = SdkHttpUtils.encodeParameters(request);
+            EncodedParameters encodedParameters = EncodedParameters.of(request);
             if (encodedParameters == null)
                 return new ByteArrayInputStream(new byte[0]);
 
-            return new ByteArrayInputStream(
-                    encodedParameters.getBytes(UTF8));
+            return encodedParameters.newInputStream();
         }
 
         return getBinaryRequestPayloadStreamWithoutQueryParams(request);
@@ -38,6 +38,7 @@ import static com.amazonaws.util.IOUtils.closeQuietly;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -48,6 +49,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.net.ssl.SSLContext;
 
@@ -59,8 +62,10 @@ import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -153,6 +158,24 @@ public class AmazonHttpClient {
     /** Internal client for sending HTTP requests */
     private final HttpClient httpClient;
 
+    /**
+     * True if asynchronous executions are sent over the non-blocking
+     * transport.
+     */
+    private final boolean useNioTransport;
+
+    /**
+     * Non-blocking transport for asynchronous executions, created on the
+     * first one; or null if there has been none yet. Guarded by this.
+     */
+    private NioHttpTransport nioTransport;
+
+    /** True once strict hostname verification has been disabled. */
+    private boolean strictHostnameVerificationDisabled;
+
+    /** True once this client has been shut down. */
+    private boolean shutdown;
+
     /** Client configuration options, such as proxy settings, max retries, etc. */
     private final ClientConfiguration config;
 
@@ -212,6 +235,38 @@ public class AmazonHttpClient {
         this.httpClient = httpClient;
         this.requestMetricCollector = requestMetricCollector;
         this.responseMetadataCache = new ResponseMetadataCache(config.getResponseMetadataCacheSize());
+        this.useNioTransport = useNioTransport(config);
+    }
+
+    private static boolean useNioTransport(ClientConfiguration config) {
+        if (!config.useNioTransport())
+            return false;
+        if (config.getApacheHttpClientConfig().getSslSocketFactory() != null) {
+            log.warn("The non-blocking transport can't use a custom SSL socket "
+                    + "factory; asynchronous requests will be sent over the "
+                    + "blocking transport instead");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the non-blocking transport, creating it and starting its I/O
+     * threads on first use.
+     */
+    private synchronized NioHttpTransport nioTransport() {
+        if (nioTransport == null) {
+            if (shutdown)
+                throw new AmazonClientException("The client has been shut down");
+            try {
+                nioTransport = new NioHttpTransport(config,
+                        !strictHostnameVerificationDisabled);
+            } catch (NoClassDefFoundError e) {
+                throw new AmazonClientException("The non-blocking transport requires "
+                        + "org.apache.httpcomponents:httpasyncclient on the classpath", e);
+            }
+        }
+        return nioTransport;
     }
 
     /**
@@ -247,6 +302,9 @@ public class AmazonHttpClient {
             return;
         }
 
+        synchronized (this) {
+            strictHostnameVerificationDisabled = true;
+        }
         try {
             SchemeRegistry schemeRegistry = httpClient.getConnectionManager().getSchemeRegistry();
             SSLSocketFactory sf = config.getApacheHttpClientConfig().getSslSocketFactory();
@@ -283,28 +341,12 @@ public class AmazonHttpClient {
         if (executionContext == null)
             throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
         final List<RequestHandler2> requestHandler2s = requestHandler2s(request, executionContext);
-        AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-        ProgressListener listener = awsreq.getGeneralProgressListener();
-        // add custom headers
-        Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
-        if (customHeaders != null) {
-            request.getHeaders().putAll(customHeaders);
-        }
-        // add custom query parameters
-        Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
-        if (customQueryParams != null) {
-            mergeQueryParameters(request, customQueryParams);
-        }
+        final ProgressListener listener =
+            request.getOriginalRequest().getGeneralProgressListener();
         final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
         Response<T> response = null;
         final InputStream origContent = request.getContent();
-        final InputStream toBeClosed = beforeRequest(request); // for progress tracking
-        // make "notCloseable", so reset would work with retries
-        final InputStream notCloseable = (toBeClosed == null)
-            ? null
-            : ReleasableInputStream.wrap(toBeClosed).disableClose()
-            ;
-        request.setContent(notCloseable);
+        final InputStream toBeClosed = beforeExecution(request);
         try {
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
             response = executeHelper(request, responseHandler,
@@ -324,6 +366,84 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Executes the request in the same way as {@link #execute}, except that
+     * the back-off delay before each retry is waited out on the given retry
+     * scheduler instead of on the calling thread. The first attempt runs on
+     * the calling thread, and every retry runs on the given executor once its
+     * delay has elapsed, so no thread is held while the request is waiting to
+     * be retried.
+     * <p>
+     * If the client configuration enables the non-blocking transport, the
+     * HTTP exchange of every attempt is handed to it as well, and the
+     * response is processed on the given executor once it has been received
+     * in full; see {@link ClientConfiguration#setUseNioTransport(boolean)}.
+     * <p>
+     * The outcome of the execution is reported to the given callback instead
+     * of being returned or thrown.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the
+     *            remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the
+     *            remote server
+     * @param executionContext
+     *            Additional information about the context of this web service
+     *            call
+     * @param executor
+     *            The executor that runs each retry once its delay has elapsed,
+     *            and that processes the responses received by the
+     *            non-blocking transport
+     * @param retryScheduler
+     *            The scheduler used to time the delay before each retry
+     * @param callback
+     *            The callback notified of the outcome of the execution
+     */
+    public <T> void executeAsync(Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            ExecutionContext executionContext,
+            Executor executor,
+            RetryScheduler retryScheduler,
+            ExecutionCallback<T> callback) {
+        if (executionContext == null)
+            throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        new AsyncExecution<T>(request, responseHandler, errorResponseHandler,
+                executionContext, executor, retryScheduler, callback).start();
+    }
+
+    /**
+     * Applies the custom headers and query parameters of the original request
+     * and wraps the request content for progress tracking and retries.
+     *
+     * @return the input stream to be closed once the execution completes; or
+     *         null if the request doesn't have an input stream
+     */
+    private InputStream beforeExecution(Request<?> request) {
+        AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+        // add custom headers
+        Map<String, String> customHeaders = awsreq.getCustomRequestHeaders();
+        if (customHeaders != null) {
+            request.getHeaders().putAll(customHeaders);
+        }
+        // add custom query parameters
+        Map<String, List<String>> customQueryParams = awsreq.getCustomQueryParameters();
+        if (customQueryParams != null) {
+            mergeQueryParameters(request, customQueryParams);
+        }
+        final InputStream toBeClosed = beforeRequest(request); // for progress tracking
+        // make "notCloseable", so reset would work with retries
+        final InputStream notCloseable = (toBeClosed == null)
+            ? null
+            : ReleasableInputStream.wrap(toBeClosed).disableClose()
+            ;
+        request.setContent(notCloseable);
+        return toBeClosed;
+    }
+
     /**
      * Merge query parameters into the given request.
      */
@@ -436,11 +556,27 @@ public class AmazonHttpClient {
             HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
             HttpResponseHandler<AmazonServiceException> errorResponseHandler,
             final ExecutionContext executionContext) {
+        final ExecOneRequestParams p = prepareExecution(request, executionContext);
+        while (true) {
+            Response<T> response = executeAttempt(request, responseHandler,
+                    errorResponseHandler, executionContext, p);
+            if (response != null)
+                return response;
+        } /* end while (true) */
+    }
+
+    /**
+     * Prepares the request for its first attempt, and returns the state that
+     * is carried across all the attempts of its execution.
+     */
+    private ExecOneRequestParams prepareExecution(final Request<?> request,
+            final ExecutionContext executionContext) {
+        final ExecOneRequestParams p = new ExecOneRequestParams();
         /*
          * add the service endpoint to the logs. You can infer service name from
          * service endpoint
          */
-        final AWSRequestMetrics awsRequestMetrics =
+        p.awsRequestMetrics =
             executionContext.getAwsRequestMetrics()
             .addPropertyWith(ServiceName, request.getServiceName())
             .addPropertyWith(ServiceEndpoint, request.getEndpoint())
@@ -449,96 +585,412 @@ public class AmazonHttpClient {
         // user-agent.
         setUserAgent(request);
         // Make a copy of the original request params and headers so that we can
-        // permute it in this loop and start over with the original every time.
-        final Map<String, List<String>> originalParameters =
+        // permute it for each attempt and start over with the original every time.
+        p.originalParameters =
             new LinkedHashMap<String, List<String>>(request.getParameters());
-        final Map<String, String> originalHeaders =
+        p.originalHeaders =
             new HashMap<String, String>(request.getHeaders());
         // Always mark the input stream before execution.
-        final InputStream originalContent = request.getContent();
-        if (originalContent != null && originalContent.markSupported()) {
+        p.originalContent = request.getContent();
+        if (p.originalContent != null && p.originalContent.markSupported()) {
             AmazonWebServiceRequest awsreq = request.getOriginalRequest();
             final int readLimit = awsreq.getRequestClientOptions().getReadLimit();
-            originalContent.mark(readLimit);
+            p.originalContent.mark(readLimit);
         }
-        final ExecOneRequestParams p = new ExecOneRequestParams();
-        while (true) {
-            p.initPerRetry();
-            if (p.redirectedURI != null) {
-                /*
-                 * [scheme:][//authority][path][?query][#fragment]
-                 */
-                String scheme = p.redirectedURI.getScheme();
-                String beforeAuthority = scheme == null ? "" : scheme + "://";
-                String authority = p.redirectedURI.getAuthority();
-                String path = p.redirectedURI.getPath();
-
-                request.setEndpoint(URI.create(beforeAuthority + authority));
-                request.setResourcePath(path);
+        return p;
+    }
+
+    /**
+     * Executes one attempt of the request; returns the response, or null if
+     * the request is to be retried.
+     */
+    private <T> Response<T> executeAttempt(final Request<?> request,
+            HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext executionContext,
+            final ExecOneRequestParams p) {
+        final AWSRequestMetrics awsRequestMetrics = p.awsRequestMetrics;
+        beginAttempt(request, p);
+        try {
+            return executeOneRequest(request, responseHandler,
+                errorResponseHandler, executionContext, awsRequestMetrics,
+                p);
+        } catch (IOException ioe) {
+            return handleAttemptIOException(request, ioe, p);
+        } catch(RuntimeException e) {
+            throw lastReset(
+                    captureExceptionMetrics(e, awsRequestMetrics),
+                    request);
+        } catch(Error e) {
+            throw lastReset(
+                    captureExceptionMetrics(e, awsRequestMetrics),
+                    request);
+        } finally {
+            endAttempt(p);
+        }
+    }
+
+    /**
+     * Restores the request to its original state, pointed at the endpoint
+     * the next attempt is to be sent to.
+     */
+    private void beginAttempt(final Request<?> request,
+            final ExecOneRequestParams p) {
+        p.initPerRetry();
+        if (p.redirectedURI != null) {
+            /*
+             * [scheme:][//authority][path][?query][#fragment]
+             */
+            String scheme = p.redirectedURI.getScheme();
+            String beforeAuthority = scheme == null ? "" : scheme + "://";
+            String authority = p.redirectedURI.getAuthority();
+            String path = p.redirectedURI.getPath();
+
+            request.setEndpoint(URI.create(beforeAuthority + authority));
+            request.setResourcePath(path);
+        }
+        if (p.authRetryParam != null) {
+            request.setEndpoint(p.authRetryParam.getEndpointForRetry());
+        }
+        p.awsRequestMetrics.setCounter(RequestCount, p.requestCount);
+        if (p.isRetry()) {
+            request.setParameters(p.originalParameters);
+            request.setHeaders(p.originalHeaders);
+            request.setContent(p.originalContent);
+        }
+    }
+
+    /**
+     * Handles an I/O failure of an attempt; returns null if the request is to
+     * be retried, or throws the failure as an AmazonClientException.
+     */
+    private <T> Response<T> handleAttemptIOException(final Request<?> request,
+            final IOException ioe, final ExecOneRequestParams p) {
+        if (log.isInfoEnabled()) {
+            log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+        }
+        captureExceptionMetrics(ioe, p.awsRequestMetrics);
+        p.awsRequestMetrics.addProperty(AWSRequestID, null);
+        AmazonClientException ace = new AmazonClientException(
+                "Unable to execute HTTP request: " + ioe.getMessage(),
+                ioe);
+        if (!shouldRetry(request.getOriginalRequest(),
+                        p.apacheRequest,
+                        ace,
+                        p.requestCount,
+                        config.getRetryPolicy())) {
+            throw lastReset(ace, request);
+        }
+        // Cache the retryable exception
+        p.retriedException = ace;
+        return null;
+    }
+
+    /**
+     * Some response handlers need to manually manage the HTTP connection and
+     * will take care of releasing the connection on their own, but if this
+     * response handler doesn't need the connection left open, we go ahead and
+     * release the it to free up resources.
+     */
+    private void endAttempt(final ExecOneRequestParams p) {
+        if (!p.leaveHttpConnectionOpen) {
+            if (p.apacheResponse != null) {
+                HttpEntity entity = p.apacheResponse.getEntity();
+                if (entity != null) {
+                    try {
+                        closeQuietly(entity.getContent(), log);
+                    } catch (IOException e) {
+                        log.warn("Cannot close the response content.", e);
+                    }
+                }
             }
-            if (p.authRetryParam != null) {
-                request.setEndpoint(p.authRetryParam.getEndpointForRetry());
+        }
+    }
+
+    /**
+     * A single request execution whose retries are handed over to a
+     * {@link RetryScheduler} instead of being waited out on the executing
+     * thread.
+     */
+    private class AsyncExecution<T> implements Runnable {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final Executor executor;
+        private final RetryScheduler retryScheduler;
+        private final ExecutionCallback<T> callback;
+        private final ProgressListener listener;
+
+        private List<RequestHandler2> requestHandler2s;
+        private InputStream origContent;
+        private InputStream toBeClosed;
+        private ExecOneRequestParams execParams;
+
+        AsyncExecution(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext,
+                Executor executor,
+                RetryScheduler retryScheduler,
+                ExecutionCallback<T> callback) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.executor = executor;
+            this.retryScheduler = retryScheduler;
+            this.callback = callback;
+            this.listener = request.getOriginalRequest().getGeneralProgressListener();
+        }
+
+        /**
+         * Prepares the execution and runs its first attempt on the calling
+         * thread.
+         */
+        void start() {
+            try {
+                requestHandler2s = requestHandler2s(request, executionContext);
+            } catch (RuntimeException e) {
+                callback.onError(e);
+                return;
             }
-            awsRequestMetrics.setCounter(RequestCount, p.requestCount);
-            if (p.isRetry()) {
-                request.setParameters(originalParameters);
-                request.setHeaders(originalHeaders);
-                request.setContent(originalContent);
+            origContent = request.getContent();
+            try {
+                toBeClosed = beforeExecution(request);
+                publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
+                execParams = prepareExecution(request, executionContext);
+            } catch (RuntimeException e) {
+                fail(e, null);
+                return;
+            }
+            run();
+        }
+
+        /**
+         * Runs one attempt, or several if the service redirects the request,
+         * and then either completes the execution or schedules the next
+         * retry.
+         */
+        @Override
+        public void run() {
+            if (useNioTransport) {
+                sendAttempt();
+                return;
             }
+            Response<T> response;
             try {
-                Response<T> response = executeOneRequest(request, responseHandler,
-                    errorResponseHandler, executionContext, awsRequestMetrics,
-                    p);
-                if (response != null)
-                    return response;
-            } catch (IOException ioe) {
-                if (log.isInfoEnabled()) {
-                    log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+                do {
+                    response = executeAttempt(request, responseHandler,
+                            errorResponseHandler, executionContext, execParams);
+                    // redirects are followed without any delay
+                } while (response == null && execParams.retriedException == null);
+            } catch (RuntimeException e) {
+                fail(e, null);
+                return;
+            } catch (Error e) {
+                fail(e, null);
+                throw e;
+            }
+            if (response != null) {
+                succeed(response);
+            } else {
+                scheduleRetry();
+            }
+        }
+
+        /**
+         * Prepares and signs the next attempt on the current thread, and then
+         * hands its HTTP exchange to the non-blocking transport.
+         */
+        private void sendAttempt() {
+            final AWSRequestMetrics awsRequestMetrics = execParams.awsRequestMetrics;
+            try {
+                beginAttempt(request, execParams);
+                try {
+                    prepareHttpRequest(request, executionContext,
+                            awsRequestMetrics, execParams);
+                } catch (IOException ioe) {
+                    completeAttempt(ioe);
+                    return;
+                }
+                NioHttpTransport transport = nioTransport();
+                if (awsRequestMetrics.isEnabled()) {
+                    capturePoolStats(transport.getTotalStats(), awsRequestMetrics);
                 }
-                captureExceptionMetrics(ioe, awsRequestMetrics);
-                awsRequestMetrics.addProperty(AWSRequestID, null);
-                AmazonClientException ace = new AmazonClientException(
-                        "Unable to execute HTTP request: " + ioe.getMessage(),
-                        ioe);
-                if (!shouldRetry(request.getOriginalRequest(),
-                                p.apacheRequest,
-                                ace,
-                                p.requestCount,
-                                config.getRetryPolicy())) {
-                    throw lastReset(ace, request);
+                HttpContext httpContext = startHttpRequest(request,
+                        awsRequestMetrics, execParams);
+                transport.execute(execParams.apacheRequest, httpContext,
+                        new FutureCallback<org.apache.http.HttpResponse>() {
+                    @Override
+                    public void completed(org.apache.http.HttpResponse apacheResponse) {
+                        awsRequestMetrics.endEvent(HttpRequestTime);
+                        execParams.apacheResponse = apacheResponse;
+                        receiveAttempt(null);
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        awsRequestMetrics.endEvent(HttpRequestTime);
+                        receiveAttempt(e instanceof IOException
+                                ? (IOException) e
+                                : new ClientProtocolException(e));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        awsRequestMetrics.endEvent(HttpRequestTime);
+                        receiveAttempt(new InterruptedIOException(
+                                "The HTTP request was cancelled"));
+                    }
+                });
+            } catch (RuntimeException e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request), null);
+            } catch (Error e) {
+                fail(lastReset(captureExceptionMetrics(e, awsRequestMetrics),
+                        request), null);
+                throw e;
+            }
+        }
+
+        /**
+         * Called on an I/O thread once the HTTP exchange of an attempt has
+         * completed or failed; hands the rest of the attempt over to the
+         * executor.
+         */
+        private void receiveAttempt(final IOException failure) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        completeAttempt(failure);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                endAttempt(execParams);
+                fail(lastReset(new AmazonClientException(
+                        "Unable to process the response of the request: "
+                        + e.getMessage(), e), request), null);
+            }
+        }
+
+        /**
+         * Processes the response to an attempt sent over the non-blocking
+         * transport, and then either completes the execution, follows a
+         * redirect, or schedules the next retry.
+         */
+        private void completeAttempt(IOException failure) {
+            Response<T> response;
+            try {
+                if (failure == null) {
+                    response = processResponse();
+                } else {
+                    response = handleAttemptIOException(request, failure, execParams);
                 }
-                // Cache the retryable exception
-                p.retriedException = ace;
-            } catch(RuntimeException e) {
+            } catch (RuntimeException e) {
+                fail(e, null);
+                return;
+            } catch (Error e) {
+                fail(e, null);
+                throw e;
+            }
+            if (response != null) {
+                succeed(response);
+            } else if (execParams.retriedException == null) {
+                // redirects are followed without any delay
+                sendAttempt();
+            } else {
+                scheduleRetry();
+            }
+        }
+
+        /**
+         * Handles the response received by the non-blocking transport, in
+         * the same way as {@link AmazonHttpClient#executeAttempt} does.
+         */
+        private Response<T> processResponse() {
+            final AWSRequestMetrics awsRequestMetrics = execParams.awsRequestMetrics;
+            try {
+                return afterHttpRequest(request, responseHandler,
+                        errorResponseHandler, executionContext,
+                        awsRequestMetrics, execParams);
+            } catch (IOException ioe) {
+                return handleAttemptIOException(request, ioe, execParams);
+            } catch (RuntimeException e) {
                 throw lastReset(
                         captureExceptionMetrics(e, awsRequestMetrics),
                         request);
-            } catch(Error e) {
+            } catch (Error e) {
                 throw lastReset(
                         captureExceptionMetrics(e, awsRequestMetrics),
                         request);
             } finally {
-                /*
-                 * Some response handlers need to manually manage the HTTP
-                 * connection and will take care of releasing the connection on
-                 * their own, but if this response handler doesn't need the
-                 * connection left open, we go ahead and release the it to free
-                 * up resources.
-                 */
-                if (!p.leaveHttpConnectionOpen) {
-                    if (p.apacheResponse != null) {
-                        HttpEntity entity = p.apacheResponse.getEntity();
-                        if (entity != null) {
-                            try {
-                                closeQuietly(entity.getContent(), log);
-                            } catch (IOException e) {
-                                log.warn("Cannot close the response content.", e);
-                            }
+                endAttempt(execParams);
+            }
+        }
+
+        private void scheduleRetry() {
+            final long delay = delayBeforeNextRetry(request.getOriginalRequest(),
+                    execParams.retriedException, execParams.requestCount + 1,
+                    config.getRetryPolicy());
+            execParams.awsRequestMetrics.startEvent(RetryPauseTime);
+            execParams.retryPauseScheduled = true;
+            try {
+                retryScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            executor.execute(AsyncExecution.this);
+                        } catch (RejectedExecutionException e) {
+                            fail(retryRejected(e), null);
                         }
                     }
+                }, delay);
+            } catch (RejectedExecutionException e) {
+                fail(retryRejected(e), null);
+            }
+        }
+
+        private AmazonClientException retryRejected(RejectedExecutionException e) {
+            return lastReset(new AmazonClientException(
+                    "Unable to schedule the retry of the request: "
+                    + e.getMessage(), e), request);
+        }
+
+        private void succeed(Response<T> response) {
+            try {
+                publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
+                TimingInfo timingInfo = executionContext.getAwsRequestMetrics()
+                        .getTimingInfo().endTiming();
+                afterResponse(request, requestHandler2s, response, timingInfo);
+            } catch (RuntimeException e) {
+                fail(e, response);
+                return;
+            }
+            endExecution();
+            callback.onSuccess(response);
+        }
+
+        private void fail(Throwable t, Response<T> response) {
+            try {
+                if (t instanceof AmazonClientException) {
+                    publishProgress(listener, ProgressEventType.CLIENT_REQUEST_FAILED_EVENT);
+                    afterError(request, response, requestHandler2s, (AmazonClientException) t);
                 }
+            } catch (RuntimeException e) {
+                t = e;
+            } finally {
+                endExecution();
             }
-        } /* end while (true) */
+            callback.onError(t);
+        }
+
+        private void endExecution() {
+            // Always close so any progress tracking would get the final events propagated.
+            closeQuietly(toBeClosed, log);
+            request.setContent(origContent); // restore the original content
+        }
     }
 
     /**
@@ -577,6 +1029,16 @@ public class AmazonHttpClient {
         private URI signerURI;
         int requestCount; // monotonic increasing
         AmazonClientException retriedException; // last retryable exception
+        /*
+         * Set when the delay before the next retry has been waited out on a
+         * RetryScheduler rather than being due before the next attempt.
+         */
+        boolean retryPauseScheduled;
+
+        AWSRequestMetrics awsRequestMetrics;
+        Map<String, List<String>> originalParameters;
+        Map<String, String> originalHeaders;
+        InputStream originalContent;
 
         HttpRequestBase apacheRequest;
         org.apache.http.HttpResponse apacheResponse;
@@ -654,6 +1116,31 @@ public class AmazonHttpClient {
             final AWSRequestMetrics awsRequestMetrics,
             ExecOneRequestParams execParams)
             throws IOException {
+        prepareHttpRequest(request, execContext, awsRequestMetrics, execParams);
+        captureConnectionPoolMetrics(httpClient.getConnectionManager(), awsRequestMetrics);
+        final HttpContext httpContext = startHttpRequest(request,
+                awsRequestMetrics, execParams);
+
+        /////////// Send HTTP request ////////////
+        try {
+            execParams.apacheResponse = httpClient.execute(execParams.apacheRequest, httpContext);
+        } finally {
+            awsRequestMetrics.endEvent(HttpRequestTime);
+        }
+        return afterHttpRequest(request, responseHandler, errorResponseHandler,
+                execContext, awsRequestMetrics, execParams);
+    }
+
+    /**
+     * Resets the request content and waits out the retry delay if this is a
+     * retry, then signs the request and creates the Apache HTTP request to
+     * send.
+     */
+    private void prepareHttpRequest(final Request<?> request,
+            final ExecutionContext execContext,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams execParams)
+            throws IOException {
         // Reset the request input stream
         if (execParams.isRetry()) {
             InputStream requestInputStream = request.getContent();
@@ -675,18 +1162,24 @@ public class AmazonHttpClient {
 
         if (execParams.isRetry()) {
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
-            // Notify the progress listener of the retry
-            awsRequestMetrics.startEvent(RetryPauseTime);
-            try {
-                // don't pause if the retry was not due to a redirection
-                // ie when retried exception is null
-                if (execParams.retriedException != null) {
-                    pauseBeforeNextRetry(request.getOriginalRequest(),
-                        execParams.retriedException, execParams.requestCount,
-                        config.getRetryPolicy());
-                }
-            } finally {
+            if (execParams.retryPauseScheduled) {
+                // the delay has already elapsed on the retry scheduler
+                execParams.retryPauseScheduled = false;
                 awsRequestMetrics.endEvent(RetryPauseTime);
+            } else {
+                // Notify the progress listener of the retry
+                awsRequestMetrics.startEvent(RetryPauseTime);
+                try {
+                    // don't pause if the retry was not due to a redirection
+                    // ie when retried exception is null
+                    if (execParams.retriedException != null) {
+                        pauseBeforeNextRetry(request.getOriginalRequest(),
+                            execParams.retriedException, execParams.requestCount,
+                            config.getRetryPolicy());
+                    }
+                } finally {
+                    awsRequestMetrics.endEvent(RetryPauseTime);
+                }
             }
         }
 
@@ -712,25 +1205,41 @@ public class AmazonHttpClient {
             }
         }
         execParams.newApacheRequest(httpRequestFactory, request, config, execContext);
+    }
 
-        captureConnectionPoolMetrics(httpClient.getConnectionManager(), awsRequestMetrics);
+    /**
+     * Returns the context for sending the prepared Apache HTTP request, and
+     * starts timing the HTTP exchange; the caller ends the
+     * {@link Field#HttpRequestTime} event once it is over.
+     */
+    private HttpContext startHttpRequest(final Request<?> request,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams execParams) {
         HttpContext httpContext = new BasicHttpContext();
         httpContext.setAttribute(
             AWSRequestMetrics.class.getSimpleName(),
             awsRequestMetrics);
         execParams.resetBeforeHttpRequest();
-        publishProgress(listener, ProgressEventType.HTTP_REQUEST_STARTED_EVENT);
+        publishProgress(request.getOriginalRequest().getGeneralProgressListener(),
+                ProgressEventType.HTTP_REQUEST_STARTED_EVENT);
         awsRequestMetrics.startEvent(HttpRequestTime);
+        return httpContext;
+    }
 
-        /////////// Send HTTP request ////////////
-        final boolean isHeaderReqIdAvail;
-        try {
-            execParams.apacheResponse = httpClient.execute(execParams.apacheRequest, httpContext);
-            isHeaderReqIdAvail = logHeaderRequestId(execParams.apacheResponse);
-        } finally {
-            awsRequestMetrics.endEvent(HttpRequestTime);
-        }
-
+    /**
+     * Handles the Apache HTTP response received for the request; returns the
+     * response, or null for retry.
+     */
+    private <T> Response<T> afterHttpRequest(final Request<?> request,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext execContext,
+            final AWSRequestMetrics awsRequestMetrics,
+            ExecOneRequestParams execParams)
+            throws IOException {
+        final boolean isHeaderReqIdAvail = logHeaderRequestId(execParams.apacheResponse);
+        final ProgressListener listener =
+            request.getOriginalRequest().getGeneralProgressListener();
         publishProgress(listener, ProgressEventType.HTTP_REQUEST_COMPLETED_EVENT);
         final StatusLine statusLine = execParams.apacheResponse.getStatusLine();
         final int statusCode = statusLine == null ? -1 : statusLine.getStatusCode();
@@ -865,15 +1374,23 @@ public class AmazonHttpClient {
         if (awsRequestMetrics.isEnabled()
                 && connectionManager instanceof ConnPoolControl) {
             ConnPoolControl<?> control = (ConnPoolControl<?>) connectionManager;
-            PoolStats stats = control.getTotalStats();
-            awsRequestMetrics
-                .withCounter(HttpClientPoolAvailableCount, stats.getAvailable())
-                .withCounter(HttpClientPoolLeasedCount, stats.getLeased())
-                .withCounter(HttpClientPoolPendingCount, stats.getPending())
-                ;
+            capturePoolStats(control.getTotalStats(), awsRequestMetrics);
         }
     }
 
+    /**
+     * Captures the given connection pool statistics. Reading them takes the
+     * lock of the pool, so callers only do so when metrics are enabled.
+     */
+    private static void capturePoolStats(PoolStats stats,
+            AWSRequestMetrics awsRequestMetrics) {
+        awsRequestMetrics
+            .withCounter(HttpClientPoolAvailableCount, stats.getAvailable())
+            .withCounter(HttpClientPoolLeasedCount, stats.getLeased())
+            .withCounter(HttpClientPoolPendingCount, stats.getPending())
+            ;
+    }
+
     /**
      * Capture the metrics for the given throwable.
      */
@@ -934,6 +1451,14 @@ public class AmazonHttpClient {
     public void shutdown() {
         IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
         httpClient.getConnectionManager().shutdown();
+        NioHttpTransport transport;
+        synchronized (this) {
+            shutdown = true;
+            transport = nioTransport;
+        }
+        if (transport != null) {
+            transport.shutdown();
+        }
     }
 
     /**
@@ -1232,6 +1757,34 @@ public class AmazonHttpClient {
                                     AmazonClientException previousException,
                                     int requestCount,
                                     RetryPolicy retryPolicy) {
+        final long delay = delayBeforeNextRetry(originalRequest,
+                previousException, requestCount, retryPolicy);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the delay (in milliseconds) before the next retry, as computed
+     * by the back-off strategy of the given retry policy.
+     *
+     * @param originalRequest
+     *            The original service request that is being executed.
+     * @param previousException
+     *            Exception information for the previous attempt, if any.
+     * @param requestCount
+     *            current request count (including the next attempt after the delay)
+     * @param retryPolicy
+     *            The retry policy configured in this http client.
+     */
+    private long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                                      AmazonClientException previousException,
+                                      int requestCount,
+                                      RetryPolicy retryPolicy) {
         final int retries = requestCount // including next attempt
                             - 1          // number of attempted requests
                             - 1;         // number of attempted retries
@@ -1243,13 +1796,7 @@ public class AmazonHttpClient {
             log.debug("Retriable error detected, " +
                     "will retry in " + delay + "ms, attempt number: " + retries);
         }
-
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AmazonClientException(e.getMessage(), e);
-        }
+        return delay;
     }
 
     // SWF: Signature not yet current: 20140819T173921Z is still later than 20140819T173829Z (20140819T173329Z + 5 min.)
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import com.amazonaws.Response;
+
+/**
+ * Callback notified exactly once when a request executed through
+ * {@link AmazonHttpClient#executeAsync} completes, whether it succeeded or
+ * ultimately failed after exhausting all retries.
+ *
+ * @param <T>
+ *            The type of the unmarshalled response
+ */
+public interface ExecutionCallback<T> {
+
+    /**
+     * Invoked with the response of the successful attempt.
+     */
+    void onSuccess(Response<T> response);
+
+    /**
+     * Invoked with the failure that ended the execution; this is the same
+     * exception {@link AmazonHttpClient#execute} would have thrown.
+     */
+    void onError(Throwable t);
+}
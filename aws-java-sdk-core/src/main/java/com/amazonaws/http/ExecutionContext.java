@@ -22,9 +22,11 @@ import org.apache.http.annotation.NotThreadSafe;
 import com.amazonaws.AmazonWebServiceClient;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.Signer;
+import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.retry.internal.AuthErrorRetryStrategy;
 import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetricsCompact;
 import com.amazonaws.util.AWSRequestMetricsFullSupport;
 
 @NotThreadSafe
@@ -55,7 +57,9 @@ public class ExecutionContext {
                             AmazonWebServiceClient awsClient) {
         this.requestHandler2s = requestHandler2s;
         awsRequestMetrics = isMetricEnabled
-                          ? new AWSRequestMetricsFullSupport()
+                          ? (AwsSdkMetrics.isCompactRequestMetrics()
+                             ? new AWSRequestMetricsCompact()
+                             : new AWSRequestMetricsFullSupport())
                           : new AWSRequestMetrics();
         this.awsClient = awsClient;
     }
@@ -172,49 +172,57 @@ class HttpClientFactory {
         /* Accept Gzip response if configured */
         if (config.useGzip()) {
 
-            httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
-
-                @Override
-                public void process(final HttpRequest request,
-                        final HttpContext context) throws HttpException,
-                        IOException {
-                    if (!request.containsHeader("Accept-Encoding")) {
-                        request.addHeader("Accept-Encoding", "gzip");
-                    }
-                }
+            httpClient.addRequestInterceptor(new GzipRequestInterceptor());
+            httpClient.addResponseInterceptor(new GzipResponseInterceptor());
+        }
+
+        return httpClient;
+    }
+
+
+    /**
+     * Asks for gzip encoded responses, unless the request already specifies
+     * an encoding.
+     */
+    static final class GzipRequestInterceptor implements HttpRequestInterceptor {
+
+        @Override
+        public void process(final HttpRequest request,
+                final HttpContext context) throws HttpException,
+                IOException {
+            if (!request.containsHeader("Accept-Encoding")) {
+                request.addHeader("Accept-Encoding", "gzip");
+            }
+        }
+    }
+
+    /**
+     * Decompresses gzip encoded response entities.
+     */
+    static final class GzipResponseInterceptor implements HttpResponseInterceptor {
 
-            });
-
-            httpClient.addResponseInterceptor(new HttpResponseInterceptor() {
-
-                @Override
-                public void process(final HttpResponse response,
-                        final HttpContext context) throws HttpException,
-                        IOException {
-                    HttpEntity entity = response.getEntity();
-                    if (entity != null) {
-                        Header ceheader = entity.getContentEncoding();
-                        if (ceheader != null) {
-                            HeaderElement[] codecs = ceheader.getElements();
-                            for (int i = 0; i < codecs.length; i++) {
-                                if (codecs[i].getName()
-                                        .equalsIgnoreCase("gzip")) {
-                                    response.setEntity(new GzipDecompressingEntity(
-                                            response.getEntity()));
-                                    return;
-                                }
-                            }
+        @Override
+        public void process(final HttpResponse response,
+                final HttpContext context) throws HttpException,
+                IOException {
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                Header ceheader = entity.getContentEncoding();
+                if (ceheader != null) {
+                    HeaderElement[] codecs = ceheader.getElements();
+                    for (int i = 0; i < codecs.length; i++) {
+                        if (codecs[i].getName()
+                                .equalsIgnoreCase("gzip")) {
+                            response.setEntity(new GzipDecompressingEntity(
+                                    response.getEntity()));
+                            return;
                         }
                     }
                 }
-
-            });
+            }
         }
-
-        return httpClient;
     }
 
-
     /**
      * Disable http redirect inside Apache HttpClient.
      */
@@ -297,7 +305,7 @@ class HttpClientFactory {
      * Simple implementation of X509TrustManager that trusts all certificates.
      * This class is only intended to be used for testing purposes.
      */
-    private static class TrustingX509TrustManager implements X509TrustManager {
+    static class TrustingX509TrustManager implements X509TrustManager {
         private static final X509Certificate[] X509_CERTIFICATES = new X509Certificate[0];
 
         @Override
@@ -322,7 +330,7 @@ class HttpClientFactory {
      * HttpRequestInterceptor implementation to set up pre-emptive
      * authentication against a defined basic proxy server.
      */
-    private static class PreemptiveProxyAuth implements HttpRequestInterceptor {
+    static class PreemptiveProxyAuth implements HttpRequestInterceptor {
         private final HttpHost proxyHost;
 
         public PreemptiveProxyAuth(HttpHost proxyHost) {
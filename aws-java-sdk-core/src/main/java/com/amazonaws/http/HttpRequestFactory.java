@@ -15,7 +15,6 @@
 package com.amazonaws.http;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.Map.Entry;
 
@@ -28,12 +27,12 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.BufferedHttpEntity;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.params.CoreProtocolPNames;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Request;
+import com.amazonaws.util.EncodedParameters;
 import com.amazonaws.util.FakeIOException;
 import com.amazonaws.util.HttpUtils;
 
@@ -66,7 +65,11 @@ class HttpRequestFactory {
          * into "/%2F"
          */
         String uri = HttpUtils.appendUri(endpoint.toString(), request.getResourcePath(), true);
-        String encodedParams = HttpUtils.encodeParameters(request);
+        /*
+         * The signer has usually encoded the parameters already, for the
+         * payload of a POST request, in which case they are shared.
+         */
+        EncodedParameters encodedParams = EncodedParameters.of(request);
 
         /*
          * For all non-POST requests, and any POST requests that already have a
@@ -92,7 +95,7 @@ class HttpRequestFactory {
              * POST requests, but we can't do that for S3.
              */
             if (request.getContent() == null && encodedParams != null) {
-                postMethod.setEntity(newStringEntity(encodedParams));
+                postMethod.setEntity(encodedParams.newEntity());
             } else {
                 postMethod.setEntity(new RepeatableInputStreamRequestEntity(request));
             }
@@ -215,23 +218,6 @@ class HttpRequestFactory {
         }
     }
 
-    /**
-     * Utility function for creating a new StringEntity and wrapping any errors
-     * as an AmazonClientException.
-     *
-     * @param s
-     *            The string contents of the returned HTTP entity.
-     *
-     * @return A new StringEntity with the specified contents.
-     */
-    private HttpEntity newStringEntity(String s) {
-        try {
-            return new StringEntity(s);
-        } catch (UnsupportedEncodingException e) {
-            throw new AmazonClientException("Unable to create HTTP entity: " + e.getMessage(), e);
-        }
-    }
-
     /**
      * Utility function for creating a new BufferedEntity and wrapping any errors
      * as an AmazonClientException.
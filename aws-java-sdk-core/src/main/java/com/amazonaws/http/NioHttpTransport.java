@@ -0,0 +1,230 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static com.amazonaws.SDKGlobalConfiguration.DISABLE_CERT_CHECKING_SYSTEM_PROPERTY;
+
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.NTCredentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.ApacheHttpClientConfig;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.http.conn.SdkConnectionKeepAliveStrategy;
+
+/**
+ * Sends HTTP requests over non-blocking I/O with Apache HttpAsyncClient, so
+ * that requests waiting on the network don't each hold a thread. It is
+ * configured from the same {@link ClientConfiguration} settings as the
+ * blocking client created by {@link HttpClientFactory}: timeouts, connection
+ * limits, proxy, TLS and gzip.
+ * <p>
+ * TLS uses the default SSL context, with the same hostname verification as
+ * the blocking client; a custom {@link ApacheHttpClientConfig#getSslSocketFactory()
+ * SSL socket factory} can't be used for non-blocking I/O, so clients
+ * configured with one don't use this transport.
+ * <p>
+ * Response entities are read in full on the I/O threads before the callback
+ * is notified, so the existing {@link HttpResponseHandler}s can process them
+ * on any thread without blocking on the network. Request entities are read
+ * from their content stream on the I/O threads.
+ * <p>
+ * HttpAsyncClient is an optional dependency of the SDK; this class must only
+ * be loaded when the non-blocking transport has been enabled with
+ * {@link ClientConfiguration#setUseNioTransport(boolean)}.
+ */
+@ThreadSafe
+class NioHttpTransport {
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+
+    /**
+     * Creates the transport and starts its I/O threads.
+     *
+     * @param strictHostnameVerification
+     *            false to verify the hostname of servers as a browser would,
+     *            as after {@link AmazonHttpClient#disableStrictHostnameVerification()}
+     */
+    NioHttpTransport(ClientConfiguration config, boolean strictHostnameVerification) {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSoTimeout(config.getSocketTimeout())
+                .setTcpNoDelay(true)
+                .setSoKeepAlive(config.useTcpKeepAlive());
+        int socketSendBufferSizeHint = config.getSocketBufferSizeHints()[0];
+        int socketReceiveBufferSizeHint = config.getSocketBufferSizeHints()[1];
+        if (socketSendBufferSizeHint > 0) {
+            ioReactorConfig.setSndBufSize(socketSendBufferSizeHint);
+        }
+        if (socketReceiveBufferSizeHint > 0) {
+            ioReactorConfig.setRcvBufSize(socketReceiveBufferSizeHint);
+        }
+
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig.build()),
+                    ManagedNHttpClientConnectionFactory.INSTANCE,
+                    createSessionStrategyRegistry(strictHostnameVerification),
+                    new DelegatingDnsResolver(config.getDnsResolver()));
+        } catch (IOReactorException e) {
+            throw new AmazonClientException("Unable to create the I/O reactor", e);
+        }
+        connectionManager.setMaxTotal(config.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnections());
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectionTimeout())
+                .setSocketTimeout(config.getSocketTimeout())
+                .setStaleConnectionCheckEnabled(true)
+                .setRedirectsEnabled(false)
+                .setLocalAddress(config.getLocalAddress());
+
+        HttpAsyncClientBuilder builder = HttpAsyncClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .disableCookieManagement();
+
+        if (config.getConnectionMaxIdleMillis() > 0) {
+            builder.setKeepAliveStrategy(new SdkConnectionKeepAliveStrategy(
+                    config.getConnectionMaxIdleMillis()));
+        }
+
+        /* Set proxy if configured */
+        String proxyHost = config.getProxyHost();
+        int proxyPort = config.getProxyPort();
+        if (proxyHost != null && proxyPort > 0) {
+            AmazonHttpClient.log.info("Configuring Proxy. Proxy Host: " + proxyHost + " " + "Proxy Port: " + proxyPort);
+            HttpHost proxyHttpHost = new HttpHost(proxyHost, proxyPort);
+            requestConfig.setProxy(proxyHttpHost);
+
+            String proxyUsername    = config.getProxyUsername();
+            String proxyPassword    = config.getProxyPassword();
+            String proxyDomain      = config.getProxyDomain();
+            String proxyWorkstation = config.getProxyWorkstation();
+
+            if (proxyUsername != null && proxyPassword != null) {
+                BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(
+                        new AuthScope(proxyHost, proxyPort),
+                        new NTCredentials(proxyUsername, proxyPassword, proxyWorkstation, proxyDomain));
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+
+            if (config.isPreemptiveBasicProxyAuth()) {
+                builder.addInterceptorFirst(
+                        new HttpClientFactory.PreemptiveProxyAuth(proxyHttpHost));
+            }
+        }
+
+        /* Accept Gzip response if configured */
+        if (config.useGzip()) {
+            builder.addInterceptorLast(new HttpClientFactory.GzipRequestInterceptor());
+            builder.addInterceptorLast(new HttpClientFactory.GzipResponseInterceptor());
+        }
+
+        httpAsyncClient = builder.setDefaultRequestConfig(requestConfig.build())
+                .build();
+        httpAsyncClient.start();
+    }
+
+    private static Registry<SchemeIOSessionStrategy> createSessionStrategyRegistry(
+            boolean strictHostnameVerification) {
+        SSLIOSessionStrategy https;
+        try {
+            if (System.getProperty(DISABLE_CERT_CHECKING_SYSTEM_PROPERTY) != null) {
+                /*
+                 * SSL cert checking for endpoints has been explicitly
+                 * disabled, so self-signed certs must not error out.
+                 */
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, new TrustManager[] {
+                        new HttpClientFactory.TrustingX509TrustManager() }, null);
+                https = new SSLIOSessionStrategy(context,
+                        SSLIOSessionStrategy.ALLOW_ALL_HOSTNAME_VERIFIER);
+            } else {
+                https = new SSLIOSessionStrategy(SSLContext.getDefault(),
+                        strictHostnameVerification
+                        ? SSLIOSessionStrategy.STRICT_HOSTNAME_VERIFIER
+                        : SSLIOSessionStrategy.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to access default SSL context", e);
+        } catch (KeyManagementException e) {
+            throw new AmazonClientException("Unable to initialize SSL context", e);
+        }
+        return RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", https)
+                .build();
+    }
+
+    /**
+     * Sends the given request and notifies the callback, on an I/O thread,
+     * once the complete response has been received or the exchange has
+     * failed. This method doesn't block.
+     */
+    void execute(HttpUriRequest request, HttpContext context,
+            FutureCallback<HttpResponse> callback) {
+        httpAsyncClient.execute(request, context, callback);
+    }
+
+    /**
+     * Returns the statistics of the connection pool across all routes.
+     */
+    PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Closes all connections and stops the I/O threads. Requests still in
+     * flight are cancelled.
+     */
+    void shutdown() {
+        try {
+            httpAsyncClient.close();
+        } catch (IOException e) {
+            AmazonHttpClient.log.debug("Unable to shut down the non-blocking HTTP client", e);
+        }
+    }
+}
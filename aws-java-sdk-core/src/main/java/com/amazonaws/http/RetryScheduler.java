@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * Timer used to wait out the back-off delay between two attempts of a retried
+ * request without holding the thread that executed the failed attempt.
+ * <p>
+ * Only the hand-off of the next attempt happens on the scheduler thread; the
+ * attempt itself is always run on the executor of the client that issued the
+ * request. A single scheduler can therefore be shared by any number of
+ * clients.
+ *
+ * @see AmazonHttpClient#executeAsync
+ */
+@ThreadSafe
+public class RetryScheduler {
+
+    /**
+     * Lazily created scheduler shared by all clients that don't specify
+     * their own.
+     */
+    private static final class DefaultHolder {
+        static final RetryScheduler INSTANCE = new RetryScheduler(
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "java-sdk-retry-scheduler");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                }));
+    }
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a retry scheduler that uses the given executor service to
+     * time back-off delays. The tasks submitted to it are expected to return
+     * immediately.
+     */
+    public RetryScheduler(ScheduledExecutorService scheduler) {
+        if (scheduler == null)
+            throw new IllegalArgumentException("scheduler cannot be null");
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns the retry scheduler shared by default across all clients. It
+     * runs on a single daemon thread.
+     */
+    public static RetryScheduler getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Runs the given task once the given delay has elapsed.
+     *
+     * @param task
+     *            task handing the next attempt over to a client executor
+     * @param delayMillis
+     *            the back-off delay, in milliseconds
+     *
+     * @throws java.util.concurrent.RejectedExecutionException
+     *             if the underlying scheduler has been shut down
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Shuts down the underlying scheduler. Retries that have already been
+     * scheduled still run, but no new retries can be scheduled.
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
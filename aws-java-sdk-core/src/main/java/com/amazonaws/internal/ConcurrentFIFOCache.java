@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A bounded cache that evicts its earliest entries when the cache is full,
+ * without taking any lock on either lookups or additions.
+ * <p>
+ * Unlike {@link FIFOCache}, the eviction order and the maximum size are only
+ * honored approximately while entries are being added concurrently: the
+ * cache may briefly hold slightly more entries than its maximum size, and
+ * concurrent evictions may not remove the entries in the exact order they
+ * were added. Lookups are never blocked by additions, which makes this cache
+ * suitable for read-mostly data looked up on every request, such as signing
+ * keys.
+ *
+ * @param <T>
+ *            value type
+ */
+@ThreadSafe
+public final class ConcurrentFIFOCache<T> {
+    private final ConcurrentMap<String, T> map;
+    /** Keys in the order they were first added. */
+    private final Queue<String> insertionOrder;
+    /** Number of keys in the insertion order queue. */
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
+    /**
+     * @param maxSize
+     *            the maximum number of entries of the cache
+     */
+    public ConcurrentFIFOCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize " + maxSize
+                    + " must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<String, T>(maxSize * 4 / 3 + 1);
+        this.insertionOrder = new ConcurrentLinkedQueue<String>();
+    }
+
+    /**
+     * Adds an entry to the cache, evicting the earliest entry if necessary.
+     * Null values are not cached.
+     *
+     * @return the previous value of the given key, or null if there was none
+     */
+    public T add(String key, T value) {
+        if (value == null) {
+            return null;
+        }
+        T previous = map.put(key, value);
+        if (previous == null) {
+            // The key must be queued before it is counted, so that any
+            // counted key can always be polled for eviction.
+            insertionOrder.offer(key);
+            if (size.incrementAndGet() > maxSize) {
+                evict();
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Evicts the earliest entries until the cache is back to its maximum
+     * size.
+     */
+    private void evict() {
+        for (;;) {
+            int current = size.get();
+            if (current <= maxSize) {
+                return;
+            }
+            if (size.compareAndSet(current, current - 1)) {
+                String eldest = insertionOrder.poll();
+                if (eldest != null) {
+                    map.remove(eldest);
+                }
+            }
+        }
+    }
+
+    /** Returns the value of the given key; or null of no such entry exists. */
+    public T get(String key) {
+        return map.get(key);
+    }
+
+    /**
+     * Returns the current size of the cache.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the maximum size of the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
@@ -22,6 +22,9 @@ import com.amazonaws.annotation.ThreadSafe;
 
 /**
  * A bounded cache that has a FIFO eviction policy when the cache is full.
+ * <p>
+ * All accesses to this cache are serialized by a read-write lock; for caches
+ * looked up on every request, prefer {@link ConcurrentFIFOCache}.
  *
  * @param <T>
  *            value type
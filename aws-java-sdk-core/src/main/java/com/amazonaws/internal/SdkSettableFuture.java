@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A future whose outcome is set explicitly by whoever completes the
+ * underlying operation, rather than by running a task. Used by asynchronous
+ * clients to hand out a future for a request that may complete on a
+ * different thread than the one it started on.
+ *
+ * @param <V>
+ *            The type of the result
+ */
+public class SdkSettableFuture<V> extends FutureTask<V> {
+
+    private static final Callable<Object> NO_OP = new Callable<Object>() {
+        @Override
+        public Object call() {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    public SdkSettableFuture() {
+        super((Callable<V>) NO_OP);
+    }
+
+    /**
+     * Completes this future with the given result, unless it has already
+     * been completed or cancelled.
+     */
+    @Override
+    public void set(V v) {
+        super.set(v);
+    }
+
+    /**
+     * Completes this future with the given failure, unless it has already
+     * been completed or cancelled.
+     */
+    @Override
+    public void setException(Throwable t) {
+        super.setException(t);
+    }
+
+    /**
+     * This future has no task of its own to run; it is completed through
+     * {@link #set(Object)} or {@link #setException(Throwable)} only.
+     */
+    @Override
+    public void run() {
+    }
+}
@@ -36,6 +36,7 @@ import com.amazonaws.auth.PropertiesCredentials;
 import com.amazonaws.jmx.spi.SdkMBeanRegistry;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsCompact;
 import com.amazonaws.util.AWSServiceMetrics;
 
 /**
@@ -115,6 +116,18 @@ public enum AwsSdkMetrics {
      */
     public static final String INCLUDE_PER_HOST_METRICS = "includePerHostMetrics";
 
+    /**
+     * Used to record the metrics of each request in a compact form, with less
+     * overhead per request, when the AWS SDK default metrics is enabled.
+     * By default, the metrics of each request are recorded by name in maps.
+     *
+     * <pre>
+     * Example:
+     *  -Dcom.amazonaws.sdk.enableDefaultMetrics=useCompactRequestMetrics
+     * </pre>
+     */
+    public static final String USE_COMPACT_REQUEST_METRICS = "useCompactRequestMetrics";
+
     /**
      * Used to specify an AWS credential property file.
      * By default, the {@link DefaultAWSCredentialsProviderChain} is used.
@@ -246,6 +259,11 @@ public enum AwsSdkMetrics {
      * false otherwise.
      */
     private static volatile boolean singleMetricNamespace;
+    /**
+     * True if the metrics of each request are to be recorded by
+     * {@link AWSRequestMetricsCompact}; false otherwise.
+     */
+    private static volatile boolean compactRequestMetrics;
 
     static {
         String defaultMetrics = System.getProperty(DEFAULT_METRICS_SYSTEM_PROPERTY);
@@ -255,6 +273,7 @@ public enum AwsSdkMetrics {
             boolean excludeMachineMetrics = false;
             boolean includePerHostMetrics = false;
             boolean useSingleMetricNamespace = false;
+            boolean useCompactRequestMetrics = false;
             for (String s: values) {
                 String part = s.trim();
                 if (!excludeMachineMetrics && EXCLUDE_MACHINE_METRICS.equals(part)) {
@@ -263,6 +282,8 @@ public enum AwsSdkMetrics {
                     includePerHostMetrics = true;
                 } else if (!useSingleMetricNamespace && USE_SINGLE_METRIC_NAMESPACE.equals(part)) {
                     useSingleMetricNamespace = true;
+                } else if (!useCompactRequestMetrics && USE_COMPACT_REQUEST_METRICS.equals(part)) {
+                    useCompactRequestMetrics = true;
                 } else {
                     String[] pair = part.split("=");
                     if (pair.length == 2) {
@@ -301,6 +322,7 @@ public enum AwsSdkMetrics {
             machineMetricsExcluded = excludeMachineMetrics;
             perHostMetricsIncluded = includePerHostMetrics;
             singleMetricNamespace = useSingleMetricNamespace;
+            compactRequestMetrics = useCompactRequestMetrics;
         }
     }
 
@@ -510,6 +532,26 @@ public enum AwsSdkMetrics {
         AwsSdkMetrics.singleMetricNamespace = singleMetricNamespace;
     }
 
+    /**
+     * Returns true if the metrics of each request are recorded in the compact
+     * form of {@link AWSRequestMetricsCompact}; false otherwise.
+     */
+    public static boolean isCompactRequestMetrics() {
+        return compactRequestMetrics;
+    }
+
+    /**
+     * Used to set whether the metrics of each request are to be recorded in
+     * the compact form of {@link AWSRequestMetricsCompact}, which has less
+     * overhead per request. Applies to the requests started afterwards.
+     *
+     * @param compactRequestMetrics
+     *            true if the compact form is to be used; false otherwise.
+     */
+    public static void setCompactRequestMetrics(boolean compactRequestMetrics) {
+        AwsSdkMetrics.compactRequestMetrics = compactRequestMetrics;
+    }
+
     /**
      * Returns true if metrics at the AWS SDK level is enabled; false
      * if disabled.
@@ -16,6 +16,9 @@ package com.amazonaws.metrics;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 import com.amazonaws.regions.Regions;
 
@@ -144,4 +147,59 @@ public class MetricAdmin implements MetricAdminMBean {
     public void setSingleMetricNamespace(boolean singleMetricNamespace) {
         AwsSdkMetrics.setSingleMetricNamespace(singleMetricNamespace);
     }
-}
\ No newline at end of file
+    @Override
+    public boolean isCompactRequestMetrics() {
+        return AwsSdkMetrics.isCompactRequestMetrics();
+    }
+    @Override
+    public void setCompactRequestMetrics(boolean compactRequestMetrics) {
+        AwsSdkMetrics.setCompactRequestMetrics(compactRequestMetrics);
+    }
+    @Override
+    public String[] getLatencyHistogramNames() {
+        return latencySnapshots().keySet().toArray(new String[0]);
+    }
+    @Override
+    public double getLatencyPercentile(String histogramName, double percentile) {
+        MetricHistogram.Snapshot snapshot = latencySnapshots().get(histogramName);
+        return snapshot == null ? Double.NaN : snapshot.getValueAtPercentile(percentile);
+    }
+    @Override
+    public String getLatencySummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, MetricHistogram.Snapshot> e: latencySnapshots().entrySet()) {
+            if (sb.length() > 0)
+                sb.append("\n");
+            sb.append(e.getKey()).append(": ").append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the snapshots of the latency histograms of both the request and
+     * service metric collectors, sorted by name. A histogram shared by the two
+     * collectors is only counted once.
+     */
+    private Map<String, MetricHistogram.Snapshot> latencySnapshots() {
+        Map<String, MetricHistogram.Snapshot> snapshots = new TreeMap<String, MetricHistogram.Snapshot>();
+        MetricCollector mc = AwsSdkMetrics.getInternalMetricCollector();
+        if (mc == null)
+            return snapshots;
+        Map<MetricHistogram, Boolean> seen = new IdentityHashMap<MetricHistogram, Boolean>();
+        addSnapshots(mc.getRequestMetricCollector().getLatencyHistograms(), snapshots, seen);
+        addSnapshots(mc.getServiceMetricCollector().getLatencyHistograms(), snapshots, seen);
+        return snapshots;
+    }
+
+    private static void addSnapshots(Map<String, MetricHistogram> histograms,
+            Map<String, MetricHistogram.Snapshot> snapshots,
+            Map<MetricHistogram, Boolean> seen) {
+        for (Map.Entry<String, MetricHistogram> e: histograms.entrySet()) {
+            if (seen.put(e.getValue(), Boolean.TRUE) != null)
+                continue;
+            MetricHistogram.Snapshot snapshot = e.getValue().getSnapshot();
+            MetricHistogram.Snapshot existing = snapshots.get(e.getKey());
+            snapshots.put(e.getKey(), existing == null ? snapshot : existing.merge(snapshot));
+        }
+    }
+}
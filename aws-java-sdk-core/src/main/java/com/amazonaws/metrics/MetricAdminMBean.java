@@ -184,4 +184,35 @@ public interface MetricAdminMBean {
      * Used to set whether a single metric name space is to be used.
      */
     public void setSingleMetricNamespace(boolean singleMetricNamespace);
-}
\ No newline at end of file
+
+    /**
+     * Returns true if the metrics of each request are recorded in compact
+     * form; false otherwise.
+     */
+    public boolean isCompactRequestMetrics();
+
+    /**
+     * Used to set whether the metrics of each request are to be recorded in
+     * compact form.
+     */
+    public void setCompactRequestMetrics(boolean compactRequestMetrics);
+
+    /**
+     * Returns the names of the latency histograms maintained by the metric
+     * collector at the AWS SDK level.
+     */
+    public String[] getLatencyHistogramNames();
+
+    /**
+     * Returns an estimate of the latency in milliseconds at the given
+     * percentile, such as 99 or 99.9, of the named latency histogram; or NaN
+     * if there is no such histogram or it is empty.
+     */
+    public double getLatencyPercentile(String histogramName, double percentile);
+
+    /**
+     * Returns a one line summary of the count and the 50th, 90th, 99th and
+     * 99.9th percentiles of each latency histogram.
+     */
+    public String getLatencySummary();
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.amazonaws.annotation.Immutable;
+import com.amazonaws.annotation.ThreadSafe;
+
+/**
+ * A log-bucketed histogram of non-negative values, such as latencies in
+ * milliseconds, from which percentiles can be estimated.
+ * <p>
+ * Each power of two between {@link #getLowestTrackableValue()} and
+ * {@link #getHighestTrackableValue()} is divided into 32 linear buckets, so
+ * any value is reported to within about 3% of its actual magnitude, with
+ * smaller values lumped into the first bucket and larger values into the last.
+ * Recording a value is a single atomic increment, with no allocation and no
+ * lock, so a histogram can be shared by any number of recording threads.
+ * {@link Snapshot Snapshots} can be merged across histograms, or subtracted to
+ * get the values recorded over an interval.
+ */
+@ThreadSafe
+public class MetricHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = -7;
+    private static final int MAX_EXPONENT = 27;
+    /** One bucket per sub-range, plus one for underflow and one for overflow. */
+    private static final int NUM_BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS + 2;
+    private static final double LOWEST_VALUE = Math.scalb(1.0, MIN_EXPONENT);
+    private static final double HIGHEST_VALUE = Math.scalb(1.0, MAX_EXPONENT + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+    /**
+     * Records the given value. Negative and NaN values are counted in the
+     * lowest bucket.
+     */
+    public void record(double value) {
+        counts.incrementAndGet(bucketOf(value));
+    }
+
+    /**
+     * Returns a snapshot of all the values recorded so far. Values recorded
+     * concurrently may or may not be included.
+     */
+    public Snapshot getSnapshot() {
+        long[] snapshot = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new Snapshot(snapshot);
+    }
+
+    /**
+     * Returns the smallest value distinguished by a histogram; smaller values
+     * are reported as this value.
+     */
+    public static double getLowestTrackableValue() {
+        return LOWEST_VALUE;
+    }
+
+    /**
+     * Returns the largest value distinguished by a histogram; larger values
+     * are reported as this value.
+     */
+    public static double getHighestTrackableValue() {
+        return HIGHEST_VALUE;
+    }
+
+    private static int bucketOf(double value) {
+        if (!(value >= LOWEST_VALUE)) {
+            return 0;
+        }
+        if (value >= HIGHEST_VALUE) {
+            return NUM_BUCKETS - 1;
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) ((bits >>> 52) & 0x7ff) - 1023;
+        int subBucket = (int) (bits >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value that falls into the given bucket.
+     */
+    private static double upperBoundOf(int bucket) {
+        if (bucket == 0) {
+            return LOWEST_VALUE;
+        }
+        if (bucket == NUM_BUCKETS - 1) {
+            return HIGHEST_VALUE;
+        }
+        int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        int subBucket = (bucket - 1) % SUB_BUCKETS;
+        return Math.scalb(1.0 + (subBucket + 1) / (double) SUB_BUCKETS, exponent);
+    }
+
+    /**
+     * A point-in-time copy of the counts of a histogram.
+     */
+    @Immutable
+    public static final class Snapshot {
+        /** A snapshot with no values. */
+        public static final Snapshot EMPTY = new Snapshot(new long[NUM_BUCKETS]);
+
+        private final long[] counts;
+        private final long totalCount;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        /** Returns the number of values in this snapshot. */
+        public long getCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns an estimate of the value at the given percentile, such as 99
+         * or 99.9, of the values in this snapshot; or NaN if there are none.
+         * The estimate is the upper bound of the bucket holding the value, so
+         * it errs on the high side.
+         */
+        public double getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            if (totalCount == 0) {
+                return Double.NaN;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+            return HIGHEST_VALUE;
+        }
+
+        /**
+         * Returns a snapshot with the values of both this and the given
+         * snapshot.
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = new long[NUM_BUCKETS];
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+
+        /**
+         * Returns a snapshot with the values recorded since the given, earlier
+         * snapshot of the same histogram.
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[NUM_BUCKETS];
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+            }
+            return new Snapshot(delta);
+        }
+
+        @Override
+        public String toString() {
+            if (totalCount == 0) {
+                return "count=0";
+            }
+            return "count=" + totalCount
+                + ", p50=" + getValueAtPercentile(50)
+                + ", p90=" + getValueAtPercentile(90)
+                + ", p99=" + getValueAtPercentile(99)
+                + ", p99.9=" + getValueAtPercentile(99.9)
+                + ", max=" + getValueAtPercentile(100);
+        }
+    }
+}
@@ -15,6 +15,9 @@
 
 package com.amazonaws.metrics;
 
+import java.util.Collections;
+import java.util.Map;
+
 import com.amazonaws.Request;
 import com.amazonaws.Response;
 
@@ -43,6 +46,14 @@ public abstract class RequestMetricCollector {
     public abstract void collectMetrics(Request<?> request, Response<?> response);
     public boolean isEnabled() { return true; }
 
+    /**
+     * Returns the latency histograms maintained by this collector, keyed by
+     * metric name; or an empty map if there is none.
+     */
+    public Map<String, MetricHistogram> getLatencyHistograms() {
+        return Collections.emptyMap();
+    }
+
     /** A convenient instance of a no-op request metric collector. */
     public static final RequestMetricCollector NONE = new RequestMetricCollector() {
         @Override public void collectMetrics(Request<?> request, Response<?> response) {}
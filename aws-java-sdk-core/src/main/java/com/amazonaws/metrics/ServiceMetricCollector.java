@@ -14,6 +14,9 @@
  */
 package com.amazonaws.metrics;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * A service provider interface that can be used to implement an AWS SDK
  * general purpose metric collector.
@@ -37,6 +40,15 @@ public abstract class ServiceMetricCollector {
     public abstract void collectLatency(ServiceLatencyProvider provider);
 
     public boolean isEnabled() { return true; }
+
+    /**
+     * Returns the latency histograms maintained by this collector, keyed by
+     * metric name; or an empty map if there is none.
+     */
+    public Map<String, MetricHistogram> getLatencyHistograms() {
+        return Collections.emptyMap();
+    }
+
     /** A convenient instance of a no-op service metric collector. */
     public static final ServiceMetricCollector NONE = new ServiceMetricCollector() {
         @Override public void collectByteThroughput(ByteThroughputProvider provider) {}
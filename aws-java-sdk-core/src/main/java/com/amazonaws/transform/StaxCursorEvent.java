@@ -0,0 +1,160 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import java.io.Writer;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import com.amazonaws.annotation.Immutable;
+
+/**
+ * Stateless stand-in for the {@link XMLEvent}s handed out by a
+ * {@link StaxUnmarshallerContext} that reads from an
+ * {@link javax.xml.stream.XMLStreamReader}. There is a single shared instance
+ * per event type, so reading a response with the cursor API doesn't allocate
+ * an event object per element.
+ * <p>
+ * Only the type of the event is available. Element names, attribute values
+ * and text are read through the unmarshaller context instead, so the
+ * <code>as*</code> conversions are not supported.
+ */
+@Immutable
+final class StaxCursorEvent implements XMLEvent {
+
+    static final StaxCursorEvent START_ELEMENT = new StaxCursorEvent(XMLStreamConstants.START_ELEMENT);
+    static final StaxCursorEvent END_ELEMENT = new StaxCursorEvent(XMLStreamConstants.END_ELEMENT);
+    static final StaxCursorEvent ATTRIBUTE = new StaxCursorEvent(XMLStreamConstants.ATTRIBUTE);
+    static final StaxCursorEvent CHARACTERS = new StaxCursorEvent(XMLStreamConstants.CHARACTERS);
+    static final StaxCursorEvent CDATA = new StaxCursorEvent(XMLStreamConstants.CDATA);
+    static final StaxCursorEvent SPACE = new StaxCursorEvent(XMLStreamConstants.SPACE);
+    static final StaxCursorEvent COMMENT = new StaxCursorEvent(XMLStreamConstants.COMMENT);
+    static final StaxCursorEvent PROCESSING_INSTRUCTION = new StaxCursorEvent(XMLStreamConstants.PROCESSING_INSTRUCTION);
+    static final StaxCursorEvent ENTITY_REFERENCE = new StaxCursorEvent(XMLStreamConstants.ENTITY_REFERENCE);
+    static final StaxCursorEvent NAMESPACE = new StaxCursorEvent(XMLStreamConstants.NAMESPACE);
+    static final StaxCursorEvent DTD = new StaxCursorEvent(XMLStreamConstants.DTD);
+    static final StaxCursorEvent START_DOCUMENT = new StaxCursorEvent(XMLStreamConstants.START_DOCUMENT);
+    static final StaxCursorEvent END_DOCUMENT = new StaxCursorEvent(XMLStreamConstants.END_DOCUMENT);
+
+    private final int eventType;
+
+    private StaxCursorEvent(int eventType) {
+        this.eventType = eventType;
+    }
+
+    /**
+     * Returns the shared event for the given {@link XMLStreamConstants} event
+     * type.
+     */
+    static StaxCursorEvent forType(int eventType) {
+        switch (eventType) {
+        case XMLStreamConstants.START_ELEMENT: return START_ELEMENT;
+        case XMLStreamConstants.END_ELEMENT: return END_ELEMENT;
+        case XMLStreamConstants.ATTRIBUTE: return ATTRIBUTE;
+        case XMLStreamConstants.CHARACTERS: return CHARACTERS;
+        case XMLStreamConstants.CDATA: return CDATA;
+        case XMLStreamConstants.SPACE: return SPACE;
+        case XMLStreamConstants.COMMENT: return COMMENT;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION: return PROCESSING_INSTRUCTION;
+        case XMLStreamConstants.ENTITY_REFERENCE: return ENTITY_REFERENCE;
+        case XMLStreamConstants.NAMESPACE: return NAMESPACE;
+        case XMLStreamConstants.DTD: return DTD;
+        case XMLStreamConstants.START_DOCUMENT: return START_DOCUMENT;
+        case XMLStreamConstants.END_DOCUMENT: return END_DOCUMENT;
+        default:
+            throw new IllegalArgumentException("Unknown event type: " + eventType);
+        }
+    }
+
+    public int getEventType() {
+        return eventType;
+    }
+
+    public Location getLocation() {
+        return null;
+    }
+
+    public boolean isStartElement() {
+        return eventType == XMLStreamConstants.START_ELEMENT;
+    }
+
+    public boolean isAttribute() {
+        return eventType == XMLStreamConstants.ATTRIBUTE;
+    }
+
+    public boolean isNamespace() {
+        return eventType == XMLStreamConstants.NAMESPACE;
+    }
+
+    public boolean isEndElement() {
+        return eventType == XMLStreamConstants.END_ELEMENT;
+    }
+
+    public boolean isEntityReference() {
+        return eventType == XMLStreamConstants.ENTITY_REFERENCE;
+    }
+
+    public boolean isProcessingInstruction() {
+        return eventType == XMLStreamConstants.PROCESSING_INSTRUCTION;
+    }
+
+    public boolean isCharacters() {
+        return eventType == XMLStreamConstants.CHARACTERS
+                || eventType == XMLStreamConstants.CDATA
+                || eventType == XMLStreamConstants.SPACE;
+    }
+
+    public boolean isStartDocument() {
+        return eventType == XMLStreamConstants.START_DOCUMENT;
+    }
+
+    public boolean isEndDocument() {
+        return eventType == XMLStreamConstants.END_DOCUMENT;
+    }
+
+    public StartElement asStartElement() {
+        throw new UnsupportedOperationException(
+                "Cursor based events carry no element data; use the unmarshaller context");
+    }
+
+    public EndElement asEndElement() {
+        throw new UnsupportedOperationException(
+                "Cursor based events carry no element data; use the unmarshaller context");
+    }
+
+    public Characters asCharacters() {
+        throw new UnsupportedOperationException(
+                "Cursor based events carry no text; use StaxUnmarshallerContext.readText()");
+    }
+
+    public QName getSchemaType() {
+        return null;
+    }
+
+    public void writeAsEncodedUnicode(Writer writer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+        return "StaxCursorEvent[" + eventType + "]";
+    }
+}
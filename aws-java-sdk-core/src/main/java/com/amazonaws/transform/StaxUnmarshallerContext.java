@@ -19,11 +19,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Stack;
 
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.XMLEvent;
 
@@ -34,19 +36,49 @@ import javax.xml.stream.events.XMLEvent;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * The context can read either from an {@link XMLEventReader} or, with less
+ * overhead, from the cursor based {@link XMLStreamReader}. When reading from a
+ * cursor, {@link #nextEvent()} returns shared events that only report their
+ * type; element text and attribute values are available through
+ * {@link #readText()}, which is all the generated unmarshallers use.
+ * <p>
+ * Each distinct element path seen in the document is interned once as a node
+ * of a small tree, so moving through the document and testing expressions
+ * against the current position doesn't rebuild path strings.
  */
 public class StaxUnmarshallerContext {
 
     private XMLEvent currentEvent;
-    private final XMLEventReader eventReader;
+    private final EventSource source;
 
+    /**
+     * The local names of the currently open elements. Retained for
+     * compatibility; the context itself tracks its position with path nodes.
+     */
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /** Root of the tree of element paths seen in this document. */
+    private final PathNode root = new PathNode(null, "");
+
+    /**
+     * Path of the current position. After an attribute event this ends with
+     * the attribute, and later child elements are appended to it until the
+     * next end element.
+     */
+    private PathNode currentPath = root;
+
+    /** Paths of the currently open elements, without any attribute steps. */
+    private PathNode[] elementPaths = new PathNode[16];
+
+    private int attributeIndex;
+    private int attributeCount;
+    private String currentAttributeValue;
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
+    private int metadataExpressionsVersion;
 
-    private Iterator<?> attributeIterator;
     private final Map<String, String> headers;
 
     /**
@@ -70,7 +102,23 @@ public class StaxUnmarshallerContext {
      *            context.
      */
     public StaxUnmarshallerContext(XMLEventReader eventReader, Map<String, String> headers) {
-        this.eventReader = eventReader;
+        this.source = new EventReaderSource(eventReader);
+        this.headers = headers;
+    }
+
+    /**
+     * Constructs a new unmarshaller context that reads the XML document with
+     * the cursor based StAX API, and a set of response headers.
+     *
+     * @param streamReader
+     *            The XML stream reader for this unmarshalling context,
+     *            positioned at the start of the document.
+     * @param headers
+     *            The set of response headers associated with this unmarshaller
+     *            context.
+     */
+    public StaxUnmarshallerContext(XMLStreamReader streamReader, Map<String, String> headers) {
+        this.source = new StreamReaderSource(streamReader);
         this.headers = headers;
     }
 
@@ -98,20 +146,27 @@ public class StaxUnmarshallerContext {
      */
     public String readText() throws XMLStreamException {
         if (currentEvent.isAttribute()) {
-            Attribute attribute = (Attribute)currentEvent;
-            return attribute.getValue();
+            return currentAttributeValue;
         }
 
-        StringBuilder sb = new StringBuilder();
+        String text = null;
+        StringBuilder sb = null;
         while (true) {
-            XMLEvent event = eventReader.peek();
-            if (event.getEventType() == XMLStreamConstants.CHARACTERS) {
-                eventReader.nextEvent();
-                sb.append(event.asCharacters().getData());
-            } else if (event.getEventType() == XMLStreamConstants.END_ELEMENT) {
-                return sb.toString();
+            int eventType = source.peekEventType();
+            if (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA) {
+                String data = source.peekText();
+                source.nextEvent();
+                if (text == null) {
+                    text = data;
+                } else {
+                    if (sb == null) sb = new StringBuilder(text);
+                    sb.append(data);
+                }
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                if (sb != null) return sb.toString();
+                return text == null ? "" : text;
             } else {
-                throw new RuntimeException("Encountered unexpected event: " + event.toString());
+                throw new RuntimeException("Encountered unexpected event: " + source.describeNext());
             }
         }
     }
@@ -138,7 +193,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return currentPath.path.endsWith(expression);
     }
 
     /**
@@ -157,18 +212,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression, int startingStackDepth) {
         if (expression.equals(".")) return true;
-
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
-        }
-
-
-        return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+        return currentPath.matches(expression, startingStackDepth);
     }
 
     /**
@@ -180,7 +224,7 @@ public class StaxUnmarshallerContext {
      *         yet).
      */
     public boolean isStartOfDocument() throws XMLStreamException {
-        return eventReader.peek().isStartDocument();
+        return source.peekEventType() == XMLStreamConstants.START_DOCUMENT;
     }
 
     /**
@@ -191,26 +235,28 @@ public class StaxUnmarshallerContext {
      * @throws XMLStreamException
      */
     public XMLEvent nextEvent() throws XMLStreamException {
-        if (attributeIterator != null && attributeIterator.hasNext()) {
-            currentEvent = (XMLEvent)attributeIterator.next();
+        if (attributeIndex < attributeCount) {
+            currentEvent = source.getAttributeEvent(attributeIndex);
+            currentAttributeValue = source.getAttributeValue(attributeIndex);
+            currentPath = elementPath().attributeChild(source.getAttributeLocalName(attributeIndex));
+            attributeIndex++;
         } else {
-            currentEvent = eventReader.nextEvent();
-        }
-
-        if (currentEvent.isStartElement()) {
-            attributeIterator = currentEvent.asStartElement().getAttributes();
+            currentEvent = source.nextEvent();
+            currentAttributeValue = null;
+
+            if (currentEvent.isStartElement()) {
+                pushElement(source.getLocalName());
+                attributeIndex = 0;
+                attributeCount = source.getAttributeCount();
+            } else if (currentEvent.isEndElement()) {
+                popElement();
+            }
         }
 
-        updateContext(currentEvent);
-
-        if (eventReader.hasNext()) {
-            XMLEvent nextEvent = eventReader.peek();
-            if (nextEvent != null && nextEvent.isCharacters()) {
-                for (MetadataExpression metadataExpression : metadataExpressions) {
-                    if (testExpression(metadataExpression.expression, metadataExpression.targetDepth)) {
-                        metadata.put(metadataExpression.key, nextEvent.asCharacters().getData());
-                    }
-                }
+        if (!metadataExpressions.isEmpty() && source.hasNext() && source.isNextCharacters()) {
+            MetadataExpression[] matches = currentPath.metadataMatches(this);
+            for (MetadataExpression metadataExpression : matches) {
+                metadata.put(metadataExpression.key, source.peekText());
             }
         }
 
@@ -244,6 +290,7 @@ public class StaxUnmarshallerContext {
      */
     public void registerMetadataExpression(String expression, int targetDepth, String storageKey) {
         metadataExpressions.add(new MetadataExpression(expression, targetDepth, storageKey));
+        metadataExpressionsVersion++;
     }
 
 
@@ -267,26 +314,330 @@ public class StaxUnmarshallerContext {
         }
     }
 
-    private void updateContext(XMLEvent event) {
-        if (event == null) return;
+    private PathNode elementPath() {
+        int depth = stack.size();
+        return depth == 0 ? root : elementPaths[depth - 1];
+    }
+
+    private void pushElement(String localName) {
+        PathNode parent = elementPath();
+        PathNode path = currentPath.elementChild(localName);
+        PathNode elementPath = (currentPath == parent) ? path : parent.elementChild(localName);
 
-        if (event.isEndElement()) {
-            stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+        int depth = stack.size();
+        if (depth == elementPaths.length) {
+            PathNode[] grown = new PathNode[depth * 2];
+            System.arraycopy(elementPaths, 0, grown, 0, depth);
+            elementPaths = grown;
+        }
+        elementPaths[depth] = elementPath;
+        stack.push(localName);
+        currentPath = path;
+    }
+
+    private void popElement() {
+        stack.pop();
+        elementPaths[stack.size()] = null;
+        currentPath = elementPath();
+    }
+
+    /**
+     * One distinct path through the document, such as
+     * <code>/DescribeInstancesResponse/reservationSet/item</code>. Children are
+     * looked up by local name, so every occurrence of a repeated element maps
+     * to the same node and its path string is only built once.
+     */
+    private static final class PathNode {
+        /** The full path, in the form matched by {@link #testExpression(String)}. */
+        final String path;
+        /** The number of elements, not counting attributes, in the path. */
+        final int depth;
+
+        private Map<String, PathNode> elementChildren;
+        private Map<String, PathNode> attributeChildren;
+
+        private int metadataVersion = -1;
+        private MetadataExpression[] metadataMatches;
+
+        PathNode(PathNode parent, String segment) {
+            if (parent == null) {
+                this.path = segment;
+                this.depth = 0;
+            } else {
+                this.path = parent.path + "/" + segment;
+                this.depth = parent.depth + (segment.startsWith("@") ? 0 : 1);
+            }
+        }
+
+        PathNode elementChild(String localName) {
+            if (elementChildren == null) {
+                elementChildren = new HashMap<String, PathNode>();
+            }
+            PathNode child = elementChildren.get(localName);
+            if (child == null) {
+                child = new PathNode(this, localName);
+                elementChildren.put(localName, child);
+            }
+            return child;
+        }
+
+        PathNode attributeChild(String localName) {
+            if (attributeChildren == null) {
+                attributeChildren = new HashMap<String, PathNode>();
+            }
+            PathNode child = attributeChildren.get(localName);
+            if (child == null) {
+                child = new PathNode(this, "@" + localName);
+                attributeChildren.put(localName, child);
             }
-        } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
-        } else if (event.isAttribute()) {
-            Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            return child;
+        }
+
+        /**
+         * Equivalent to checking that the expression, shifted down to the
+         * given depth, ends at this node's depth and that this path ends with
+         * <code>"/" + expression</code>, without building either string.
+         */
+        boolean matches(String expression, int startingStackDepth) {
+            int expressionLength = expression.length();
+            int targetDepth = startingStackDepth;
+            int index = -1;
+            while ((index = expression.indexOf('/', index + 1)) > -1) {
+                // Don't consider attributes a new depth level
+                if (index + 1 >= expressionLength || expression.charAt(index + 1) != '@') {
+                    targetDepth++;
+                }
+            }
+            if (targetDepth != depth) return false;
+
+            int offset = path.length() - expressionLength;
+            return offset > 0
+                    && path.charAt(offset - 1) == '/'
+                    && path.regionMatches(offset, expression, 0, expressionLength);
+        }
+
+        /**
+         * Returns the metadata expressions of the given context that match
+         * this path, evaluating them only once per path.
+         */
+        MetadataExpression[] metadataMatches(StaxUnmarshallerContext context) {
+            if (metadataVersion != context.metadataExpressionsVersion) {
+                List<MetadataExpression> matches = new ArrayList<MetadataExpression>(1);
+                for (MetadataExpression metadataExpression : context.metadataExpressions) {
+                    if (metadataExpression.expression.equals(".")
+                            || matches(metadataExpression.expression, metadataExpression.targetDepth)) {
+                        matches.add(metadataExpression);
+                    }
+                }
+                metadataMatches = matches.toArray(new MetadataExpression[matches.size()]);
+                metadataVersion = context.metadataExpressionsVersion;
+            }
+            return metadataMatches;
+        }
+    }
+
+    /**
+     * Where a context reads its XML from. A source is always one event ahead
+     * of the context: the last event handed out by {@link #nextEvent()} is the
+     * context's current event, and the event after it can be inspected with
+     * the peek methods.
+     */
+    private interface EventSource {
+
+        /** Returns the type of the next event, or END_DOCUMENT at the end. */
+        int peekEventType() throws XMLStreamException;
+
+        /** Returns true if the next event is character data. */
+        boolean isNextCharacters() throws XMLStreamException;
+
+        /** Returns the text of the next event, which must be character data. */
+        String peekText() throws XMLStreamException;
+
+        /** Returns a description of the next event for error messages. */
+        String describeNext() throws XMLStreamException;
+
+        boolean hasNext() throws XMLStreamException;
+
+        /**
+         * Consumes the next event and returns it. The local name and
+         * attributes of a consumed element stay available until the next
+         * call.
+         */
+        XMLEvent nextEvent() throws XMLStreamException;
+
+        String getLocalName();
+
+        int getAttributeCount();
+
+        String getAttributeLocalName(int index);
+
+        String getAttributeValue(int index);
+
+        XMLEvent getAttributeEvent(int index);
+    }
+
+    /**
+     * Source over the StAX event API, handing out the reader's own events.
+     */
+    private static final class EventReaderSource implements EventSource {
+        private final XMLEventReader eventReader;
+        private final List<Attribute> attributes = new ArrayList<Attribute>();
+        private String localName;
+
+        EventReaderSource(XMLEventReader eventReader) {
+            this.eventReader = eventReader;
+        }
+
+        public int peekEventType() throws XMLStreamException {
+            XMLEvent event = eventReader.peek();
+            return event == null ? XMLStreamConstants.END_DOCUMENT : event.getEventType();
+        }
+
+        public boolean isNextCharacters() throws XMLStreamException {
+            XMLEvent event = eventReader.peek();
+            return event != null && event.isCharacters();
+        }
+
+        public String peekText() throws XMLStreamException {
+            return eventReader.peek().asCharacters().getData();
+        }
+
+        public String describeNext() throws XMLStreamException {
+            return String.valueOf(eventReader.peek());
+        }
+
+        public boolean hasNext() {
+            return eventReader.hasNext();
+        }
+
+        public XMLEvent nextEvent() throws XMLStreamException {
+            XMLEvent event = eventReader.nextEvent();
+            if (event.isStartElement()) {
+                localName = event.asStartElement().getName().getLocalPart();
+                attributes.clear();
+                Iterator<?> iterator = event.asStartElement().getAttributes();
+                while (iterator.hasNext()) {
+                    attributes.add((Attribute) iterator.next());
+                }
+            } else if (event.isEndElement()) {
+                localName = event.asEndElement().getName().getLocalPart();
             }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            return event;
+        }
+
+        public String getLocalName() {
+            return localName;
+        }
+
+        public int getAttributeCount() {
+            return attributes.size();
+        }
+
+        public String getAttributeLocalName(int index) {
+            return attributes.get(index).getName().getLocalPart();
+        }
+
+        public String getAttributeValue(int index) {
+            return attributes.get(index).getValue();
+        }
+
+        public XMLEvent getAttributeEvent(int index) {
+            return attributes.get(index);
         }
     }
 
+    /**
+     * Source over the cursor based StAX API. The stream reader is kept on the
+     * event after the one most recently handed out, and element names and
+     * attributes are copied out before it moves on.
+     */
+    private static final class StreamReaderSource implements EventSource {
+        private final XMLStreamReader streamReader;
+        private boolean exhausted;
+
+        private String localName;
+        private int attributeCount;
+        private String[] attributeNames = new String[4];
+        private String[] attributeValues = new String[4];
+
+        StreamReaderSource(XMLStreamReader streamReader) {
+            this.streamReader = streamReader;
+        }
+
+        public int peekEventType() {
+            return exhausted ? XMLStreamConstants.END_DOCUMENT : streamReader.getEventType();
+        }
+
+        public boolean isNextCharacters() {
+            int eventType = peekEventType();
+            return eventType == XMLStreamConstants.CHARACTERS
+                    || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE;
+        }
+
+        public String peekText() {
+            return streamReader.getText();
+        }
+
+        public String describeNext() {
+            return StaxCursorEvent.forType(peekEventType()).toString();
+        }
+
+        public boolean hasNext() {
+            return !exhausted;
+        }
+
+        public XMLEvent nextEvent() throws XMLStreamException {
+            if (exhausted) {
+                throw new NoSuchElementException();
+            }
+
+            int eventType = streamReader.getEventType();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                localName = streamReader.getLocalName();
+                copyAttributes();
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                localName = streamReader.getLocalName();
+            }
+
+            if (streamReader.hasNext()) {
+                streamReader.next();
+            } else {
+                exhausted = true;
+            }
+            return StaxCursorEvent.forType(eventType);
+        }
+
+        private void copyAttributes() {
+            attributeCount = streamReader.getAttributeCount();
+            if (attributeCount > attributeNames.length) {
+                attributeNames = new String[attributeCount];
+                attributeValues = new String[attributeCount];
+            }
+            for (int i = 0; i < attributeCount; i++) {
+                attributeNames[i] = streamReader.getAttributeLocalName(i);
+                attributeValues[i] = streamReader.getAttributeValue(i);
+            }
+        }
+
+        public String getLocalName() {
+            return localName;
+        }
+
+        public int getAttributeCount() {
+            return attributeCount;
+        }
+
+        public String getAttributeLocalName(int index) {
+            return attributeNames[index];
+        }
+
+        public String getAttributeValue(int index) {
+            return attributeValues[index];
+        }
+
+        public XMLEvent getAttributeEvent(int index) {
+            return StaxCursorEvent.ATTRIBUTE;
+        }
+    }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricType;
+
+/**
+ * A low overhead alternative to {@link AWSRequestMetricsFullSupport}, with the
+ * same observable behavior towards request metric collectors, for leaving
+ * request metrics enabled under high request rates.
+ * <p>
+ * Events, counters and properties of the predefined {@link Field}s are kept
+ * in arrays indexed by the ordinal of the field, with event times as primitive
+ * nanoseconds; other metric types and names are assigned an index on first
+ * use. Recording a measurement therefore costs an array store rather than a
+ * hash map update and the boxing of a timing info, and a request allocates a
+ * fixed handful of small arrays instead of a pair of hash maps and an object
+ * per measurement.
+ * <p>
+ * This class is instantiated instead of {@link AWSRequestMetricsFullSupport}
+ * when request metric collection is required and
+ * {@link AwsSdkMetrics#isCompactRequestMetrics()} is true.
+ */
+@NotThreadSafe
+public class AWSRequestMetricsCompact extends AWSRequestMetrics {
+    /* Latency Logger */
+    private static final Log latencyLogger = LogFactory.getLog("com.amazonaws.latency");
+    private static final Object KEY_VALUE_SEPARATOR = "=";
+    private static final Object COMMA_SEPARATOR = ", ";
+
+    private final TimingInfoCompact timing;
+
+    /* Start time in nanoseconds of the events being profiled, by index. */
+    private long[] eventStartTimes;
+    private boolean[] eventsStarted;
+
+    /*
+     * Property values by index: null, a single value, or a PropertyList of
+     * the values if the property was added more than once.
+     */
+    private Object[] properties;
+
+    /**
+     * This constructor should be used in the case when AWS SDK metrics
+     * collector is enabled.
+     */
+    public AWSRequestMetricsCompact() {
+        this(new TimingInfoCompact(Long.valueOf(System.currentTimeMillis()), System.nanoTime(), null));
+    }
+
+    private AWSRequestMetricsCompact(TimingInfoCompact timing) {
+        super(timing);
+        this.timing = timing;
+        int length = timing.indexCount();
+        this.eventStartTimes = new long[length];
+        this.eventsStarted = new boolean[length];
+        this.properties = new Object[length];
+    }
+
+    /**
+     * Start an event which will be timed. Starting an event that has already
+     * been started without ending it restarts it.
+     *
+     * @see AWSRequestMetricsFullSupport#startEvent(String)
+     */
+    @Override
+    public void startEvent(String eventName) {
+        startEvent(capacityFor(timing.indexOf(eventName, true)), System.nanoTime());
+    }
+
+    @Override
+    public void startEvent(MetricType f) {
+        startEvent(capacityFor(timing.indexOf(f)), System.nanoTime());
+    }
+
+    private void startEvent(int index, long startTimeNano) {
+        eventStartTimes[index] = startTimeNano;
+        eventsStarted[index] = true;
+    }
+
+    /**
+     * End an event which was previously started, recording it as a
+     * sub-measurement of the timing info.
+     *
+     * @see AWSRequestMetricsFullSupport#endEvent(String)
+     */
+    @Override
+    public void endEvent(String eventName) {
+        endEvent(timing.indexOf(eventName, false), eventName);
+    }
+
+    @Override
+    public void endEvent(MetricType f) {
+        if (f instanceof Field) {
+            endEvent(((Field) f).ordinal(), f.name());
+        } else {
+            endEvent(f.name());
+        }
+    }
+
+    private void endEvent(int index, String eventName) {
+        /* Somebody tried to end an event that was not started. */
+        if (index < 0 || index >= eventsStarted.length || !eventsStarted[index]) {
+            LogFactory.getLog(getClass()).warn
+                ("Trying to end an event which was never started: " + eventName);
+            return;
+        }
+        timing.addSubMeasurement(index, eventStartTimes[index], System.nanoTime());
+    }
+
+    @Override
+    public void incrementCounter(String event) {
+        timing.incrementCounter(event);
+    }
+
+    @Override
+    public void incrementCounter(MetricType f) {
+        timing.incrementCounter(timing.indexOf(f));
+    }
+
+    @Override
+    public void setCounter(String counterName, long count) {
+        timing.setCounter(counterName, count);
+    }
+
+    @Override
+    public void setCounter(MetricType f, long count) {
+        timing.setCounter(timing.indexOf(f), count);
+    }
+
+    /**
+     * Add a property. If you add the same property more than once, it stores
+     * all values a list.
+     */
+    @Override
+    public void addProperty(String propertyName, Object value) {
+        addProperty(capacityFor(timing.indexOf(propertyName, true)), value);
+    }
+
+    @Override
+    public void addProperty(MetricType f, Object value) {
+        addProperty(capacityFor(timing.indexOf(f)), value);
+    }
+
+    private void addProperty(int index, Object value) {
+        Object existing = properties[index];
+        if (existing == null && value != null && !(value instanceof PropertyList)) {
+            properties[index] = value;
+            return;
+        }
+        PropertyList values;
+        if (existing instanceof PropertyList) {
+            values = (PropertyList) existing;
+        } else {
+            values = new PropertyList();
+            if (existing != null) {
+                values.add(existing);
+            }
+            properties[index] = values;
+        }
+        values.add(value);
+    }
+
+    /**
+     * Returns a new list of the values of the given property, or null if it
+     * has none.
+     */
+    @Override
+    public List<Object> getProperty(String propertyName) {
+        int index = timing.indexOf(propertyName, false);
+        return index < 0 || index >= properties.length ? null : propertyValues(index);
+    }
+
+    @Override
+    public List<Object> getProperty(MetricType f) {
+        return getProperty(f.name());
+    }
+
+    private List<Object> propertyValues(int index) {
+        Object values = properties[index];
+        if (values == null) {
+            return null;
+        }
+        if (values instanceof PropertyList) {
+            return new ArrayList<Object>((PropertyList) values);
+        }
+        List<Object> list = new ArrayList<Object>(1);
+        list.add(values);
+        return list;
+    }
+
+    @Override
+    public void log() {
+        if (latencyLogger.isInfoEnabled()) {
+            StringBuilder builder = new StringBuilder();
+
+            for (int i = 0; i < properties.length; i++) {
+                List<Object> values = propertyValues(i);
+                if (values != null) {
+                    keyValueFormat(timing.nameOf(i), values, builder);
+                }
+            }
+            for (Entry<String, Number> entry : timing.getAllCounters().entrySet()) {
+                keyValueFormat(entry.getKey(), entry.getValue(), builder);
+            }
+            for (Entry<String, List<TimingInfo>> entry : timing
+                    .getSubMeasurementsByName().entrySet()) {
+                keyValueFormat(entry.getKey(), entry.getValue(), builder);
+            }
+            latencyLogger.info(builder.toString());
+        }
+    }
+
+    private void keyValueFormat(Object key, Object value, StringBuilder builder) {
+        builder.append(key).append(KEY_VALUE_SEPARATOR).append(value).append(COMMA_SEPARATOR);
+    }
+
+    /** Always returns true. */
+    @Override
+    public final boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Grows the per index arrays of this object to hold the given index, which
+     * may have just been assigned, and returns it.
+     */
+    private int capacityFor(int index) {
+        if (index >= properties.length) {
+            int length = timing.indexCount();
+            eventStartTimes = Arrays.copyOf(eventStartTimes, length);
+            eventsStarted = Arrays.copyOf(eventsStarted, length);
+            properties = Arrays.copyOf(properties, length);
+        }
+        return index;
+    }
+
+    /** Marks the values of a property added more than once. */
+    private static final class PropertyList extends ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+
+        PropertyList() {
+            super(2);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.SignableRequest;
+
+/**
+ * The parameters of a request encoded as an
+ * {@code application/x-www-form-urlencoded} query string, in the order of the
+ * request's parameter map, as the bytes sent in the body of a POST request
+ * with no other content.
+ * <p>
+ * The encoding is kept with a {@link DefaultRequest}, so that signing the
+ * request and creating its HTTP entity share the same bytes rather than each
+ * walking and encoding the parameters. The parameter map may still be changed
+ * freely in between: the encoding remembers the names and values it was made
+ * from, and is only reused while the map still holds those same strings.
+ * <p>
+ * Instances are immutable.
+ */
+public final class EncodedParameters {
+
+    private final byte[] bytes;
+
+    /** The names and values encoded, each name followed by its values. */
+    private final String[] encoded;
+    /** The number of values of each name encoded. */
+    private final int[] valueCounts;
+
+    private EncodedParameters(byte[] bytes, String[] encoded, int[] valueCounts) {
+        this.bytes = bytes;
+        this.encoded = encoded;
+        this.valueCounts = valueCounts;
+    }
+
+    /**
+     * Returns the encoded parameters of the given request, or null if it has
+     * none. If the request is a {@link DefaultRequest}, the encoding is kept
+     * with it and returned again for as long as its parameters are unchanged.
+     *
+     * @param request
+     *            The request containing the parameters to encode.
+     */
+    public static EncodedParameters of(SignableRequest<?> request) {
+        Map<String, List<String>> parameters = request.getParameters();
+        if (parameters.isEmpty()) {
+            return null;
+        }
+        if (!(request instanceof DefaultRequest)) {
+            return encode(parameters);
+        }
+        DefaultRequest<?> defaultRequest = (DefaultRequest<?>) request;
+        EncodedParameters cached = defaultRequest.getEncodedParameters();
+        if (cached != null && cached.isEncodingOf(parameters)) {
+            return cached;
+        }
+        EncodedParameters encoded = encode(parameters);
+        defaultRequest.setEncodedParameters(encoded);
+        return encoded;
+    }
+
+    /**
+     * Encodes the given parameters in a single pass, with the same result as
+     * {@link URLEncodedUtils#format(List, String)} in UTF-8.
+     */
+    static EncodedParameters encode(Map<String, List<String>> parameters) {
+        int[] valueCounts = new int[parameters.size()];
+        int count = 0;
+        for (List<String> values : parameters.values()) {
+            count += 1 + values.size();
+        }
+        String[] encoded = new String[count];
+        Utf8Builder buffer = new Utf8Builder(16 * count);
+
+        int i = 0, j = 0;
+        for (Entry<String, List<String>> entry : parameters.entrySet()) {
+            String name = entry.getKey();
+            List<String> values = entry.getValue();
+            encoded[i++] = name;
+            valueCounts[j++] = values.size();
+            for (String value : values) {
+                encoded[i++] = value;
+                if (buffer.length() > 0) {
+                    buffer.append('&');
+                }
+                buffer.appendFormEncoded(name == null ? "null" : name);
+                if (value != null) {
+                    buffer.append('=');
+                    buffer.appendFormEncoded(value);
+                }
+            }
+        }
+        return new EncodedParameters(buffer.toByteArray(), encoded, valueCounts);
+    }
+
+    /**
+     * Returns true if the given parameters hold the same names and values, in
+     * the same order, as those this is the encoding of. The strings are
+     * compared by identity, which is enough to tell they are unchanged.
+     */
+    boolean isEncodingOf(Map<String, List<String>> parameters) {
+        if (parameters.size() != valueCounts.length) {
+            return false;
+        }
+        int i = 0, j = 0;
+        for (Entry<String, List<String>> entry : parameters.entrySet()) {
+            List<String> values = entry.getValue();
+            if (entry.getKey() != encoded[i++] || values.size() != valueCounts[j++]) {
+                return false;
+            }
+            for (String value : values) {
+                if (value != encoded[i++]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes of the encoded parameters.
+     */
+    public int getContentLength() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns a new stream of the encoded parameters.
+     */
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Returns a new, repeatable HTTP entity of the encoded parameters, which
+     * shares their bytes rather than copying them.
+     */
+    public HttpEntity newEntity() {
+        return new ByteArrayEntity(bytes);
+    }
+
+    /**
+     * Returns a new copy of the bytes of the encoded parameters.
+     */
+    public byte[] toByteArray() {
+        return bytes.clone();
+    }
+
+    /**
+     * Returns the encoded parameters as a query string.
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, StringUtils.UTF8);
+    }
+}
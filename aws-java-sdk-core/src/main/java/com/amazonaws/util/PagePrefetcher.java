@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Fetches the pages of a paginated result, such as a DynamoDB query or an
+ * Amazon S3 listing, on an executor ahead of the caller, so that moving to the
+ * next page does not have to wait for a round trip to the service.
+ * <p>
+ * At most one page is fetched at a time, since each page starts where the
+ * previous one ended. Fetching stops ahead of the caller once the given
+ * number of pages are fetched but not yet taken, or once the items of the
+ * pages not yet taken reach the given limit, and resumes as the caller takes
+ * them; at least one page is always fetched ahead. No executor thread ever
+ * blocks on the caller, so an abandoned prefetcher simply stops. Without an
+ * executor, each page is fetched by the caller when it asks for it.
+ * <p>
+ * A caller waiting on several prefetchers at once, such as the segments of a
+ * parallel scan, can have each of them added to a shared queue every time it
+ * has a page, or the failure to fetch one, ready to be taken.
+ * <p>
+ * Intended for the SDK's internal use. A prefetcher is used by a single
+ * calling thread.
+ *
+ * @param <P>
+ *            page type
+ */
+public final class PagePrefetcher<P> {
+
+    /**
+     * Fetches the pages for a {@link PagePrefetcher}, one at a time.
+     *
+     * @param <P>
+     *            page type
+     */
+    public interface Fetcher<P> {
+        /**
+         * Fetches the page that follows the given one, or the first page if
+         * the given one is null.
+         */
+        P fetchNextPage(P page);
+
+        /**
+         * Returns whether there is a page after the given one.
+         */
+        boolean hasNextPage(P page);
+
+        /**
+         * Returns the number of items in the given page.
+         */
+        int sizeOf(P page);
+    }
+
+    private final Fetcher<P> fetcher;
+    private final Executor executor;
+    private final int maxPages;
+    private final int maxBufferedItems;
+    private final BlockingQueue<? super PagePrefetcher<P>> ready;
+
+    /** Fetched pages, or the failure to fetch one, in order. */
+    private final BlockingQueue<Object> pages = new LinkedBlockingQueue<Object>();
+
+    private final Runnable fetchTask = new Runnable() {
+        @Override
+        public void run() {
+            fetch();
+        }
+    };
+
+    // Guarded by this
+    private P lastFetched;
+    private boolean fetching;
+    private boolean allFetched;
+    private boolean failed;
+    /** The pages being fetched or not yet taken. */
+    private int outstandingPages;
+    /** The items of the pages not yet taken. */
+    private int bufferedItems;
+
+    /** Whether the caller has yet to take the last page; caller thread only. */
+    private boolean remaining;
+
+    /**
+     * @param fetcher
+     *            Fetches the pages.
+     * @param executor
+     *            The executor to fetch the pages on; or null to fetch each
+     *            page when the caller asks for it.
+     * @param maxPages
+     *            The maximum number of pages being fetched or not yet taken.
+     * @param maxBufferedItems
+     *            The number of items in the pages not yet taken at which
+     *            fetching pauses.
+     */
+    public PagePrefetcher(Fetcher<P> fetcher, Executor executor, int maxPages,
+            int maxBufferedItems) {
+        this(fetcher, executor, maxPages, maxBufferedItems, null);
+    }
+
+    /**
+     * @param fetcher
+     *            Fetches the pages.
+     * @param executor
+     *            The executor to fetch the pages on.
+     * @param maxPages
+     *            The maximum number of pages being fetched or not yet taken.
+     * @param maxBufferedItems
+     *            The number of items in the pages not yet taken at which
+     *            fetching pauses.
+     * @param ready
+     *            The queue to add this prefetcher to each time it has a page,
+     *            or the failure to fetch one, ready to be taken; or null.
+     */
+    public PagePrefetcher(Fetcher<P> fetcher, Executor executor, int maxPages,
+            int maxBufferedItems, BlockingQueue<? super PagePrefetcher<P>> ready) {
+        if (fetcher == null)
+            throw new IllegalArgumentException("fetcher must not be null");
+        if (maxPages < 1)
+            throw new IllegalArgumentException("maxPages must be positive");
+        if (maxBufferedItems < 1)
+            throw new IllegalArgumentException("maxBufferedItems must be positive");
+        if (ready != null && executor == null)
+            throw new IllegalArgumentException("ready requires an executor");
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.maxPages = maxPages;
+        this.maxBufferedItems = maxBufferedItems;
+        this.ready = ready;
+    }
+
+    /**
+     * Starts fetching the pages from the first one.
+     */
+    public void start() {
+        remaining = true;
+        scheduleFetch();
+    }
+
+    /**
+     * Starts fetching the pages that follow the given page, which the caller
+     * already has.
+     */
+    public void start(P firstPage) {
+        boolean more = fetcher.hasNextPage(firstPage);
+        synchronized (this) {
+            lastFetched = firstPage;
+            allFetched = !more;
+        }
+        remaining = more;
+        scheduleFetch();
+    }
+
+    /**
+     * Returns whether there are pages the caller has not taken yet.
+     */
+    public boolean hasNext() {
+        return remaining;
+    }
+
+    /**
+     * Returns the next page, waiting for it to be fetched if needed.
+     *
+     * @throws NoSuchElementException
+     *             if the caller has taken the last page.
+     * @throws AmazonClientException
+     *             if the calling thread is interrupted, or fetching failed
+     *             with a checked exception; unchecked exceptions are thrown
+     *             as they are.
+     */
+    public P next() {
+        if (!remaining) {
+            throw new NoSuchElementException("No more pages");
+        }
+        P page = executor == null ? fetchInline() : take();
+        remaining = fetcher.hasNextPage(page);
+        scheduleFetch();
+        return page;
+    }
+
+    private P fetchInline() {
+        P page = fetcher.fetchNextPage(lastFetched);
+        lastFetched = page;
+        return page;
+    }
+
+    @SuppressWarnings("unchecked")
+    private P take() {
+        Object taken;
+        try {
+            taken = pages.take();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted waiting for the next page", ie);
+        }
+        if (taken instanceof Failure) {
+            // Keep rethrowing the failure on any later call
+            pages.add(taken);
+            throw ((Failure) taken).toException();
+        }
+        P page = (P) taken;
+        synchronized (this) {
+            outstandingPages--;
+            bufferedItems -= fetcher.sizeOf(page);
+        }
+        return page;
+    }
+
+    private void scheduleFetch() {
+        if (executor == null) {
+            return;
+        }
+        synchronized (this) {
+            if (fetching || allFetched || failed || outstandingPages >= maxPages
+                    || (outstandingPages > 0 && bufferedItems >= maxBufferedItems)) {
+                return;
+            }
+            fetching = true;
+            outstandingPages++;
+        }
+        try {
+            executor.execute(fetchTask);
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+    }
+
+    private void fetch() {
+        P previous;
+        synchronized (this) {
+            previous = lastFetched;
+        }
+        P page;
+        boolean more;
+        try {
+            page = fetcher.fetchNextPage(previous);
+            more = fetcher.hasNextPage(page);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        synchronized (this) {
+            lastFetched = page;
+            allFetched = !more;
+            fetching = false;
+            bufferedItems += fetcher.sizeOf(page);
+        }
+        put(page);
+        scheduleFetch();
+    }
+
+    private void fail(Throwable t) {
+        synchronized (this) {
+            failed = true;
+            fetching = false;
+        }
+        put(new Failure(t));
+    }
+
+    private void put(Object pageOrFailure) {
+        pages.add(pageOrFailure);
+        if (ready != null) {
+            ready.add(this);
+        }
+    }
+
+    private static final class Failure {
+        private final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+
+        RuntimeException toException() {
+            if (cause instanceof RuntimeException)
+                return (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            return new AmazonClientException("Unable to fetch the next page", cause);
+        }
+    }
+}
@@ -14,49 +14,19 @@
  */
 package com.amazonaws.util;
 
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLEncoder;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.amazonaws.SignableRequest;
 import com.amazonaws.http.HttpMethodName;
 
 public class SdkHttpUtils {
 
-    private static final String DEFAULT_ENCODING = "UTF-8";
-
-    /**
-     * Regex which matches any of the sequences that we need to fix up after
-     * URLEncoder.encode().
-     */
-    private static final Pattern ENCODED_CHARACTERS_PATTERN;
-    static {
-        StringBuilder pattern = new StringBuilder();
-
-        pattern
-            .append(Pattern.quote("+"))
-            .append("|")
-            .append(Pattern.quote("*"))
-            .append("|")
-            .append(Pattern.quote("%7E"))
-            .append("|")
-            .append(Pattern.quote("%2F"));
-
-        ENCODED_CHARACTERS_PATTERN = Pattern.compile(pattern.toString());
-    }
-
     /**
-     * Encode a string for use in the path of a URL; uses URLEncoder.encode,
-     * (which encodes a string for use in the query portion of a URL), then
-     * applies some postfilters to fix things up per the RFC. Can optionally
-     * handle strings which are meant to encode a path (ie include '/'es
-     * which should NOT be escaped).
+     * Encode a string for use in the path of a URL, per RFC 3986: the
+     * unreserved characters are left as is, and every other character is
+     * percent-encoded as the bytes of its UTF-8 encoding, with upper case hex
+     * digits. Can optionally handle strings which are meant to encode a path
+     * (ie include '/'es which should NOT be escaped).
      *
      * @param value the value to encode
      * @param path true if the value is intended to represent a path
@@ -66,35 +36,22 @@ public class SdkHttpUtils {
         if (value == null) {
             return "";
         }
-
-        try {
-            String encoded = URLEncoder.encode(value, DEFAULT_ENCODING);
-
-            Matcher matcher = ENCODED_CHARACTERS_PATTERN.matcher(encoded);
-            StringBuffer buffer = new StringBuffer(encoded.length());
-
-            while (matcher.find()) {
-                String replacement = matcher.group(0);
-
-                if ("+".equals(replacement)) {
-                    replacement = "%20";
-                } else if ("*".equals(replacement)) {
-                    replacement = "%2A";
-                } else if ("%7E".equals(replacement)) {
-                    replacement = "~";
-                } else if (path && "%2F".equals(replacement)) {
-                    replacement = "/";
-                }
-
-                matcher.appendReplacement(buffer, replacement);
-            }
-
-            matcher.appendTail(buffer);
-            return buffer.toString();
-
-        } catch (UnsupportedEncodingException ex) {
-            throw new RuntimeException(ex);
+        final int length = value.length();
+        int unencoded = 0;
+        while (unencoded < length && isUnencoded(value.charAt(unencoded), path)) {
+            unencoded++;
+        }
+        if (unencoded == length) {
+            // The common case of nothing to encode
+            return value;
         }
+        return new Utf8Builder(length + 2 * (length - unencoded) + 8)
+                .appendUrlEncoded(value, path)
+                .toString();
+    }
+
+    private static boolean isUnencoded(char c, boolean path) {
+        return c < 128 && (path ? Utf8Builder.UNRESERVED_OR_SLASH : Utf8Builder.UNRESERVED)[c];
     }
 
     /**
@@ -136,22 +93,8 @@ public class SdkHttpUtils {
      *         string for the parameters present in the specified request.
      */
     public static String encodeParameters(SignableRequest<?> request) {
-
-        final Map<String, List<String>> requestParams = request.getParameters();
-
-        if (requestParams.isEmpty()) return null;
-
-        final List<NameValuePair> nameValuePairs = new ArrayList<NameValuePair>();
-
-        for (Entry<String, List<String>> entry : requestParams.entrySet()) {
-            String parameterName = entry.getKey();
-            for (String value : entry.getValue()) {
-                nameValuePairs
-                    .add(new BasicNameValuePair(parameterName, value));
-            }
-        }
-
-        return URLEncodedUtils.format(nameValuePairs, DEFAULT_ENCODING);
+        EncodedParameters encoded = EncodedParameters.of(request);
+        return encoded == null ? null : encoded.toString();
     }
 
     /**
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.metrics.MetricType;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+/**
+ * A compact alternative to {@link TimingInfoFullSupport}, with the same
+ * observable behavior, used by {@link AWSRequestMetricsCompact}.
+ * <p>
+ * Measurements are identified by an index rather than by name: the ordinal of
+ * a predefined {@link Field}, or for any other name an index assigned on first
+ * use. Counters are held in a {@code long} array by index, and sub-measurements
+ * as primitive nanosecond start and end times in a single append-only array,
+ * so recording them neither boxes nor allocates beyond the occasional growth
+ * of an array. The {@link TimingInfo} objects and maps of the name based
+ * accessors are only created when those accessors are called, typically once
+ * by a request metric collector at the end of the request.
+ */
+@NotThreadSafe
+class TimingInfoCompact extends TimingInfo {
+    private static final Field[] FIELDS = Field.values();
+    private static final Map<String, Integer> FIELD_INDEXES;
+    static {
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        for (Field f : FIELDS) {
+            indexes.put(f.name(), f.ordinal());
+        }
+        FIELD_INDEXES = indexes;
+    }
+
+    /** Names of the measurements other than the predefined fields, if any. */
+    private List<String> otherNames;
+
+    private long[] counters = new long[FIELDS.length];
+    private boolean[] countersSet = new boolean[FIELDS.length];
+
+    /** Index, start time and end time in nanoseconds of each sub-measurement. */
+    private long[] subMeasurements = new long[3 * 16];
+    private int subMeasurementCount;
+
+    TimingInfoCompact(Long startEpochTimeMilli, long startTimeNano, Long endTimeNano) {
+        super(startEpochTimeMilli, startTimeNano, endTimeNano);
+    }
+
+    /**
+     * Returns the index of the given metric type, assigning one if needed.
+     */
+    int indexOf(MetricType f) {
+        if (f instanceof Field) {
+            return ((Field) f).ordinal();
+        }
+        return indexOf(f.name(), true);
+    }
+
+    /**
+     * Returns the index of the given name; or, if there is none yet, either
+     * assigns one or returns -1.
+     */
+    int indexOf(String name, boolean assign) {
+        Integer index = FIELD_INDEXES.get(name);
+        if (index != null) {
+            return index.intValue();
+        }
+        if (otherNames != null) {
+            int i = otherNames.indexOf(name);
+            if (i >= 0) {
+                return FIELDS.length + i;
+            }
+        }
+        if (!assign) {
+            return -1;
+        }
+        if (otherNames == null) {
+            otherNames = new ArrayList<String>(4);
+        }
+        otherNames.add(name);
+        int newIndex = FIELDS.length + otherNames.size() - 1;
+        if (newIndex >= counters.length) {
+            counters = Arrays.copyOf(counters, newIndex + 4);
+            countersSet = Arrays.copyOf(countersSet, newIndex + 4);
+        }
+        return newIndex;
+    }
+
+    /** Returns the number of indexes assigned so far. */
+    int indexCount() {
+        return FIELDS.length + (otherNames == null ? 0 : otherNames.size());
+    }
+
+    String nameOf(int index) {
+        return index < FIELDS.length
+             ? FIELDS[index].name()
+             : otherNames.get(index - FIELDS.length);
+    }
+
+    /**
+     * Records a sub-measurement of the given index.
+     */
+    void addSubMeasurement(int index, long startTimeNano, long endTimeNano) {
+        int offset = 3 * subMeasurementCount;
+        if (offset == subMeasurements.length) {
+            subMeasurements = Arrays.copyOf(subMeasurements, 2 * offset);
+        }
+        subMeasurements[offset] = index;
+        subMeasurements[offset + 1] = startTimeNano;
+        subMeasurements[offset + 2] = endTimeNano;
+        subMeasurementCount++;
+    }
+
+    void setCounter(int index, long count) {
+        counters[index] = count;
+        countersSet[index] = true;
+    }
+
+    void incrementCounter(int index) {
+        counters[index]++;
+        countersSet[index] = true;
+    }
+
+    @Override
+    public void addSubMeasurement(String subMeasurementName, TimingInfo ti) {
+        if (ti.isEndTimeKnown()) {
+            addSubMeasurement(indexOf(subMeasurementName, true),
+                ti.getStartTimeNano(), ti.getEndTimeNano());
+        } else {
+            LogFactory.getLog(getClass()).debug(
+                "Skip submeasurement timing info with no end time for "
+                + subMeasurementName);
+        }
+    }
+
+    @Override
+    public TimingInfo getSubMeasurement(String subMeasurementName) {
+        return getSubMeasurement(subMeasurementName, 0);
+    }
+
+    @Override
+    public TimingInfo getSubMeasurement(String subMesurementName, int index) {
+        List<TimingInfo> timings = getAllSubMeasurements(subMesurementName);
+        if (index < 0 || timings == null || index >= timings.size()) {
+            return null;
+        }
+        return timings.get(index);
+    }
+
+    @Override
+    public TimingInfo getLastSubMeasurement(String subMeasurementName) {
+        List<TimingInfo> timings = getAllSubMeasurements(subMeasurementName);
+        return timings == null ? null : timings.get(timings.size() - 1);
+    }
+
+    @Override
+    public List<TimingInfo> getAllSubMeasurements(String subMeasurementName) {
+        int index = indexOf(subMeasurementName, false);
+        if (index < 0) {
+            return null;
+        }
+        List<TimingInfo> timings = null;
+        for (int i = 0; i < subMeasurementCount; i++) {
+            int offset = 3 * i;
+            if (subMeasurements[offset] == index) {
+                if (timings == null) {
+                    timings = new ArrayList<TimingInfo>();
+                }
+                timings.add(TimingInfo.unmodifiableTimingInfo(
+                    subMeasurements[offset + 1], subMeasurements[offset + 2]));
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Returns a new map of the sub-measurements by name, in the order the
+     * names were first measured.
+     */
+    @Override
+    public Map<String, List<TimingInfo>> getSubMeasurementsByName() {
+        if (subMeasurementCount == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<TimingInfo>> byName = new LinkedHashMap<String, List<TimingInfo>>();
+        for (int i = 0; i < subMeasurementCount; i++) {
+            int offset = 3 * i;
+            String name = nameOf((int) subMeasurements[offset]);
+            List<TimingInfo> timings = byName.get(name);
+            if (timings == null) {
+                timings = new ArrayList<TimingInfo>();
+                byName.put(name, timings);
+            }
+            timings.add(TimingInfo.unmodifiableTimingInfo(
+                subMeasurements[offset + 1], subMeasurements[offset + 2]));
+        }
+        return byName;
+    }
+
+    @Override
+    public Number getCounter(String key) {
+        int index = indexOf(key, false);
+        return index >= 0 && countersSet[index] ? Long.valueOf(counters[index]) : null;
+    }
+
+    /**
+     * Returns a new map of the counters by name.
+     */
+    @Override
+    public Map<String, Number> getAllCounters() {
+        Map<String, Number> byName = new LinkedHashMap<String, Number>();
+        for (int i = 0, count = indexCount(); i < count; i++) {
+            if (countersSet[i]) {
+                byName.put(nameOf(i), Long.valueOf(counters[i]));
+            }
+        }
+        return byName;
+    }
+
+    @Override
+    public void setCounter(String key, long count) {
+        setCounter(indexOf(key, true), count);
+    }
+
+    @Override
+    public void incrementCounter(String key) {
+        incrementCounter(indexOf(key, true));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * A growable buffer of UTF-8 bytes, like a {@link StringBuilder} of the
+ * encoded form of the text appended to it. Text is appended as is, or
+ * percent-encoded for a URL or a form, by a single UTF-8 encoding loop, so all
+ * of these encode characters the same way, including unpaired surrogates,
+ * which become '?' as with {@link String#getBytes}.
+ * <p>
+ * A builder can be reused by setting its length back to zero, so that text
+ * which is only hashed, such as a canonical request being signed, need not
+ * become a String at all.
+ * <p>
+ * Intended for the SDK's internal use. Instances are not thread safe.
+ */
+public final class Utf8Builder {
+
+    private static final byte[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    /**
+     * For each ASCII character, true if it is left as is in a URL: the
+     * unreserved characters of RFC 3986.
+     */
+    static final boolean[] UNRESERVED = new boolean[128];
+    /** The unreserved characters and '/', for the path of a URL. */
+    static final boolean[] UNRESERVED_OR_SLASH;
+    /**
+     * For each ASCII character, true if it is left as is in a form field: the
+     * letters, digits and {@code -_.*}.
+     */
+    static final boolean[] FORM_UNENCODED;
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['-'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['.'] = true;
+        FORM_UNENCODED = UNRESERVED.clone();
+        UNRESERVED['~'] = true;
+        FORM_UNENCODED['*'] = true;
+        UNRESERVED_OR_SLASH = UNRESERVED.clone();
+        UNRESERVED_OR_SLASH['/'] = true;
+    }
+
+    private byte[] bytes;
+    private int length;
+
+    /**
+     * @param capacity
+     *            the number of bytes the builder can hold before it grows
+     */
+    public Utf8Builder(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    /** Returns the number of bytes in this builder. */
+    public int length() {
+        return length;
+    }
+
+    /** Returns the number of bytes this builder can hold before it grows. */
+    public int capacity() {
+        return bytes.length;
+    }
+
+    /**
+     * Truncates this builder to the given number of bytes; zero to reuse it.
+     */
+    public void setLength(int newLength) {
+        if (newLength < 0 || newLength > length) {
+            throw new IndexOutOfBoundsException(String.valueOf(newLength));
+        }
+        length = newLength;
+    }
+
+    /**
+     * Appends the given ASCII character.
+     */
+    public Utf8Builder append(char c) {
+        if (length == bytes.length) {
+            grow(1);
+        }
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the given string.
+     */
+    public Utf8Builder append(String value) {
+        appendUtf8(value, 0, value.length(), null, false);
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the given characters of a string.
+     */
+    public Utf8Builder append(String value, int from, int to) {
+        appendUtf8(value, from, to, null, false);
+        return this;
+    }
+
+    /**
+     * Appends the given bytes of another builder.
+     */
+    public Utf8Builder append(Utf8Builder source, int from, int to) {
+        int count = to - from;
+        if (length + count > bytes.length) {
+            grow(count);
+        }
+        System.arraycopy(source.bytes, from, bytes, length, count);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Appends the given value encoded as by
+     * {@link SdkHttpUtils#urlEncode(String, boolean)}: the unreserved
+     * characters of RFC 3986 are left as is, and every other character is
+     * percent-encoded as the bytes of its UTF-8 encoding.
+     *
+     * @param value the value to encode; or null for none
+     * @param path true to leave '/' unencoded, as in the path of a URL
+     */
+    public Utf8Builder appendUrlEncoded(String value, boolean path) {
+        if (value != null) {
+            appendUtf8(value, 0, value.length(),
+                    path ? UNRESERVED_OR_SLASH : UNRESERVED, false);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the given value encoded as an
+     * {@code application/x-www-form-urlencoded} field, like
+     * {@link java.net.URLEncoder} in UTF-8 does: letters, digits and
+     * {@code -_.*} are left as is, spaces become '+', and every other
+     * character is percent-encoded as the bytes of its UTF-8 encoding.
+     */
+    public Utf8Builder appendFormEncoded(String value) {
+        appendUtf8(value, 0, value.length(), FORM_UNENCODED, true);
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the given characters of a string,
+     * percent-encoding every byte other than those of the ASCII characters
+     * marked in the given table, unless the table is null.
+     *
+     * @param unencoded
+     *            the ASCII characters to leave as is; or null to leave every
+     *            byte as is
+     * @param spaceAsPlus
+     *            true to encode spaces as '+' rather than percent-encoding
+     *            them
+     */
+    private void appendUtf8(String value, int from, int to, boolean[] unencoded,
+            boolean spaceAsPlus) {
+        final boolean escape = unencoded != null;
+        // At most three bytes, each escaped or not, for each char
+        final int needed = (escape ? 9 : 3) * (to - from);
+        if (length + needed > bytes.length) {
+            grow(needed);
+        }
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (!escape || unencoded[c]) {
+                    bytes[length++] = (byte) c;
+                } else if (spaceAsPlus && c == ' ') {
+                    bytes[length++] = '+';
+                } else {
+                    appendEscaped(c);
+                }
+            } else if (c < 0x800) {
+                appendByte(0xC0 | (c >> 6), escape);
+                appendByte(0x80 | (c & 0x3F), escape);
+            } else if (Character.isHighSurrogate(c) && i + 1 < to
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(0xF0 | (codePoint >> 18), escape);
+                appendByte(0x80 | ((codePoint >> 12) & 0x3F), escape);
+                appendByte(0x80 | ((codePoint >> 6) & 0x3F), escape);
+                appendByte(0x80 | (codePoint & 0x3F), escape);
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // An unpaired surrogate, which the UTF-8 encoder replaces
+                appendByte('?', escape);
+            } else {
+                appendByte(0xE0 | (c >> 12), escape);
+                appendByte(0x80 | ((c >> 6) & 0x3F), escape);
+                appendByte(0x80 | (c & 0x3F), escape);
+            }
+        }
+    }
+
+    private void appendByte(int b, boolean escape) {
+        if (escape) {
+            appendEscaped(b);
+        } else {
+            bytes[length++] = (byte) b;
+        }
+    }
+
+    private void appendEscaped(int b) {
+        bytes[length++] = '%';
+        bytes[length++] = HEX_DIGITS[(b >> 4) & 0xF];
+        bytes[length++] = HEX_DIGITS[b & 0xF];
+    }
+
+    private void grow(int needed) {
+        bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + needed));
+    }
+
+    /**
+     * Compares two ranges of bytes of this builder as unsigned bytes; for
+     * ASCII text, in the order of {@link String#compareTo}.
+     */
+    public int compare(int from1, int to1, int from2, int to2) {
+        int count = Math.min(to1 - from1, to2 - from2);
+        for (int i = 0; i < count; i++) {
+            int diff = (bytes[from1 + i] & 0xFF) - (bytes[from2 + i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return (to1 - from1) - (to2 - from2);
+    }
+
+    /**
+     * Updates the given digest with the bytes of this builder.
+     */
+    public void updateDigest(MessageDigest digest) {
+        digest.update(bytes, 0, length);
+    }
+
+    /**
+     * Returns the bytes of this builder; its own array if that is full, so
+     * the builder must no longer be appended to.
+     */
+    byte[] toByteArray() {
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Returns the text of this builder, decoded from UTF-8.
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StringUtils.UTF8);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2011-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.util.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.util.DateUtils;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A {@link JSONWriter} that encodes straight to UTF-8 bytes with a Jackson
+ * {@link JsonGenerator}, rather than building a String that then has to be
+ * encoded and copied again before it can be sent.
+ * <p>
+ * Since it is a {@link JSONWriter}, the existing JSON marshallers for nested
+ * structures can write into it unchanged. Once the outermost object has been
+ * closed, {@link #getContent()} and {@link #getContentLength()} expose the
+ * encoded body without copying it. The content stream is a
+ * {@link ByteArrayInputStream}, so it can be marked and reset when a request
+ * is retried.
+ * <p>
+ * Jackson recycles its encoding buffers per thread for generators created by
+ * a shared {@link JsonFactory}, once they are closed. The generator is closed
+ * the first time the content or its length is asked for, after which nothing
+ * more can be written. The output buffer itself is not pooled, because the
+ * request keeps reading it until its last retry.
+ * <p>
+ * Each instance can produce one JSON text.
+ */
+@NotThreadSafe
+public class StreamingJSONWriter extends JSONWriter {
+
+    /** Default initial size of the output buffer, in bytes. */
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /** Shared, thread safe factory; reusing it lets Jackson recycle buffers. */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ExposedByteArrayOutputStream out;
+    private final JsonGenerator generator;
+
+    public StreamingJSONWriter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param initialBufferSize
+     *            Initial size, in bytes, of the buffer that receives the
+     *            encoded JSON. It grows as needed.
+     */
+    public StreamingJSONWriter(int initialBufferSize) {
+        super(null);
+        this.out = new ExposedByteArrayOutputStream(initialBufferSize);
+        try {
+            this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        } catch (IOException e) {
+            // Never thrown when writing to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public JSONWriter array() throws JSONException {
+        try {
+            generator.writeStartArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endArray() throws JSONException {
+        try {
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter object() throws JSONException {
+        try {
+            generator.writeStartObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter endObject() throws JSONException {
+        try {
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter key(String s) throws JSONException {
+        if (s == null) {
+            throw new JSONException("Null key.");
+        }
+        try {
+            generator.writeFieldName(s);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(boolean b) throws JSONException {
+        try {
+            generator.writeBoolean(b);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public JSONWriter value(double d) throws JSONException {
+        return value(Double.valueOf(d));
+    }
+
+    @Override
+    public JSONWriter value(long l) throws JSONException {
+        try {
+            generator.writeNumber(l);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a date value, as epoch seconds.
+     */
+    @Override
+    public JSONWriter value(Date date) throws JSONException {
+        if (date == null) {
+            return value((Object) null);
+        }
+        try {
+            generator.writeNumber(DateUtils.formatServiceSpecificDate(date));
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a ByteBuffer value as Base64, encoding straight from the
+     * buffer's backing array when it has one. The buffer's position is left
+     * unchanged.
+     */
+    @Override
+    public JSONWriter value(ByteBuffer b) throws JSONException {
+        try {
+            if (b.hasArray()) {
+                generator.writeBinary(b.array(),
+                        b.arrayOffset() + b.position(), b.remaining());
+            } else {
+                b.mark();
+                byte[] bytes = new byte[b.remaining()];
+                b.get(bytes, 0, bytes.length);
+                b.reset();
+                generator.writeBinary(bytes);
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Appends an object value. Numbers are rendered exactly as
+     * {@link JSONObject#numberToString(Number)} would, so requests carry the
+     * same numeric text as with the String based {@link JSONWriter}.
+     */
+    @Override
+    public JSONWriter value(Object o) throws JSONException {
+        try {
+            if (JSONObject.NULL.equals(o)) {
+                generator.writeNull();
+            } else if (o instanceof String) {
+                generator.writeString((String) o);
+            } else if (o instanceof Boolean) {
+                generator.writeBoolean(((Boolean) o).booleanValue());
+            } else if (o instanceof Integer || o instanceof Long
+                    || o instanceof Short || o instanceof Byte) {
+                generator.writeNumber(((Number) o).longValue());
+            } else if (o instanceof BigInteger) {
+                generator.writeNumber((BigInteger) o);
+            } else if (o instanceof Number) {
+                generator.writeNumber(JSONObject.numberToString((Number) o));
+            } else if (o instanceof Date) {
+                return value((Date) o);
+            } else if (o instanceof ByteBuffer) {
+                return value((ByteBuffer) o);
+            } else {
+                generator.writeRawValue(JSONObject.valueToString(o));
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes of encoded JSON. The JSON text must be
+     * complete.
+     */
+    public int getContentLength() {
+        finish();
+        return out.size();
+    }
+
+    /**
+     * Returns a stream over the encoded JSON, backed by this writer's buffer.
+     * The stream supports mark and reset, so the request can be replayed. The
+     * JSON text must be complete.
+     */
+    public InputStream getContent() {
+        finish();
+        return out.toInputStream();
+    }
+
+    /**
+     * Closes the generator, which flushes it and returns its buffers to
+     * Jackson for the next writer on this thread.
+     */
+    private void finish() {
+        if (generator.isClosed())
+            return;
+        try {
+            generator.close();
+        } catch (IOException e) {
+            // Never thrown when writing to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hands out its internal buffer as an input stream instead of copying it
+     * with {@link #toByteArray()}.
+     */
+    private static final class ExposedByteArrayOutputStream extends
+            ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        ByteArrayInputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.util.Date;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.SignableRequest;
+import com.amazonaws.http.HttpMethodName;
+
+/**
+ * Compares the time and allocation per signature of {@link AWS4Signer},
+ * which hashes the canonical request from a reused byte builder, and of a
+ * subclass overriding {@link AWS4Signer#createCanonicalRequest}, which is
+ * signed through the String hooks as every signer used to be. The request is
+ * a typical Query protocol GET. Not run as part of the build; run its main
+ * method on a quiet machine. Allocation is only reported on JVMs exposing
+ * per-thread allocated bytes.
+ */
+public class AWS4SignerBenchmark {
+
+    private static final AWSCredentials CREDENTIALS = new BasicAWSCredentials(
+            "AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    /** Defeats dead code elimination. */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int signatures = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        AWS4Signer bytes = new AWS4Signer();
+        AWS4Signer strings = new AWS4Signer() {
+            @Override
+            protected String createCanonicalRequest(SignableRequest<?> request,
+                    String contentSha256) {
+                return super.createCanonicalRequest(request, contentSha256);
+            }
+        };
+        Date date = new Date();
+        for (AWS4Signer signer : new AWS4Signer[] { bytes, strings }) {
+            signer.setServiceName("sqs");
+            signer.setRegionName("us-east-1");
+            signer.setOverrideDate(date);
+        }
+        for (int round = 0; round < 3; round++) {
+            run("String hooks", strings, signatures);
+            run("byte builder", bytes, signatures);
+        }
+    }
+
+    private static void run(String name, AWS4Signer signer, int signatures) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < signatures; i++) {
+            DefaultRequest<Void> request = newRequest();
+            signer.sign(request, CREDENTIALS);
+            sink += request.getHeaders().get("Authorization").length();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.println(name + ": " + nanos / signatures + " ns/signature"
+                + (bytesBefore < 0 ? "" : ", " + bytes / signatures + " B/signature"));
+    }
+
+    private static DefaultRequest<Void> newRequest() {
+        DefaultRequest<Void> request = new DefaultRequest<Void>("AmazonSQS");
+        request.setHttpMethod(HttpMethodName.GET);
+        request.setEndpoint(URI.create("https://sqs.us-east-1.amazonaws.com"));
+        request.setResourcePath("/123456789012/my-queue");
+        request.addHeader("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+        request.addHeader("User-Agent", "aws-sdk-java/1.10 Linux/4.4 Java_HotSpot(TM)_64-Bit_Server_VM/25.0");
+        request.addParameter("Action", "SendMessage");
+        request.addParameter("Version", "2012-11-05");
+        request.addParameter("MessageBody", "hello world & goodbye");
+        request.addParameter("DelaySeconds", "0");
+        request.addParameter("MessageAttribute.1.Name", "trace-id");
+        request.addParameter("MessageAttribute.1.Value.DataType", "String");
+        request.addParameter("MessageAttribute.1.Value.StringValue", "1-5759e988-bd862e3fe1be46a994272793");
+        return request;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * unsupported.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -35,7 +35,10 @@ import org.junit.Test;
 
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.SignableRequest;
 import com.amazonaws.auth.internal.AWS4SignerUtils;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.util.BinaryUtils;
 
 /**
  * Unit tests for the
@@ -137,6 +140,112 @@ public class AWS4SignerTest {
         assertNull(request.getHeaders().get("Authorization"));
     }
 
+    /**
+     * Tests that header whitespace is compacted exactly as the regular
+     * expression based implementation used to.
+     */
+    @Test
+    public void testCanonicalizedHeaderWhitespace() {
+        String[] values = {
+                "", " ", "a", "  leading", "trailing \t", "a\t\t b",
+                "multi\r\n line", "vertical\u000Btab\fform", "non\u00A0breaking"
+        };
+        for (String value : values) {
+            Request<?> request = new DefaultRequest<Void>("Foo");
+            request.addHeader("X-Amz-Meta  Spaced", value);
+
+            String expected = "x-amz-meta spaced:"
+                    + value.replaceAll("\\s+", " ") + "\n";
+            assertEquals(expected, signer.getCanonicalizedHeaderString(request));
+        }
+    }
+
+    /**
+     * Tests that signing repeatedly on the same thread, which reuses the
+     * thread's digest and Mac, keeps producing the same signature.
+     */
+    @Test
+    public void testRepeatedSigningIsStable() throws Exception {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        signer.setOverrideDate(c.getTime());
+
+        String first = null;
+        for (int i = 0; i < 5; i++) {
+            Request<?> request = generateBasicRequest();
+            signer.sign(request, credentials);
+            String authorization = request.getHeaders().get("Authorization");
+            if (first == null) {
+                first = authorization;
+            }
+            assertEquals(first, authorization);
+        }
+        assertEquals(AbstractAWSSigner.EMPTY_STRING_SHA256_HEX,
+                BinaryUtils.toHex(signer.hash("")));
+    }
+
+    /**
+     * Tests that the canonical request hashed from the calling thread's
+     * builder is the one returned by createCanonicalRequest.
+     */
+    @Test
+    public void testHashedCanonicalRequestSameAsString() {
+        String[] paths = { null, "", "/", "foo/bar baz", "/a+b/\u00e9\ud83d\ude00/c%2F" };
+        for (boolean doubleUrlEncode : new boolean[] { true, false }) {
+            AWS4Signer signer = new AWS4Signer(doubleUrlEncode);
+            for (String path : paths) {
+                Request<?> request = generateBasicRequest();
+                request.setResourcePath(path);
+                request.addHeader("X-Amz-Meta-Name", " caf\u00e9 \t\u20ac  x ");
+                request.addParameter("b", "2");
+                request.addParameter("a-b", "x y");
+                request.addParameter("a", "\u00e9");
+                assertCanonicalRequestHash(signer, request);
+
+                request.setContent(null);
+                request.setHttpMethod(HttpMethodName.POST);
+                assertCanonicalRequestHash(signer, request);
+            }
+        }
+    }
+
+    /**
+     * Tests that a subclass overriding one of the String hooks of the
+     * canonical request is still signed through it.
+     */
+    @Test
+    public void testOverriddenCanonicalRequestHookIsCalled() throws Exception {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        Date date = new Date(350000000000L);
+        AWS4Signer overriding = new AWS4Signer() {
+            @Override
+            protected String getCanonicalizedHeaderString(SignableRequest<?> request) {
+                return super.getCanonicalizedHeaderString(request).toUpperCase();
+            }
+        };
+        overriding.setOverrideDate(date);
+        signer.setOverrideDate(date);
+
+        Request<?> request = generateBasicRequest();
+        signer.sign(request, credentials);
+        Request<?> overridden = generateBasicRequest();
+        overriding.sign(overridden, credentials);
+
+        Assert.assertNotEquals(request.getHeaders().get("Authorization"),
+                overridden.getHeaders().get("Authorization"));
+    }
+
+    private static void assertCanonicalRequestHash(AWS4Signer signer,
+            Request<?> request) {
+        String contentSha256 = AbstractAWSSigner.EMPTY_STRING_SHA256_HEX;
+        String canonicalRequest = signer.createCanonicalRequest(request, contentSha256);
+        assertEquals(canonicalRequest,
+                BinaryUtils.toHex(signer.hash(canonicalRequest)),
+                BinaryUtils.toHex(signer.hashCanonicalRequest(request, contentSha256)));
+    }
+
     private Request<?> generateBasicRequest() {
         Request<?> request = new DefaultRequest<Void>("Foo");
         request.setContent(new ByteArrayInputStream("{\"TableName\": \"foo\"}".getBytes()));
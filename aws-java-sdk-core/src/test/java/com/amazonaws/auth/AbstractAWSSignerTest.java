@@ -2,10 +2,34 @@ package com.amazonaws.auth;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 import org.junit.Test;
 
+import com.amazonaws.SignableRequest;
+import com.amazonaws.util.SdkHttpUtils;
+
 public class AbstractAWSSignerTest {
 
+    private static final AbstractAWSSigner SIGNER = new AbstractAWSSigner() {
+        @Override
+        public void sign(SignableRequest<?> request, AWSCredentials credentials) {
+        }
+
+        @Override
+        protected void addSessionCredentials(SignableRequest<?> request,
+                AWSSessionCredentials credentials) {
+        }
+    };
+
     @Test
     public void test() {
         assertEquals(
@@ -13,4 +37,74 @@ public class AbstractAWSSignerTest {
             AbstractAWSSigner.EMPTY_STRING_SHA256_HEX);
     }
 
+    @Test
+    public void testCanonicalizedQueryString() {
+        Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+        parameters.put("b", Arrays.asList("2", "1 1", null));
+        parameters.put("a-b", Arrays.asList("x"));
+        parameters.put("a", Arrays.asList("\u00e9"));
+        parameters.put("empty", new ArrayList<String>());
+        // '=' sorts after '-', so "a=" must still come before "a-b="
+        assertEquals("a=%C3%A9&a-b=x&b=&b=1%201&b=2",
+                SIGNER.getCanonicalizedQueryString(parameters));
+        assertEquals("", SIGNER.getCanonicalizedQueryString(
+                new LinkedHashMap<String, List<String>>()));
+    }
+
+    /**
+     * Compares the canonicalization of random parameters with that of the
+     * TreeMap based implementation it replaced.
+     */
+    @Test
+    public void testCanonicalizedQueryStringSameAsSortedMap() {
+        char[] alphabet = "aZ09-_.~ =&%*/\u00e9\u20ac".toCharArray();
+        Random random = new Random(3333);
+        for (int i = 0; i < 5000; i++) {
+            Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+            int names = random.nextInt(8);
+            for (int j = 0; j < names; j++) {
+                List<String> values = new ArrayList<String>();
+                int count = random.nextInt(4);
+                for (int k = 0; k < count; k++) {
+                    values.add(random.nextInt(10) == 0
+                            ? null : randomString(random, alphabet));
+                }
+                parameters.put(randomString(random, alphabet), values);
+            }
+            assertEquals(sortedMapCanonicalizedQueryString(parameters),
+                    SIGNER.getCanonicalizedQueryString(parameters));
+        }
+    }
+
+    private static String randomString(Random random, char[] alphabet) {
+        char[] chars = new char[random.nextInt(4)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(chars);
+    }
+
+    /** The previous implementation of getCanonicalizedQueryString. */
+    private static String sortedMapCanonicalizedQueryString(
+            Map<String, List<String>> parameters) {
+        SortedMap<String, List<String>> sorted = new TreeMap<String, List<String>>();
+        for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+            List<String> encodedValues = new ArrayList<String>();
+            for (String value : entry.getValue()) {
+                encodedValues.add(SdkHttpUtils.urlEncode(value, false));
+            }
+            Collections.sort(encodedValues);
+            sorted.put(SdkHttpUtils.urlEncode(entry.getKey(), false), encodedValues);
+        }
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : sorted.entrySet()) {
+            for (String value : entry.getValue()) {
+                if (result.length() > 0) {
+                    result.append("&");
+                }
+                result.append(entry.getKey()).append("=").append(value);
+            }
+        }
+        return result.toString();
+    }
 }
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.SignableRequest;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.Signer;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringInputStream;
+import com.amazonaws.util.StringUtils;
+
+/**
+ * Tests {@link AmazonHttpClient#executeAsync} over the non-blocking transport
+ * against a local HTTP server.
+ */
+public class AmazonHttpClientNioTransportTest {
+
+    private TestServer server;
+    private ExecutorService executor;
+    private RetryScheduler retryScheduler;
+    private AmazonHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new TestServer();
+        executor = Executors.newSingleThreadExecutor();
+        retryScheduler = new RetryScheduler(Executors.newSingleThreadScheduledExecutor());
+        client = new AmazonHttpClient(new ClientConfiguration().withNioTransport(true));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.shutdown();
+        executor.shutdownNow();
+        retryScheduler.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testRequestSignedSentAndRetried() throws Exception {
+        server.failuresBeforeSuccess.set(2);
+        ExecutionContext context = new SigningExecutionContext();
+        RecordingCallback callback = new RecordingCallback();
+
+        client.executeAsync(newRequest("hello"), new StringResponseHandler(),
+                new StatusCodeErrorHandler(), context, executor, retryScheduler,
+                callback);
+
+        Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        Assert.assertNull(callback.error.get());
+        Assert.assertEquals("ok:hello", callback.result.get());
+
+        Assert.assertEquals(3, server.requests.size());
+        for (int i = 0; i < 3; i++) {
+            // every attempt is signed again and carries the whole content
+            Assert.assertTrue(server.requests.get(i).contains("x-test-signature: " + (i + 1)));
+            Assert.assertTrue(server.requests.get(i).endsWith("hello"));
+        }
+        Assert.assertEquals(3, context.getAwsRequestMetrics().getTimingInfo()
+                .getCounter(AWSRequestMetrics.Field.RequestCount.toString()).intValue());
+    }
+
+    @Test
+    public void testNonRetryableErrorReportedToCallback() throws Exception {
+        server.failuresBeforeSuccess.set(Integer.MAX_VALUE);
+        server.failureStatus = 400;
+        RecordingCallback callback = new RecordingCallback();
+
+        client.executeAsync(newRequest("hello"), new StringResponseHandler(),
+                new StatusCodeErrorHandler(), new ExecutionContext(), executor,
+                retryScheduler, callback);
+
+        Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(callback.error.get() instanceof AmazonServiceException);
+        Assert.assertEquals(400, ((AmazonServiceException) callback.error.get()).getStatusCode());
+        Assert.assertEquals(1, server.requests.size());
+    }
+
+    /**
+     * Requests waiting on the network should leave the (single) executor
+     * thread free for other work.
+     */
+    @Test
+    public void testExecutorThreadReleasedWhileWaitingForResponses() throws Exception {
+        final int inFlight = 20;
+        server.responseDelayMillis = 500;
+
+        List<RecordingCallback> callbacks = new ArrayList<RecordingCallback>();
+        for (int i = 0; i < inFlight; i++) {
+            RecordingCallback callback = new RecordingCallback();
+            callbacks.add(callback);
+            client.executeAsync(newRequest("r" + i), new StringResponseHandler(),
+                    new StatusCodeErrorHandler(), new ExecutionContext(), executor,
+                    retryScheduler, callback);
+        }
+
+        final CountDownLatch probe = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                probe.countDown();
+            }
+        });
+        Assert.assertTrue(probe.await(200, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < inFlight; i++) {
+            RecordingCallback callback = callbacks.get(i);
+            Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals("ok:r" + i, callback.result.get());
+        }
+    }
+
+    private Request<?> newRequest(String content) throws IOException {
+        DefaultRequest<?> request = new DefaultRequest<Object>(
+                new AmazonWebServiceRequest() {}, "TestService");
+        request.setEndpoint(URI.create("http://127.0.0.1:" + server.getLocalPort()));
+        request.setHttpMethod(HttpMethodName.POST);
+        request.setContent(new StringInputStream(content));
+        request.addHeader("Content-Length", Integer.toString(content.length()));
+        return request;
+    }
+
+    /**
+     * Signs each attempt with a header that counts the signatures.
+     */
+    private static class SigningExecutionContext extends ExecutionContext {
+        private final AtomicInteger signatures = new AtomicInteger();
+
+        SigningExecutionContext() {
+            super(true);
+            setCredentials(new BasicAWSCredentials("akid", "skid"));
+        }
+
+        @Override
+        public Signer getSignerByURI(URI uri) {
+            return new Signer() {
+                @Override
+                public void sign(SignableRequest<?> request, AWSCredentials credentials) {
+                    request.addHeader("X-Test-Signature",
+                            Integer.toString(signatures.incrementAndGet()));
+                }
+            };
+        }
+    }
+
+    private static class StringResponseHandler implements
+            HttpResponseHandler<AmazonWebServiceResponse<String>> {
+        @Override
+        public AmazonWebServiceResponse<String> handle(HttpResponse response) throws Exception {
+            AmazonWebServiceResponse<String> awsResponse = new AmazonWebServiceResponse<String>();
+            awsResponse.setResult(IOUtils.toString(response.getContent()));
+            return awsResponse;
+        }
+
+        @Override
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    private static class StatusCodeErrorHandler implements
+            HttpResponseHandler<AmazonServiceException> {
+        @Override
+        public AmazonServiceException handle(HttpResponse response) throws Exception {
+            AmazonServiceException ase = new AmazonServiceException("Error");
+            ase.setStatusCode(response.getStatusCode());
+            ase.setErrorType(response.getStatusCode() >= 500
+                    ? AmazonServiceException.ErrorType.Service
+                    : AmazonServiceException.ErrorType.Client);
+            return ase;
+        }
+
+        @Override
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    private static class RecordingCallback implements ExecutionCallback<String> {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> result = new AtomicReference<String>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        @Override
+        public void onSuccess(Response<String> response) {
+            result.set(response.getAwsResponse());
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error.set(t);
+            done.countDown();
+        }
+    }
+
+    /**
+     * Minimal HTTP server that handles each connection on its own thread,
+     * fails the first requests it receives, and then echoes the request
+     * content back.
+     */
+    private static class TestServer {
+        private final ServerSocket serverSocket;
+        final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+        volatile int failureStatus = 500;
+        volatile long responseDelayMillis;
+
+        TestServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread acceptor = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            final Socket socket = serverSocket.accept();
+                            Thread handler = new Thread() {
+                                @Override
+                                public void run() {
+                                    handle(socket);
+                                }
+                            };
+                            handler.setDaemon(true);
+                            handler.start();
+                        }
+                    } catch (IOException closed) {
+                    }
+                }
+            };
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getLocalPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void handle(Socket socket) {
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        socket.getInputStream(), StringUtils.UTF8));
+                StringBuilder request = new StringBuilder();
+                int contentLength = 0;
+                String line;
+                while ((line = reader.readLine()) != null && line.length() > 0) {
+                    request.append(line.toLowerCase()).append('\n');
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+                char[] content = new char[contentLength];
+                int read = 0;
+                while (read < contentLength) {
+                    int n = reader.read(content, read, contentLength - read);
+                    if (n < 0) break;
+                    read += n;
+                }
+                String body = new String(content, 0, read);
+                requests.add(request.append(body).toString());
+
+                if (responseDelayMillis > 0) {
+                    Thread.sleep(responseDelayMillis);
+                }
+                String response;
+                if (failuresBeforeSuccess.getAndDecrement() > 0) {
+                    response = "HTTP/1.1 " + failureStatus + " Error\r\n"
+                            + "Content-Length: 0\r\n"
+                            + "Connection: close\r\n\r\n";
+                } else {
+                    String responseBody = "ok:" + body;
+                    response = "HTTP/1.1 200 OK\r\n"
+                            + "Content-Length: " + responseBody.length() + "\r\n"
+                            + "Connection: close\r\n\r\n" + responseBody;
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(response.getBytes(StringUtils.UTF8));
+                out.flush();
+            } catch (Exception e) {
+                // the client gave up on the connection
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights
+ * Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either
+ * express or implied. See the License for the specific language
+ * governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryPolicyTestBase;
+import com.amazonaws.util.AWSRequestMetrics;
+
+/**
+ * Tests that {@link AmazonHttpClient#executeAsync} retries requests the same
+ * way {@link AmazonHttpClient#execute} does, without holding the executing
+ * thread during the back-off delay.
+ */
+public class AmazonHttpClientNonBlockingRetryTest extends RetryPolicyTestBase {
+
+    private static final int EXPECTED_RETRY_COUNT = 3;
+
+    private ExecutorService executor;
+    private RetryScheduler retryScheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        retryScheduler = new RetryScheduler(Executors.newSingleThreadScheduledExecutor());
+        retryCondition = new ContextDataCollectionRetryCondition();
+        backoffStrategy = new ContextDataCollectionBackoffStrategy();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        retryScheduler.shutdown();
+    }
+
+    @Test
+    public void testServiceExceptionRetriedOnScheduler() throws Exception {
+        AmazonHttpClient client = newClient(new RetryPolicy(retryCondition,
+                backoffStrategy, EXPECTED_RETRY_COUNT, false));
+        ExecutionContext context = new ExecutionContext(true);
+        RecordingCallback callback = new RecordingCallback();
+
+        client.executeAsync(getSampleRequestWithRepeatableContent(originalRequest),
+                null, errorResponseHandler, context, executor, retryScheduler,
+                callback);
+
+        Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        Throwable t = callback.error.get();
+        Assert.assertTrue(t instanceof AmazonServiceException);
+        Assert.assertEquals(500, ((AmazonServiceException) t).getStatusCode());
+
+        verifyExpectedContextData(retryCondition, originalRequest,
+                (AmazonServiceException) t, EXPECTED_RETRY_COUNT);
+        verifyExpectedContextData(backoffStrategy, originalRequest,
+                (AmazonServiceException) t, EXPECTED_RETRY_COUNT);
+        Assert.assertEquals(
+                EXPECTED_RETRY_COUNT + 1, // request count = retries + 1
+                context.getAwsRequestMetrics()
+                        .getTimingInfo().getCounter(AWSRequestMetrics.Field.RequestCount.toString()).intValue());
+    }
+
+    /**
+     * Throttled requests waiting to be retried should leave the (single)
+     * executor thread free for other work.
+     */
+    @Test
+    public void testExecutorThreadReleasedDuringBackoff() throws Exception {
+        final int inFlight = 20;
+        AmazonHttpClient client = newClient(new RetryPolicy(retryCondition,
+                new RetryPolicy.BackoffStrategy() {
+                    @Override
+                    public long delayBeforeNextRetry(
+                            AmazonWebServiceRequest originalRequest,
+                            AmazonClientException exception,
+                            int retriesAttempted) {
+                        return 500;
+                    }
+                }, 1, false));
+
+        List<RecordingCallback> callbacks = new ArrayList<RecordingCallback>();
+        for (int i = 0; i < inFlight; i++) {
+            RecordingCallback callback = new RecordingCallback();
+            callbacks.add(callback);
+            Request<?> request = getSampleRequestWithRepeatableContent(originalRequest);
+            client.executeAsync(request, null, errorResponseHandler,
+                    new ExecutionContext(), executor, retryScheduler, callback);
+        }
+
+        final CountDownLatch probe = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                probe.countDown();
+            }
+        });
+        Assert.assertTrue(probe.await(200, TimeUnit.MILLISECONDS));
+        for (RecordingCallback callback : callbacks) {
+            Assert.assertEquals(1, callback.done.getCount());
+        }
+
+        for (RecordingCallback callback : callbacks) {
+            Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(callback.error.get() instanceof AmazonServiceException);
+        }
+        Assert.assertEquals(inFlight, retryCondition.failedRequests.size());
+    }
+
+    @Test
+    public void testRejectedRetryReportedToCallback() throws Exception {
+        AmazonHttpClient client = newClient(new RetryPolicy(retryCondition,
+                backoffStrategy, EXPECTED_RETRY_COUNT, false));
+        RecordingCallback callback = new RecordingCallback();
+        retryScheduler.shutdown();
+
+        client.executeAsync(getSampleRequestWithRepeatableContent(originalRequest),
+                null, errorResponseHandler, new ExecutionContext(), executor,
+                retryScheduler, callback);
+
+        Assert.assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(callback.error.get() instanceof AmazonClientException);
+        Assert.assertFalse(callback.error.get() instanceof AmazonServiceException);
+    }
+
+    private static AmazonHttpClient newClient(RetryPolicy retryPolicy) {
+        AmazonHttpClient client = new AmazonHttpClient(
+                new ClientConfiguration().withRetryPolicy(retryPolicy));
+        injectMockHttpClient(client, new ReturnServiceErrorHttpClient(500, "InternalError"));
+        return client;
+    }
+
+    private static class RecordingCallback implements ExecutionCallback<Object> {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        @Override
+        public void onSuccess(Response<Object> response) {
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error.set(t);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class MetricHistogramTest {
+
+    @Test
+    public void emptySnapshot() {
+        MetricHistogram.Snapshot snapshot = new MetricHistogram().getSnapshot();
+        assertEquals(0, snapshot.getCount());
+        assertTrue(Double.isNaN(snapshot.getValueAtPercentile(99)));
+    }
+
+    @Test
+    public void percentilesWithinBucketPrecision() {
+        MetricHistogram histogram = new MetricHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+        MetricHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertWithinPrecision(5000, snapshot.getValueAtPercentile(50));
+        assertWithinPrecision(9900, snapshot.getValueAtPercentile(99));
+        assertWithinPrecision(9990, snapshot.getValueAtPercentile(99.9));
+        assertWithinPrecision(10000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void outOfRangeValues() {
+        MetricHistogram histogram = new MetricHistogram();
+        histogram.record(0);
+        histogram.record(-1);
+        histogram.record(Double.NaN);
+        histogram.record(Double.MAX_VALUE);
+        MetricHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(4, snapshot.getCount());
+        assertEquals(MetricHistogram.getLowestTrackableValue(),
+                snapshot.getValueAtPercentile(75), 0.0);
+        assertEquals(MetricHistogram.getHighestTrackableValue(),
+                snapshot.getValueAtPercentile(100), 0.0);
+    }
+
+    @Test
+    public void mergeAndSince() {
+        MetricHistogram first = new MetricHistogram();
+        MetricHistogram second = new MetricHistogram();
+        for (int i = 0; i < 99; i++) {
+            first.record(10);
+        }
+        MetricHistogram.Snapshot before = second.getSnapshot();
+        second.record(1000);
+        MetricHistogram.Snapshot interval = second.getSnapshot().since(before);
+        assertEquals(1, interval.getCount());
+        assertWithinPrecision(1000, interval.getValueAtPercentile(50));
+
+        MetricHistogram.Snapshot merged = first.getSnapshot().merge(interval);
+        assertEquals(100, merged.getCount());
+        assertWithinPrecision(10, merged.getValueAtPercentile(99));
+        assertWithinPrecision(1000, merged.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void concurrentRecording() throws Exception {
+        final MetricHistogram histogram = new MetricHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 10000; i++) {
+                            histogram.record(i % 100);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(80000, histogram.getSnapshot().getCount());
+    }
+
+    private static void assertWithinPrecision(double expected, double actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * (1 + 1.0 / 32));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.XMLEvent;
+
+import org.junit.Test;
+
+import com.amazonaws.ResponseMetadata;
+
+public class StaxUnmarshallerContextTest {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private static final String XML =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<DescribeThingsResponse xmlns=\"http://ec2.amazonaws.com/doc/2015-04-15/\">\n" +
+            "  <requestId>req-1</requestId>\n" +
+            "  <thingSet>\n" +
+            "    <item>\n" +
+            "      <thingId>t-1</thingId>\n" +
+            "      <name>one &amp; only</name>\n" +
+            "      <tagSet><item><key>k</key><value><![CDATA[v]]></value></item></tagSet>\n" +
+            "      <empty/>\n" +
+            "    </item>\n" +
+            "    <!-- comment -->\n" +
+            "    <item>\n" +
+            "      <thingId>t-2</thingId>\n" +
+            "      <name kind=\"short\" lang=\"en\">two</name>\n" +
+            "    </item>\n" +
+            "  </thingSet>\n" +
+            "</DescribeThingsResponse>";
+
+    private static final String[] EXPRESSIONS = {
+            ".", "requestId", "thingSet/item", "item/thingId", "thingId", "item/name",
+            "name/@kind", "@lang", "tagSet/item/key", "item/value", "empty"
+    };
+
+    /**
+     * Walks the document with both kinds of source and checks that every
+     * event, depth and expression result is the same.
+     */
+    @Test
+    public void testCursorAndEventSourcesAgree() throws Exception {
+        List<String> fromEvents = trace(eventContext(XML));
+        List<String> fromCursor = trace(cursorContext(XML));
+
+        assertEquals(fromEvents, fromCursor);
+        assertTrue(fromCursor.contains("A depth=4 @kind=short"));
+        assertTrue(fromCursor.contains("A depth=4 @lang=en"));
+    }
+
+    @Test
+    public void testReadsValuesLikeGeneratedUnmarshallers() throws Exception {
+        List<String> expected = Arrays.asList(
+                "requestId=req-1", "thingId=t-1", "name=one & only", "key=k", "value=v",
+                "empty=", "thingId=t-2", "name=two", "kind=short");
+
+        assertEquals(expected, readValues(eventContext(XML)));
+        assertEquals(expected, readValues(cursorContext(XML)));
+    }
+
+    @Test
+    public void testMetadataExpressions() throws Exception {
+        assertMetadataCollected(eventContext(XML));
+        assertMetadataCollected(cursorContext(XML));
+    }
+
+    private static void assertMetadataCollected(StaxUnmarshallerContext context) throws Exception {
+        context.registerMetadataExpression("requestId", 2, ResponseMetadata.AWS_REQUEST_ID);
+        context.registerMetadataExpression("item/thingId", 3, "lastThingId");
+        context.registerMetadataExpression("thingId", 2, "neverMatches");
+
+        while (!context.nextEvent().isEndDocument());
+
+        assertEquals("req-1", context.getMetadata().get(ResponseMetadata.AWS_REQUEST_ID));
+        assertEquals("t-2", context.getMetadata().get("lastThingId"));
+        assertFalse(context.getMetadata().containsKey("neverMatches"));
+    }
+
+    @Test
+    public void testStartOfDocument() throws Exception {
+        StaxUnmarshallerContext context = cursorContext(XML);
+        assertTrue(context.isStartOfDocument());
+        assertTrue(context.nextEvent().isStartDocument());
+        assertFalse(context.isStartOfDocument());
+        assertEquals(0, context.getCurrentDepth());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCursorEventsCarryNoData() throws Exception {
+        StaxUnmarshallerContext context = cursorContext(XML);
+        context.nextEvent();
+        context.nextEvent().asStartElement();
+    }
+
+    private static StaxUnmarshallerContext eventContext(String xml) throws Exception {
+        return new StaxUnmarshallerContext(
+                XML_INPUT_FACTORY.createXMLEventReader(new StringReader(xml)));
+    }
+
+    private static StaxUnmarshallerContext cursorContext(String xml) throws Exception {
+        return new StaxUnmarshallerContext(
+                XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml)), null);
+    }
+
+    private static List<String> trace(StaxUnmarshallerContext context) throws Exception {
+        List<String> trace = new ArrayList<String>();
+        while (true) {
+            XMLEvent event = context.nextEvent();
+            if (event.isEndDocument()) return trace;
+
+            if (event.isStartElement() || event.isAttribute()) {
+                StringBuilder entry = new StringBuilder(event.isAttribute() ? "A" : "S");
+                entry.append(" depth=").append(context.getCurrentDepth());
+                for (String expression : EXPRESSIONS) {
+                    if (context.testExpression(expression)) {
+                        entry.append(" ").append(expression);
+                    }
+                    for (int depth = 0; depth <= 6; depth++) {
+                        if (context.testExpression(expression, depth)) {
+                            entry.append(" ").append(expression).append("@").append(depth);
+                        }
+                    }
+                }
+                trace.add(entry.toString());
+                if (event.isAttribute()) {
+                    trace.add("A depth=" + context.getCurrentDepth() + " "
+                            + (context.testExpression("@kind") ? "@kind" : "@lang")
+                            + "=" + context.readText());
+                }
+            } else if (event.isEndElement()) {
+                trace.add("E depth=" + context.getCurrentDepth());
+            }
+        }
+    }
+
+    /**
+     * Reads values the way the generated unmarshallers do, matching each
+     * expression at a fixed depth.
+     */
+    private static List<String> readValues(StaxUnmarshallerContext context) throws Exception {
+        List<String> values = new ArrayList<String>();
+        int targetDepth = context.getCurrentDepth() + 1;
+        if (context.isStartOfDocument()) targetDepth += 1;
+
+        while (true) {
+            XMLEvent xmlEvent = context.nextEvent();
+            if (xmlEvent.isEndDocument()) return values;
+
+            if (xmlEvent.isAttribute() || xmlEvent.isStartElement()) {
+                if (context.testExpression("requestId", targetDepth)) {
+                    values.add("requestId=" + context.readText());
+                } else if (context.testExpression("thingSet/item/thingId", targetDepth)) {
+                    values.add("thingId=" + context.readText());
+                } else if (context.testExpression("thingSet/item/name", targetDepth)) {
+                    values.add("name=" + context.readText());
+                } else if (context.testExpression("thingSet/item/name/@kind", targetDepth)) {
+                    values.add("kind=" + context.readText());
+                } else if (context.testExpression("tagSet/item/key", targetDepth + 2)) {
+                    values.add("key=" + context.readText());
+                } else if (context.testExpression("tagSet/item/value", targetDepth + 2)) {
+                    values.add("value=" + context.readText());
+                } else if (context.testExpression("thingSet/item/empty", targetDepth)) {
+                    values.add("empty=" + context.readText());
+                }
+            }
+        }
+    }
+}
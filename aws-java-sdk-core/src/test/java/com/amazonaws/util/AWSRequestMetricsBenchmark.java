@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+/**
+ * Compares the time and allocation per request of
+ * {@link AWSRequestMetricsFullSupport} and {@link AWSRequestMetricsCompact},
+ * recording what a typical successful request records. Not run as part of
+ * the build; run its main method on a quiet machine. Allocation is only
+ * reported on JVMs exposing per-thread allocated bytes.
+ */
+public class AWSRequestMetricsBenchmark {
+    private static final Field[] EVENTS = {
+        Field.RequestMarshallTime, Field.CredentialsRequestTime,
+        Field.RequestSigningTime, Field.HttpRequestTime,
+        Field.HttpClientSendRequestTime, Field.HttpClientReceiveResponseTime,
+        Field.ResponseProcessingTime,
+    };
+    private static final Field[] COUNTERS = {
+        Field.HttpClientRetryCount, Field.HttpClientPoolAvailableCount,
+        Field.HttpClientPoolLeasedCount, Field.HttpClientPoolPendingCount,
+    };
+
+    /** Defeats dead code elimination. */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        for (int round = 0; round < 3; round++) {
+            run("full support", false, requests);
+            run("compact", true, requests);
+            run("full support + collector", false, requests, true);
+            run("compact + collector", true, requests, true);
+        }
+    }
+
+    private static void run(String name, boolean compact, int requests) {
+        run(name, compact, requests, false);
+    }
+
+    private static void run(String name, boolean compact, int requests,
+            boolean collect) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            AWSRequestMetrics m = compact
+                    ? new AWSRequestMetricsCompact()
+                    : new AWSRequestMetricsFullSupport();
+            record(m);
+            if (collect)
+                sink += collect(m);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.println(name + ": " + nanos / requests + " ns/req"
+                + (bytesBefore < 0 ? "" : ", " + bytes / requests + " B/req"));
+    }
+
+    private static void record(AWSRequestMetrics m) {
+        m.addProperty(Field.ServiceName, "AmazonDynamoDB");
+        m.addProperty(Field.ServiceEndpoint, "https://dynamodb.us-east-1.amazonaws.com");
+        m.startEvent(Field.ClientExecuteTime);
+        m.incrementCounter(Field.RequestCount);
+        for (Field event : EVENTS) {
+            m.startEvent(event);
+            m.endEvent(event);
+        }
+        for (Field counter : COUNTERS)
+            m.setCounter(counter, 1);
+        m.addProperty(Field.AWSRequestID, "request-id");
+        m.addProperty(Field.StatusCode, 200);
+        m.endEvent(Field.ClientExecuteTime);
+        m.getTimingInfo().endTiming();
+    }
+
+    /**
+     * Reads the common latencies and counters as a metric collector would.
+     */
+    private static long collect(AWSRequestMetrics m) {
+        TimingInfo timing = m.getTimingInfo();
+        long sum = timing.getCounter(Field.RequestCount.name()).longValue();
+        sum += timing.getCounter(Field.HttpClientRetryCount.name()).longValue();
+        sum += timing.getSubMeasurement(Field.ClientExecuteTime.name())
+                .getEndTimeNano();
+        sum += timing.getSubMeasurement(Field.HttpRequestTime.name())
+                .getEndTimeNano();
+        sum += m.getProperty(Field.StatusCode).size();
+        return sum;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * unsupported.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
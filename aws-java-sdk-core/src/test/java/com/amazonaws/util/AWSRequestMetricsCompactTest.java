@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.amazonaws.http.ExecutionContext;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.SimpleMetricType;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+public class AWSRequestMetricsCompactTest {
+
+    private static final SimpleMetricType CUSTOM = new SimpleMetricType() {
+        @Override
+        public String name() {
+            return "CustomLatency";
+        }
+    };
+
+    @Test
+    public void sameObservableMetricsAsFullSupport() {
+        AWSRequestMetrics full = record(new AWSRequestMetricsFullSupport());
+        AWSRequestMetrics compact = record(new AWSRequestMetricsCompact());
+
+        assertTrue(compact.isEnabled());
+        for (String name : new String[] { Field.ServiceName.name(),
+                Field.AWSRequestID.name(), Field.StatusCode.name(), "custom",
+                Field.AWSErrorCode.name(), "missing" }) {
+            assertEquals(name, full.getProperty(name), compact.getProperty(name));
+        }
+        assertEquals(full.getProperty(Field.ServiceName), compact.getProperty(Field.ServiceName));
+
+        TimingInfo fullTiming = full.getTimingInfo();
+        TimingInfo compactTiming = compact.getTimingInfo();
+        assertEquals(fullTiming.getAllCounters(), compactTiming.getAllCounters());
+        for (String name : new String[] { Field.RequestCount.name(),
+                Field.HttpClientRetryCount.name(), "customCounter", "missing" }) {
+            assertEquals(name, fullTiming.getCounter(name), compactTiming.getCounter(name));
+        }
+        assertEquals(fullTiming.getSubMeasurementsByName().keySet(),
+                compactTiming.getSubMeasurementsByName().keySet());
+        for (String name : new String[] { Field.HttpRequestTime.name(),
+                Field.ClientExecuteTime.name(), Field.RequestSigningTime.name(),
+                CUSTOM.name(), "customEvent", "missing" }) {
+            assertEquals(name, sizeOf(fullTiming.getAllSubMeasurements(name)),
+                    sizeOf(compactTiming.getAllSubMeasurements(name)));
+        }
+        assertNull(compactTiming.getSubMeasurement(Field.HttpRequestTime.name(), 3));
+        assertTrue(compactTiming.getLastSubMeasurement(Field.HttpRequestTime.name()).isEndTimeKnown());
+    }
+
+    @Test
+    public void subMeasurementTimesRecorded() throws InterruptedException {
+        AWSRequestMetrics compact = new AWSRequestMetricsCompact();
+        long before = System.nanoTime();
+        compact.startEvent(Field.HttpRequestTime);
+        Thread.sleep(5);
+        compact.endEvent(Field.HttpRequestTime);
+        long after = System.nanoTime();
+
+        TimingInfo sub = compact.getTimingInfo().getSubMeasurement(Field.HttpRequestTime.name());
+        assertTrue(sub.getStartTimeNano() >= before);
+        assertTrue(sub.getEndTimeNano() <= after);
+        assertTrue(sub.getTimeTakenMillis() >= 5);
+    }
+
+    @Test
+    public void executionContextUsesCompactWhenConfigured() {
+        AwsSdkMetrics.setCompactRequestMetrics(true);
+        try {
+            assertEquals(AWSRequestMetricsCompact.class,
+                    new ExecutionContext(true).getAwsRequestMetrics().getClass());
+            assertEquals(AWSRequestMetrics.class,
+                    new ExecutionContext(false).getAwsRequestMetrics().getClass());
+        } finally {
+            AwsSdkMetrics.setCompactRequestMetrics(false);
+        }
+        assertEquals(AWSRequestMetricsFullSupport.class,
+                new ExecutionContext(true).getAwsRequestMetrics().getClass());
+    }
+
+    /**
+     * Records the measurements of a request that was retried twice.
+     */
+    private static AWSRequestMetrics record(AWSRequestMetrics m) {
+        m.addProperty(Field.ServiceName, "AmazonDynamoDB");
+        m.startEvent(Field.ClientExecuteTime);
+        m.startEvent(Field.RequestSigningTime);
+        m.endEvent(Field.RequestSigningTime);
+        for (int i = 0; i < 3; i++) {
+            m.incrementCounter(Field.RequestCount);
+            m.startEvent(Field.HttpRequestTime);
+            m.endEvent(Field.HttpRequestTime);
+            m.addProperty(Field.AWSRequestID, "id-" + i);
+            m.addProperty(Field.StatusCode, i < 2 ? 500 : 200);
+        }
+        m.setCounter(Field.HttpClientRetryCount, 0);
+        m.setCounter("customCounter", 7);
+        m.incrementCounter("customCounter");
+        m.addProperty("custom", null);
+        m.startEvent(CUSTOM);
+        m.endEvent(CUSTOM.name());
+        m.startEvent("customEvent");
+        m.endEvent("customEvent");
+        m.endEvent("neverStarted");
+        m.endEvent(Field.ClientExecuteTime);
+        m.getTimingInfo().endTiming();
+        return m;
+    }
+
+    private static int sizeOf(List<?> list) {
+        return list == null ? -1 : list.size();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+
+public class EncodedParametersTest {
+
+    @Test
+    public void testSameAsFormat() {
+        Random random = new Random(2222);
+        for (int i = 0; i < 2000; i++) {
+            Map<String, List<String>> parameters = new LinkedHashMap<String, List<String>>();
+            int names = 1 + random.nextInt(5);
+            for (int j = 0; j < names; j++) {
+                List<String> values = new ArrayList<String>();
+                int count = random.nextInt(3);
+                for (int k = 0; k < count; k++) {
+                    values.add(random.nextInt(10) == 0 ? null : randomString(random));
+                }
+                parameters.put(randomString(random), values);
+            }
+            assertEquals(format(parameters), EncodedParameters.encode(parameters).toString());
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        DefaultRequest<?> request = newRequest();
+        request.addParameter("Action", "SendMessage");
+        request.addParameter("MessageBody", "a b+c&d=\u00e9\ud83d\ude00*~");
+        request.addParameter("Flag", null);
+
+        EncodedParameters encoded = EncodedParameters.of(request);
+        String expected = "Action=SendMessage&MessageBody=a+b%2Bc%26d%3D%C3%A9%F0%9F%98%80*%7E&Flag";
+        assertEquals(expected, encoded.toString());
+        assertEquals(expected, SdkHttpUtils.encodeParameters(request));
+        assertArrayEquals(expected.getBytes(StringUtils.UTF8), encoded.toByteArray());
+        assertEquals(expected.length(), encoded.getContentLength());
+    }
+
+    @Test
+    public void testNoParameters() {
+        assertNull(EncodedParameters.of(newRequest()));
+        assertNull(SdkHttpUtils.encodeParameters(newRequest()));
+    }
+
+    @Test
+    public void testSharedUntilParametersChange() {
+        DefaultRequest<?> request = newRequest();
+        request.addParameter("Action", "RunInstances");
+        request.addParameter("ImageId", "ami-12345678");
+
+        EncodedParameters encoded = EncodedParameters.of(request);
+        assertSame(encoded, EncodedParameters.of(request));
+
+        request.addParameter("MinCount", "1");
+        EncodedParameters added = EncodedParameters.of(request);
+        assertNotSame(encoded, added);
+        assertEquals("Action=RunInstances&ImageId=ami-12345678&MinCount=1", added.toString());
+        assertSame(added, EncodedParameters.of(request));
+
+        // Changed through the map rather than the request
+        request.getParameters().get("MinCount").set(0, "2");
+        assertEquals("Action=RunInstances&ImageId=ami-12345678&MinCount=2",
+                EncodedParameters.of(request).toString());
+        request.getParameters().remove("ImageId");
+        assertEquals("Action=RunInstances&MinCount=2", EncodedParameters.of(request).toString());
+        request.getParameters().get("MinCount").add("3");
+        assertEquals("Action=RunInstances&MinCount=2&MinCount=3",
+                EncodedParameters.of(request).toString());
+    }
+
+    private static DefaultRequest<?> newRequest() {
+        return new DefaultRequest<Object>(new AmazonWebServiceRequest() {}, "service");
+    }
+
+    private static String format(Map<String, List<String>> parameters) {
+        List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+        for (Entry<String, List<String>> entry : parameters.entrySet()) {
+            for (String value : entry.getValue()) {
+                pairs.add(new BasicNameValuePair(entry.getKey(), value));
+            }
+        }
+        return URLEncodedUtils.format(pairs, "UTF-8");
+    }
+
+    /**
+     * Returns a string mixing ASCII, characters of each UTF-8 length and
+     * unpaired surrogates.
+     */
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(6)) {
+            case 0:
+            case 1:
+            case 2:
+                builder.append((char) random.nextInt(0x80));
+                break;
+            case 3:
+                builder.append((char) (0x80 + random.nextInt(0x780)));
+                break;
+            case 4:
+                builder.append((char) (0x800 + random.nextInt(0xF800)));
+                break;
+            default:
+                builder.appendCodePoint(0x10000 + random.nextInt(0x100000));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PagePrefetcherTest {
+
+    private static final int PAGES = 10;
+    private static final int PAGE_SIZE = 5;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAllPagesReturnedInOrder() {
+        for (ExecutorService e : new ExecutorService[] { executor, null }) {
+            NumberedPages fetcher = new NumberedPages();
+            PagePrefetcher<Integer> prefetcher =
+                    new PagePrefetcher<Integer>(fetcher, e, 3, 100);
+            prefetcher.start();
+            assertEquals(expectedPages(0), takeAll(prefetcher));
+            assertEquals(PAGES, fetcher.calls.get());
+        }
+    }
+
+    @Test
+    public void testStartAfterFirstPage() {
+        NumberedPages fetcher = new NumberedPages();
+        PagePrefetcher<Integer> prefetcher =
+                new PagePrefetcher<Integer>(fetcher, executor, 3, 100);
+        prefetcher.start(0);
+        assertEquals(expectedPages(1), takeAll(prefetcher));
+        assertEquals(PAGES - 1, fetcher.calls.get());
+    }
+
+    @Test
+    public void testPrefetchBoundedByMaxPages() throws InterruptedException {
+        NumberedPages fetcher = new NumberedPages();
+        PagePrefetcher<Integer> prefetcher =
+                new PagePrefetcher<Integer>(fetcher, executor, 2, 1000);
+        prefetcher.start();
+        Thread.sleep(200);
+        assertEquals(2, fetcher.calls.get());
+
+        // Taking a page lets one more be fetched
+        prefetcher.next();
+        Thread.sleep(200);
+        assertEquals(3, fetcher.calls.get());
+    }
+
+    @Test
+    public void testPrefetchPausedByBufferedItems() throws InterruptedException {
+        NumberedPages fetcher = new NumberedPages();
+        PagePrefetcher<Integer> prefetcher =
+                new PagePrefetcher<Integer>(fetcher, executor, PAGES, PAGE_SIZE + 1);
+        prefetcher.start();
+        Thread.sleep(200);
+        assertEquals(2, fetcher.calls.get());
+    }
+
+    @Test
+    public void testFailureThrownToCaller() {
+        NumberedPages fetcher = new NumberedPages();
+        fetcher.failOnPage = 3;
+        PagePrefetcher<Integer> prefetcher =
+                new PagePrefetcher<Integer>(fetcher, executor, 3, 100);
+        prefetcher.start();
+        for (int i = 0; i < 3; i++) {
+            prefetcher.next();
+        }
+        for (int i = 0; i < 2; i++) {
+            try {
+                prefetcher.next();
+                fail("Expected the fetch to fail");
+            } catch (IllegalStateException e) {
+                assertSame(fetcher.failure, e);
+            }
+        }
+    }
+
+    @Test
+    public void testAddedToReadyQueueForEachPage() throws InterruptedException {
+        BlockingQueue<PagePrefetcher<Integer>> ready =
+                new LinkedBlockingQueue<PagePrefetcher<Integer>>();
+        PagePrefetcher<Integer> prefetcher = new PagePrefetcher<Integer>(
+                new NumberedPages(), executor, 2, 100, ready);
+        prefetcher.start();
+        List<Integer> pages = new ArrayList<Integer>();
+        while (prefetcher.hasNext()) {
+            assertSame(prefetcher, ready.take());
+            pages.add(prefetcher.next());
+        }
+        assertEquals(expectedPages(0), pages);
+        assertFalse(ready.iterator().hasNext());
+    }
+
+    private static List<Integer> takeAll(PagePrefetcher<Integer> prefetcher) {
+        List<Integer> pages = new ArrayList<Integer>();
+        while (prefetcher.hasNext()) {
+            pages.add(prefetcher.next());
+        }
+        return pages;
+    }
+
+    private static List<Integer> expectedPages(int from) {
+        List<Integer> pages = new ArrayList<Integer>();
+        for (int page = from; page < PAGES; page++) {
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    /**
+     * Pages numbered in order, failing on the page it is told to.
+     */
+    private static class NumberedPages implements PagePrefetcher.Fetcher<Integer> {
+        final AtomicInteger calls = new AtomicInteger();
+        final IllegalStateException failure = new IllegalStateException("BOOM");
+        volatile int failOnPage = -1;
+
+        @Override
+        public Integer fetchNextPage(Integer page) {
+            calls.incrementAndGet();
+            int next = page == null ? 0 : page + 1;
+            if (next == failOnPage) {
+                throw failure;
+            }
+            return next;
+        }
+
+        @Override
+        public boolean hasNextPage(Integer page) {
+            return page + 1 < PAGES;
+        }
+
+        @Override
+        public int sizeOf(Integer page) {
+            return PAGE_SIZE;
+        }
+    }
+}
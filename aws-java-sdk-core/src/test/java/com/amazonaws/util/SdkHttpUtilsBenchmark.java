@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compares the time and allocation per value of
+ * {@link SdkHttpUtils#urlEncode(String, boolean)} and of the URLEncoder based
+ * implementation it replaced, over typical Query protocol parameter names and
+ * values. Not run as part of the build; run its main method on a quiet
+ * machine. Allocation is only reported on JVMs exposing per-thread allocated
+ * bytes.
+ */
+public class SdkHttpUtilsBenchmark {
+    private static final String[] UNRESERVED_ONLY = {
+        "Action", "SendMessage", "Version", "2012-11-05", "QueueUrl",
+        "MessageAttribute.1.Name", "MessageAttribute.1.Value.DataType", "String",
+    };
+    private static final String[] NEEDS_ENCODING = {
+        "https://sqs.us-east-1.amazonaws.com/123456789012/queue",
+        "2015-10-18T18:20:09Z", "hello world & goodbye",
+        "caf\u00e9 \u20ac", "arn:aws:sns:us-east-1:123456789012:topic",
+    };
+
+    /** Defeats dead code elimination. */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int values = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        for (int round = 0; round < 3; round++) {
+            run("URLEncoder, unreserved only", UNRESERVED_ONLY, false, values);
+            run("urlEncode, unreserved only", UNRESERVED_ONLY, true, values);
+            run("URLEncoder, needs encoding", NEEDS_ENCODING, false, values);
+            run("urlEncode, needs encoding", NEEDS_ENCODING, true, values);
+        }
+    }
+
+    private static void run(String name, String[] strings, boolean current,
+            int values) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < values; i++) {
+            String value = strings[i % strings.length];
+            String encoded = current
+                    ? SdkHttpUtils.urlEncode(value, false)
+                    : SdkHttpUtilsTest.urlEncoderEncode(value, false);
+            sink += encoded.length();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.println(name + ": " + nanos / values + " ns/value"
+                + (bytesBefore < 0 ? "" : ", " + bytes / values + " B/value"));
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * unsupported.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
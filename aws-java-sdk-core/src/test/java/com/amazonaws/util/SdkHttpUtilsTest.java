@@ -18,6 +18,12 @@
  */
 package com.amazonaws.util;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.junit.*;
 
 public class SdkHttpUtilsTest {
@@ -95,4 +101,67 @@ public class SdkHttpUtilsTest {
                             expected,
                             SdkHttpUtils.urlEncode(test, false));
     }
+
+    @Test
+    public void testEncodingNonAscii() {
+        Assert.assertEquals("caf%C3%A9%20%E2%82%AC%F0%9F%98%80",
+                            SdkHttpUtils.urlEncode("caf\u00e9 \u20ac\ud83d\ude00", false));
+        // Unpaired surrogates are encoded as '?', like the UTF-8 encoder does
+        Assert.assertEquals("a%3Fb%3F",
+                            SdkHttpUtils.urlEncode("a\ud83db\ude00", false));
+    }
+
+    /**
+     * Compares the encoding of random strings, drawn from characters of every
+     * UTF-8 length and unpaired surrogates, with that of the URLEncoder based
+     * implementation it replaced.
+     */
+    @Test
+    public void testSameAsUrlEncoderImplementation() {
+        char[] alphabet = ("aZ09-_.~*+/ %&=?:@!'()[]#\t\u007f\u0080\u00e9\u07ff\u0800"
+                + "\u20ac\ud7ff\ue000\uffff\ud800\udbff\udc00\udfff").toCharArray();
+        Random random = new Random(4242);
+        for (int i = 0; i < 20000; i++) {
+            char[] chars = new char[random.nextInt(24)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = random.nextInt(4) == 0
+                         ? (char) random.nextInt(0x10000)
+                         : alphabet[random.nextInt(alphabet.length)];
+            }
+            String value = new String(chars);
+            for (boolean path : new boolean[] { false, true }) {
+                Assert.assertEquals(value, urlEncoderEncode(value, path),
+                                    SdkHttpUtils.urlEncode(value, path));
+            }
+        }
+    }
+
+    private static final Pattern ENCODED_CHARACTERS_PATTERN =
+            Pattern.compile("\\+|\\*|%7E|%2F");
+
+    /** The previous implementation of SdkHttpUtils.urlEncode. */
+    static String urlEncoderEncode(String value, boolean path) {
+        try {
+            String encoded = URLEncoder.encode(value, "UTF-8");
+            Matcher matcher = ENCODED_CHARACTERS_PATTERN.matcher(encoded);
+            StringBuffer buffer = new StringBuffer(encoded.length());
+            while (matcher.find()) {
+                String replacement = matcher.group(0);
+                if ("+".equals(replacement)) {
+                    replacement = "%20";
+                } else if ("*".equals(replacement)) {
+                    replacement = "%2A";
+                } else if ("%7E".equals(replacement)) {
+                    replacement = "~";
+                } else if (path && "%2F".equals(replacement)) {
+                    replacement = "/";
+                }
+                matcher.appendReplacement(buffer, replacement);
+            }
+            matcher.appendTail(buffer);
+            return buffer.toString();
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 }
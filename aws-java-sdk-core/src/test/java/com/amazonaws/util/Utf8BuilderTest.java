@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URLEncoder;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Utf8BuilderTest {
+
+    @Test
+    public void testUrlEncoded() {
+        assertEquals("a%20b%2Fc~%C3%A9%F0%9F%98%80%3F",
+                new Utf8Builder(1).appendUrlEncoded("a b/c~\u00e9\ud83d\ude00\ud83d", false).toString());
+        assertEquals("a%20b/c",
+                new Utf8Builder(1).appendUrlEncoded("a b/c", true).toString());
+        assertEquals("", new Utf8Builder(1).appendUrlEncoded(null, false).toString());
+    }
+
+    @Test
+    public void testFormEncodedSameAsUrlEncoder() throws Exception {
+        Random random = new Random(4444);
+        for (int i = 0; i < 2000; i++) {
+            String value = randomString(random);
+            assertEquals(URLEncoder.encode(value, "UTF-8"),
+                    new Utf8Builder(1).appendFormEncoded(value).toString());
+        }
+    }
+
+    /**
+     * The URL and form encodings only differ in the ASCII characters they
+     * leave as is and in how they encode spaces.
+     */
+    @Test
+    public void testUrlAndFormEncodingsAgree() {
+        Random random = new Random(5555);
+        for (int i = 0; i < 2000; i++) {
+            String value = randomString(random);
+            String form = new Utf8Builder(1).appendFormEncoded(value).toString()
+                    .replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+            assertEquals(new Utf8Builder(1).appendUrlEncoded(value, false).toString(), form);
+        }
+    }
+
+    @Test
+    public void testAppendGrows() {
+        Utf8Builder builder = new Utf8Builder(0);
+        for (int i = 0; i < 100; i++) {
+            builder.append('&').appendUrlEncoded("\u00e9", false);
+        }
+        assertEquals(700, builder.length());
+        assertEquals(700, builder.toByteArray().length);
+    }
+
+    @Test
+    public void testAppendAndCompareRanges() {
+        Utf8Builder encoded = new Utf8Builder(16).appendUrlEncoded("a-b a=", false);
+        Utf8Builder builder = new Utf8Builder(0).append(encoded, 3, 7).append('&');
+        assertEquals("%20a&", builder.toString());
+        // "a" sorts before "a-b", and "a" before "b"
+        assertTrue(encoded.compare(0, 1, 0, 3) < 0);
+        assertTrue(encoded.compare(0, 1, 2, 3) < 0);
+        assertEquals(0, encoded.compare(0, 1, 6, 7));
+    }
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(8)];
+        for (int i = 0; i < chars.length; i++) {
+            switch (random.nextInt(4)) {
+            case 0:  chars[i] = (char) random.nextInt(0x80); break;
+            case 1:  chars[i] = (char) (0x80 + random.nextInt(0x780)); break;
+            case 2:  chars[i] = (char) (Character.MIN_SURROGATE + random.nextInt(0x800)); break;
+            default: chars[i] = (char) random.nextInt(0x10000); break;
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2011-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.util.json;
+
+import static com.amazonaws.util.StringUtils.UTF8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.amazonaws.util.IOUtils;
+
+public class StreamingJSONWriterTest {
+
+    /**
+     * Writes the same document through both writers; the output must match
+     * byte for byte for content that doesn't need escaping.
+     */
+    @Test
+    public void testSameOutputAsJSONWriter() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        JSONWriter expected = new JSONWriter(stringWriter);
+        writeDocument(expected);
+
+        StreamingJSONWriter actual = new StreamingJSONWriter(16);
+        writeDocument(actual);
+
+        byte[] expectedBytes = stringWriter.toString().getBytes(UTF8);
+        assertEquals(expectedBytes.length, actual.getContentLength());
+        assertEquals(stringWriter.toString(),
+                new String(IOUtils.toByteArray(actual.getContent()), UTF8));
+    }
+
+    @Test
+    public void testContentIsRepeatable() throws Exception {
+        StreamingJSONWriter writer = new StreamingJSONWriter();
+        writer.object().key("TableName").value("foo").endObject();
+
+        InputStream content = writer.getContent();
+        content.mark(writer.getContentLength());
+        String first = new String(IOUtils.toByteArray(content), UTF8);
+        content.reset();
+        String second = new String(IOUtils.toByteArray(content), UTF8);
+
+        assertEquals("{\"TableName\":\"foo\"}", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testNonAsciiStringsEncodedAsUtf8() throws Exception {
+        String value = "\u00e9t\u00e9 \u2603 \"quoted\"\n";
+        StreamingJSONWriter writer = new StreamingJSONWriter();
+        writer.object().key("k").value(value).endObject();
+
+        byte[] content = IOUtils.toByteArray(writer.getContent());
+        assertEquals(content.length, writer.getContentLength());
+        assertEquals(value, Jackson.jsonNodeOf(new String(content, UTF8))
+                .get("k").asText());
+    }
+
+    @Test
+    public void testByteBufferPositionUnchanged() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap("xxdataxx".getBytes(UTF8), 2, 4)
+                .slice();
+        StreamingJSONWriter writer = new StreamingJSONWriter();
+        writer.object().key("Data").value(buffer).endObject();
+
+        assertEquals(0, buffer.position());
+        assertEquals("{\"Data\":\"ZGF0YQ==\"}",
+                new String(IOUtils.toByteArray(writer.getContent()), UTF8));
+    }
+
+    @Test
+    public void testNonFiniteNumbersRejected() throws Exception {
+        StreamingJSONWriter writer = new StreamingJSONWriter();
+        writer.object().key("n");
+        try {
+            writer.value(Double.NaN);
+            fail("Expected JSONException");
+        } catch (JSONException expected) {
+        }
+    }
+
+    private static void writeDocument(JSONWriter writer) throws JSONException {
+        writer.object();
+        writer.key("TableName").value("Music");
+        writer.key("Limit").value(Integer.valueOf(25));
+        writer.key("Count").value(42L);
+        writer.key("Ratio").value(1.0d);
+        writer.key("Scale").value(Double.valueOf(0.25d));
+        writer.key("ConsistentRead").value(Boolean.TRUE);
+        writer.key("Enabled").value(false);
+        writer.key("Created").value(new Date(1408378076135L));
+        writer.key("Data").value(ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4}));
+        writer.key("Missing").value((Object) null);
+        writer.key("Items").array();
+        for (int i = 0; i < 100; i++) {
+            writer.object();
+            writer.key("Id").value("item-" + i);
+            writer.key("Tags").array().value("a").value("b").endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.key("Empty").object().endObject();
+        writer.endObject();
+    }
+}
@@ -15,6 +15,7 @@
 package com.amazonaws.services.dynamodbv2;
 
 import com.amazonaws.services.dynamodbv2.model.*;
+import com.amazonaws.services.dynamodbv2.model.transform.*;
 
 /**
  * Interface for accessing DynamoDB asynchronously. Each asynchronous method
@@ -434,6 +435,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final BatchGetItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<BatchGetItemRequest, BatchGetItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new BatchGetItemRequestMarshaller(),
+                    new BatchGetItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<BatchGetItemResult>() {
                     @Override
@@ -531,6 +538,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final BatchWriteItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<BatchWriteItemRequest, BatchWriteItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new BatchWriteItemRequestMarshaller(),
+                    new BatchWriteItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<BatchWriteItemResult>() {
                     @Override
@@ -595,6 +608,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final CreateTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<CreateTableRequest, CreateTableResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new CreateTableRequestMarshaller(),
+                    new CreateTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<CreateTableResult>() {
                     @Override
@@ -669,6 +688,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DeleteItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<DeleteItemRequest, DeleteItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new DeleteItemRequestMarshaller(),
+                    new DeleteItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DeleteItemResult>() {
                     @Override
@@ -764,6 +789,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DeleteTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<DeleteTableRequest, DeleteTableResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new DeleteTableRequestMarshaller(),
+                    new DeleteTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DeleteTableResult>() {
                     @Override
@@ -827,6 +858,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final DescribeTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<DescribeTableRequest, DescribeTableResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new DescribeTableRequestMarshaller(),
+                    new DescribeTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<DescribeTableResult>() {
                     @Override
@@ -891,6 +928,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final GetItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<GetItemRequest, GetItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new GetItemRequestMarshaller(),
+                    new GetItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<GetItemResult>() {
                     @Override
@@ -984,6 +1027,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final ListTablesRequest request,
             final com.amazonaws.handlers.AsyncHandler<ListTablesRequest, ListTablesResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new ListTablesRequestMarshaller(),
+                    new ListTablesResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<ListTablesResult>() {
                     @Override
@@ -1131,6 +1180,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final PutItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<PutItemRequest, PutItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new PutItemRequestMarshaller(),
+                    new PutItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<PutItemResult>() {
                     @Override
@@ -1224,6 +1279,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final QueryRequest request,
             final com.amazonaws.handlers.AsyncHandler<QueryRequest, QueryResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new QueryRequestMarshaller(),
+                    new QueryResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<QueryResult>() {
                     @Override
@@ -1258,6 +1319,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final ScanRequest request,
             final com.amazonaws.handlers.AsyncHandler<ScanRequest, ScanResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new ScanRequestMarshaller(),
+                    new ScanResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<ScanResult>() {
                     @Override
@@ -1381,6 +1448,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final UpdateItemRequest request,
             final com.amazonaws.handlers.AsyncHandler<UpdateItemRequest, UpdateItemResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new UpdateItemRequestMarshaller(),
+                    new UpdateItemResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<UpdateItemResult>() {
                     @Override
@@ -1483,6 +1556,12 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
             final UpdateTableRequest request,
             final com.amazonaws.handlers.AsyncHandler<UpdateTableRequest, UpdateTableResult> asyncHandler) {
 
+        if (usesNonBlockingExecution()) {
+            return invokeAsync(request, new UpdateTableRequestMarshaller(),
+                    new UpdateTableResultJsonUnmarshaller(), asyncHandler,
+                    executorService);
+        }
+
         return executorService
                 .submit(new java.util.concurrent.Callable<UpdateTableResult>() {
                     @Override
@@ -1537,6 +1616,17 @@ public class AmazonDynamoDBAsyncClient extends AmazonDynamoDBClient implements
                 asyncHandler);
     }
 
+    /**
+     * Returns true if requests are to be executed with
+     * {@link #invokeAsync}, which neither blocks a thread of the executor
+     * while waiting to retry nor, with the non-blocking transport, while
+     * waiting for the response.
+     */
+    private boolean usesNonBlockingExecution() {
+        return clientConfiguration.useNonBlockingRetries()
+                || clientConfiguration.useNioTransport();
+    }
+
     /**
      * Shuts down the client, releasing all managed resources. This includes
      * forcibly terminating all pending asynchronous service calls. Clients who
@@ -1747,6 +1747,108 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements
             Request<Y> request,
             Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
             ExecutionContext executionContext) {
+        beforeInvoke(request, executionContext);
+
+        JsonResponseHandler<X> responseHandler = new JsonResponseHandler<X>(
+                unmarshaller);
+        JsonErrorResponseHandlerV2 errorResponseHandler = new JsonErrorResponseHandlerV2(
+                jsonErrorUnmarshallers);
+
+        return client.execute(request, responseHandler, errorResponseHandler,
+                executionContext);
+    }
+
+    /**
+     * Marshalls and executes the given request on the given executor,
+     * scheduling any retry on the shared {@link RetryScheduler} so that no
+     * executor thread is held during the back-off delay. If the client
+     * configuration enables the non-blocking transport, no executor thread
+     * is held while waiting for the response either. The returned future,
+     * and the async handler if any, are completed once the last attempt
+     * finishes.
+     */
+    <X, Y extends AmazonWebServiceRequest> java.util.concurrent.Future<X> invokeAsync(
+            final Y originalRequest,
+            final Marshaller<Request<Y>, Y> marshaller,
+            final Unmarshaller<X, JsonUnmarshallerContext> unmarshaller,
+            final AsyncHandler<Y, X> asyncHandler,
+            final java.util.concurrent.ExecutorService executorService) {
+        final SdkSettableFuture<X> future = new SdkSettableFuture<X>();
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                ExecutionContext executionContext = createExecutionContext(originalRequest);
+                final AWSRequestMetrics awsRequestMetrics = executionContext
+                        .getAwsRequestMetrics();
+                awsRequestMetrics.startEvent(Field.ClientExecuteTime);
+                Request<Y> request = null;
+
+                try {
+                    awsRequestMetrics.startEvent(Field.RequestMarshallTime);
+                    try {
+                        request = marshaller.marshall(originalRequest);
+                        // Binds the request metrics to the current request.
+                        request.setAWSRequestMetrics(awsRequestMetrics);
+                    } finally {
+                        awsRequestMetrics.endEvent(Field.RequestMarshallTime);
+                    }
+
+                    beforeInvoke(request, executionContext);
+                } catch (Exception e) {
+                    endClientExecution(awsRequestMetrics, request, null);
+                    failAsync(future, asyncHandler, e);
+                    return;
+                }
+
+                final Request<Y> marshalledRequest = request;
+                client.executeAsync(request,
+                        new JsonResponseHandler<X>(unmarshaller),
+                        new JsonErrorResponseHandlerV2(jsonErrorUnmarshallers),
+                        executionContext, executorService,
+                        RetryScheduler.getDefault(),
+                        new ExecutionCallback<X>() {
+                            @Override
+                            public void onSuccess(Response<X> response) {
+                                endClientExecution(awsRequestMetrics,
+                                        marshalledRequest, response);
+                                X result = response.getAwsResponse();
+                                if (asyncHandler != null) {
+                                    try {
+                                        asyncHandler.onSuccess(originalRequest, result);
+                                    } catch (RuntimeException e) {
+                                        future.setException(e);
+                                        return;
+                                    }
+                                }
+                                future.set(result);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                endClientExecution(awsRequestMetrics,
+                                        marshalledRequest, null);
+                                failAsync(future, asyncHandler, t);
+                            }
+                        });
+            }
+        });
+        return future;
+    }
+
+    private static void failAsync(SdkSettableFuture<?> future,
+            AsyncHandler<?, ?> asyncHandler, Throwable t) {
+        if (asyncHandler != null && t instanceof Exception) {
+            try {
+                asyncHandler.onError((Exception) t);
+            } catch (RuntimeException e) {
+                t = e;
+            }
+        }
+        future.setException(t);
+    }
+
+    private void beforeInvoke(Request<?> request,
+            ExecutionContext executionContext) {
         request.setEndpoint(endpoint);
         request.setTimeOffset(timeOffset);
 
@@ -1767,14 +1869,6 @@ public class AmazonDynamoDBClient extends AmazonWebServiceClient implements
         }
 
         executionContext.setCredentials(credentials);
-
-        JsonResponseHandler<X> responseHandler = new JsonResponseHandler<X>(
-                unmarshaller);
-        JsonErrorResponseHandlerV2 errorResponseHandler = new JsonErrorResponseHandlerV2(
-                jsonErrorUnmarshallers);
-
-        return client.execute(request, responseHandler, errorResponseHandler,
-                executionContext);
     }
 
 }
@@ -1513,6 +1513,11 @@ public class DynamoDBMapper {
      * see, http://docs.aws.amazon
      * .com/amazondynamodb/latest/APIReference/API_BatchWriteItem.html
      * </p>
+     * <p>
+     * If the config has a {@link DynamoDBMapperConfig.BatchWriteConcurrency},
+     * the batches are sent concurrently on its executor, and unprocessed items
+     * are retried individually in later batches.
+     * </p>
      *
      * @param objectsToWrite
      *            A list of objects to save to DynamoDB. <b>No version checks
@@ -1525,8 +1530,9 @@ public class DynamoDBMapper {
      *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
      *            API.
      * @param config
-     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} are
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getBatchWriteRetryStrategy()} and
+     *            {@link DynamoDBMapperConfig#getBatchWriteConcurrency()} are
      *            considered. If TableNameOverride is specified, all objects in
      *            the two parameter lists will be considered to belong to the
      *            given table override. In particular, this method <b>always
@@ -1537,6 +1543,7 @@ public class DynamoDBMapper {
      *
      * @see DynamoDBMapperConfig#getTableNameOverride()
      * @see DynamoDBMapperConfig#getBatchWriteRetryStrategy()
+     * @see DynamoDBMapperConfig#getBatchWriteConcurrency()
      */
     public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite, List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
         config = mergeConfig(config);
@@ -1602,7 +1609,15 @@ public class DynamoDBMapper {
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
         }
 
+        if ( config.getBatchWriteConcurrency() != null ) {
+            totalFailedBatches.addAll(new ParallelBatchWriter(db,
+                    config.getBatchWriteRetryStrategy(),
+                    config.getBatchWriteConcurrency()).write(requestItems));
+            requestItems.clear();
+        }
+
         // Break into chunks of 25 items and make service requests to DynamoDB
+        int throttledBatches = 0;
         while ( !requestItems.isEmpty() ) {
 
             HashMap<String, List<WriteRequest>> batch =
@@ -1635,14 +1650,12 @@ public class DynamoDBMapper {
             if (failedBatches != null) {
                 totalFailedBatches.addAll(failedBatches);
 
-                // If contains throttling exception, we do a backoff
+                // If contains throttling exception, we do a jittered
+                // exponential backoff that grows while the throttling lasts
                 if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
+                    pauseExponentially(++throttledBatches);
+                } else {
+                    throttledBatches = 0;
                 }
             }
         }
@@ -2132,6 +2145,12 @@ public class DynamoDBMapper {
      * <p>
      * You can specify the pagination loading strategy for this parallel scan operation.
      * By default, the list returned is lazily loaded when possible.
+     * <p>
+     * If the config has a {@link DynamoDBMapperConfig.ParallelScanConcurrency},
+     * the segments are scanned on its executor rather than on a new thread
+     * pool, each segment scanning up to its prefetch depth of pages ahead, and
+     * the list is loaded with the pages of all segments in the order they
+     * arrive.
      *
      * @param <T>
      *            The type of the objects being returned.
@@ -2157,7 +2176,8 @@ public class DynamoDBMapper {
 
         // Create hard copies of the original scan request with difference segment number.
         List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
-        ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests);
+        ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests,
+                config.getParallelScanConcurrency());
 
         return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask, config.getPaginationLoadingStrategy(), config);
     }
@@ -14,9 +14,12 @@
  */
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
@@ -56,6 +59,9 @@ public class DynamoDBMapperConfig {
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
         private BatchWriteRetryStrategy batchWriteRetryStrategy;
+        private BatchWriteConcurrency batchWriteConcurrency;
+        private ParallelScanConcurrency parallelScanConcurrency;
+        private PagePrefetch pagePrefetch;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -70,6 +76,9 @@ public class DynamoDBMapperConfig {
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
             batchWriteRetryStrategy = DEFAULT.getBatchWriteRetryStrategy();
+            batchWriteConcurrency = DEFAULT.getBatchWriteConcurrency();
+            parallelScanConcurrency = DEFAULT.getParallelScanConcurrency();
+            pagePrefetch = DEFAULT.getPagePrefetch();
         }
 
         /**
@@ -291,6 +300,75 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the current BatchWriteConcurrency
+         */
+        public BatchWriteConcurrency getBatchWriteConcurrency() {
+            return batchWriteConcurrency;
+        }
+
+        /**
+         * @param value the new BatchWriteConcurrency
+         */
+        public void setBatchWriteConcurrency(BatchWriteConcurrency value) {
+            this.batchWriteConcurrency = value;
+        }
+
+        /**
+         * @param value the new BatchWriteConcurrency
+         * @return this builder
+         */
+        public Builder withBatchWriteConcurrency(BatchWriteConcurrency value) {
+            setBatchWriteConcurrency(value);
+            return this;
+        }
+
+        /**
+         * @return the current ParallelScanConcurrency
+         */
+        public ParallelScanConcurrency getParallelScanConcurrency() {
+            return parallelScanConcurrency;
+        }
+
+        /**
+         * @param value the new ParallelScanConcurrency
+         */
+        public void setParallelScanConcurrency(ParallelScanConcurrency value) {
+            this.parallelScanConcurrency = value;
+        }
+
+        /**
+         * @param value the new ParallelScanConcurrency
+         * @return this builder
+         */
+        public Builder withParallelScanConcurrency(ParallelScanConcurrency value) {
+            setParallelScanConcurrency(value);
+            return this;
+        }
+
+        /**
+         * @return the current PagePrefetch
+         */
+        public PagePrefetch getPagePrefetch() {
+            return pagePrefetch;
+        }
+
+        /**
+         * @param value the new PagePrefetch
+         */
+        public void setPagePrefetch(PagePrefetch value) {
+            this.pagePrefetch = value;
+        }
+
+        /**
+         * @param value the new PagePrefetch
+         * @return this builder
+         */
+        public Builder withPagePrefetch(PagePrefetch value) {
+            setPagePrefetch(value);
+            return this;
+        }
+
 
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
@@ -307,7 +385,10 @@ public class DynamoDBMapperConfig {
                     paginationLoadingStrategy,
                     requestMetricCollector,
                     conversionSchema,
-                    batchWriteRetryStrategy);
+                    batchWriteRetryStrategy,
+                    batchWriteConcurrency,
+                    parallelScanConcurrency,
+                    pagePrefetch);
         }
     }
 
@@ -632,6 +713,186 @@ public class DynamoDBMapperConfig {
 
     }
 
+    /**
+     * Lets DynamoDBMapper#batchWrite send several BatchWriteItem requests at
+     * once on the given executor, instead of one after another on the calling
+     * thread. Unprocessed items are put back into later batches after a
+     * jittered backoff, so that one throttled batch doesn't hold up the
+     * others, and the writes to a table can be kept within a budget of write
+     * capacity units per second.
+     * <p>
+     * The maximum number of retries and the backoff delays still come from
+     * the {@link BatchWriteRetryStrategy}, counted per item.
+     *
+     * @see DynamoDBMapper#batchWrite(List, List, DynamoDBMapperConfig)
+     */
+    public static final class BatchWriteConcurrency {
+
+        private final ExecutorService executor;
+        private final int maxConcurrentBatches;
+        private final Map<String, Double> writeCapacityBudgets;
+
+        /**
+         * @param executor
+         *            The executor to send the BatchWriteItem requests on. It
+         *            is not shut down by the mapper.
+         * @param maxConcurrentBatches
+         *            The maximum number of BatchWriteItem requests of one
+         *            batchWrite call in flight at any time.
+         */
+        public BatchWriteConcurrency(ExecutorService executor, int maxConcurrentBatches) {
+            this(executor, maxConcurrentBatches, Collections.<String, Double>emptyMap());
+        }
+
+        private BatchWriteConcurrency(ExecutorService executor,
+                int maxConcurrentBatches, Map<String, Double> writeCapacityBudgets) {
+            if (executor == null)
+                throw new IllegalArgumentException("executor must not be null");
+            if (maxConcurrentBatches < 1)
+                throw new IllegalArgumentException("maxConcurrentBatches must be positive");
+            this.executor = executor;
+            this.maxConcurrentBatches = maxConcurrentBatches;
+            this.writeCapacityBudgets = writeCapacityBudgets;
+        }
+
+        /**
+         * Returns a copy of this object that keeps the writes of each
+         * batchWrite call to the given table within the given number of write
+         * capacity units per second, as reported by DynamoDB in the consumed
+         * capacity of each batch.
+         *
+         * @param tableName
+         *            The name of the table, after any table name override.
+         * @param writeCapacityUnitsPerSecond
+         *            The write capacity units per second to stay within.
+         */
+        public BatchWriteConcurrency withWriteCapacityBudget(String tableName,
+                double writeCapacityUnitsPerSecond) {
+            if (writeCapacityUnitsPerSecond <= 0)
+                throw new IllegalArgumentException("The write capacity budget must be positive");
+            Map<String, Double> budgets = new HashMap<String, Double>(writeCapacityBudgets);
+            budgets.put(tableName, writeCapacityUnitsPerSecond);
+            return new BatchWriteConcurrency(executor, maxConcurrentBatches,
+                    Collections.unmodifiableMap(budgets));
+        }
+
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        public int getMaxConcurrentBatches() {
+            return maxConcurrentBatches;
+        }
+
+        /**
+         * Returns the write capacity units per second budgeted for each
+         * table; tables not in the map have no budget.
+         */
+        public Map<String, Double> getWriteCapacityBudgets() {
+            return writeCapacityBudgets;
+        }
+    }
+
+    /**
+     * Lets DynamoDBMapper#parallelScan run the scans of its segments on the
+     * given executor, which can be shared by any number of parallel scans,
+     * instead of on a new thread pool per scan. Each segment scans ahead of
+     * the caller by up to the given number of pages, and the pages of all the
+     * segments are handed to the caller in the order they arrive, so that
+     * iterating over the results never waits for the slowest segment.
+     * <p>
+     * Combined with {@link PaginationLoadingStrategy#ITERATION_ONLY}, the
+     * memory held by a parallel scan is bounded by the number of segments
+     * times the prefetch depth, in pages.
+     *
+     * @see DynamoDBMapper#parallelScan(Class, DynamoDBScanExpression, int, DynamoDBMapperConfig)
+     */
+    public static final class ParallelScanConcurrency {
+
+        private final ExecutorService executor;
+        private final int prefetchDepth;
+
+        /**
+         * @param executor
+         *            The executor to send the Scan requests on. It is not
+         *            shut down by the mapper.
+         * @param prefetchDepth
+         *            The maximum number of pages of each segment that are
+         *            being scanned or waiting to be consumed at any time.
+         */
+        public ParallelScanConcurrency(ExecutorService executor, int prefetchDepth) {
+            if (executor == null)
+                throw new IllegalArgumentException("executor must not be null");
+            if (prefetchDepth < 1)
+                throw new IllegalArgumentException("prefetchDepth must be positive");
+            this.executor = executor;
+            this.prefetchDepth = prefetchDepth;
+        }
+
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        public int getPrefetchDepth() {
+            return prefetchDepth;
+        }
+    }
+
+    /**
+     * Lets the lists returned by DynamoDBMapper#query and DynamoDBMapper#scan
+     * fetch their next pages on the given executor while the caller works
+     * through the current one, instead of only when the caller reaches the
+     * end of it. It applies with any {@link PaginationLoadingStrategy}.
+     * <p>
+     * Fetching runs ahead by up to the given number of pages, and pauses
+     * while the pages fetched but not yet reached by the caller hold the
+     * given number of items or more; at least one page is always fetched
+     * ahead.
+     *
+     * @see PaginatedQueryList
+     * @see PaginatedScanList
+     */
+    public static final class PagePrefetch {
+
+        private final ExecutorService executor;
+        private final int maxPages;
+        private final int maxBufferedItems;
+
+        /**
+         * @param executor
+         *            The executor to send the Query and Scan requests on. It
+         *            is not shut down by the mapper.
+         * @param maxPages
+         *            The maximum number of pages fetched ahead of the caller.
+         * @param maxBufferedItems
+         *            The number of items fetched ahead of the caller at which
+         *            fetching pauses.
+         */
+        public PagePrefetch(ExecutorService executor, int maxPages, int maxBufferedItems) {
+            if (executor == null)
+                throw new IllegalArgumentException("executor must not be null");
+            if (maxPages < 1)
+                throw new IllegalArgumentException("maxPages must be positive");
+            if (maxBufferedItems < 1)
+                throw new IllegalArgumentException("maxBufferedItems must be positive");
+            this.executor = executor;
+            this.maxPages = maxPages;
+            this.maxBufferedItems = maxBufferedItems;
+        }
+
+        public ExecutorService getExecutor() {
+            return executor;
+        }
+
+        public int getMaxPages() {
+            return maxPages;
+        }
+
+        public int getMaxBufferedItems() {
+            return maxBufferedItems;
+        }
+    }
+
     private final SaveBehavior saveBehavior;
     private final ConsistentReads consistentReads;
     private final TableNameOverride tableNameOverride;
@@ -641,6 +902,9 @@ public class DynamoDBMapperConfig {
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
     private final BatchWriteRetryStrategy batchWriteRetryStrategy;
+    private final BatchWriteConcurrency batchWriteConcurrency;
+    private final ParallelScanConcurrency parallelScanConcurrency;
+    private final PagePrefetch pagePrefetch;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -711,7 +975,7 @@ public class DynamoDBMapperConfig {
                 paginationLoadingStrategy,
                 requestMetricCollector,
                 ConversionSchemas.DEFAULT,
-                new DefaultBatchWriteRetryStrategy());
+                new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     private DynamoDBMapperConfig(
@@ -723,7 +987,10 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy,
             RequestMetricCollector requestMetricCollector,
             ConversionSchema conversionSchema,
-            BatchWriteRetryStrategy batchWriteRetryStrategy) {
+            BatchWriteRetryStrategy batchWriteRetryStrategy,
+            BatchWriteConcurrency batchWriteConcurrency,
+            ParallelScanConcurrency parallelScanConcurrency,
+            PagePrefetch pagePrefetch) {
 
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
@@ -734,6 +1001,9 @@ public class DynamoDBMapperConfig {
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
         this.batchWriteRetryStrategy = batchWriteRetryStrategy;
+        this.batchWriteConcurrency = batchWriteConcurrency;
+        this.parallelScanConcurrency = parallelScanConcurrency;
+        this.pagePrefetch = pagePrefetch;
     }
 
     /**
@@ -741,7 +1011,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(SaveBehavior saveBehavior) {
         this(saveBehavior, null, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -750,7 +1020,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ConsistentReads consistentReads) {
         this(null, consistentReads, null, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -758,7 +1028,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameOverride tableNameOverride) {
         this(null, null, tableNameOverride, null, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -766,7 +1036,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver) {
         this(null, null, null, tableNameResolver, null, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -774,7 +1044,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, null, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -782,7 +1052,7 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(TableNameResolver tableNameResolver, ObjectTableNameResolver objectTableNameResolver) {
         this(null, null, null, tableNameResolver, objectTableNameResolver, null, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -793,14 +1063,14 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy paginationLoadingStrategy) {
 
         this(null, null, null, null, null, paginationLoadingStrategy, null,
-                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy());
+                ConversionSchemas.DEFAULT, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
      * Constructs a new configuration object with the conversion schema given.
      */
     public DynamoDBMapperConfig(ConversionSchema conversionSchema) {
-        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy());
+        this(null, null, null, null, null, null, null, conversionSchema, new DefaultBatchWriteRetryStrategy(), null, null, null);
     }
 
     /**
@@ -833,6 +1103,9 @@ public class DynamoDBMapperConfig {
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
             this.batchWriteRetryStrategy = defaults.getBatchWriteRetryStrategy();
+            this.batchWriteConcurrency = defaults.getBatchWriteConcurrency();
+            this.parallelScanConcurrency = defaults.getParallelScanConcurrency();
+            this.pagePrefetch = defaults.getPagePrefetch();
 
         } else {
 
@@ -874,6 +1147,18 @@ public class DynamoDBMapperConfig {
                     ? defaults.getBatchWriteRetryStrategy()
                     : overrides.getBatchWriteRetryStrategy();
 
+            this.batchWriteConcurrency = (overrides.getBatchWriteConcurrency() == null)
+                    ? defaults.getBatchWriteConcurrency()
+                    : overrides.getBatchWriteConcurrency();
+
+            this.parallelScanConcurrency = (overrides.getParallelScanConcurrency() == null)
+                    ? defaults.getParallelScanConcurrency()
+                    : overrides.getParallelScanConcurrency();
+
+            this.pagePrefetch = (overrides.getPagePrefetch() == null)
+                    ? defaults.getPagePrefetch()
+                    : overrides.getPagePrefetch();
+
         }
     }
 
@@ -957,6 +1242,30 @@ public class DynamoDBMapperConfig {
         return batchWriteRetryStrategy;
     }
 
+    /**
+     * @return the BatchWriteConcurrency for this config object, or null if
+     *         batch writes are sent one at a time
+     */
+    public BatchWriteConcurrency getBatchWriteConcurrency() {
+        return batchWriteConcurrency;
+    }
+
+    /**
+     * @return the ParallelScanConcurrency for this config object, or null if
+     *         each parallel scan runs on a thread pool of its own
+     */
+    public ParallelScanConcurrency getParallelScanConcurrency() {
+        return parallelScanConcurrency;
+    }
+
+    /**
+     * @return the PagePrefetch for this config object, or null if the pages
+     *         of query and scan results are fetched as they are reached
+     */
+    public PagePrefetch getPagePrefetch() {
+        return pagePrefetch;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
      * consistent reads, with no table name override and lazy-loading strategy.
@@ -970,5 +1279,8 @@ public class DynamoDBMapperConfig {
             PaginationLoadingStrategy.LAZY_LOADING,
             null,  // RequestMetricCollector
             ConversionSchemas.DEFAULT,
-            new DefaultBatchWriteRetryStrategy());
+            new DefaultBatchWriteRetryStrategy(),
+            null,  // BatchWriteConcurrency
+            null,  // ParallelScanConcurrency
+            null); // PagePrefetch
 }
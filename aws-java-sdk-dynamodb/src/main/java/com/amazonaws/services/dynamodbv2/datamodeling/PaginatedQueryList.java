@@ -17,16 +17,19 @@ package com.amazonaws.services.dynamodbv2.datamodeling;
 import java.util.List;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PagePrefetch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.util.PagePrefetcher;
 
 /**
  * Implementation of the List interface that represents the results from a query
  * in AWS DynamoDB. Paginated results are loaded on demand when the user
  * executes an operation that requires them. Some operations, such as size(),
  * must fetch the entire list, but results are lazily fetched page by page when
- * possible.
+ * possible. If the config has a {@link PagePrefetch}, the next pages are
+ * fetched in the background while the current one is being read.
  * <p>
  * This is an unmodifiable list, so callers should not invoke any operations
  * that modify this list, otherwise they will throw an
@@ -46,6 +49,9 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
     /** The current results for the last executed query operation */
     private QueryResult queryResult;
 
+    /** Fetches the next pages in the background, or null */
+    private final PagePrefetcher<QueryResult> prefetcher;
+
     public PaginatedQueryList(
             DynamoDBMapper mapper,
             Class<T> clazz,
@@ -69,6 +75,8 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
                     queryRequest.getTableName(),
                     config)));
 
+        this.prefetcher = newPrefetcher(config.getPagePrefetch());
+
         // If the results should be eagerly loaded at once
         if (paginationLoadingStrategy == PaginationLoadingStrategy.EAGER_LOADING) {
             loadAllResults();
@@ -82,12 +90,46 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
 
     @Override
     protected synchronized List<T> fetchNextPage() {
-        queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
-        queryResult = dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+        if (prefetcher != null) {
+            queryResult = prefetcher.next();
+        } else {
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+            queryResult = dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+        }
         return mapper.marshallIntoObjects(mapper.toParameters(
                 queryResult.getItems(),
                 clazz,
                 queryRequest.getTableName(),
                 config));
     }
+
+    private PagePrefetcher<QueryResult> newPrefetcher(PagePrefetch pagePrefetch) {
+        if (pagePrefetch == null || atEndOfResults()) {
+            return null;
+        }
+        PagePrefetcher.Fetcher<QueryResult> fetcher = new PagePrefetcher.Fetcher<QueryResult>() {
+            @Override
+            public QueryResult fetchNextPage(QueryResult page) {
+                // Only ever called by one thread at a time
+                queryRequest.setExclusiveStartKey(page.getLastEvaluatedKey());
+                return dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+            }
+
+            @Override
+            public boolean hasNextPage(QueryResult page) {
+                return page.getLastEvaluatedKey() != null;
+            }
+
+            @Override
+            public int sizeOf(QueryResult page) {
+                return page.getItems() == null ? 0 : page.getItems().size();
+            }
+        };
+        PagePrefetcher<QueryResult> result = new PagePrefetcher<QueryResult>(fetcher,
+                pagePrefetch.getExecutor(),
+                pagePrefetch.getMaxPages(),
+                pagePrefetch.getMaxBufferedItems());
+        result.start(queryResult);
+        return result;
+    }
 }
@@ -17,16 +17,19 @@ package com.amazonaws.services.dynamodbv2.datamodeling;
 import java.util.List;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PagePrefetch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.util.PagePrefetcher;
 
 /**
  * Implementation of the List interface that represents the results from a scan
  * in AWS DynamoDB. Paginated results are loaded on demand when the user
  * executes an operation that requires them. Some operations, such as size(),
  * must fetch the entire list, but results are lazily fetched page by page when
- * possible.
+ * possible. If the config has a {@link PagePrefetch}, the next pages are
+ * fetched in the background while the current one is being read.
  * <p>
  * This is an unmodifiable list, so callers should not invoke any operations
  * that modify this list, otherwise they will throw an
@@ -46,6 +49,9 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
     /** The current results for the last executed scan operation */
     private ScanResult scanResult;
 
+    /** Fetches the next pages in the background, or null */
+    private final PagePrefetcher<ScanResult> prefetcher;
+
     public PaginatedScanList(
             DynamoDBMapper mapper,
             Class<T> clazz,
@@ -68,6 +74,8 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
                     scanRequest.getTableName(),
                     config)));
 
+        this.prefetcher = newPrefetcher(config.getPagePrefetch());
+
         // If the results should be eagerly loaded at once
         if (paginationLoadingStrategy == PaginationLoadingStrategy.EAGER_LOADING) {
             loadAllResults();
@@ -81,8 +89,12 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
 
     @Override
     protected synchronized List<T> fetchNextPage() {
-        scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-        scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+        if (prefetcher != null) {
+            scanResult = prefetcher.next();
+        } else {
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+            scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+        }
         return mapper.marshallIntoObjects(mapper.toParameters(
             scanResult.getItems(),
             clazz,
@@ -90,4 +102,33 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
             config));
     }
 
+    private PagePrefetcher<ScanResult> newPrefetcher(PagePrefetch pagePrefetch) {
+        if (pagePrefetch == null || atEndOfResults()) {
+            return null;
+        }
+        PagePrefetcher.Fetcher<ScanResult> fetcher = new PagePrefetcher.Fetcher<ScanResult>() {
+            @Override
+            public ScanResult fetchNextPage(ScanResult page) {
+                // Only ever called by one thread at a time
+                scanRequest.setExclusiveStartKey(page.getLastEvaluatedKey());
+                return dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+            }
+
+            @Override
+            public boolean hasNextPage(ScanResult page) {
+                return page.getLastEvaluatedKey() != null;
+            }
+
+            @Override
+            public int sizeOf(ScanResult page) {
+                return page.getItems() == null ? 0 : page.getItems().size();
+            }
+        };
+        PagePrefetcher<ScanResult> result = new PagePrefetcher<ScanResult>(fetcher,
+                pagePrefetch.getExecutor(),
+                pagePrefetch.getMaxPages(),
+                pagePrefetch.getMaxBufferedItems());
+        result.start(scanResult);
+        return result;
+    }
 }
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.MAX_ITEMS_PER_BATCH;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteConcurrency;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Sends the write requests of one {@link DynamoDBMapper#batchWrite} call as
+ * concurrent BatchWriteItem requests on the executor of a
+ * {@link BatchWriteConcurrency}.
+ * <p>
+ * Items are tracked individually: unprocessed or throttled items go back into
+ * the queue with a jittered backoff and are sent in whichever batch comes
+ * next, while the other batches keep going. An item that exhausts the retries
+ * of the {@link BatchWriteRetryStrategy}, or whose batch fails with any other
+ * exception, is returned in a {@link FailedBatch} with the other items that
+ * failed the same way.
+ * <p>
+ * Instances are used by a single batchWrite call, on the calling thread; only
+ * the requests themselves run on the executor.
+ */
+class ParallelBatchWriter {
+
+    private final AmazonDynamoDB db;
+    private final BatchWriteRetryStrategy retryStrategy;
+    private final BatchWriteConcurrency concurrency;
+    private final Map<String, WriteCapacityBudget> budgets = new HashMap<String, WriteCapacityBudget>();
+    private final Random random = new Random();
+
+    /** Items to send, in the order they may be sent. */
+    private final PriorityQueue<PendingWrite> pending = new PriorityQueue<PendingWrite>();
+    /** Halves of batches that were too large, sent before anything else. */
+    private final LinkedList<List<PendingWrite>> splitBatches = new LinkedList<List<PendingWrite>>();
+    private final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+    private long sequence;
+
+    ParallelBatchWriter(AmazonDynamoDB db, BatchWriteRetryStrategy retryStrategy,
+            BatchWriteConcurrency concurrency) {
+        this.db = db;
+        this.retryStrategy = retryStrategy;
+        this.concurrency = concurrency;
+        for (Map.Entry<String, Double> e : concurrency.getWriteCapacityBudgets().entrySet()) {
+            budgets.put(e.getKey(), new WriteCapacityBudget(e.getValue()));
+        }
+    }
+
+    /**
+     * Writes the given requests, blocking until every item has been written
+     * or has failed, and returns the failures.
+     */
+    List<FailedBatch> write(Map<String, List<WriteRequest>> requestItems) {
+        for (Map.Entry<String, List<WriteRequest>> e : requestItems.entrySet()) {
+            for (WriteRequest request : e.getValue()) {
+                pending.add(new PendingWrite(e.getKey(), request, sequence++));
+            }
+        }
+
+        CompletionService<BatchOutcome> completionService =
+                new ExecutorCompletionService<BatchOutcome>(concurrency.getExecutor());
+        List<Future<BatchOutcome>> inFlight = new LinkedList<Future<BatchOutcome>>();
+        boolean done = false;
+        try {
+            while (!pending.isEmpty() || !splitBatches.isEmpty() || !inFlight.isEmpty()) {
+                while (inFlight.size() < concurrency.getMaxConcurrentBatches()) {
+                    List<PendingWrite> batch = nextBatch(System.currentTimeMillis());
+                    if (batch == null) break;
+                    inFlight.add(completionService.submit(new BatchWriteCall(batch)));
+                }
+
+                Future<BatchOutcome> completed;
+                if (inFlight.isEmpty()) {
+                    // Everything left is backing off
+                    pause(pending.peek().notBefore - System.currentTimeMillis());
+                    continue;
+                } else if (inFlight.size() < concurrency.getMaxConcurrentBatches()
+                        && !pending.isEmpty()) {
+                    long delay = pending.peek().notBefore - System.currentTimeMillis();
+                    completed = completionService.poll(Math.max(delay, 0), TimeUnit.MILLISECONDS);
+                    if (completed == null) continue;
+                } else {
+                    completed = completionService.take();
+                }
+                inFlight.remove(completed);
+                handle(getOutcome(completed));
+            }
+            done = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            if (!done) {
+                for (Future<BatchOutcome> future : inFlight) {
+                    future.cancel(true);
+                }
+            }
+        }
+        return failedBatches;
+    }
+
+    /**
+     * Returns the next batch to send, or null if no item may be sent yet.
+     */
+    private List<PendingWrite> nextBatch(long now) {
+        if (!splitBatches.isEmpty()) {
+            return splitBatches.removeFirst();
+        }
+        List<PendingWrite> batch = null;
+        while (!pending.isEmpty() && pending.peek().notBefore <= now
+                && (batch == null || batch.size() < MAX_ITEMS_PER_BATCH)) {
+            if (batch == null) batch = new ArrayList<PendingWrite>(MAX_ITEMS_PER_BATCH);
+            batch.add(pending.poll());
+        }
+        return batch;
+    }
+
+    private static BatchOutcome getOutcome(Future<BatchOutcome> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // BatchWriteCall reports its failures in the outcome
+            throw new AmazonClientException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void handle(BatchOutcome outcome) {
+        Exception e = outcome.exception;
+        if (e == null) {
+            retryUnprocessed(outcome.batch, outcome.result.getUnprocessedItems());
+        } else if (e instanceof AmazonServiceException
+                && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) e)
+                && outcome.batch.size() > 1) {
+            int half = outcome.batch.size() / 2;
+            splitBatches.add(new ArrayList<PendingWrite>(outcome.batch.subList(0, half)));
+            splitBatches.add(new ArrayList<PendingWrite>(outcome.batch.subList(half, outcome.batch.size())));
+        } else if (e instanceof AmazonServiceException
+                && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
+            retry(outcome.batch);
+        } else {
+            failedBatches.add(toFailedBatch(outcome.batch, e));
+        }
+    }
+
+    /**
+     * Finds the items of the batch that came back unprocessed, and retries
+     * them.
+     */
+    private void retryUnprocessed(List<PendingWrite> batch,
+            Map<String, List<WriteRequest>> unprocessedItems) {
+        if (unprocessedItems == null || unprocessedItems.isEmpty()) return;
+
+        Map<String, Map<WriteRequest, LinkedList<PendingWrite>>> sent =
+                new HashMap<String, Map<WriteRequest, LinkedList<PendingWrite>>>();
+        for (PendingWrite write : batch) {
+            Map<WriteRequest, LinkedList<PendingWrite>> table = sent.get(write.tableName);
+            if (table == null) {
+                table = new HashMap<WriteRequest, LinkedList<PendingWrite>>();
+                sent.put(write.tableName, table);
+            }
+            LinkedList<PendingWrite> writes = table.get(write.request);
+            if (writes == null) {
+                writes = new LinkedList<PendingWrite>();
+                table.put(write.request, writes);
+            }
+            writes.add(write);
+        }
+
+        List<PendingWrite> unprocessed = new ArrayList<PendingWrite>();
+        for (Map.Entry<String, List<WriteRequest>> e : unprocessedItems.entrySet()) {
+            Map<WriteRequest, LinkedList<PendingWrite>> table = sent.get(e.getKey());
+            for (WriteRequest request : e.getValue()) {
+                LinkedList<PendingWrite> writes = table == null ? null : table.get(request);
+                unprocessed.add(writes == null || writes.isEmpty()
+                        ? new PendingWrite(e.getKey(), request, sequence++)
+                        : writes.removeFirst());
+            }
+        }
+        retry(unprocessed);
+    }
+
+    /**
+     * Puts the given items back into the queue after a jittered backoff, or
+     * fails those that have used up their retries.
+     */
+    private void retry(List<PendingWrite> writes) {
+        Map<String, List<WriteRequest>> items = toRequestItems(writes);
+        int maxRetries = retryStrategy.getMaxRetryOnUnprocessedItems(
+                Collections.unmodifiableMap(items));
+        List<PendingWrite> exhausted = new ArrayList<PendingWrite>();
+        long now = System.currentTimeMillis();
+        for (PendingWrite write : writes) {
+            if (maxRetries >= 0 && write.retries >= maxRetries) {
+                exhausted.add(write);
+                continue;
+            }
+            long delay = retryStrategy.getDelayBeforeRetryUnprocessedItems(
+                    Collections.unmodifiableMap(items), write.retries);
+            write.retries++;
+            // Equal jitter: keep half of the backoff, randomize the other half
+            if (delay > 1) {
+                delay = delay / 2 + (long) (random.nextDouble() * (delay / 2));
+            }
+            write.notBefore = now + Math.max(delay, 0);
+            pending.add(write);
+        }
+        if (!exhausted.isEmpty()) {
+            failedBatches.add(toFailedBatch(exhausted, null));
+        }
+    }
+
+    private static FailedBatch toFailedBatch(List<PendingWrite> writes, Exception e) {
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(toRequestItems(writes));
+        failedBatch.setException(e);
+        return failedBatch;
+    }
+
+    private static Map<String, List<WriteRequest>> toRequestItems(List<PendingWrite> writes) {
+        Map<String, List<WriteRequest>> items = new HashMap<String, List<WriteRequest>>();
+        for (PendingWrite write : writes) {
+            List<WriteRequest> requests = items.get(write.tableName);
+            if (requests == null) {
+                requests = new ArrayList<WriteRequest>();
+                items.put(write.tableName, requests);
+            }
+            requests.add(write.request);
+        }
+        return items;
+    }
+
+    private static void pause(long delay) throws InterruptedException {
+        if (delay > 0) Thread.sleep(delay);
+    }
+
+    /**
+     * An item waiting to be written.
+     */
+    private static final class PendingWrite implements Comparable<PendingWrite> {
+        private final String tableName;
+        private final WriteRequest request;
+        private final long sequence;
+        private int retries;
+        /** The time before which the item must not be sent again. */
+        private long notBefore;
+
+        PendingWrite(String tableName, WriteRequest request, long sequence) {
+            this.tableName = tableName;
+            this.request = request;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PendingWrite other) {
+            if (notBefore != other.notBefore)
+                return notBefore < other.notBefore ? -1 : 1;
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private static final class BatchOutcome {
+        private final List<PendingWrite> batch;
+        private final BatchWriteItemResult result;
+        private final Exception exception;
+
+        BatchOutcome(List<PendingWrite> batch, BatchWriteItemResult result, Exception exception) {
+            this.batch = batch;
+            this.result = result;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * Sends one batch, within the write capacity budgets of its tables.
+     */
+    private final class BatchWriteCall implements Callable<BatchOutcome> {
+        private final List<PendingWrite> batch;
+
+        BatchWriteCall(List<PendingWrite> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public BatchOutcome call() {
+            Map<String, List<WriteRequest>> items = toRequestItems(batch);
+            try {
+                for (Map.Entry<String, List<WriteRequest>> e : items.entrySet()) {
+                    WriteCapacityBudget budget = budgets.get(e.getKey());
+                    if (budget != null) budget.acquire(e.getValue().size());
+                }
+                BatchWriteItemRequest request = new BatchWriteItemRequest()
+                        .withRequestItems(items);
+                if (!budgets.isEmpty()) {
+                    request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+                }
+                BatchWriteItemResult result = db.batchWriteItem(
+                        DynamoDBMapper.applyBatchOperationUserAgent(request));
+                settleBudgets(items, result.getConsumedCapacity());
+                return new BatchOutcome(batch, result, null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new BatchOutcome(batch, null, new AmazonClientException(e.getMessage(), e));
+            } catch (Exception e) {
+                return new BatchOutcome(batch, null, e);
+            }
+        }
+
+        /**
+         * Replaces the estimate of one unit per item taken from each budget
+         * with the capacity DynamoDB reports as consumed.
+         */
+        private void settleBudgets(Map<String, List<WriteRequest>> items,
+                List<ConsumedCapacity> consumedCapacity) {
+            if (consumedCapacity == null) return;
+            for (ConsumedCapacity consumed : consumedCapacity) {
+                WriteCapacityBudget budget = budgets.get(consumed.getTableName());
+                List<WriteRequest> requests = items.get(consumed.getTableName());
+                if (budget != null && requests != null && consumed.getCapacityUnits() != null) {
+                    budget.settle(requests.size(), consumed.getCapacityUnits());
+                }
+            }
+        }
+    }
+
+    /**
+     * A token bucket of write capacity units for one table, refilled at the
+     * budgeted rate and holding at most one second's worth. Writes may take
+     * the bucket into debt, which later writes wait out.
+     * <p>
+     * Time is read and waited out through {@link #nanoTime()} and
+     * {@link #sleep(long)}, which tests override.
+     */
+    static class WriteCapacityBudget {
+        private final double unitsPerSecond;
+        private double units;
+        private long lastRefillNanos;
+
+        WriteCapacityBudget(double unitsPerSecond) {
+            this.unitsPerSecond = unitsPerSecond;
+            this.units = unitsPerSecond;
+            this.lastRefillNanos = nanoTime();
+        }
+
+        void acquire(double requested) throws InterruptedException {
+            for (;;) {
+                long waitMillis;
+                synchronized (this) {
+                    refill();
+                    if (units > 0) {
+                        units -= requested;
+                        return;
+                    }
+                    waitMillis = (long) Math.ceil(-units * 1000 / unitsPerSecond);
+                }
+                sleep(Math.max(waitMillis, 1));
+            }
+        }
+
+        synchronized void settle(double estimated, double consumed) {
+            units += estimated - consumed;
+        }
+
+        long nanoTime() {
+            return System.nanoTime();
+        }
+
+        void sleep(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+
+        private void refill() {
+            long now = nanoTime();
+            units = Math.min(unitsPerSecond,
+                    units + (now - lastRefillNanos) * unitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+        }
+    }
+}
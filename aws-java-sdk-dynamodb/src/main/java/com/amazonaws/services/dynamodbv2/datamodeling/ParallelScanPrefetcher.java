@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanConcurrency;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.util.PagePrefetcher;
+
+/**
+ * Scans the segments of one {@link DynamoDBMapper#parallelScan} call on the
+ * executor of a {@link ParallelScanConcurrency}, each segment running ahead of
+ * the caller by up to the prefetch depth in pages.
+ * <p>
+ * Each segment is a {@link PagePrefetcher}, which has at most one Scan request
+ * in flight and pauses once the prefetch depth of its pages are waiting to be
+ * taken. So no executor thread ever blocks on the caller, and an abandoned
+ * scan simply stops once its segments are full. The segments are added to a
+ * shared queue as their pages arrive, so the caller takes the pages of all the
+ * segments in the order they arrived.
+ */
+class ParallelScanPrefetcher {
+
+    /**
+     * The segments, once for each of their pages, or the failure to scan one,
+     * ready to be taken, in the order they arrived.
+     */
+    private final BlockingQueue<PagePrefetcher<ScanResult>> ready =
+            new LinkedBlockingQueue<PagePrefetcher<ScanResult>>();
+
+    /** The number of segments whose last page the caller has not taken yet. */
+    private int remainingSegments;
+
+    /** The failure thrown to the caller, thrown again on any later call. */
+    private RuntimeException failure;
+
+    ParallelScanPrefetcher(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests,
+            ParallelScanConcurrency concurrency) {
+        for (ScanRequest request : parallelScanRequests) {
+            new PagePrefetcher<ScanResult>(new SegmentFetcher(dynamo, request),
+                    concurrency.getExecutor(), concurrency.getPrefetchDepth(),
+                    Integer.MAX_VALUE, ready).start();
+        }
+        this.remainingSegments = parallelScanRequests.size();
+    }
+
+    /**
+     * Returns true if the caller has taken the last page of every segment.
+     */
+    boolean isFinished() {
+        return remainingSegments == 0;
+    }
+
+    /**
+     * Waits until at least one page has been scanned, then returns all the
+     * pages scanned so far, in the order they arrived; or returns an empty
+     * list if the scan is finished.
+     *
+     * @throws AmazonClientException
+     *             if the scan of any segment failed, or the calling thread was
+     *             interrupted.
+     */
+    List<ScanResult> nextPages() {
+        if (failure != null) {
+            throw failure;
+        }
+        List<ScanResult> results = new ArrayList<ScanResult>();
+        if (isFinished()) {
+            return results;
+        }
+        List<PagePrefetcher<ScanResult>> taken = new ArrayList<PagePrefetcher<ScanResult>>();
+        try {
+            taken.add(ready.take());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
+        }
+        ready.drainTo(taken);
+        for (PagePrefetcher<ScanResult> segment : taken) {
+            try {
+                // Already scanned, so this does not wait
+                results.add(segment.next());
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+            if (!segment.hasNext()) {
+                remainingSegments--;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Scans the pages of one segment.
+     */
+    private static final class SegmentFetcher implements PagePrefetcher.Fetcher<ScanResult> {
+        private final AmazonDynamoDB dynamo;
+        /** Only used by the one scan of the segment in flight. */
+        private final ScanRequest request;
+
+        SegmentFetcher(AmazonDynamoDB dynamo, ScanRequest request) {
+            this.dynamo = dynamo;
+            this.request = request;
+        }
+
+        @Override
+        public ScanResult fetchNextPage(ScanResult page) {
+            request.setExclusiveStartKey(page == null ? null : page.getLastEvaluatedKey());
+            return dynamo.scan(DynamoDBMapper.applyUserAgent(request));
+        }
+
+        @Override
+        public boolean hasNextPage(ScanResult page) {
+            return page.getLastEvaluatedKey() != null;
+        }
+
+        @Override
+        public int sizeOf(ScanResult page) {
+            return page.getItems() == null ? 0 : page.getItems().size();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanConcurrency;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
@@ -59,16 +60,32 @@ public class ParallelScanTask {
 
     private final AmazonDynamoDB dynamo;
 
+    /**
+     * Scans the segments on a shared executor instead, if the mapper is
+     * configured with a {@link ParallelScanConcurrency}; otherwise null.
+     */
+    private final ParallelScanPrefetcher prefetcher;
+
     @Deprecated
     public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
         this(dynamo, parallelScanRequests);
     }
 
     ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
+        this(dynamo, parallelScanRequests, null);
+    }
+
+    ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests,
+            ParallelScanConcurrency concurrency) {
         this.dynamo = dynamo;
         this.parallelScanRequests = parallelScanRequests;
         this.totalSegments = parallelScanRequests.size();
-        executorService = Executors.newCachedThreadPool();
+        if (concurrency != null) {
+            prefetcher = new ParallelScanPrefetcher(dynamo, parallelScanRequests, concurrency);
+        } else {
+            prefetcher = null;
+            executorService = Executors.newCachedThreadPool();
+        }
 
         // Create synchronized views of the list to guarantee any changes are visible across all threads.
         segmentScanFutureTasks = Collections.synchronizedList(new ArrayList<Future<ScanResult>>(totalSegments));
@@ -83,6 +100,9 @@ public class ParallelScanTask {
     }
 
     public boolean isAllSegmentScanFinished() {
+        if (prefetcher != null) {
+            return prefetcher.isFinished();
+        }
         synchronized(segmentScanStates) {
             for (int segment = 0; segment < totalSegments; segment++) {
                 if (segmentScanStates.get(segment) != SegmentScanState.SegmentScanCompleted)
@@ -94,7 +114,15 @@ public class ParallelScanTask {
         }
     }
 
+    /**
+     * Returns the next page of every segment that has not finished yet, or,
+     * with a {@link ParallelScanConcurrency}, the pages that any of the
+     * segments have scanned since the last call, waiting for at least one.
+     */
     public List<ScanResult> getNextBatchOfScanResults() throws AmazonClientException {
+        if (prefetcher != null) {
+            return prefetcher.nextPages();
+        }
         /**
          * Kick-off all the parallel scan tasks.
          */
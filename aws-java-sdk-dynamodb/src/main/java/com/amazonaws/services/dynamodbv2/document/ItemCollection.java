@@ -32,7 +32,8 @@ import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
  * it can be used in a while loop to iterate through the collection.
  *
  * Network calls can be triggered when the collection is iterated across page
- * boundaries.
+ * boundaries, unless the next pages are fetched in the background; see
+ * {@link #setPagePrefetch(java.util.concurrent.ExecutorService, int, int)}.
  *
  * @param <R> low level result type
  */
@@ -14,6 +14,8 @@
  */
 package com.amazonaws.services.dynamodbv2.document.internal;
 
+import java.util.concurrent.ExecutorService;
+
 import com.amazonaws.services.dynamodbv2.document.LowLevelResultListener;
 import com.amazonaws.services.dynamodbv2.document.Page;
 
@@ -26,6 +28,9 @@ import com.amazonaws.services.dynamodbv2.document.Page;
 public abstract class PageBasedCollection<T,R> implements Iterable<T> {
     private volatile R lastLowLevelResult;
     private volatile LowLevelResultListener<R> listener = LowLevelResultListener.none();
+    private volatile ExecutorService prefetchExecutor;
+    private volatile int prefetchMaxPages;
+    private volatile int prefetchMaxBufferedItems;
 
     @Override
     public IteratorSupport<T,R> iterator() {
@@ -82,4 +87,40 @@ public abstract class PageBasedCollection<T,R> implements Iterable<T> {
             this.listener = listener;
         return prev;
     }
+
+    /**
+     * Used to have the iterators of this collection fetch the next pages on
+     * the given executor while the caller works through the current one,
+     * instead of only when the caller reaches the end of it. Applies to the
+     * iterators created after this call.
+     *
+     * @param executor
+     *            the executor to fetch the pages on, which is not shut down
+     *            by this collection; or null to fetch each page when it is
+     *            reached, which is the default.
+     * @param maxPages
+     *            the maximum number of pages fetched ahead of the caller.
+     * @param maxBufferedItems
+     *            the number of items fetched ahead of the caller at which
+     *            fetching pauses; at least one page is always fetched ahead.
+     */
+    public void setPagePrefetch(ExecutorService executor, int maxPages, int maxBufferedItems) {
+        if (executor != null && (maxPages < 1 || maxBufferedItems < 1))
+            throw new IllegalArgumentException("maxPages and maxBufferedItems must be positive");
+        this.prefetchMaxPages = maxPages;
+        this.prefetchMaxBufferedItems = maxBufferedItems;
+        this.prefetchExecutor = executor;
+    }
+
+    ExecutorService getPrefetchExecutor() {
+        return prefetchExecutor;
+    }
+
+    int getPrefetchMaxPages() {
+        return prefetchMaxPages;
+    }
+
+    int getPrefetchMaxBufferedItems() {
+        return prefetchMaxBufferedItems;
+    }
 }
@@ -15,8 +15,10 @@
 package com.amazonaws.services.dynamodbv2.document.internal;
 
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.dynamodbv2.document.Page;
+import com.amazonaws.util.PagePrefetcher;
 
 /**
  * @param <T> resource type
@@ -26,6 +28,8 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
 
     private Page<T,R> page;
     private final PageBasedCollection<T,R> col;
+    /** Fetches the pages after the first in the background, or null */
+    private PagePrefetcher<Page<T,R>> prefetcher;
 
     PageIterator(PageBasedCollection<T,R> col) {
         this.col = col;
@@ -36,20 +40,49 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
         Integer max = col.getMaxResultSize();
         if (max != null && max.intValue() <= 0)
             return false;
-        return page == null || page.hasNextPage();
+        if (page == null)
+            return true;
+        return prefetcher == null ? page.hasNextPage() : prefetcher.hasNext();
     }
 
     @Override
     public Page<T,R> next() {
         if (page == null) {
             page = col.firstPage();
+            prefetcher = newPrefetcher(page);
         } else {
-            page = page.nextPage();
+            page = prefetcher == null ? page.nextPage() : prefetcher.next();
             col.setLastLowLevelResult(page.getLowLevelResult());
         }
         return page;
     }
 
+    private PagePrefetcher<Page<T,R>> newPrefetcher(Page<T,R> firstPage) {
+        ExecutorService executor = col.getPrefetchExecutor();
+        if (executor == null || !firstPage.hasNextPage())
+            return null;
+        PagePrefetcher.Fetcher<Page<T,R>> fetcher = new PagePrefetcher.Fetcher<Page<T,R>>() {
+            @Override
+            public Page<T,R> fetchNextPage(Page<T,R> page) {
+                return page.nextPage();
+            }
+
+            @Override
+            public boolean hasNextPage(Page<T,R> page) {
+                return page.hasNextPage();
+            }
+
+            @Override
+            public int sizeOf(Page<T,R> page) {
+                return page.size();
+            }
+        };
+        PagePrefetcher<Page<T,R>> result = new PagePrefetcher<Page<T,R>>(fetcher,
+                executor, col.getPrefetchMaxPages(), col.getPrefetchMaxBufferedItems());
+        result.start(firstPage);
+        return result;
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException("Collection is read-only");
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the reflector lookups per second of {@link DynamoDBReflector} and
+ * of the {@link SynchronizedDynamoDBReflector} it replaced, across a range of
+ * thread counts sharing one reflector, as threads sharing a mapper do. Each
+ * item does the lookups the mapper does to marshall and unmarshall an item:
+ * the relevant getters and hash key getter of its class, and the attribute
+ * name, version and key flags, setter and value of each getter. Not run as
+ * part of the build; run its main method on a quiet machine, with the
+ * seconds to run each case and the thread counts as optional arguments.
+ */
+public class DynamoDBReflectorBenchmark {
+
+    /** Defeats dead code elimination. */
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        List<Integer> threadCounts = new ArrayList<Integer>();
+        for (int i = 1; i < args.length; i++) {
+            threadCounts.add(Integer.parseInt(args[i]));
+        }
+        if (threadCounts.isEmpty()) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads <= 4 * processors; threads *= 2) {
+                threadCounts.add(threads);
+            }
+        }
+
+        for (int round = 0; round < 2; round++) {
+            for (int threads : threadCounts) {
+                run("synchronized", new Synchronized(), threads, seconds);
+                run("published model", new Published(), threads, seconds);
+            }
+        }
+    }
+
+    private static void run(String name, final Lookups lookups, int threads,
+            long seconds) throws Exception {
+        final Item item = new Item();
+        final long deadline = System.nanoTime() + seconds * 1000000000L;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        start.await();
+                        long items = 0;
+                        long sum = 0;
+                        while (System.nanoTime() < deadline) {
+                            for (int j = 0; j < 100; j++) {
+                                sum += lookups.lookUp(item);
+                            }
+                            items += 100;
+                        }
+                        sink += sum;
+                        return items;
+                    }
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            long items = 0;
+            for (Future<Long> future : futures) {
+                items += future.get();
+            }
+            long nanos = System.nanoTime() - begin;
+            System.out.println(name + ", " + threads + " threads: "
+                    + items * lookups.perItem(item) * 1000000000L / nanos
+                    + " lookups/s");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The reflector lookups the mapper does for one item, across the two
+     * reflectors.
+     */
+    private abstract static class Lookups {
+        /**
+         * Looks up the model of the given item, returning a checksum of what
+         * was looked up.
+         */
+        abstract long lookUp(Object item) throws Exception;
+
+        /** Returns the number of lookups done for the given item. */
+        final int perItem(Object item) {
+            return 2 + 5 * new DynamoDBReflector()
+                    .getRelevantGetters(item.getClass()).size();
+        }
+    }
+
+    private static final class Synchronized extends Lookups {
+        private final SynchronizedDynamoDBReflector reflector =
+                new SynchronizedDynamoDBReflector();
+
+        @Override
+        long lookUp(Object item) throws Exception {
+            Class<?> clazz = item.getClass();
+            long sum = reflector.getPrimaryHashKeyGetter(clazz).hashCode();
+            for (Method getter : reflector.getRelevantGetters(clazz)) {
+                sum += reflector.getAttributeName(getter).length();
+                if (reflector.isVersionAttributeGetter(getter)
+                        || reflector.isAssignableKey(getter)) {
+                    sum++;
+                }
+                sum += reflector.getSetter(getter).hashCode();
+                sum += getter.invoke(item).hashCode();
+            }
+            return sum;
+        }
+    }
+
+    private static final class Published extends Lookups {
+        private final DynamoDBReflector reflector = new DynamoDBReflector();
+
+        @Override
+        long lookUp(Object item) throws Exception {
+            Class<?> clazz = item.getClass();
+            long sum = reflector.getPrimaryHashKeyGetter(clazz).hashCode();
+            for (Method getter : reflector.getRelevantGetters(clazz)) {
+                sum += reflector.getAttributeName(getter).length();
+                if (reflector.isVersionAttributeGetter(getter)
+                        || reflector.isAssignableKey(getter)) {
+                    sum++;
+                }
+                sum += reflector.getSetter(getter).hashCode();
+                sum += getter.invoke(item).hashCode();
+            }
+            return sum;
+        }
+    }
+
+    @DynamoDBTable(tableName = "table")
+    public static class Item {
+        private String hashKey = "hash";
+        private String rangeKey = "range";
+        private String name = "name";
+        private Integer count = 42;
+        private Long version = 1L;
+
+        @DynamoDBHashKey
+        public String getHashKey() {
+            return hashKey;
+        }
+        public void setHashKey(String hashKey) {
+            this.hashKey = hashKey;
+        }
+
+        @DynamoDBRangeKey
+        @DynamoDBAutoGeneratedKey
+        public String getRangeKey() {
+            return rangeKey;
+        }
+        public void setRangeKey(String rangeKey) {
+            this.rangeKey = rangeKey;
+        }
+
+        @DynamoDBAttribute(attributeName = "item-name")
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+
+        @DynamoDBVersionAttribute
+        public Long getVersion() {
+            return version;
+        }
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An item with nothing but a string hash key, for tests that only count and
+ * identify the items going through the mapper.
+ */
+@DynamoDBTable(tableName = HashKeyTestClass.TABLE_NAME)
+public class HashKeyTestClass {
+
+    public static final String TABLE_NAME = "tableName";
+    public static final String HASH_ATTR = "hash";
+
+    private String hash;
+
+    public HashKeyTestClass() {
+    }
+
+    public HashKeyTestClass(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Returns the given number of items, with the hash keys "item-0",
+     * "item-1" and so on.
+     */
+    public static List<HashKeyTestClass> items(int count) {
+        List<HashKeyTestClass> items = new ArrayList<HashKeyTestClass>();
+        for (int i = 0; i < count; i++) {
+            items.add(new HashKeyTestClass("item-" + i));
+        }
+        return items;
+    }
+
+    @DynamoDBHashKey(attributeName = HASH_ATTR)
+    public String getHash() {
+        return hash;
+    }
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+}
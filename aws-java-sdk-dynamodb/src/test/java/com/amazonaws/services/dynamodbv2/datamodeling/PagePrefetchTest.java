@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.HASH_ATTR;
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.TABLE_NAME;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PagePrefetch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.document.DynamoDB;
+import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemCollection;
+import com.amazonaws.services.dynamodbv2.document.ScanOutcome;
+import com.amazonaws.services.dynamodbv2.document.spec.ScanSpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+public class PagePrefetchTest {
+
+    private static final int PAGES = 10;
+    private static final int PAGE_SIZE = 5;
+
+    private ExecutorService executor;
+    private AmazonDynamoDB ddbMock;
+    private ScanAnswer answer;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        ddbMock = createMock(AmazonDynamoDB.class);
+        answer = new ScanAnswer();
+        expect(ddbMock.scan(isA(ScanRequest.class))).andAnswer(answer).anyTimes();
+        replay(ddbMock);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAllItemsReturnedInOrder() {
+        for (PaginationLoadingStrategy strategy : PaginationLoadingStrategy.values()) {
+            answer.calls.set(0);
+            List<HashKeyTestClass> items = scan(strategy, new PagePrefetch(executor, 3, 100));
+
+            List<String> hashes = new ArrayList<String>();
+            for (HashKeyTestClass item : items) {
+                hashes.add(item.getHash());
+            }
+            assertEquals(strategy.toString(), expectedHashes(), hashes);
+            assertEquals(strategy.toString(), PAGES, answer.calls.get());
+        }
+    }
+
+    @Test
+    public void testPrefetchBoundedByMaxPages() throws InterruptedException {
+        Iterator<HashKeyTestClass> items = scan(PaginationLoadingStrategy.ITERATION_ONLY,
+                new PagePrefetch(executor, 2, 1000)).iterator();
+
+        items.next();
+        Thread.sleep(200);
+        assertEquals(3, answer.calls.get());
+
+        // Taking the second page lets one more be fetched
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.next();
+        }
+        Thread.sleep(200);
+        assertEquals(4, answer.calls.get());
+    }
+
+    @Test
+    public void testPrefetchPausedByBufferedItems() throws InterruptedException {
+        Iterator<HashKeyTestClass> items = scan(PaginationLoadingStrategy.ITERATION_ONLY,
+                new PagePrefetch(executor, PAGES, PAGE_SIZE + 1)).iterator();
+
+        items.next();
+        Thread.sleep(200);
+        assertEquals(3, answer.calls.get());
+    }
+
+    @Test
+    public void testFailureThrownToCaller() {
+        AmazonServiceException exception = new AmazonServiceException("BOOM");
+        answer.failOnPage = 3;
+        answer.failure = exception;
+
+        List<HashKeyTestClass> items = scan(PaginationLoadingStrategy.ITERATION_ONLY,
+                new PagePrefetch(executor, 3, 100));
+        int count = 0;
+        try {
+            for (Iterator<HashKeyTestClass> it = items.iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            fail("Expected the scan to fail");
+        } catch (AmazonServiceException e) {
+            assertSame(exception, e);
+        }
+        assertEquals(3 * PAGE_SIZE, count);
+    }
+
+    @Test
+    public void testDocumentApiPrefetch() {
+        ItemCollection<ScanOutcome> items = new DynamoDB(ddbMock)
+                .getTable(TABLE_NAME).scan(new ScanSpec());
+        items.setPagePrefetch(executor, 3, 100);
+
+        List<String> hashes = new ArrayList<String>();
+        for (Item item : items) {
+            hashes.add(item.getString(HASH_ATTR));
+        }
+        assertEquals(expectedHashes(), hashes);
+        assertEquals(PAGES, answer.calls.get());
+        assertEquals(PAGES * PAGE_SIZE, items.getTotalCount());
+    }
+
+    private List<HashKeyTestClass> scan(PaginationLoadingStrategy strategy,
+            PagePrefetch pagePrefetch) {
+        DynamoDBMapper mapper = new DynamoDBMapper(ddbMock, new DynamoDBMapperConfig.Builder()
+                .withPaginationLoadingStrategy(strategy)
+                .withPagePrefetch(pagePrefetch)
+                .build());
+        return mapper.scan(HashKeyTestClass.class, new DynamoDBScanExpression());
+    }
+
+    private static List<String> expectedHashes() {
+        List<String> hashes = new ArrayList<String>();
+        for (int i = 0; i < PAGES * PAGE_SIZE; i++) {
+            hashes.add("item-" + i);
+        }
+        return hashes;
+    }
+
+    /**
+     * Answers Scan with pages of items numbered in order, failing on the page
+     * it is told to.
+     */
+    private static class ScanAnswer implements IAnswer<ScanResult> {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile int failOnPage = -1;
+        volatile AmazonServiceException failure;
+
+        @Override
+        public ScanResult answer() {
+            calls.incrementAndGet();
+            return scan((ScanRequest) getCurrentArguments()[0]);
+        }
+
+        private ScanResult scan(ScanRequest request) {
+            Map<String, AttributeValue> startKey = request.getExclusiveStartKey();
+            int page = startKey == null ? 0 : Integer.parseInt(startKey.get(HASH_ATTR).getN());
+            if (page == failOnPage) {
+                throw failure;
+            }
+            List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+            for (int i = page * PAGE_SIZE; i < (page + 1) * PAGE_SIZE; i++) {
+                items.add(Collections.singletonMap(HASH_ATTR, new AttributeValue("item-" + i)));
+            }
+            ScanResult result = new ScanResult().withItems(items).withCount(items.size());
+            if (page + 1 < PAGES) {
+                result.setLastEvaluatedKey(Collections.singletonMap(HASH_ATTR,
+                        new AttributeValue().withN(Integer.toString(page + 1))));
+            }
+            return result;
+        }
+    }
+}
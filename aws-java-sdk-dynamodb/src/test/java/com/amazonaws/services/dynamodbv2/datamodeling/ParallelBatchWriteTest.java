@@ -0,0 +1,372 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.HASH_ATTR;
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.TABLE_NAME;
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.items;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IAnswer;
+import org.easymock.IExpectationSetters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteConcurrency;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchWriteRetryStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.ParallelBatchWriter.WriteCapacityBudget;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+public class ParallelBatchWriteTest {
+
+    private static final int MAX_RETRY = 3;
+
+    private ExecutorService executor;
+    private AmazonDynamoDB ddbMock;
+    private BatchWriteItemAnswer answer;
+    private DynamoDBMapper mapper;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+        ddbMock = createMock(AmazonDynamoDB.class);
+        answer = new BatchWriteItemAnswer();
+        mapper = new DynamoDBMapper(ddbMock, new DynamoDBMapperConfig.Builder()
+                .withBatchWriteRetryStrategy(new NoDelayRetryStrategy(MAX_RETRY))
+                .withBatchWriteConcurrency(new BatchWriteConcurrency(executor, 4))
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchesSentConcurrently() {
+        answer.delayMillis = 100;
+        // Thread safe mocks answer one call at a time
+        makeThreadSafe(ddbMock, false);
+        expectBatchWriteItem().anyTimes();
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(items(200));
+        verify(ddbMock);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(200, answer.written.size());
+        assertEquals(8, answer.calls.get());
+        assertTrue("max concurrency was " + answer.maxConcurrency.get(),
+                answer.maxConcurrency.get() > 1);
+    }
+
+    @Test
+    public void testUnprocessedItemsRequeuedIntoLaterBatches() {
+        answer.unprocessedUntilAttempt = 2;
+        answer.unprocessedHashes.addAll(Arrays.asList("item-3", "item-30"));
+        expectBatchWriteItem().atLeastOnce();
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(items(50));
+        verify(ddbMock);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(50, answer.written.size());
+        assertEquals(3, answer.attempts("item-3"));
+        assertEquals(3, answer.attempts("item-30"));
+        assertEquals(1, answer.attempts("item-4"));
+    }
+
+    @Test
+    public void testItemsOutOfRetriesReportedIndividually() {
+        answer.unprocessedUntilAttempt = Integer.MAX_VALUE;
+        answer.unprocessedHashes.add("item-7");
+        expectBatchWriteItem().atLeastOnce();
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(items(60));
+        verify(ddbMock);
+
+        assertEquals(1, failedBatches.size());
+        FailedBatch failedBatch = failedBatches.get(0);
+        assertNull(failedBatch.getException());
+        assertEquals(Collections.singleton(TABLE_NAME), failedBatch.getUnprocessedItems().keySet());
+        List<WriteRequest> unprocessed = failedBatch.getUnprocessedItems().get(TABLE_NAME);
+        assertEquals(1, unprocessed.size());
+        assertEquals("item-7", hashOf(unprocessed.get(0)));
+        assertEquals(MAX_RETRY + 1, answer.attempts("item-7"));
+        assertEquals(59, answer.written.size());
+    }
+
+    @Test
+    public void testExceptionFailsOnlyItsBatch() {
+        AmazonServiceException exception = new AmazonServiceException("BOOM");
+        exception.setErrorCode("ValidationException");
+        exception.setStatusCode(400);
+        answer.failBatchContaining = "item-30";
+        answer.failure = exception;
+        expectBatchWriteItem().times(3);
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(items(75));
+        verify(ddbMock);
+
+        assertEquals(1, failedBatches.size());
+        assertSame(exception, failedBatches.get(0).getException());
+        assertEquals(25, failedBatches.get(0).getUnprocessedItems().get(TABLE_NAME).size());
+        assertEquals(50, answer.written.size());
+    }
+
+    @Test
+    public void testThrottledBatchRetried() {
+        AmazonServiceException exception = new AmazonServiceException("Slow down");
+        exception.setErrorCode("ProvisionedThroughputExceededException");
+        exception.setStatusCode(400);
+        answer.failBatchContaining = "item-0";
+        answer.failure = exception;
+        answer.failuresLeft.set(2);
+        expectBatchWriteItem().times(3);
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchSave(items(10));
+        verify(ddbMock);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(10, answer.written.size());
+        assertEquals(3, answer.attempts("item-0"));
+    }
+
+    @Test
+    public void testWriteCapacityBudgetRequestsConsumedCapacity() {
+        answer.consumedPerItem = 1.0;
+        expectBatchWriteItem().times(2);
+        DynamoDBMapperConfig config = new DynamoDBMapperConfig.Builder()
+                .withBatchWriteConcurrency(new BatchWriteConcurrency(executor, 4)
+                        .withWriteCapacityBudget(TABLE_NAME, 100))
+                .build();
+
+        replay(ddbMock);
+        List<FailedBatch> failedBatches = mapper.batchWrite(items(50),
+                Collections.emptyList(), config);
+        verify(ddbMock);
+
+        assertEquals(0, failedBatches.size());
+        assertEquals(50, answer.written.size());
+        assertEquals(Collections.singleton(ReturnConsumedCapacity.TOTAL.toString()),
+                answer.returnConsumedCapacity);
+    }
+
+    @Test
+    public void testWriteCapacityBudgetLimitsRate() throws InterruptedException {
+        FakeClockBudget budget = new FakeClockBudget(100);
+
+        for (int i = 0; i < 10; i++) {
+            budget.acquire(25);
+        }
+
+        // One second's worth of burst, then 100 units per second: the tenth
+        // batch waits until more than 225 units have been available
+        long elapsed = budget.elapsedMillis();
+        assertTrue("waited " + elapsed + "ms", elapsed >= 1250 && elapsed < 1300);
+    }
+
+    @Test
+    public void testConsumedCapacityAboveEstimateDelaysLaterWrites() throws InterruptedException {
+        FakeClockBudget budget = new FakeClockBudget(100);
+
+        budget.acquire(50);
+        budget.settle(50, 150);
+        budget.acquire(25);
+
+        long elapsed = budget.elapsedMillis();
+        assertTrue("waited " + elapsed + "ms", elapsed >= 500 && elapsed < 550);
+    }
+
+    private IExpectationSetters<BatchWriteItemResult> expectBatchWriteItem() {
+        return expect(ddbMock.batchWriteItem(isA(BatchWriteItemRequest.class)))
+                .andAnswer(answer);
+    }
+
+    private static String hashOf(WriteRequest request) {
+        return request.getPutRequest().getItem().get(HASH_ATTR).getS();
+    }
+
+    /**
+     * Answers BatchWriteItem, recording the items written and failing the
+     * ones it is told to.
+     */
+    private static class BatchWriteItemAnswer implements IAnswer<BatchWriteItemResult> {
+        final Set<String> written = Collections.synchronizedSet(new HashSet<String>());
+        final Map<String, AtomicInteger> attempts = new HashMap<String, AtomicInteger>();
+        final Set<String> returnConsumedCapacity = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger concurrency = new AtomicInteger();
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+        final Set<String> unprocessedHashes = new HashSet<String>();
+        final AtomicInteger failuresLeft = new AtomicInteger(Integer.MAX_VALUE);
+        volatile int unprocessedUntilAttempt;
+        volatile long delayMillis;
+        volatile String failBatchContaining;
+        volatile AmazonServiceException failure;
+        volatile Double consumedPerItem;
+
+        int attempts(String hash) {
+            synchronized (attempts) {
+                AtomicInteger count = attempts.get(hash);
+                return count == null ? 0 : count.get();
+            }
+        }
+
+        @Override
+        public BatchWriteItemResult answer() throws Throwable {
+            calls.incrementAndGet();
+            int current = concurrency.incrementAndGet();
+            while (true) {
+                int max = maxConcurrency.get();
+                if (current <= max || maxConcurrency.compareAndSet(max, current)) break;
+            }
+            try {
+                if (delayMillis > 0) Thread.sleep(delayMillis);
+                return batchWriteItem((BatchWriteItemRequest) getCurrentArguments()[0]);
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+
+        private BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+            if (request.getReturnConsumedCapacity() != null) {
+                returnConsumedCapacity.add(request.getReturnConsumedCapacity());
+            }
+            List<WriteRequest> requests = request.getRequestItems().get(TABLE_NAME);
+            if (failBatchContaining != null) {
+                for (WriteRequest writeRequest : requests) {
+                    if (hashOf(writeRequest).equals(failBatchContaining)
+                            && failuresLeft.getAndDecrement() > 0) {
+                        for (WriteRequest r : requests) attemptOf(hashOf(r));
+                        throw failure;
+                    }
+                }
+            }
+            List<WriteRequest> unprocessed = new ArrayList<WriteRequest>();
+            for (WriteRequest writeRequest : requests) {
+                String hash = hashOf(writeRequest);
+                int attempt = attemptOf(hash);
+                if (unprocessedHashes.contains(hash) && attempt <= unprocessedUntilAttempt) {
+                    unprocessed.add(writeRequest);
+                } else {
+                    written.add(hash);
+                }
+            }
+            BatchWriteItemResult result = new BatchWriteItemResult()
+                    .withUnprocessedItems(unprocessed.isEmpty()
+                            ? Collections.<String, List<WriteRequest>>emptyMap()
+                            : Collections.singletonMap(TABLE_NAME, unprocessed));
+            if (consumedPerItem != null) {
+                result.withConsumedCapacity(new ConsumedCapacity()
+                        .withTableName(TABLE_NAME)
+                        .withCapacityUnits(consumedPerItem * (requests.size() - unprocessed.size())));
+            }
+            return result;
+        }
+
+        private int attemptOf(String hash) {
+            synchronized (attempts) {
+                AtomicInteger count = attempts.get(hash);
+                if (count == null) {
+                    count = new AtomicInteger();
+                    attempts.put(hash, count);
+                }
+                return count.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A budget whose clock only moves when it sleeps.
+     */
+    private static class FakeClockBudget extends WriteCapacityBudget {
+        private long nanos;
+
+        FakeClockBudget(double unitsPerSecond) {
+            super(unitsPerSecond);
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        @Override
+        long nanoTime() {
+            return nanos;
+        }
+
+        @Override
+        void sleep(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+
+    private static class NoDelayRetryStrategy implements BatchWriteRetryStrategy {
+        private final int maxRetry;
+
+        NoDelayRetryStrategy(int maxRetry) {
+            this.maxRetry = maxRetry;
+        }
+
+        @Override
+        public int getMaxRetryOnUnprocessedItems(
+                Map<String, List<WriteRequest>> batchWriteItemInput) {
+            return maxRetry;
+        }
+
+        @Override
+        public long getDelayBeforeRetryUnprocessedItems(
+                Map<String, List<WriteRequest>> unprocessedItems,
+                int retriesAttempted) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.HASH_ATTR;
+import static com.amazonaws.services.dynamodbv2.datamodeling.HashKeyTestClass.TABLE_NAME;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ParallelScanConcurrency;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+
+public class ParallelScanPrefetchTest {
+
+    private static final int SEGMENTS = 4;
+    private static final int PAGES = 5;
+    private static final int ITEMS_PER_PAGE = 3;
+
+    private ExecutorService executor;
+    private AmazonDynamoDB ddbMock;
+    private ScanAnswer answer;
+    private DynamoDBMapper mapper;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        ddbMock = createMock(AmazonDynamoDB.class);
+        // Thread safe mocks answer one call at a time
+        makeThreadSafe(ddbMock, false);
+        answer = new ScanAnswer();
+        expect(ddbMock.scan(isA(ScanRequest.class))).andAnswer(answer).anyTimes();
+        replay(ddbMock);
+        mapper = new DynamoDBMapper(ddbMock, new DynamoDBMapperConfig.Builder()
+                .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY)
+                .withParallelScanConcurrency(new ParallelScanConcurrency(executor, 2))
+                .build());
+    }
+
+    @After
+    public void tearDown() {
+        answer.release();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAllItemsReturnedOnSharedExecutor() {
+        Set<String> hashes = new HashSet<String>();
+        for (HashKeyTestClass item : mapper.parallelScan(HashKeyTestClass.class,
+                new DynamoDBScanExpression(), SEGMENTS)) {
+            assertTrue(item.getHash(), hashes.add(item.getHash()));
+        }
+        verify(ddbMock);
+
+        assertEquals(SEGMENTS * PAGES * ITEMS_PER_PAGE, hashes.size());
+        assertEquals(SEGMENTS * PAGES, answer.calls.get());
+        assertTrue("max concurrency was " + answer.maxConcurrency.get(),
+                answer.maxConcurrency.get() <= 2);
+    }
+
+    @Test
+    public void testSlowSegmentDoesNotHoldUpOthers() {
+        answer.blockSegment(0);
+        int otherItems = (SEGMENTS - 1) * PAGES * ITEMS_PER_PAGE;
+        List<String> hashes = new ArrayList<String>();
+        ParallelScanTask task = new ParallelScanTask(ddbMock, requests(), new ParallelScanConcurrency(executor, 2));
+
+        while (hashes.size() < otherItems) {
+            for (ScanResult result : task.getNextBatchOfScanResults()) {
+                for (Map<String, AttributeValue> item : result.getItems()) {
+                    hashes.add(item.get(HASH_ATTR).getS());
+                }
+            }
+        }
+        for (String hash : hashes) {
+            assertFalse(hash, hash.startsWith("s0-"));
+        }
+        assertFalse(task.isAllSegmentScanFinished());
+
+        answer.release();
+        while (!task.isAllSegmentScanFinished()) {
+            for (ScanResult result : task.getNextBatchOfScanResults()) {
+                for (Map<String, AttributeValue> item : result.getItems()) {
+                    hashes.add(item.get(HASH_ATTR).getS());
+                }
+            }
+        }
+        assertEquals(SEGMENTS * PAGES * ITEMS_PER_PAGE, new HashSet<String>(hashes).size());
+    }
+
+    @Test
+    public void testPrefetchBoundedByDepth() throws Exception {
+        ParallelScanTask task = new ParallelScanTask(ddbMock, requests(), new ParallelScanConcurrency(executor, 2));
+
+        answer.awaitCalls(SEGMENTS * 2);
+        Thread.sleep(200);
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            assertEquals(2, answer.segmentCalls.get(segment));
+        }
+
+        int taken = task.getNextBatchOfScanResults().size();
+        answer.awaitCalls(SEGMENTS * 2 + taken);
+        Thread.sleep(200);
+        assertEquals(SEGMENTS * 2 + taken, answer.calls.get());
+    }
+
+    @Test
+    public void testSegmentFailurePropagated() {
+        AmazonServiceException exception = new AmazonServiceException("BOOM");
+        answer.failSegment = 2;
+        answer.failure = exception;
+
+        try {
+            for (HashKeyTestClass item : mapper.parallelScan(HashKeyTestClass.class,
+                    new DynamoDBScanExpression(), SEGMENTS)) {
+                item.getHash();
+            }
+            fail("Expected the segment failure");
+        } catch (AmazonServiceException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    private static List<ScanRequest> requests() {
+        List<ScanRequest> requests = new ArrayList<ScanRequest>();
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            requests.add(new ScanRequest().withTableName(TABLE_NAME)
+                    .withSegment(segment).withTotalSegments(SEGMENTS));
+        }
+        return requests;
+    }
+
+    /**
+     * Answers Scan with PAGES pages for each segment, the next page number
+     * being the last evaluated key.
+     */
+    private static class ScanAnswer implements IAnswer<ScanResult> {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicIntegerArray segmentCalls = new AtomicIntegerArray(SEGMENTS);
+        final AtomicInteger concurrency = new AtomicInteger();
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+        final CountDownLatch released = new CountDownLatch(1);
+        volatile int blockedSegment = -1;
+        volatile int failSegment = -1;
+        volatile AmazonServiceException failure;
+
+        void blockSegment(int segment) {
+            blockedSegment = segment;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        void awaitCalls(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (calls.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        @Override
+        public ScanResult answer() throws Throwable {
+            int current = concurrency.incrementAndGet();
+            while (true) {
+                int max = maxConcurrency.get();
+                if (current <= max || maxConcurrency.compareAndSet(max, current)) break;
+            }
+            try {
+                return scan((ScanRequest) getCurrentArguments()[0]);
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+
+        private ScanResult scan(ScanRequest request) throws InterruptedException {
+            int segment = request.getSegment();
+            if (segment == blockedSegment) {
+                released.await(10, TimeUnit.SECONDS);
+            }
+            calls.incrementAndGet();
+            segmentCalls.incrementAndGet(segment);
+            if (segment == failSegment) {
+                throw failure;
+            }
+            Map<String, AttributeValue> startKey = request.getExclusiveStartKey();
+            int page = startKey == null ? 0 : Integer.parseInt(startKey.get(HASH_ATTR).getN());
+            List<Map<String, AttributeValue>> items = new ArrayList<Map<String, AttributeValue>>();
+            for (int i = 0; i < ITEMS_PER_PAGE; i++) {
+                items.add(Collections.singletonMap(HASH_ATTR,
+                        new AttributeValue("s" + segment + "-p" + page + "-i" + i)));
+            }
+            ScanResult result = new ScanResult().withItems(items);
+            if (page + 1 < PAGES) {
+                Map<String, AttributeValue> lastKey = new HashMap<String, AttributeValue>();
+                lastKey.put(HASH_ATTR, new AttributeValue().withN(String.valueOf(page + 1)));
+                result.setLastEvaluatedKey(lastKey);
+            }
+            return result;
+        }
+    }
+}
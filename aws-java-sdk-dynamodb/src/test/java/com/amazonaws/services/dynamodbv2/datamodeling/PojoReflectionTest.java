@@ -15,11 +15,20 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -57,6 +66,46 @@ public class PojoReflectionTest {
         validateModel(PojoWithMixedAnnotations.class);
     }
 
+    /**
+     * Tests that threads reflecting the same class at once all observe one
+     * published model, and can round-trip a property through it.
+     */
+    @Test
+    public void testConcurrentReflection() throws Exception {
+        final DynamoDBReflector sharedReflector = new DynamoDBReflector();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Collection<Method>>> futures = new ArrayList<Future<Collection<Method>>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Collection<Method>>() {
+                    @Override
+                    public Collection<Method> call() throws Exception {
+                        start.await();
+                        Collection<Method> getters = sharedReflector.getRelevantGetters(PojoWithGetterAnnotations.class);
+                        PojoWithGetterAnnotations pojo = new PojoWithGetterAnnotations();
+                        for (Method getter : getters) {
+                            if (getter.getReturnType() == String.class) {
+                                String value = Thread.currentThread().getName() + getter.getName();
+                                ReflectionUtils.safeInvoke(sharedReflector.getSetter(getter), pojo, value);
+                                assertEquals(value, ReflectionUtils.safeInvoke(getter, pojo));
+                            }
+                        }
+                        return getters;
+                    }
+                }));
+            }
+            start.countDown();
+            Collection<Method> first = futures.get(0).get();
+            for (Future<Collection<Method>> future : futures) {
+                assertSame(first, future.get());
+            }
+            assertSame(first, sharedReflector.getRelevantGetters(PojoWithGetterAnnotations.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Validates that the reflected information from the POJO class mathes the
      * model defined in both PojoWithGetterAnnotations and
@@ -16,9 +16,12 @@ package com.amazonaws.services.glacier;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -37,6 +40,8 @@ import com.amazonaws.util.BinaryUtils;
  */
 public class TreeHashGenerator {
 
+    private static final int MB = 1024 * 1024;
+
 	/**
 	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
 	 * the data in the specified file.
@@ -96,6 +101,56 @@ public class TreeHashGenerator {
         }
     }
 
+	/**
+	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
+	 * the given range of data in the specified file channel. The data is read
+	 * with positional reads, a megabyte at a time, so the position of the
+	 * channel is left unchanged and the same channel can be used to hash
+	 * different ranges concurrently.
+	 * 
+	 * @param channel
+	 *            The file channel containing the data to hash.
+	 * @param position
+	 *            The position in the file at which the data starts.
+	 * @param length
+	 *            The number of bytes of data to hash.
+	 * 
+	 * @return The hex encoded binary tree hash for the given range of data.
+	 * 
+	 * @throws AmazonClientException
+	 *             If problems were encountered reading the data or calculating
+	 *             the hash.
+	 */
+    public static String calculateTreeHash(FileChannel channel, long position, long length)
+            throws AmazonClientException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(MB);
+            List<byte[]> checksums = new ArrayList<byte[]>((int) ((length + MB - 1) / MB));
+            long end = position + length;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(MB, end - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Unexpected end of file at position "
+                                + (position + buffer.position()));
+                    }
+                }
+                buffer.flip();
+                messageDigest.update(buffer);
+                checksums.add(messageDigest.digest());
+                position += buffer.limit();
+            }
+            if (checksums.isEmpty()) {
+                checksums.add(messageDigest.digest());
+            }
+            return calculateTreeHash(checksums);
+        } catch (Exception e) {
+            throw new AmazonClientException("Unable to compute hash", e);
+        }
+    }
+
 	/**
 	 * Returns the hex encoded binary tree hash for the individual checksums
 	 * given. The sums are assumed to have been generated from sequential 1MB
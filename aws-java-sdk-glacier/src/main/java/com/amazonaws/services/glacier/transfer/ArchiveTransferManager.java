@@ -23,13 +23,29 @@ import static com.amazonaws.util.Throwables.failure;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -87,6 +103,12 @@ public class ArchiveTransferManager {
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
+    /** The maximum size, in bytes, of a byte range buffered by a concurrent download. */
+    private static final long MAXIMUM_DOWNLOAD_RANGE_SIZE = 1024L * 1024 * 1024;
+
+    /** Number of times each part of a multipart upload is attempted */
+    private static final int MAX_UPLOAD_PART_TRIES = 5;
+
     /** Glacier client used for making all requests. */
     private final AmazonGlacier glacier;
 
@@ -98,6 +120,10 @@ public class ArchiveTransferManager {
 
     private final AmazonSNSClient sns;
 
+    /** Configuration for how this transfer manager processes requests. */
+    private volatile ArchiveTransferManagerConfiguration configuration =
+        new ArchiveTransferManagerConfiguration();
+
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
     /**
@@ -197,6 +223,32 @@ public class ArchiveTransferManager {
         this.sns = sns;
     }
 
+    /**
+     * Returns the configuration which specifies how this
+     * <code>ArchiveTransferManager</code> processes requests.
+     *
+     * @return The configuration settings for this
+     *         <code>ArchiveTransferManager</code>.
+     */
+    public ArchiveTransferManagerConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Sets the configuration which specifies how this
+     * <code>ArchiveTransferManager</code> processes requests.
+     *
+     * @param configuration
+     *            The new configuration specifying how this
+     *            <code>ArchiveTransferManager</code> processes requests.
+     */
+    public void setConfiguration(ArchiveTransferManagerConfiguration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must not be null");
+        }
+        this.configuration = configuration;
+    }
+
     /**
      * Uploads the specified file to Amazon Glacier for archival storage in the
      * specified vault for the user's current account. For small archives, this
@@ -485,6 +537,13 @@ public class ArchiveTransferManager {
      * individual chunks of the data, one at a time, in order to handle any
      * transient errors along the way. You can also add an optional progress
      * listener for receiving updates about the download status.
+     * <p>
+     * If the {@link ArchiveTransferManagerConfiguration#getDownloadConcurrency()
+     * download concurrency} is greater than one, tree-hash aligned byte ranges
+     * of the data are instead requested concurrently. Each range is read into
+     * memory and verified against its tree hash before being written at its
+     * offset in the file, and a range that fails verification is requested
+     * again on its own.
      *
      * @param accountId
      *            The account ID containing the job output to download (or null
@@ -533,6 +592,18 @@ public class ArchiveTransferManager {
 
         try {
             publishProgress(progressListener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            final ArchiveTransferManagerConfiguration config = configuration;
+            if (config.getDownloadConcurrency() > 1) {
+                try {
+                    downloadRangesConcurrently(accountId, vaultName, jobId,
+                            output, archiveSize, chunkSize, config, progressListener);
+                } catch (Throwable t) {
+                    publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                    throw failure(t);
+                }
+                publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+                return;
+            }
             while (currentPosition < archiveSize) {
                 if (currentPosition + chunkSize > archiveSize) {
                     endPosition = archiveSize - 1;
@@ -636,6 +707,136 @@ public class ArchiveTransferManager {
         }
     }
 
+    /**
+     * Downloads the given job output in tree-hash aligned byte ranges with at
+     * most the configured number of ranges in flight at once, each buffered
+     * in memory until verified and then written at its offset in the output.
+     * The range size is the largest power of two megabytes, no larger than
+     * the chunk size, that lets the configured number of ranges fit into the
+     * memory budget.
+     */
+    private void downloadRangesConcurrently(final String accountId,
+            final String vaultName, final String jobId, RandomAccessFile output,
+            final long archiveSize, long chunkSize,
+            ArchiveTransferManagerConfiguration config,
+            final ProgressListener progressListener) throws IOException, InterruptedException {
+        final int concurrency = config.getDownloadConcurrency();
+        final long budget = config.getDownloadMemoryBudget();
+        final long maxRangeSize = Math.min(Math.min(chunkSize, MAXIMUM_DOWNLOAD_RANGE_SIZE),
+                Math.max(MINIMUM_PART_SIZE, budget / concurrency));
+        long size = MINIMUM_PART_SIZE;
+        while (size * 2 <= maxRangeSize) {
+            size *= 2;
+        }
+        final long rangeSize = size;
+        final int numRanges = (int) ((archiveSize + rangeSize - 1) / rangeSize);
+        final int maxInFlight = (int) Math.min(concurrency, Math.max(1, budget / rangeSize));
+
+        output.setLength(archiveSize);
+        final FileChannel channel = output.getChannel();
+        // At most one buffer per range in flight
+        final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numRanges);
+        for (int i = 0; i < numRanges; i++) {
+            final long position = i * rangeSize;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    long endPosition = Math.min(position + rangeSize, archiveSize) - 1;
+                    byte[] buffer = buffers.poll();
+                    if (buffer == null) {
+                        buffer = new byte[(int) rangeSize];
+                    }
+                    try {
+                        downloadOneRange(accountId, vaultName, jobId, channel,
+                                position, endPosition, buffer, progressListener);
+                    } finally {
+                        buffers.offer(buffer);
+                    }
+                    return null;
+                }
+            });
+        }
+        runConcurrently(tasks, maxInFlight, config);
+    }
+
+    /**
+     * Downloads one byte range of a job output into the given buffer, verifies
+     * it against the tree hash returned by Amazon Glacier, and writes it at
+     * its offset in the output. The range is requested again if it is
+     * incomplete or fails verification.
+     */
+    private void downloadOneRange(String accountId, String vaultName,
+            String jobId, FileChannel output, long position, long endPosition,
+            byte[] buffer, ProgressListener progressListener)
+            throws IOException, InterruptedException {
+        final int length = (int) (endPosition - position + 1);
+        int retries = 0;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            try {
+                GetJobOutputRequest req = new GetJobOutputRequest()
+                    .withAccountId(accountId)
+                    .withVaultName(vaultName)
+                    .withRange("bytes=" + position + "-" + endPosition)
+                    .withJobId(jobId)
+                    .withGeneralProgressListener(progressListener)
+                    ;
+                GetJobOutputResult jobOutputResult = glacier.getJobOutput(req);
+                TreeHashInputStream input = null;
+                int bytesRead = 0;
+                try {
+                    input = new TreeHashInputStream(jobOutputResult.getBody());
+                    int read;
+                    while (bytesRead < length
+                            && (read = input.read(buffer, bytesRead, length - bytesRead)) > 0) {
+                        bytesRead += read;
+                    }
+                } catch (NoSuchAlgorithmException e) {
+                    throw failure(e, "Unable to compute hash for data integrity");
+                } finally {
+                    closeQuietly(input, log);
+                }
+
+                if (bytesRead < length) {
+                    publishResponseBytesDiscarded(progressListener, bytesRead);
+                    throw new IOException("Received " + bytesRead + " of the "
+                            + length + " bytes requested");
+                }
+                if (null != jobOutputResult.getChecksum()) {
+                    if (!input.getTreeHash().equalsIgnoreCase(jobOutputResult.getChecksum())) {
+                        publishResponseBytesDiscarded(progressListener, length);
+                        throw new IOException("Client side computed hash doesn't match server side hash; possible data corruption");
+                    }
+                } else {
+                    log.warn("Cannot validate the downloaded output since no tree-hash checksum is returned from Glacier. "
+                            + "Make sure the InitiateJob and GetJobOutput requests use tree-hash-aligned ranges.");
+                }
+            } catch (IOException ioe) {
+                if (retries < DEFAULT_MAX_RETRIES) {
+                    retries++;
+                    if (log.isDebugEnabled()) {
+                        log.debug(retries
+                                + " retry downloadOneRange accountId="
+                                + accountId + ", vaultName=" + vaultName
+                                + ", jobId=" + jobId + ", position="
+                                + position + " endPosition=" + endPosition);
+                    }
+                    continue;
+                }
+                throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
+            }
+
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, length);
+            while (data.hasRemaining()) {
+                output.write(data, position + data.position());
+            }
+            return;
+        }
+    }
+
     /**
      * Writes the data from the given input stream to the given output stream.
      */
@@ -697,6 +898,14 @@ public class ArchiveTransferManager {
         final String fileNotFoundMsg = "Unable to find file '"
                 + file.getAbsolutePath() + "'";
         try {
+            final ArchiveTransferManagerConfiguration config = configuration;
+            if (config.getUploadConcurrency() > 1) {
+                List<byte[]> binaryChecksums = uploadPartsConcurrently(accountId,
+                        vaultName, uploadId, file, partSize, config, progressListener);
+                return completeMultipartUpload(accountId, vaultName, uploadId,
+                        file, binaryChecksums, progressListener);
+            }
+
             List<byte[]> binaryChecksums = new LinkedList<byte[]>();
 
             long currentPosition = 0;
@@ -709,7 +918,7 @@ public class ArchiveTransferManager {
                 Exception failedException = null;
                 boolean completed = false;
                 int tries = 0;
-                    while (!completed && tries < 5){
+                    while (!completed && tries < MAX_UPLOAD_PART_TRIES){
                         tries++;
                         InputSubstream inputSubStream = null;
                         try {
@@ -745,20 +954,8 @@ public class ArchiveTransferManager {
                 currentPosition += partSize;
             } // end outer while
 
-            String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
-
-            String archiveSize = Long.toString(file.length());
-            CompleteMultipartUploadResult completeMultipartUploadResult =
-                glacier.completeMultipartUpload(new CompleteMultipartUploadRequest()
-                    .withAccountId(accountId)
-                    .withArchiveSize(archiveSize)
-                    .withVaultName(vaultName)
-                    .withChecksum(checksum)
-                    .withUploadId(uploadId));
-
-            String artifactId = completeMultipartUploadResult.getArchiveId();
-            publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
-            return new UploadResult(artifactId);
+            return completeMultipartUpload(accountId, vaultName, uploadId,
+                    file, binaryChecksums, progressListener);
         } catch (Throwable t) {
             publishProgress(progressListener, ProgressEventType.TRANSFER_FAILED_EVENT);
             glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
@@ -766,6 +963,165 @@ public class ArchiveTransferManager {
         }
     }
 
+    /**
+     * Completes a multipart upload given the binary tree hashes of its parts
+     * in order.
+     */
+    private UploadResult completeMultipartUpload(String accountId,
+            String vaultName, String uploadId, File file,
+            List<byte[]> binaryChecksums, ProgressListener progressListener) {
+        String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
+
+        String archiveSize = Long.toString(file.length());
+        CompleteMultipartUploadResult completeMultipartUploadResult =
+            glacier.completeMultipartUpload(new CompleteMultipartUploadRequest()
+                .withAccountId(accountId)
+                .withArchiveSize(archiveSize)
+                .withVaultName(vaultName)
+                .withChecksum(checksum)
+                .withUploadId(uploadId));
+
+        String artifactId = completeMultipartUploadResult.getArchiveId();
+        publishProgress(progressListener, ProgressEventType.TRANSFER_COMPLETED_EVENT);
+        return new UploadResult(artifactId);
+    }
+
+    /**
+     * Uploads the parts of a multipart upload concurrently, with at most the
+     * configured number of parts in flight at once, and returns the binary
+     * tree hashes of the parts in order. Each part is hashed with positional
+     * reads from a channel shared by all the parts, then streamed from its own
+     * handle on the file, so the file is read once for hashing and once for
+     * sending, just as in a serial upload, and the tree hash of the archive
+     * can be combined from the part hashes without reading the file again.
+     */
+    private List<byte[]> uploadPartsConcurrently(final String accountId,
+            final String vaultName, final String uploadId, final File file,
+            final long partSize, ArchiveTransferManagerConfiguration config,
+            final ProgressListener progressListener) throws Exception {
+        final long fileLength = file.length();
+        final int numParts = (int) ((fileLength + partSize - 1) / partSize);
+        final byte[][] binaryChecksums = new byte[numParts][];
+
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            final FileChannel channel = fis.getChannel();
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numParts);
+            for (int i = 0; i < numParts; i++) {
+                final int part = i;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        long position = part * partSize;
+                        long length = Math.min(partSize, fileLength - position);
+                        String checksum = TreeHashGenerator.calculateTreeHash(channel, position, length);
+                        uploadOnePart(accountId, vaultName, uploadId, file,
+                                position, length, checksum, progressListener);
+                        binaryChecksums[part] = BinaryUtils.fromHex(checksum);
+                        return null;
+                    }
+                });
+            }
+            runConcurrently(tasks, config.getUploadConcurrency(), config);
+            return Arrays.asList(binaryChecksums);
+        } finally {
+            closeQuietly(fis, log);
+        }
+    }
+
+    /**
+     * Runs the given tasks on the configured executor, or on a thread pool
+     * created for the purpose, with at most the given number in flight at
+     * once, and returns when all have completed. If any task fails, the
+     * remaining tasks are cancelled and its failure is thrown.
+     */
+    private void runConcurrently(List<Callable<Void>> tasks, int concurrency,
+            ArchiveTransferManagerConfiguration config) throws InterruptedException {
+        concurrency = Math.min(concurrency, tasks.size());
+        ExecutorService executor = config.getExecutorService();
+        final boolean shutDownExecutor = executor == null;
+        if (shutDownExecutor) {
+            executor = Executors.newFixedThreadPool(concurrency, daemonThreadFactory);
+        }
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+        try {
+            CompletionService<Void> completionService =
+                new ExecutorCompletionService<Void>(executor);
+            int submitted = 0;
+            for (int completed = 0; completed < tasks.size(); completed++) {
+                while (submitted < tasks.size() && submitted - completed < concurrency) {
+                    futures.add(completionService.submit(tasks.get(submitted++)));
+                }
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    throw failure(e.getCause());
+                }
+            }
+        } finally {
+            // No-ops if every task has completed
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+            if (shutDownExecutor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Uploads one part of a multipart upload with the given tree hash,
+     * retrying on any failure.
+     */
+    private void uploadOnePart(String accountId, String vaultName,
+            String uploadId, File file, long position, long length,
+            String checksum, ProgressListener progressListener) throws Exception {
+        final String fileNotFoundMsg = "Unable to find file '"
+                + file.getAbsolutePath() + "'";
+        Exception failedException = null;
+        for (int tries = 0; tries < MAX_UPLOAD_PART_TRIES; tries++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            InputSubstream inputSubStream = null;
+            try {
+                inputSubStream = new InputSubstream(
+                        newResettableInputStream(file, fileNotFoundMsg)
+                            .disableClose(), // requires explicit release
+                        position, length, true);
+                UploadMultipartPartRequest req = new UploadMultipartPartRequest()
+                    .withAccountId(accountId)
+                    .withChecksum(checksum)
+                    .withBody(inputSubStream)
+                    .withRange("bytes " + position + "-" + (position + length - 1) + "/*")
+                    .withUploadId(uploadId)
+                    .withVaultName(vaultName)
+                    .withGeneralProgressListener(progressListener)
+                    ;
+                glacier.uploadMultipartPart(req);
+                return;
+            } catch (Exception e) {
+                failedException = e;
+            } finally {
+                // We opened the file underneath; so need to release it
+                release(inputSubStream, log);
+            }
+        }
+        throw failedException;
+    }
+
+    private static final ThreadFactory daemonThreadFactory = new ThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        @Override
+        public Thread newThread(Runnable r) {
+            int threadNumber = threadCount.incrementAndGet();
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("ArchiveTransferManager-worker-" + threadNumber);
+            return thread;
+        }
+    };
+
     private UploadResult uploadInSinglePart(final String accountId,
             final String vaultName, final String archiveDescription,
             final File file, ProgressListener progressListener) {
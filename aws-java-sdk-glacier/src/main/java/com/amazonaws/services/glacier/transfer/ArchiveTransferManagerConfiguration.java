@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Configuration options for how {@link ArchiveTransferManager} processes
+ * requests.
+ * <p>
+ * The default configuration uploads the parts of a multipart upload, and
+ * downloads the chunks of a job output, one at a time on the calling thread.
+ */
+public class ArchiveTransferManagerConfiguration {
+
+    /** Default number of parts of a multipart upload in flight at once */
+    private static final int DEFAULT_UPLOAD_CONCURRENCY = 1;
+
+    /** Default number of byte ranges of a job output downloaded at once */
+    private static final int DEFAULT_DOWNLOAD_CONCURRENCY = 1;
+
+    /** Default total size, in bytes, of the buffers of a concurrent download */
+    private static final long DEFAULT_DOWNLOAD_MEMORY_BUDGET = 1024L * 1024 * 256;
+
+    /**
+     * The maximum number of parts of a multipart upload that are hashed and
+     * uploaded at the same time.
+     */
+    private int uploadConcurrency = DEFAULT_UPLOAD_CONCURRENCY;
+
+    /**
+     * The maximum number of byte ranges of a job output that are downloaded
+     * at the same time.
+     */
+    private int downloadConcurrency = DEFAULT_DOWNLOAD_CONCURRENCY;
+
+    /**
+     * The total size in bytes of the buffers into which the byte ranges of a
+     * concurrent download are read and verified before being written out.
+     */
+    private long downloadMemoryBudget = DEFAULT_DOWNLOAD_MEMORY_BUDGET;
+
+    /**
+     * The executor on which parts and byte ranges are transferred
+     * concurrently; or null if a thread pool should be created for, and shut
+     * down after, each transfer.
+     */
+    private ExecutorService executorService;
+
+    /**
+     * Returns the maximum number of parts of a multipart upload that are
+     * hashed and uploaded at the same time. A value of 1, the default, uploads
+     * the parts one after another on the calling thread.
+     *
+     * @return The maximum number of parts uploaded at the same time.
+     */
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of parts of a multipart upload that are hashed
+     * and uploaded at the same time. Each part in flight holds an open file
+     * and an HTTP connection, so the client's maximum number of connections
+     * should be at least this large.
+     *
+     * @param uploadConcurrency
+     *            The maximum number of parts uploaded at the same time; must
+     *            be at least 1.
+     */
+    public void setUploadConcurrency(int uploadConcurrency) {
+        if (uploadConcurrency < 1) {
+            throw new IllegalArgumentException("Upload concurrency must be at least 1");
+        }
+        this.uploadConcurrency = uploadConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of parts of a multipart upload that are hashed
+     * and uploaded at the same time, and returns this object so that method
+     * calls can be chained together.
+     *
+     * @param uploadConcurrency
+     *            The maximum number of parts uploaded at the same time; must
+     *            be at least 1.
+     * @return This object, for method chaining.
+     */
+    public ArchiveTransferManagerConfiguration withUploadConcurrency(int uploadConcurrency) {
+        setUploadConcurrency(uploadConcurrency);
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of byte ranges of a job output that are
+     * downloaded at the same time. A value of 1, the default, downloads the
+     * job output one chunk after another on the calling thread.
+     *
+     * @return The maximum number of byte ranges downloaded at the same time.
+     */
+    public int getDownloadConcurrency() {
+        return downloadConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of byte ranges of a job output that are
+     * downloaded at the same time. Each range in flight holds an HTTP
+     * connection, so the client's maximum number of connections should be at
+     * least this large. The number of ranges in flight is further limited by
+     * the {@link #getDownloadMemoryBudget() download memory budget}.
+     *
+     * @param downloadConcurrency
+     *            The maximum number of byte ranges downloaded at the same
+     *            time; must be at least 1.
+     */
+    public void setDownloadConcurrency(int downloadConcurrency) {
+        if (downloadConcurrency < 1) {
+            throw new IllegalArgumentException("Download concurrency must be at least 1");
+        }
+        this.downloadConcurrency = downloadConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of byte ranges of a job output that are
+     * downloaded at the same time, and returns this object so that method
+     * calls can be chained together.
+     *
+     * @param downloadConcurrency
+     *            The maximum number of byte ranges downloaded at the same
+     *            time; must be at least 1.
+     * @return This object, for method chaining.
+     */
+    public ArchiveTransferManagerConfiguration withDownloadConcurrency(int downloadConcurrency) {
+        setDownloadConcurrency(downloadConcurrency);
+        return this;
+    }
+
+    /**
+     * Returns the total size in bytes of the buffers into which the byte
+     * ranges of a concurrent download are read and verified before being
+     * written out. Defaults to 256MB.
+     *
+     * @return The memory budget of a concurrent download, in bytes.
+     */
+    public long getDownloadMemoryBudget() {
+        return downloadMemoryBudget;
+    }
+
+    /**
+     * Sets the total size in bytes of the buffers into which the byte ranges
+     * of a concurrent download are read and verified before being written
+     * out. Each range is a power of two megabytes, no larger than the
+     * download chunk size, chosen so that the configured number of ranges fit
+     * into this budget; if even one megabyte per range does not fit, fewer
+     * ranges are downloaded at once. At least one megabyte is always used.
+     *
+     * @param downloadMemoryBudget
+     *            The memory budget of a concurrent download, in bytes; must
+     *            be positive.
+     */
+    public void setDownloadMemoryBudget(long downloadMemoryBudget) {
+        if (downloadMemoryBudget <= 0) {
+            throw new IllegalArgumentException("Download memory budget must be positive");
+        }
+        this.downloadMemoryBudget = downloadMemoryBudget;
+    }
+
+    /**
+     * Sets the total size in bytes of the buffers into which the byte ranges
+     * of a concurrent download are read and verified before being written
+     * out, and returns this object so that method calls can be chained
+     * together.
+     *
+     * @param downloadMemoryBudget
+     *            The memory budget of a concurrent download, in bytes; must
+     *            be positive.
+     * @return This object, for method chaining.
+     */
+    public ArchiveTransferManagerConfiguration withDownloadMemoryBudget(long downloadMemoryBudget) {
+        setDownloadMemoryBudget(downloadMemoryBudget);
+        return this;
+    }
+
+    /**
+     * Returns the executor on which parts and byte ranges are transferred
+     * concurrently, or null if a thread pool is created for each transfer.
+     *
+     * @return The executor on which parts and byte ranges are transferred
+     *         concurrently.
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor on which parts and byte ranges are transferred
+     * concurrently. The executor is not shut down by the
+     * {@link ArchiveTransferManager}. If not set, a thread pool is created for
+     * each concurrent transfer and shut down when the transfer finishes.
+     *
+     * @param executorService
+     *            The executor on which parts and byte ranges are transferred
+     *            concurrently, or null.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Sets the executor on which parts and byte ranges are transferred
+     * concurrently, and returns this object so that method calls can be
+     * chained together.
+     *
+     * @param executorService
+     *            The executor on which parts and byte ranges are transferred
+     *            concurrently, or null.
+     * @return This object, for method chaining.
+     */
+    public ArchiveTransferManagerConfiguration withExecutorService(ExecutorService executorService) {
+        setExecutorService(executorService);
+        return this;
+    }
+}
@@ -84,8 +84,8 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.http.HttpResponseHandler;
+import com.amazonaws.internal.ConcurrentFIFOCache;
 import com.amazonaws.internal.DefaultServiceEndpointBuilder;
-import com.amazonaws.internal.FIFOCache;
 import com.amazonaws.internal.IdentityEndpointBuilder;
 import com.amazonaws.internal.ReleasableInputStream;
 import com.amazonaws.internal.ResettableInputStream;
@@ -309,7 +309,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
 
     private static final int BUCKET_REGION_CACHE_SIZE = 100;
 
-    private final FIFOCache<String> bucketRegionCache = new FIFOCache<String>(BUCKET_REGION_CACHE_SIZE);
+    private final ConcurrentFIFOCache<String> bucketRegionCache = new ConcurrentFIFOCache<String>(BUCKET_REGION_CACHE_SIZE);
 
     /**
      * Constructs a new client to invoke service methods on Amazon S3. A
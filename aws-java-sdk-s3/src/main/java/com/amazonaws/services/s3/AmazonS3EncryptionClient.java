@@ -46,6 +46,7 @@ import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
 import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptedPutObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
@@ -547,6 +548,13 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
      * AmazonS3EncryptionClient (as opposed to the normal AmazonS3Client) must
      * be uploaded serially, and in order. Otherwise, the previous encryption
      * context isn't available to use when encrypting the current part.
+     * <p>
+     * The exception is an upload initiated via an
+     * {@link EncryptedInitiateMultipartUploadRequest} with a part size, if
+     * {@link #isConcurrentPartUploadSupported()}: its parts are encrypted
+     * independently, and may be uploaded concurrently and in any order, except
+     * that the upload of the last part waits until all the others have been
+     * read.
      */
     @Override
     public UploadPartResult uploadPart(UploadPartRequest uploadPartRequest)
@@ -554,6 +562,18 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
         return crypto.uploadPartSecurely(uploadPartRequest);
     }
 
+    /**
+     * Returns true if the parts of a multipart upload initiated with a part
+     * size can be encrypted independently and uploaded concurrently, which is
+     * the case under authenticated encryption; false if they must be uploaded
+     * in series.
+     *
+     * @see EncryptedInitiateMultipartUploadRequest#setPartSize(long)
+     */
+    public boolean isConcurrentPartUploadSupported() {
+        return crypto.isConcurrentPartUploadSupported();
+    }
+
     @Override
     public CopyPartResult copyPart(CopyPartRequest copyPartRequest) {
         return crypto.copyPartSecurely(copyPartRequest);
@@ -752,6 +772,58 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
         return observer.onCompletion(partETags);
     }
 
+    /**
+     * Used to download and decrypt a large S3 object to a file via parallel
+     * ranged gets. For an object encrypted with AES/GCM, this enables
+     * significant speed-up over
+     * {@link #getObject(GetObjectRequest, File)} by fetching and decrypting
+     * its parts concurrently.
+     * <p>
+     * A request is handled with the following life cycle:
+     * <ol>
+     * <li>A thread pool is constructed (or retrieved from the request) for the
+     * execution of concurrent part downloads</li>
+     * <li>The first part is retrieved, which determines the size of the object
+     * and how it was encrypted. An object not encrypted with AES/GCM, or a
+     * request for a byte range, is downloaded sequentially as with
+     * {@link #getObject(GetObjectRequest, File)}</li>
+     * <li>The remaining parts are retrieved concurrently, each on condition
+     * that the object has not changed since the first part. As AES/GCM
+     * encrypts with AES/CTR from a counter derived from the IV, each part is
+     * decrypted independently from the counter at its offset, and written to
+     * a temporary file at that offset</li>
+     * <li>Finally, the authentication tag of the whole object is verified in a
+     * final pass over the temporary file, which is then moved to the
+     * destination file</li>
+     * </ol>
+     *
+     * @return the metadata of the S3 object; or null if the constraints of the
+     *         request were not met
+     *
+     * @throws SecurityException
+     *             if the authentication tag of the S3 object doesn't match its
+     *             content, in which case the destination file is left untouched
+     * @throws IOException
+     *             if writing to disk failed
+     * @throws InterruptedException
+     *             if the current thread was interrupted while waiting
+     * @throws ExecutionException
+     *             if the concurrent downloads threw an exception
+     */
+    public ObjectMetadata downloadObject(final DownloadObjectRequest req)
+            throws IOException, InterruptedException, ExecutionException {
+        ExecutorService es = req.getExecutorService();
+        final boolean defaultExecutorService = es == null;
+        if (es == null)
+            es = Executors.newFixedThreadPool(clientConfiguration.getMaxConnections());
+        try {
+            return crypto.downloadObjectSecurely(req, es);
+        } finally {
+            if (defaultExecutorService)
+                es.shutdownNow();   // shut down the locally created thread pool
+        }
+    }
+
     /**
      * Convenient method to notifies the observer to abort the multi-part
      * upload, and returns the original exception.
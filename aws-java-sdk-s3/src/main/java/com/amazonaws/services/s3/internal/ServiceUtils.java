@@ -305,32 +305,47 @@ public class ServiceUtils {
         }
 
         if (performIntegrityCheck) {
-            byte[] clientSideHash = null;
-            byte[] serverSideHash = null;
-            try {
-                // Multipart Uploads don't have an MD5 calculated on the service
-                // side
-                // Server Side encryption with AWS KMS enabled objects has MD5 of
-                // cipher text. So the MD5 validation needs to be skipped.
-                final ObjectMetadata metadata = s3Object.getObjectMetadata();
-                if (metadata != null) {
-                    final String etag = metadata.getETag();
-                    if (!ServiceUtils.isMultipartUploadETag(etag)
-                    &&  !skipMd5CheckPerResponse(metadata))
-                    {
-                        clientSideHash = Md5Utils.computeMD5Hash(new FileInputStream(dstfile));
-                        serverSideHash = BinaryUtils.fromHex(etag);
-                    }
+            verifyDownloadIntegrity(s3Object.getObjectMetadata(), dstfile);
+        }
+    }
+
+    /**
+     * Verifies the MD5 hash of a downloaded file against the ETag of the
+     * object, unless the ETag isn't the MD5 of the object's content.
+     *
+     * @param metadata
+     *            The metadata of the downloaded object.
+     * @param dstfile
+     *            The file the object was downloaded to.
+     *
+     * @throws AmazonClientException
+     *             If the hashes don't match.
+     */
+    public static void verifyDownloadIntegrity(final ObjectMetadata metadata, final File dstfile) {
+        byte[] clientSideHash = null;
+        byte[] serverSideHash = null;
+        try {
+            // Multipart Uploads don't have an MD5 calculated on the service
+            // side
+            // Server Side encryption with AWS KMS enabled objects has MD5 of
+            // cipher text. So the MD5 validation needs to be skipped.
+            if (metadata != null) {
+                final String etag = metadata.getETag();
+                if (!ServiceUtils.isMultipartUploadETag(etag)
+                &&  !skipMd5CheckPerResponse(metadata))
+                {
+                    clientSideHash = Md5Utils.computeMD5Hash(new FileInputStream(dstfile));
+                    serverSideHash = BinaryUtils.fromHex(etag);
                 }
-            } catch (Exception e) {
-                log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
             }
+        } catch (Exception e) {
+            log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+        }
 
-            if (clientSideHash != null && serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
-                throw new AmazonClientException("Unable to verify integrity of data download.  " +
-                        "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
-                        "The data stored in '" + dstfile.getAbsolutePath() + "' may be corrupt.");
-            }
+        if (clientSideHash != null && serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
+            throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                    "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                    "The data stored in '" + dstfile.getAbsolutePath() + "' may be corrupt.");
         }
     }
 
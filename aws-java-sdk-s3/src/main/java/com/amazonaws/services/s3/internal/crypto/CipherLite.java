@@ -26,6 +26,7 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.NullCipher;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * Functions like a {@link Cipher} but provides only a subset of all the
@@ -131,6 +132,20 @@ class CipherLite {
                 inversedMode, cipher.getProvider());
     }
 
+    /**
+     * Returns the given 16-byte block encrypted with the raw AES block cipher
+     * under the same key and security provider, as needed to compute an
+     * AES/GCM tag outside of the cipher. This is done as the first block of
+     * an AES/CTR encryption of zeros starting from the given block as the
+     * counter.
+     */
+    byte[] encryptBlock(byte[] block) throws IllegalBlockSizeException,
+            BadPaddingException {
+        return ContentCryptoScheme.AES_CTR.createCipherLite(secreteKey,
+                block, Cipher.ENCRYPT_MODE, cipher.getProvider())
+                .doFinal(new byte[block.length]);
+    }
+
     /**
      * Finishes a multiple-part encryption or decryption operation, depending on
      * how the underlying cipher was initialized.
@@ -297,6 +312,43 @@ class CipherLite {
         return cipher.update(input, inputOffset, inputLen);
     }
 
+    /**
+     * Continues a multiple-part encryption or decryption operation (depending
+     * on how the underlying cipher was initialized), processing another data
+     * part.
+     * 
+     * <p>
+     * The first <code>inputLen</code> bytes in the <code>input</code> buffer,
+     * starting at <code>inputOffset</code> inclusive, are processed, and the
+     * result is stored in the <code>output</code> buffer, starting at
+     * <code>outputOffset</code> inclusive, so that the same output buffer can
+     * be reused across calls.
+     * 
+     * @param input
+     *            the input buffer
+     * @param inputOffset
+     *            the offset in <code>input</code> where the input starts
+     * @param inputLen
+     *            the input length
+     * @param output
+     *            the buffer for the result
+     * @param outputOffset
+     *            the offset in <code>output</code> where the result is stored
+     * 
+     * @return the number of bytes stored in <code>output</code>
+     * 
+     * @exception IllegalStateException
+     *                if the underlying cipher is in a wrong state (e.g., has
+     *                not been initialized)
+     * @exception ShortBufferException
+     *                if the given output buffer is too small to hold the
+     *                result, in which case no input has been processed
+     */
+    int update(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException {
+        return cipher.update(input, inputOffset, inputLen, output, outputOffset);
+    }
+
     /**
      * Returns the algorithm name of the underlying cipher.
      */
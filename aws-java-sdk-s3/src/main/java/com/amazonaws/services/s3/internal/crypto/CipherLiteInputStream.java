@@ -19,6 +19,7 @@ import java.io.InputStream;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 
 import com.amazonaws.internal.SdkFilterInputStream;
 
@@ -31,6 +32,11 @@ import com.amazonaws.internal.SdkFilterInputStream;
 public class CipherLiteInputStream extends SdkFilterInputStream {
     private static final int MAX_RETRY = 1000;
     private static final int DEFAULT_IN_BUFFER_SIZE = 512;
+    /**
+     * More than the output of an update may exceed its input by, with a block
+     * cipher holding back a partial block, or the AES/GCM tag.
+     */
+    private static final int MAX_OUTPUT_OVERHEAD = 64;
     private CipherLite cipherLite;
     /**
      * True if this input stream is currently involved in a multipart uploads;
@@ -48,7 +54,15 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
     private final boolean lastMultiPart;
     private boolean eof;
     private byte[] bufin;
+    /** The output of the chunk being read, which may be {@link #outbuf}. */
     private byte[] bufout;
+    /** The output buffer reused across chunks; null until first needed. */
+    private byte[] outbuf;
+    /**
+     * True if the cipher turned out to need more than {@link #outbuf} for its
+     * output, in which case a new buffer is returned by each update instead.
+     */
+    private boolean outbufTooShort;
     private int curr_pos;
     private int max_pos;
 
@@ -239,8 +253,22 @@ public class CipherLiteInputStream extends SdkFilterInputStream {
             }
             return -1;
         }
-        bufout = cipherLite.update(bufin, 0, len);
         curr_pos = 0;
+        if (!outbufTooShort) {
+            if (outbuf == null)
+                outbuf = new byte[bufin.length + MAX_OUTPUT_OVERHEAD];
+            try {
+                max_pos = cipherLite.update(bufin, 0, len, outbuf, 0);
+                bufout = outbuf;
+                return max_pos;
+            } catch (ShortBufferException e) {
+                // Such as when decrypting AES/GCM with a provider that holds
+                // back all the output until doFinal
+                outbufTooShort = true;
+                outbuf = null;
+            }
+        }
+        bufout = cipherLite.update(bufin, 0, len);
         return max_pos = (bufout == null ? 0 : bufout.length);
     }
 
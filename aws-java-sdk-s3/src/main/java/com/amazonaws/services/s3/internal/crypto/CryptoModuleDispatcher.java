@@ -20,6 +20,8 @@ import static com.amazonaws.services.s3.model.CryptoMode.EncryptionOnly;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -33,6 +35,7 @@ import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -123,6 +126,14 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
         return ae.getObjectSecurely(req, destinationFile);
     }
 
+    @Override
+    public ObjectMetadata downloadObjectSecurely(DownloadObjectRequest req,
+            ExecutorService es) throws IOException, InterruptedException,
+            ExecutionException {
+        // AE module can handle S3 objects encrypted in either AE or EO format
+        return ae.downloadObjectSecurely(req, es);
+    }
+
     @Override
     public CompleteMultipartUploadResult completeMultipartUploadSecurely(
             CompleteMultipartUploadRequest req)
@@ -170,6 +181,14 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
              ;
     }
 
+    @Override
+    public boolean isConcurrentPartUploadSupported() {
+        return defaultCryptoMode == EncryptionOnly
+             ? eo.isConcurrentPartUploadSupported()
+             : ae.isConcurrentPartUploadSupported()
+             ;
+    }
+
     @Override
     public CopyPartResult copyPartSecurely(CopyPartRequest req) {
         return defaultCryptoMode == EncryptionOnly 
@@ -20,6 +20,7 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * A AES/GCM specific {@link CipherLite} that support re-processing of input
@@ -184,6 +185,34 @@ final class GCMCipherLite extends CipherLite {
         return out;
     }
 
+    /**
+     * Same as {@link #update(byte[], int, int)} but stores the result in the
+     * given output buffer.
+     */
+    @Override
+    int update(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException {
+        if (aux == null) {
+            int len = super.update(input, inputOffset, inputLen, output, outputOffset);
+            if (len == 0) {
+                invisiblyProcessed = inputLen > 0;
+                return 0;
+            }
+            outputByteCount += checkMax(len);
+            invisiblyProcessed = false;
+            return len;
+        }
+        // Re-processing is rare and short lived, so just make sure the result
+        // will fit before any input is processed
+        if (output.length - outputOffset < aux.getOutputSize(inputLen))
+            throw new ShortBufferException();
+        byte[] out = update(input, inputOffset, inputLen);
+        if (out == null)
+            return 0;
+        System.arraycopy(out, 0, output, outputOffset, out.length);
+        return out.length;
+    }
+
     /**
      * Returns the input delta but only if it will not result in exceeding the
      * limit of the maximum number of bytes that can be processed by AES/GCM.
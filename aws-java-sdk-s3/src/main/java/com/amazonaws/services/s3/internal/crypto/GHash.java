@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+/**
+ * The GHASH function of AES/GCM keyed by the hash subkey H, for computing the
+ * authentication tag of a ciphertext outside of the cipher. See <a href=
+ * "http://csrc.nist.gov/publications/nistpubs/800-38D/SP-800-38D.pdf">
+ * NIST Special Publication 800-38D</a>.
+ * <p>
+ * A 128-bit block is held as two longs, the high one being its first 8 bytes
+ * in big-endian order; bit i of the block, in the specification's numbering,
+ * is then bit 63-i of the high long for i &lt; 64. Multiplication by H, which is
+ * done once per block, looks up the product of each byte of the block in a
+ * 64 KB table.
+ * <p>
+ * Being linear, GHASH can be computed over consecutive runs of blocks
+ * separately and the results combined: the hash of A followed by B, where B
+ * has n blocks, is the hash of A times H<sup>n</sup> xor the hash of B.
+ * <p>
+ * Instances are immutable and thread safe; {@link Digest}s are not.
+ */
+final class GHash {
+    static final int BLOCK_SIZE = 16;
+    /** The reduction polynomial of GF(2^128), in the high long. */
+    private static final long R = 0xE100000000000000L;
+    /** The multiplicative identity of GF(2^128). */
+    private static final long[] ONE = { 1L << 63, 0 };
+
+    private final long[] h;
+    /**
+     * The high and low longs of the product of H and each value of each byte
+     * of a block, at index (byte position &lt;&lt; 8 | byte value).
+     */
+    private final long[] tableHi = new long[BLOCK_SIZE << 8];
+    private final long[] tableLo = new long[BLOCK_SIZE << 8];
+
+    /**
+     * @param h
+     *            the hash subkey, which is the encryption of a zero block
+     */
+    GHash(byte[] h) {
+        if (h.length != BLOCK_SIZE)
+            throw new IllegalArgumentException();
+        this.h = toLongs(h, 0);
+        // Bit i of a block times H is H times x^i
+        long vHi = this.h[0], vLo = this.h[1];
+        for (int i = 0; i < 128; i++) {
+            int index = (i >>> 3) << 8 | 0x80 >>> (i & 7);
+            tableHi[index] = vHi;
+            tableLo[index] = vLo;
+            long carry = vLo & 1;
+            vLo = vLo >>> 1 | vHi << 63;
+            vHi = vHi >>> 1 ^ (-carry & R);
+        }
+        for (int i = 0; i < BLOCK_SIZE << 8; i += 256) {
+            for (int b = 3; b < 256; b++) {
+                int lowest = b & -b;
+                if (lowest != b) {
+                    tableHi[i | b] = tableHi[i | lowest] ^ tableHi[i | b ^ lowest];
+                    tableLo[i | b] = tableLo[i | lowest] ^ tableLo[i | b ^ lowest];
+                }
+            }
+        }
+    }
+
+    /**
+     * Multiplies the given block by H in place.
+     */
+    void multiplyH(long[] x) {
+        long zHi = 0, zLo = 0;
+        for (int j = 0; j < 16; j++) {
+            long word = j < 8 ? x[0] : x[1];
+            int index = j << 8 | (int) (word >>> (56 - ((j & 7) << 3))) & 0xFF;
+            zHi ^= tableHi[index];
+            zLo ^= tableLo[index];
+        }
+        x[0] = zHi;
+        x[1] = zLo;
+    }
+
+    /**
+     * Returns H to the power of the given non-negative exponent.
+     */
+    long[] power(long exponent) {
+        long[] result = ONE.clone();
+        long[] base = h.clone();
+        for (long e = exponent; e > 0; e >>>= 1) {
+            if ((e & 1) != 0)
+                result = multiply(result, base);
+            base = multiply(base, base);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of the given blocks in GF(2^128), bit by bit.
+     */
+    static long[] multiply(long[] x, long[] y) {
+        long zHi = 0, zLo = 0;
+        long vHi = y[0], vLo = y[1];
+        for (int i = 0; i < 128; i++) {
+            long bit = (i < 64 ? x[0] << i : x[1] << (i - 64)) >>> 63;
+            zHi ^= -bit & vHi;
+            zLo ^= -bit & vLo;
+            long carry = vLo & 1;
+            vLo = vLo >>> 1 | vHi << 63;
+            vHi = vHi >>> 1 ^ (-carry & R);
+        }
+        return new long[] { zHi, zLo };
+    }
+
+    static long[] toLongs(byte[] b, int off) {
+        return new long[] { toLong(b, off), toLong(b, off + 8) };
+    }
+
+    private static long toLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++)
+            v = v << 8 | b[off + i] & 0xFF;
+        return v;
+    }
+
+    static byte[] toBytes(long[] x) {
+        byte[] b = new byte[BLOCK_SIZE];
+        for (int i = 0; i < 8; i++) {
+            b[i] = (byte) (x[0] >>> (56 - (i << 3)));
+            b[8 + i] = (byte) (x[1] >>> (56 - (i << 3)));
+        }
+        return b;
+    }
+
+    /**
+     * Returns a new digest computing the GHASH of a run of bytes.
+     */
+    Digest newDigest() {
+        return new Digest();
+    }
+
+    /**
+     * Computes the GHASH of a run of bytes fed in any number of updates, the
+     * last block being padded with zeros.
+     */
+    final class Digest {
+        private final long[] state = new long[2];
+        private final byte[] partial = new byte[BLOCK_SIZE];
+        private int partialLength;
+        private long length;
+
+        void update(byte[] b, int off, int len) {
+            length += len;
+            if (partialLength > 0) {
+                int n = Math.min(len, BLOCK_SIZE - partialLength);
+                System.arraycopy(b, off, partial, partialLength, n);
+                partialLength += n;
+                off += n;
+                len -= n;
+                if (partialLength < BLOCK_SIZE)
+                    return;
+                block(partial, 0);
+                partialLength = 0;
+            }
+            for (; len >= BLOCK_SIZE; off += BLOCK_SIZE, len -= BLOCK_SIZE)
+                block(b, off);
+            if (len > 0) {
+                System.arraycopy(b, off, partial, 0, len);
+                partialLength = len;
+            }
+        }
+
+        private void block(byte[] b, int off) {
+            state[0] ^= toLong(b, off);
+            state[1] ^= toLong(b, off + 8);
+            multiplyH(state);
+        }
+
+        /** Returns the number of bytes hashed. */
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the hash of the bytes fed, after which this digest must no
+         * longer be used.
+         */
+        long[] finish() {
+            if (partialLength > 0) {
+                for (int i = partialLength; i < BLOCK_SIZE; i++)
+                    partial[i] = 0;
+                block(partial, 0);
+                partialLength = 0;
+            }
+            return state.clone();
+        }
+    }
+}
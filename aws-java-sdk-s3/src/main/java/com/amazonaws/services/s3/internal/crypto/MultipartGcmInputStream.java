@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.io.IOException;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * The ciphertext of a part of a multipart upload encrypted independently of
+ * the other parts, which computes the GHASH of the ciphertext as it is read
+ * and records it with the {@link MultipartGcmTag} of the upload at the end.
+ * The last part is followed by the authentication tag of the whole upload.
+ * <p>
+ * Like the {@link RenewableCipherLiteInputStream} it wraps, this stream can
+ * only be marked at, and reset back to, its very beginning.
+ */
+final class MultipartGcmInputStream extends SdkFilterInputStream {
+    private final MultipartGcmTag gcmTag;
+    private final int partNumber;
+    private final boolean lastPart;
+    private GHash.Digest digest;
+    /** The authentication tag once read up to, if this is the last part. */
+    private byte[] tag;
+    private int tagPos;
+    private boolean eof;
+
+    MultipartGcmInputStream(CipherLiteInputStream in, MultipartGcmTag gcmTag,
+            int partNumber, boolean lastPart) {
+        super(in);
+        this.gcmTag = gcmTag;
+        this.partNumber = partNumber;
+        this.lastPart = lastPart;
+        this.digest = gcmTag.getGHash().newDigest();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n;
+        while ((n = read(b, 0, 1)) == 0)
+            continue;
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (!eof) {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                digest.update(b, off, n);
+                if (!lastPart)
+                    gcmTag.partProgressed();
+                return n;
+            }
+            if (n == 0)
+                return 0;
+            eof = true;
+            if (lastPart) {
+                tag = gcmTag.lastPartRead(partNumber, digest.getLength(),
+                        digest.finish());
+            } else {
+                gcmTag.partRead(partNumber, digest.getLength(), digest.finish());
+            }
+        }
+        if (tag == null || tagPos == tag.length)
+            return -1;
+        int n = Math.min(len, tag.length - tagPos);
+        System.arraycopy(tag, tagPos, b, off, n);
+        tagPos += n;
+        return n;
+    }
+
+    /**
+     * Skips by reading, as every byte must be hashed.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] b = new byte[(int) Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(b, 0, (int) Math.min(b.length, n - skipped));
+            if (count == -1)
+                break;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        return eof
+             ? (tag == null ? 0 : tag.length - tagPos)
+             : in.available();
+    }
+
+    /**
+     * Resets back to the very beginning of the stream, where it must have been
+     * marked.
+     */
+    @Override
+    public synchronized void reset() throws IOException {
+        abortIfNeeded();
+        in.reset();
+        digest = gcmTag.getGHash().newDigest();
+        tag = null;
+        tagPos = 0;
+        eof = false;
+    }
+}
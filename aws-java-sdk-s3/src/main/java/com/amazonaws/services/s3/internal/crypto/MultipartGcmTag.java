@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Computes the AES/GCM authentication tag of a multipart upload whose parts
+ * are encrypted independently, so they can be uploaded concurrently and in
+ * any order, while the uploaded object remains a standard AES/GCM ciphertext
+ * that decrypts as a whole.
+ * <p>
+ * AES/GCM encrypts with AES/CTR from a counter derived from the IV, so part p
+ * of a fixed part size is encrypted on its own with an auxiliary AES/CTR
+ * cipher started at its offset, (p-1) times the part size. Meanwhile the
+ * GHASH of the part's ciphertext is computed, and recorded here once the part
+ * has been read through. The tag is then computed from the hashes of all the
+ * parts when the last part has been read, and appended to it.
+ * <p>
+ * Every part but the last must have exactly the part size, which must be a
+ * multiple of the cipher block size. The last part can only be uploaded once
+ * all the other parts have been read, which is waited for as long as the
+ * other parts keep being read. As with a single AES/GCM cipher, the upload can't
+ * exceed {@link ContentCryptoScheme#MAX_GCM_BYTES}.
+ */
+final class MultipartGcmTag {
+    /**
+     * How long the last part waits for the parts before it without any bytes
+     * of the other parts being read, after which its upload fails.
+     */
+    static final long PART_WAIT_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * The GCM cipher of the upload, from which the auxiliary ciphers of the
+     * parts are created.
+     */
+    private final CipherLite cipherLite;
+    private final long partSize;
+    private final GHash ghash;
+    /** H to the power of the number of blocks in a part. */
+    private final long[] hPartSize;
+    /** The encryption of the pre-counter block J0, which masks the tag. */
+    private final byte[] tagMask;
+    /** The GHASH of the ciphertext of each part that has been read. */
+    @GuardedBy("this")
+    private final Map<Integer, long[]> partHashes = new HashMap<Integer, long[]>();
+    /** The parts that failed to upload without having been read. */
+    @GuardedBy("this")
+    private final Set<Integer> failedParts = new HashSet<Integer>();
+    /** When bytes of a part were last read, in nanoseconds. */
+    private volatile long lastProgressNanos = System.nanoTime();
+    @GuardedBy("this")
+    private boolean aborted;
+
+    /**
+     * @param cipherLite
+     *            the AES/GCM encryption cipher of the upload, with a 12-byte
+     *            IV
+     * @param partSize
+     *            the size of every part but the last; a positive multiple of
+     *            the cipher block size
+     */
+    MultipartGcmTag(CipherLite cipherLite, long partSize) {
+        if (partSize <= 0 || partSize % GHash.BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("partSize must be a positive multiple of "
+                    + GHash.BLOCK_SIZE);
+        }
+        byte[] iv = cipherLite.getIV();
+        if (iv.length != 12)
+            throw new UnsupportedOperationException();
+        this.cipherLite = cipherLite;
+        this.partSize = partSize;
+        byte[] j0 = new byte[GHash.BLOCK_SIZE];
+        System.arraycopy(iv, 0, j0, 0, iv.length);
+        j0[GHash.BLOCK_SIZE - 1] = 1;
+        try {
+            this.ghash = new GHash(cipherLite.encryptBlock(new byte[GHash.BLOCK_SIZE]));
+            this.tagMask = cipherLite.encryptBlock(j0);
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException("Unable to initialize the tag computation", e);
+        }
+        this.hPartSize = ghash.power(partSize / GHash.BLOCK_SIZE);
+    }
+
+    long getPartSize() {
+        return partSize;
+    }
+
+    GHash getGHash() {
+        return ghash;
+    }
+
+    /**
+     * Returns a new cipher for encrypting the given part, which starts at
+     * the counter of its offset.
+     *
+     * @param length
+     *            the number of bytes of the part
+     * @throws SecurityException
+     *             if the part would end past the maximum allowed by AES/GCM
+     */
+    CipherLite cipherLiteForPart(int partNumber, long length) {
+        if (partNumber < 1)
+            throw new IllegalArgumentException("part number must be at least 1");
+        checkMax(partNumber, length);
+        try {
+            return cipherLite.createAuxiliary((partNumber - 1) * partSize);
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException("Unable to create the cipher of part "
+                    + partNumber, e);
+        }
+    }
+
+    /**
+     * Checks that the given part doesn't end past the maximum number of bytes
+     * AES/GCM can encrypt, which the auxiliary cipher doesn't check across
+     * parts.
+     */
+    private void checkMax(int partNumber, long length) {
+        long end = (partNumber - 1) * partSize + length;
+        if (end > ContentCryptoScheme.MAX_GCM_BYTES || end < 0) {
+            throw new SecurityException("Part " + partNumber
+                    + " ends past the maximum number of bytes allowed by AES/GCM; [partSize="
+                    + partSize + ", length=" + length + "]");
+        }
+    }
+
+    /**
+     * Records the hash of the ciphertext of a part other than the last, once
+     * it has been read through. A part read again, as on retry, is expected
+     * to yield the same hash; the latest recorded wins.
+     *
+     * @throws AmazonClientException
+     *             if the part doesn't have the part size
+     */
+    synchronized void partRead(int partNumber, long length, long[] hash) {
+        checkMax(partNumber, length);
+        if (length != partSize) {
+            throw new AmazonClientException("Part " + partNumber + " has "
+                    + length + " bytes; every part but the last of this upload"
+                    + " must have " + partSize + " bytes");
+        }
+        partHashes.put(partNumber, hash);
+        failedParts.remove(partNumber);
+        lastProgressNanos = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * Notes that bytes of a part have been read, so the upload is still
+     * making progress.
+     */
+    void partProgressed() {
+        lastProgressNanos = System.nanoTime();
+    }
+
+    /**
+     * Notes that the upload of a part other than the last failed, so the last
+     * part no longer waits for it unless it has been read through already.
+     */
+    synchronized void partFailed(int partNumber) {
+        if (!partHashes.containsKey(partNumber)) {
+            failedParts.add(partNumber);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wakes up and fails the upload of the last part if it is waiting.
+     */
+    synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    /**
+     * Waits until all the parts before the given last part have been read,
+     * for as long as bytes of some part were read within the last
+     * {@link #PART_WAIT_TIMEOUT_MILLIS}.
+     *
+     * @throws AbortedException
+     *             if the upload was aborted, or the current thread was
+     *             interrupted
+     * @throws AmazonClientException
+     *             if the upload of a part before it failed, or no part before
+     *             it was read from in time, as when the parts are
+     *             uploaded one at a time with the last part first
+     */
+    synchronized void awaitPartsBefore(int lastPartNumber) {
+        final long timeout = TimeUnit.MILLISECONDS.toNanos(PART_WAIT_TIMEOUT_MILLIS);
+        final long start = System.nanoTime();
+        for (int partNumber = 1; partNumber < lastPartNumber;) {
+            if (aborted)
+                throw new AbortedException("The multipart upload was aborted");
+            if (partHashes.containsKey(partNumber)) {
+                partNumber++;
+            } else if (failedParts.contains(partNumber)) {
+                throw new AmazonClientException("Unable to upload the last part"
+                        + " until part " + partNumber + " is uploaded");
+            } else {
+                long now = System.nanoTime();
+                long idle = Math.min(now - start, now - lastProgressNanos);
+                long remaining = TimeUnit.NANOSECONDS.toMillis(timeout - idle);
+                if (remaining <= 0) {
+                    throw new AmazonClientException("Timed out waiting for part "
+                            + partNumber + " to be uploaded before the last part");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AbortedException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the authentication tag of the whole upload, given the hash of
+     * the ciphertext of the last part once it has been read through. All the
+     * parts before it must have been read.
+     */
+    synchronized byte[] lastPartRead(int partNumber, long length, long[] hash) {
+        checkMax(partNumber, length);
+        long[] acc = new long[2];
+        for (int p = 1; p < partNumber; p++) {
+            long[] partHash = partHashes.get(p);
+            if (partHash == null) {
+                throw new AmazonClientException("Part " + p
+                        + " must be uploaded before the last part");
+            }
+            acc = GHash.multiply(acc, hPartSize);
+            acc[0] ^= partHash[0];
+            acc[1] ^= partHash[1];
+        }
+        long blocks = (length + GHash.BLOCK_SIZE - 1) / GHash.BLOCK_SIZE;
+        acc = GHash.multiply(acc, ghash.power(blocks));
+        acc[0] ^= hash[0];
+        acc[1] ^= hash[1];
+        // The lengths in bits of the additional data, of which there is
+        // none, and of the ciphertext
+        acc[1] ^= ((partNumber - 1) * partSize + length) << 3;
+        ghash.multiplyH(acc);
+        byte[] tag = GHash.toBytes(acc);
+        for (int i = 0; i < tag.length; i++)
+            tag[i] ^= tagMask[i];
+        return tag;
+    }
+}
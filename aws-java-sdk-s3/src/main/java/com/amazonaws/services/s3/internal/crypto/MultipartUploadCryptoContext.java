@@ -20,6 +20,12 @@ import com.amazonaws.AmazonClientException;
 
 class MultipartUploadCryptoContext extends MultipartUploadContext {
     private final ContentCryptoMaterial cekMaterial;
+    /**
+     * Computes the tag of an upload whose parts are encrypted independently
+     * and may be uploaded concurrently; or null if the parts are uploaded in
+     * series.
+     */
+    private final MultipartGcmTag gcmTag;
     /**
      * Can be used to enforce serial uploads.
      */
@@ -32,8 +38,14 @@ class MultipartUploadCryptoContext extends MultipartUploadContext {
 
     MultipartUploadCryptoContext(String bucketName, String key,
             ContentCryptoMaterial cekMaterial) {
+        this(bucketName, key, cekMaterial, null);
+    }
+
+    MultipartUploadCryptoContext(String bucketName, String key,
+            ContentCryptoMaterial cekMaterial, MultipartGcmTag gcmTag) {
         super(bucketName, key);
         this.cekMaterial = cekMaterial;
+        this.gcmTag = gcmTag;
     }
 
     /**
@@ -52,6 +64,15 @@ class MultipartUploadCryptoContext extends MultipartUploadContext {
         return cekMaterial;
     }
 
+    /**
+     * Returns the tag computation of an upload whose parts are encrypted
+     * independently; or null if the parts are required to be uploaded in
+     * series.
+     */
+    MultipartGcmTag getMultipartGcmTag() {
+        return gcmTag;
+    }
+
     /**
      * Can be used to check the next part number must either be the same (if it
      * was an retry) or increment by exactly 1 during a serial part uploads.
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.services.s3.AmazonS3EncryptionClient.USER_AGENT;
+import static com.amazonaws.services.s3.internal.crypto.ContentCryptoScheme.AES_GCM;
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+/**
+ * Downloads an S3 object encrypted with AES/GCM to a file via parallel ranged
+ * gets.
+ * <p>
+ * Since GCM encrypts with AES/CTR starting from a counter derived from the IV,
+ * each part is decrypted independently with an auxiliary CTR cipher started
+ * at the part's offset, and written to a temporary file at that offset. The
+ * authentication tag, which is the last 16 bytes of the object, cannot be
+ * verified that way; so once all parts have been written, the plaintext is
+ * re-encrypted with the original GCM cipher in a final pass over the file, and
+ * the resulting tag compared to the one stored. Only if they match is the
+ * temporary file moved to the destination; otherwise it is deleted and a
+ * {@link SecurityException} thrown.
+ */
+final class ParallelDownload {
+    private static final Log log = LogFactory.getLog(ParallelDownload.class);
+    private static final int TAG_LENGTH = AES_GCM.getTagLengthInBits() / 8;
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final S3Direct s3;
+    private final DownloadObjectRequest req;
+    /**
+     * The GCM cipher for decrypting the whole object, from which the
+     * auxiliary and inverse ciphers are created.
+     */
+    private final CipherLite cipherLite;
+    private final ExecutorService es;
+
+    ParallelDownload(S3Direct s3, DownloadObjectRequest req,
+            CipherLite cipherLite, ExecutorService es) {
+        this.s3 = s3;
+        this.req = req;
+        this.cipherLite = cipherLite;
+        this.es = es;
+    }
+
+    /**
+     * Returns a request for the first part of the object, subject to the
+     * constraints of the original request.
+     */
+    static GetObjectRequest firstPartRequest(DownloadObjectRequest req) {
+        GetObjectRequest first = partRequest(req, 0, req.getPartSize() - 1);
+        first.setMatchingETagConstraints(req.getMatchingETagConstraints());
+        first.setNonmatchingETagConstraints(req.getNonmatchingETagConstraints());
+        first.setModifiedSinceConstraint(req.getModifiedSinceConstraint());
+        first.setUnmodifiedSinceConstraint(req.getUnmodifiedSinceConstraint());
+        first.setResponseHeaders(req.getResponseHeaders());
+        return first;
+    }
+
+    private static GetObjectRequest partRequest(DownloadObjectRequest req,
+            long start, long end) {
+        GetObjectRequest part = new GetObjectRequest(req.getS3ObjectId());
+        part.setRange(start, end);
+        part.setSSECustomerKey(req.getSSECustomerKey());
+        part.setRequesterPays(req.isRequesterPays());
+        part.setRequestCredentials(req.getRequestCredentials());
+        part.getRequestClientOptions().appendUserAgent(USER_AGENT);
+        return part;
+    }
+
+    /**
+     * Downloads the rest of the object concurrently, verifies the whole and
+     * moves it to the destination file.
+     *
+     * @param firstPart
+     *            the first part of the object, retrieved via
+     *            {@link #firstPartRequest(DownloadObjectRequest)}; its
+     *            content is closed upon method completion.
+     * @return the metadata of the object
+     */
+    ObjectMetadata download(S3Object firstPart) throws IOException,
+            InterruptedException, ExecutionException {
+        final ObjectMetadata metadata = firstPart.getObjectMetadata();
+        final long instanceLength = metadata.getInstanceLength();
+        final long plaintextLength = instanceLength - TAG_LENGTH;
+        if (plaintextLength < 0) {
+            firstPart.getObjectContent().abort();
+            throw new SecurityException("S3 object is too short to contain"
+                    + " an authentication tag: " + firstPart);
+        }
+        final File dest = req.getFile();
+        final File dir = dest.getAbsoluteFile().getParentFile();
+        final File tmp = File.createTempFile("." + dest.getName() + ".", ".tmp", dir);
+        final byte[] tag = new byte[TAG_LENGTH];
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        boolean verified = false;
+        RandomAccessFile raf = null;
+        Context context = null;
+        try {
+            raf = new RandomAccessFile(tmp, "rw");
+            final FileChannel channel = raf.getChannel();
+            context = new Context(channel, plaintextLength, tag);
+            final long partSize = req.getPartSize();
+            final String etag = metadata.getETag();
+            for (long start = partSize; start < instanceLength; start += partSize) {
+                long end = Math.min(start + partSize, instanceLength) - 1;
+                futures.add(es.submit(new PartDownload(context, start, end, etag)));
+            }
+            new PartDownload(context, 0, Math.min(partSize, instanceLength) - 1, etag)
+                .decrypt(firstPart);
+            for (Future<Void> future : futures)
+                future.get();
+            verifyTag(channel, plaintextLength, tag);
+            verified = true;
+        } finally {
+            if (!verified) {
+                for (Future<Void> future : futures)
+                    future.cancel(true);
+                firstPart.getObjectContent().abort();
+                // A cancelled part may still be writing to the file
+                if (context != null)
+                    context.awaitParts();
+            }
+            closeQuietly(raf, log);
+            if (!verified && !tmp.delete())
+                log.debug("Unable to delete " + tmp);
+        }
+        moveTo(tmp, dest);
+        metadata.setContentLength(instanceLength);
+        return metadata;
+    }
+
+    /**
+     * Re-encrypts the plaintext of the given length with the GCM cipher, and
+     * checks that the resulting authentication tag is the expected one.
+     */
+    private void verifyTag(FileChannel channel, long plaintextLength,
+            byte[] expectedTag) throws IOException {
+        final byte[] computed;
+        try {
+            CipherLite gcm = cipherLite.createInverse();
+            byte[] buf = new byte[BUFFER_SIZE];
+            byte[] out = new byte[gcm.getOutputSize(BUFFER_SIZE)];
+            for (long pos = 0; pos < plaintextLength;) {
+                int len = (int) Math.min(buf.length, plaintextLength - pos);
+                int n = channel.read(ByteBuffer.wrap(buf, 0, len), pos);
+                if (n < 0)
+                    throw new EOFException();
+                if (gcm.getOutputSize(n) > out.length)
+                    out = new byte[gcm.getOutputSize(n)];
+                // Only the tag is needed; the ciphertext is discarded
+                gcm.update(buf, 0, n, out, 0);
+                pos += n;
+            }
+            byte[] finalBytes = gcm.doFinal();
+            computed = Arrays.copyOfRange(finalBytes,
+                    finalBytes.length - TAG_LENGTH, finalBytes.length);
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException(
+                    "Unable to verify the authentication tag", e);
+        }
+        if (!MessageDigest.isEqual(computed, expectedTag)) {
+            throw new SecurityException(
+                    "Authentication tag mismatch for S3 object with bucket name: "
+                    + req.getBucketName() + ", key: " + req.getKey());
+        }
+    }
+
+    private static void moveTo(File tmp, File dest) {
+        if (tmp.renameTo(dest))
+            return;
+        // Some platforms won't rename over an existing file
+        if (!dest.delete() || !tmp.renameTo(dest)) {
+            if (!tmp.delete())
+                log.debug("Unable to delete " + tmp);
+            throw new AmazonClientException("Unable to move the decrypted S3 object to "
+                    + dest);
+        }
+    }
+
+    /** What the part downloads share. */
+    private static final class Context {
+        final FileChannel channel;
+        final long plaintextLength;
+        /**
+         * The authentication tag, filled in by the part(s) containing the
+         * last bytes of the object.
+         */
+        final byte[] tag;
+        /** The number of part downloads running in other threads. */
+        @GuardedBy("this")
+        private int running;
+        /** Set once the download has failed, so no more parts start. */
+        @GuardedBy("this")
+        private boolean closed;
+
+        Context(FileChannel channel, long plaintextLength, byte[] tag) {
+            this.channel = channel;
+            this.plaintextLength = plaintextLength;
+            this.tag = tag;
+        }
+
+        /**
+         * Returns true if a part download can start, which must then call
+         * {@link #partEnded()}; or false if the download has failed.
+         */
+        synchronized boolean partStarted() {
+            if (closed)
+                return false;
+            running++;
+            return true;
+        }
+
+        synchronized void partEnded() {
+            if (--running == 0)
+                notifyAll();
+        }
+
+        /**
+         * Prevents more parts from starting and waits for the running ones
+         * to end, so the file can be closed and deleted.
+         */
+        synchronized void awaitParts() {
+            closed = true;
+            boolean interrupted = false;
+            while (running > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Downloads the given byte range of the object, decrypts it and writes
+     * it to the file at the same offset.
+     */
+    private final class PartDownload implements Callable<Void> {
+        private final Context context;
+        /** Inclusive byte range of the part; start is a multiple of 16. */
+        private final long start, end;
+        private final String etag;
+
+        PartDownload(Context context, long start, long end, String etag) {
+            this.context = context;
+            this.start = start;
+            this.end = end;
+            this.etag = etag;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            if (!context.partStarted())
+                return null;
+            try {
+                // Fail if the object has changed since the first part
+                GetObjectRequest partReq = partRequest(req, start, end);
+                partReq.withMatchingETagConstraint(etag);
+                S3Object part = s3.getObject(partReq);
+                if (part == null) {
+                    throw new AmazonClientException("S3 object with bucket name: "
+                            + req.getBucketName() + ", key: " + req.getKey()
+                            + " was modified during the download");
+                }
+                decrypt(part);
+                return null;
+            } finally {
+                context.partEnded();
+            }
+        }
+
+        void decrypt(S3Object part) throws IOException {
+            final S3ObjectInputStream in = part.getObjectContent();
+            final long plaintextLength = context.plaintextLength;
+            boolean done = false;
+            try {
+                CipherLite ctr = cipherLite.createAuxiliary(start);
+                byte[] buf = new byte[BUFFER_SIZE];
+                byte[] out = new byte[ctr.getOutputSize(BUFFER_SIZE)];
+                long pos = start;       // of the next byte read
+                long writePos = start;  // of the next byte written
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    if (pos + n > end + 1) {
+                        throw new AmazonClientException("Unexpected content beyond byte "
+                                + end + " of S3 object: " + part);
+                    }
+                    // The bytes of the part beyond the plaintext are the tag's
+                    int k = (int) Math.max(0, Math.min(n, plaintextLength - pos));
+                    if (k > 0) {
+                        if (ctr.getOutputSize(k) > out.length)
+                            out = new byte[ctr.getOutputSize(k)];
+                        int len = ctr.update(buf, 0, k, out, 0);
+                        write(out, len, writePos);
+                        writePos += len;
+                    }
+                    if (k < n) {
+                        System.arraycopy(buf, k, context.tag,
+                                (int) (pos + k - plaintextLength), n - k);
+                    }
+                    pos += n;
+                }
+                if (pos != end + 1) {
+                    throw new AmazonClientException("Unexpected end of content at byte "
+                            + pos + " of S3 object: " + part);
+                }
+                byte[] finalBytes = ctr.doFinal();
+                if (finalBytes != null)
+                    write(finalBytes, finalBytes.length, writePos);
+                done = true;
+            } catch (GeneralSecurityException e) {
+                throw new AmazonClientException("Unable to decrypt bytes " + start
+                        + " to " + end + " of S3 object: " + part, e);
+            } finally {
+                if (done)
+                    closeQuietly(in, log);
+                else
+                    in.abort();
+            }
+        }
+
+        private void write(byte[] b, int len, long position) throws IOException {
+            ByteBuffer bb = ByteBuffer.wrap(b, 0, len);
+            while (bb.hasRemaining())
+                position += context.channel.write(bb, position);
+        }
+    }
+}
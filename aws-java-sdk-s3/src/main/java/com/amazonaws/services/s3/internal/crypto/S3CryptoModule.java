@@ -17,6 +17,8 @@ package com.amazonaws.services.s3.internal.crypto;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
@@ -24,7 +26,9 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
+import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
@@ -52,6 +56,21 @@ public abstract class S3CryptoModule<T extends MultipartUploadContext> {
     public abstract ObjectMetadata getObjectSecurely(GetObjectRequest req,
             File dest);
 
+    /**
+     * Downloads and decrypts the S3 object to the file of the given request,
+     * using the given executor service to fetch its parts concurrently if the
+     * object was encrypted with AES/GCM.
+     *
+     * @return the metadata of the S3 object; or null if the constraints of the
+     *         request were not met.
+     * @throws SecurityException
+     *             if the authentication tag of the S3 object doesn't match its
+     *             content, in which case the file is left untouched.
+     */
+    public abstract ObjectMetadata downloadObjectSecurely(
+            DownloadObjectRequest req, ExecutorService es) throws IOException,
+            InterruptedException, ExecutionException;
+
     public abstract CompleteMultipartUploadResult completeMultipartUploadSecurely(
             CompleteMultipartUploadRequest req);
 
@@ -60,6 +79,15 @@ public abstract class S3CryptoModule<T extends MultipartUploadContext> {
 
     public abstract UploadPartResult uploadPartSecurely(UploadPartRequest req);
 
+    /**
+     * Returns true if the parts of a multipart upload initiated with a part
+     * size can be encrypted independently, and therefore uploaded
+     * concurrently; false if they must be uploaded in series.
+     *
+     * @see EncryptedInitiateMultipartUploadRequest#setPartSize(long)
+     */
+    public abstract boolean isConcurrentPartUploadSupported();
+
     public abstract CopyPartResult copyPartSecurely(CopyPartRequest req);
 
     public abstract void abortMultipartUploadSecurely(AbortMultipartUploadRequest req);
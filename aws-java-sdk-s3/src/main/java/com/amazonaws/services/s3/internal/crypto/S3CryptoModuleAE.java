@@ -15,6 +15,7 @@
 package com.amazonaws.services.s3.internal.crypto;
 
 import static com.amazonaws.services.s3.AmazonS3EncryptionClient.USER_AGENT;
+import static com.amazonaws.services.s3.internal.crypto.ContentCryptoScheme.AES_GCM;
 import static com.amazonaws.services.s3.model.CryptoMode.AuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.CryptoMode.StrictAuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.ExtraMaterialsDescription.NONE;
@@ -29,6 +30,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.auth.AWSCredentialsProvider;
@@ -36,9 +39,12 @@ import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.internal.SdkFilterInputStream;
 import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
+import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.ExtraMaterialsDescription;
 import com.amazonaws.services.s3.model.GetObjectRequest;
@@ -212,29 +218,12 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
     private S3Object decipherWithInstructionFile(GetObjectRequest req,
             long[] desiredRange, long[] cryptoRange, S3ObjectWrapper retrieved,
             S3ObjectWrapper instructionFile) {
-        ExtraMaterialsDescription extraMatDesc = NONE;
-        boolean keyWrapExpected = isStrict();
-        if (req instanceof EncryptedGetObjectRequest) {
-            EncryptedGetObjectRequest ereq = (EncryptedGetObjectRequest)req;
-            extraMatDesc = ereq.getExtraMaterialDescription();
-            if (!keyWrapExpected)
-                keyWrapExpected = ereq.isKeyWrapExpected();
-        }
         String json = instructionFile.toJsonString();
         @SuppressWarnings("unchecked")
         Map<String, String> matdesc =
             Collections.unmodifiableMap(Jackson.fromJsonString(json, Map.class));
         ContentCryptoMaterial cekMaterial =
-                ContentCryptoMaterial.fromInstructionFile(
-                    matdesc,
-                    kekMaterialsProvider,
-                    cryptoConfig.getCryptoProvider(), 
-                    cryptoRange,   // range is sometimes necessary to compute the adjusted IV
-                    extraMatDesc,
-                    keyWrapExpected,
-                    kms
-            );
-        securityCheck(cekMaterial, retrieved);
+                contentCryptoMaterial(req, cryptoRange, retrieved, matdesc);
         S3ObjectWrapper decrypted = decrypt(retrieved, cekMaterial, cryptoRange);
         // Adjust the output to the desired range of bytes.
         S3ObjectWrapper adjusted = adjustToDesiredRange(
@@ -245,6 +234,31 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
     private S3Object decipherWithMetadata(GetObjectRequest req,
             long[] desiredRange,
             long[] cryptoRange, S3ObjectWrapper retrieved) {
+        ContentCryptoMaterial cekMaterial =
+                contentCryptoMaterial(req, cryptoRange, retrieved, null);
+        S3ObjectWrapper decrypted = decrypt(retrieved, cekMaterial, cryptoRange);
+        // Adjust the output to the desired range of bytes.
+        S3ObjectWrapper adjusted = adjustToDesiredRange(
+                decrypted, desiredRange, null);
+        return adjusted.getS3Object();
+    }
+
+    /**
+     * Returns the content crypto material of the retrieved S3 object, from
+     * its instruction file if given or else from its metadata, after a
+     * security check.
+     *
+     * @param cryptoRange
+     *            the range of ciphertext retrieved, which is sometimes
+     *            necessary to compute the adjusted IV; or null for the whole
+     *            object
+     * @param instruction
+     *            the instruction file in JSON, or null to use the object
+     *            metadata
+     */
+    private ContentCryptoMaterial contentCryptoMaterial(GetObjectRequest req,
+            long[] cryptoRange, S3ObjectWrapper retrieved,
+            Map<String, String> instruction) {
         ExtraMaterialsDescription extraMatDesc = NONE;
         boolean keyWrapExpected = isStrict();
         if (req instanceof EncryptedGetObjectRequest) {
@@ -253,22 +267,25 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
             if (!keyWrapExpected)
                 keyWrapExpected = ereq.isKeyWrapExpected();
         }
-        ContentCryptoMaterial cekMaterial = ContentCryptoMaterial
-            .fromObjectMetadata(retrieved.getObjectMetadata(),
+        ContentCryptoMaterial cekMaterial = instruction == null
+            ? ContentCryptoMaterial.fromObjectMetadata(
+                retrieved.getObjectMetadata(),
                 kekMaterialsProvider,
                 cryptoConfig.getCryptoProvider(),
-                // range is sometimes necessary to compute the adjusted IV
                 cryptoRange,
                 extraMatDesc,
                 keyWrapExpected,
-                kms
-            );
+                kms)
+            : ContentCryptoMaterial.fromInstructionFile(
+                instruction,
+                kekMaterialsProvider,
+                cryptoConfig.getCryptoProvider(),
+                cryptoRange,
+                extraMatDesc,
+                keyWrapExpected,
+                kms);
         securityCheck(cekMaterial, retrieved);
-        S3ObjectWrapper decrypted = decrypt(retrieved, cekMaterial, cryptoRange);
-        // Adjust the output to the desired range of bytes.
-        S3ObjectWrapper adjusted = adjustToDesiredRange(
-                decrypted, desiredRange, null);
-        return adjusted.getS3Object();
+        return cekMaterial;
     }
 
     /**
@@ -359,11 +376,99 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         return s3Object.getObjectMetadata();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the whole of an object encrypted with AES/GCM is downloaded in
+     * parallel; as its authentication tag is verified before the file is
+     * written, this is allowed even in strict mode. Anything else is
+     * downloaded sequentially via
+     * {@link #getObjectSecurely(GetObjectRequest, File)}.
+     */
+    @Override
+    public ObjectMetadata downloadObjectSecurely(DownloadObjectRequest req,
+            ExecutorService es) throws IOException, InterruptedException,
+            ExecutionException {
+        appendUserAgent(req, USER_AGENT);
+        if (req.getRange() != null)
+            return getObjectSecurely(req, req.getFile());
+        S3Object firstPart;
+        try {
+            firstPart = s3.getObject(ParallelDownload.firstPartRequest(req));
+        } catch (AmazonS3Exception ex) {
+            // An empty object can't satisfy any range; 416 Range Not Satisfiable
+            if (ex.getStatusCode() != 416)
+                throw ex;
+            return getObjectSecurely(req, req.getFile());
+        }
+        // Constraints specified but not met
+        if (firstPart == null)
+            return null;
+        ContentCryptoMaterial cekMaterial;
+        try {
+            cekMaterial = wholeObjectCryptoMaterial(req,
+                    new S3ObjectWrapper(firstPart, req.getS3ObjectId()));
+        } catch (RuntimeException ex) {
+            firstPart.getObjectContent().abort();
+            throw ex;
+        } catch (Error error) {
+            firstPart.getObjectContent().abort();
+            throw error;
+        }
+        if (cekMaterial == null
+        ||  cekMaterial.getContentCryptoScheme() != AES_GCM) {
+            firstPart.getObjectContent().abort();
+            return getObjectSecurely(req, req.getFile());
+        }
+        return new ParallelDownload(s3, req, cekMaterial.getCipherLite(), es)
+            .download(firstPart);
+    }
+
+    /**
+     * Returns the content crypto material for decrypting the whole of the
+     * retrieved S3 object, after a security check; or null if its encryption
+     * info is not found, leaving it to the sequential get to handle.
+     */
+    private ContentCryptoMaterial wholeObjectCryptoMaterial(
+            EncryptedGetObjectRequest req, S3ObjectWrapper retrieved) {
+        final String suffix = req.getInstructionFileSuffix();
+        final boolean hasSuffix = suffix != null && !suffix.trim().isEmpty();
+        if (!hasSuffix && retrieved.hasEncryptionInfo())
+            return contentCryptoMaterial(req, null, retrieved, null);
+        S3ObjectWrapper ifile = fetchInstructionFile(req.getS3ObjectId(),
+                hasSuffix ? suffix : null);
+        if (ifile == null)
+            return null;
+        try {
+            if (!ifile.isInstructionFile())
+                return null;
+            @SuppressWarnings("unchecked")
+            Map<String, String> matdesc = Collections.unmodifiableMap(
+                    Jackson.fromJsonString(ifile.toJsonString(), Map.class));
+            return contentCryptoMaterial(req, null, retrieved, matdesc);
+        } finally {
+            closeQuietly(ifile, log);
+        }
+    }
+
     @Override
     final MultipartUploadCryptoContext newUploadContext(
             InitiateMultipartUploadRequest req, ContentCryptoMaterial cekMaterial) {
+        MultipartGcmTag gcmTag = null;
+        if (req instanceof EncryptedInitiateMultipartUploadRequest) {
+            long partSize = ((EncryptedInitiateMultipartUploadRequest) req).getPartSize();
+            if (partSize > 0) {
+                // Parts will be encrypted independently
+                gcmTag = new MultipartGcmTag(cekMaterial.getCipherLite(), partSize);
+            }
+        }
         return new MultipartUploadCryptoContext(
-                req.getBucketName(), req.getKey(), cekMaterial);
+                req.getBucketName(), req.getKey(), cekMaterial, gcmTag);
+    }
+
+    @Override
+    public boolean isConcurrentPartUploadSupported() {
+        return true;
     }
 
     //// specific overrides for uploading parts.
@@ -407,7 +512,7 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         wrapper.setObjectContent(new S3ObjectInputStream(
                 new CipherLiteInputStream(objectContent, 
                     cekMaterial.getCipherLite(),
-                    DEFAULT_BUFFER_SIZE),
+                    cryptoConfig.getBufferSize()),
                     objectContent.getHttpRequest()));
         return wrapper;
     }
@@ -221,7 +221,11 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
     @Override
     public final void abortMultipartUploadSecurely(AbortMultipartUploadRequest req) {
         s3.abortMultipartUpload(req);
-        multipartUploadContexts.remove(req.getUploadId());
+        T uploadContext = multipartUploadContexts.remove(req.getUploadId());
+        if (uploadContext != null && uploadContext.getMultipartGcmTag() != null) {
+            // Fails the last part if it is waiting for the others
+            uploadContext.getMultipartGcmTag().abort();
+        }
     }
 
     @Override
@@ -278,6 +282,12 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
      * opposed to the normal AmazonS3Client) must be uploaded serially, and in
      * order. Otherwise, the previous encryption context isn't available to use
      * when encrypting the current part.
+     * <p>
+     * The exception is an upload initiated with a part size under
+     * authenticated encryption, whose parts are encrypted independently and
+     * may be uploaded concurrently and in any order; only the last part waits
+     * for all the others to have been read, as the authentication tag of the
+     * whole upload follows it.
      */
     @Override
     public UploadPartResult uploadPartSecurely(UploadPartRequest req) {
@@ -300,17 +310,34 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                 "No client-side information available on upload ID " + uploadId);
         }
         final UploadPartResult result;
-        // Checks the parts are uploaded in series
-        uploadContext.beginPartUpload(req.getPartNumber());
-        CipherLite cipherLite = cipherLiteForNextPart(uploadContext);
+        final int partNumber = req.getPartNumber();
+        final MultipartGcmTag gcmTag = uploadContext.getMultipartGcmTag();
+        final CipherLite cipherLite;
+        if (gcmTag == null) {
+            // Checks the parts are uploaded in series
+            uploadContext.beginPartUpload(partNumber);
+            cipherLite = cipherLiteForNextPart(uploadContext);
+        } else {
+            if (!isLastPart && partSize != gcmTag.getPartSize()) {
+                throw new AmazonClientException("Invalid part size: every part but the last"
+                        + " must have the part size the upload was initiated with ("
+                        + gcmTag.getPartSize() + ")");
+            }
+            if (isLastPart)
+                gcmTag.awaitPartsBefore(partNumber);
+            cipherLite = gcmTag.cipherLiteForPart(partNumber, partSize);
+        }
         final File fileOrig = req.getFile();
         final InputStream isOrig = req.getInputStream();
         SdkFilterInputStream isCurr = null;
+        boolean success = false;
         try {
             CipherLiteInputStream clis = newMultipartS3CipherInputStream(req, cipherLite);
             isCurr = clis; // so the clis will be closed (in the finally block below) upon
                        // unexpected failure should we opened a file undereath
-            isCurr = wrapForMultipart(clis, partSize);
+            isCurr = gcmTag == null
+                   ? wrapForMultipart(clis, partSize)
+                   : new MultipartGcmInputStream(clis, gcmTag, partNumber, isLastPart);
             req.setInputStream(isCurr);
             // Treat all encryption requests as input stream upload requests,
             // not as file upload requests.
@@ -331,9 +358,13 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
             }
 
             result = s3.uploadPart(req);
+            success = true;
         } finally {
             cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
-            uploadContext.endPartUpload();
+            if (gcmTag == null)
+                uploadContext.endPartUpload();
+            else if (!success && !isLastPart)
+                gcmTag.partFailed(partNumber);
         }
         if (isLastPart)
             uploadContext.setHasFinalPartBeenSeen(true);
@@ -362,10 +393,10 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                     req.isLastPart());
             return cipherLite.markSupported()
                  ? new CipherLiteInputStream(isCurr, cipherLite,
-                       DEFAULT_BUFFER_SIZE,
+                       cryptoConfig.getBufferSize(),
                        IS_MULTI_PART, req.isLastPart())
                  : new RenewableCipherLiteInputStream(isCurr, cipherLite,
-                        DEFAULT_BUFFER_SIZE,
+                        cryptoConfig.getBufferSize(),
                         IS_MULTI_PART, req.isLastPart());
         } catch (Exception e) {
             cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
@@ -655,10 +686,10 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
 
             if (cipherLite.markSupported()) {
                 return new CipherLiteInputStream(isCurr, cipherLite,
-                        DEFAULT_BUFFER_SIZE);
+                        cryptoConfig.getBufferSize());
             } else {
                 return new RenewableCipherLiteInputStream(isCurr, cipherLite,
-                        DEFAULT_BUFFER_SIZE);
+                        cryptoConfig.getBufferSize());
             }
         } catch (Exception e) {
             cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
@@ -17,6 +17,7 @@ package com.amazonaws.services.s3.internal.crypto;
 import static com.amazonaws.services.s3.model.CryptoMode.EncryptionOnly;
 
 import java.io.File;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
@@ -24,6 +25,7 @@ import com.amazonaws.internal.SdkFilterInputStream;
 import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.s3.internal.S3Direct;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.DownloadObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -83,6 +85,20 @@ class S3CryptoModuleEO extends S3CryptoModuleBase<MultipartUploadCbcContext> {
         throw new IllegalStateException();
     }
 
+    @Override
+    public ObjectMetadata downloadObjectSecurely(DownloadObjectRequest req,
+            ExecutorService es) {
+        // Should never get here, as S3 object encrypted in either EO or AE
+        // format should all be handled by the AE module.
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean isConcurrentPartUploadSupported() {
+        // Each part is chained from the last cipher block of the previous one
+        return false;
+    }
+
     @Override
     final MultipartUploadCbcContext newUploadContext(
             InitiateMultipartUploadRequest req,
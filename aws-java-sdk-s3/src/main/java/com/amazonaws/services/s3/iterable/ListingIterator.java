@@ -0,0 +1,339 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+
+import com.amazonaws.util.PagePrefetcher;
+
+/**
+ * Iterates the summaries of a listing split into segments, each covering the
+ * keys that begin with a given prefix, in key order.
+ * <p>
+ * The prefixes are reduced to those not covered by another, so their key
+ * ranges do not overlap and listing them one after another in prefix order
+ * yields the keys in order. If a delimiter is given, each prefix is further
+ * split at the next delimiter by listing it rolled up at the delimiter: the
+ * summaries found directly under the prefix are iterated from the pages of
+ * that listing as they come, and each common prefix becomes a segment of its
+ * own, slotted in by key. That listing is only read ahead of the caller until
+ * the given number of segments are waiting, so the first keys do not wait for
+ * all the common prefixes to be found.
+ * <p>
+ * If an executor is given, the pages are listed on it ahead of the caller
+ * by a {@link PagePrefetcher} for each segment, starting with the current
+ * segment and the few after it, each requesting its next page as soon as a
+ * page arrives, until the given number of pages are waiting to be iterated.
+ * At most {@code (maxPagesAhead + 1) * (maxConcurrentSegments + 1)} pages are
+ * therefore held in memory. No executor thread ever waits on the caller, so
+ * an abandoned iterator simply stops listing.
+ *
+ * @param <L>
+ *            listing type
+ * @param <S>
+ *            summary type
+ */
+abstract class ListingIterator<L, S> implements Iterator<S> {
+
+    /**
+     * Orders keys as Amazon S3 lists them, by the UTF-8 encoding of the key,
+     * which is the same as by Unicode code point.
+     */
+    static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            int i = 0, j = 0;
+            while (i < a.length() && j < b.length()) {
+                int ca = a.codePointAt(i);
+                int cb = b.codePointAt(j);
+                if (ca != cb) {
+                    return ca < cb ? -1 : 1;
+                }
+                i += Character.charCount(ca);
+                j += Character.charCount(cb);
+            }
+            if (i < a.length()) {
+                return 1;
+            }
+            return j < b.length() ? -1 : 0;
+        }
+    };
+
+    private final List<String> prefixes;
+    private final String delimiter;
+    private final ExecutorService executor;
+    private final int maxPagesAhead;
+    private final int maxConcurrentSegments;
+
+    /** The index of the next of the prefixes to list. */
+    private int nextPrefix;
+    /** Lists the current prefix rolled up at the delimiter; or null. */
+    private PagePrefetcher<L> rollup;
+    /** The segments found but not yet iterated, current first, in key order. */
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    private Iterator<S> currentIterator = Collections.<S>emptyList().iterator();
+
+    /**
+     * @param prefixes
+     *            The prefixes of the keys to list; null or empty for the
+     *            whole bucket.
+     * @param delimiter
+     *            The delimiter at which to split each prefix into the
+     *            segments to list; or null to list each prefix as a whole.
+     * @param executor
+     *            The executor to list the segments on ahead of the caller; or
+     *            null to list each page when it is reached.
+     * @param maxPagesAhead
+     *            The maximum number of pages of a segment being listed or
+     *            waiting to be iterated.
+     * @param maxConcurrentSegments
+     *            The maximum number of segments listed at the same time.
+     */
+    ListingIterator(Collection<String> prefixes, String delimiter,
+            ExecutorService executor, int maxPagesAhead, int maxConcurrentSegments) {
+        this.prefixes = reducePrefixes(prefixes);
+        this.delimiter = delimiter;
+        this.executor = executor;
+        // Not given without an executor, where each segment is listed in turn
+        this.maxPagesAhead = Math.max(maxPagesAhead, 1);
+        this.maxConcurrentSegments = Math.max(maxConcurrentSegments, 1);
+    }
+
+    /**
+     * Sends the request for the first page of the keys beginning with the
+     * given prefix, rolled up at the given delimiter if not null.
+     */
+    protected abstract L listFirst(String prefix, String delimiter);
+
+    /**
+     * Sends the request for the page that follows the given one.
+     */
+    protected abstract L listNext(L previous);
+
+    protected abstract boolean isTruncated(L listing);
+
+    protected abstract List<S> summariesOf(L listing);
+
+    protected abstract List<String> commonPrefixesOf(L listing);
+
+    protected abstract String keyOf(S summary);
+
+    @Override
+    public boolean hasNext() {
+        while (!currentIterator.hasNext()) {
+            if (segments.isEmpty()) {
+                findSegments();
+                if (segments.isEmpty()) {
+                    return false;
+                }
+            }
+            List<S> page = segments.getFirst().nextPage();
+            if (page != null) {
+                currentIterator = page.iterator();
+            } else {
+                // Let go of the finished segment
+                segments.removeFirst();
+                findSegments();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public S next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentIterator.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the given prefixes in key order, leaving out any that begin
+     * with another.
+     */
+    static List<String> reducePrefixes(Collection<String> prefixes) {
+        List<String> sorted = new ArrayList<String>();
+        if (prefixes != null) {
+            for (String prefix : prefixes) {
+                sorted.add(prefix == null ? "" : prefix);
+            }
+        }
+        if (sorted.isEmpty()) {
+            sorted.add("");
+        }
+        Collections.sort(sorted, KEY_ORDER);
+        // The keys beginning with a prefix sort right after it
+        List<String> reduced = new ArrayList<String>();
+        for (String prefix : sorted) {
+            if (reduced.isEmpty() || !prefix.startsWith(reduced.get(reduced.size() - 1))) {
+                reduced.add(prefix);
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Finds the segments that follow those already found, until the given
+     * number of segments are waiting or every prefix has been listed, and
+     * starts listing the first few of them.
+     */
+    private void findSegments() {
+        while (segments.size() < maxConcurrentSegments) {
+            if (rollup != null && rollup.hasNext()) {
+                addSegments(rollup.next());
+            } else if (nextPrefix < prefixes.size()) {
+                String prefix = prefixes.get(nextPrefix++);
+                if (delimiter == null) {
+                    segments.add(new Segment(prefix));
+                } else {
+                    rollup = newPrefetcher(prefix, delimiter);
+                    rollup.start();
+                }
+            } else {
+                rollup = null;
+                break;
+            }
+        }
+        int started = 0;
+        for (Segment segment : segments) {
+            if (started == maxConcurrentSegments) {
+                break;
+            }
+            if (segment.start()) {
+                started++;
+            }
+        }
+    }
+
+    /**
+     * Adds the segments of a page of a rolled up listing: its common prefixes
+     * and, between them, the runs of its summaries, in key order.
+     */
+    private void addSegments(L page) {
+        List<S> summaries = summariesOf(page);
+        int from = 0;
+        for (String commonPrefix : commonPrefixesOf(page)) {
+            // The keys beginning with a common prefix sort right after it
+            int to = from;
+            while (to < summaries.size()
+                    && KEY_ORDER.compare(keyOf(summaries.get(to)), commonPrefix) < 0) {
+                to++;
+            }
+            if (to > from) {
+                segments.add(new Segment(summaries.subList(from, to)));
+            }
+            segments.add(new Segment(commonPrefix));
+            from = to;
+        }
+        if (from < summaries.size()) {
+            segments.add(new Segment(summaries.subList(from, summaries.size())));
+        }
+    }
+
+    private PagePrefetcher<L> newPrefetcher(String prefix, String delimiter) {
+        return new PagePrefetcher<L>(new Listing(prefix, delimiter), executor,
+                maxPagesAhead, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lists the keys beginning with a prefix, rolled up at a delimiter if not
+     * null.
+     */
+    private final class Listing implements PagePrefetcher.Fetcher<L> {
+        private final String prefix;
+        private final String delimiter;
+
+        Listing(String prefix, String delimiter) {
+            this.prefix = prefix;
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        public L fetchNextPage(L page) {
+            return page == null ? listFirst(prefix, delimiter) : listNext(page);
+        }
+
+        @Override
+        public boolean hasNextPage(L page) {
+            return isTruncated(page);
+        }
+
+        @Override
+        public int sizeOf(L page) {
+            return summariesOf(page).size();
+        }
+    }
+
+    /**
+     * The keys beginning with a prefix, or a run of summaries found directly
+     * under a prefix by its rolled up listing.
+     */
+    private final class Segment {
+        /** Lists the pages of the prefix; null for a run of summaries. */
+        private final PagePrefetcher<L> pages;
+        private List<S> summaries;
+        private boolean started;
+
+        Segment(String prefix) {
+            this.pages = newPrefetcher(prefix, null);
+        }
+
+        Segment(List<S> summaries) {
+            this.pages = null;
+            this.summaries = summaries;
+        }
+
+        /**
+         * Starts listing the prefix, unless already started, and returns
+         * whether the prefix is being listed.
+         */
+        boolean start() {
+            if (pages == null) {
+                return false;
+            }
+            if (!started) {
+                started = true;
+                pages.start();
+            }
+            return true;
+        }
+
+        /**
+         * Returns the next page of summaries, or null if there are no more.
+         */
+        List<S> nextPage() {
+            if (pages == null) {
+                List<S> page = summaries;
+                summaries = null;
+                return page;
+            }
+            start();
+            return pages.hasNext() ? summariesOf(pages.next()) : null;
+        }
+    }
+}
@@ -14,7 +14,12 @@
  */
 package com.amazonaws.services.s3.iterable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -34,6 +39,14 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Objects#withBatchSize(int)} method.
+ * <p>
+ * To walk a large bucket faster, the pages can instead be listed on an
+ * executor ahead of the caller with
+ * {@link S3Objects#withPrefetch(ExecutorService, int, int)}, and the listing
+ * split into prefixes listed in parallel, either given with
+ * {@link S3Objects#withPrefixes(AmazonS3, String, Collection)} or discovered
+ * with {@link S3Objects#withPrefixDiscovery(String)}. The objects are still
+ * iterated in key order.
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -41,6 +54,11 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
     private String prefix = null;
     private String bucketName;
     private Integer batchSize = null;
+    private List<String> prefixes = null;
+    private String discoveryDelimiter = null;
+    private ExecutorService prefetchExecutor = null;
+    private int maxPagesAhead;
+    private int maxConcurrentPrefixes;
 
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -79,6 +97,26 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return objects;
     }
 
+    /**
+     * Constructs an iterable that covers the objects in an Amazon S3 bucket
+     * where the key begins with any of the given prefixes. The objects are
+     * iterated in key order, each once even if several of the prefixes
+     * match its key.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefixes
+     *            The prefixes.
+     * @return An iterator for object summaries.
+     */
+    public static S3Objects withPrefixes(AmazonS3 s3, String bucketName, Collection<String> prefixes) {
+        S3Objects objects = new S3Objects(s3, bucketName);
+        objects.prefixes = new ArrayList<String>(prefixes);
+        return objects;
+    }
+
     /**
      * Sets the batch size, i.e., how many {@link S3ObjectSummary}s will be
      * fetched at once.
@@ -91,6 +129,58 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return this;
     }
 
+    /**
+     * Splits the listing of each prefix into the prefixes that extend it up to
+     * the next occurrence of the given delimiter, as found by first listing
+     * the common prefixes, so that they can be listed in parallel when
+     * prefetching. The objects found directly under a prefix are iterated
+     * from the pages of that first listing as they arrive, and it is only
+     * read ahead until the given number of prefixes are waiting to be listed,
+     * so the first objects do not wait for every prefix to be found. This
+     * suits buckets whose keys mostly lie below such a level, such as
+     * "logs/2015-10-01/...".
+     *
+     * @param delimiter
+     *            The delimiter, such as "/".
+     */
+    public S3Objects withPrefixDiscovery(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("delimiter must not be empty");
+        }
+        this.discoveryDelimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Lists the pages on the given executor ahead of the caller: the next
+     * page of a prefix is requested as soon as the previous one arrives,
+     * until the given number of pages of the prefix are waiting to be
+     * iterated, and the prefixes after the current one are listed at the
+     * same time. At most
+     * {@code (maxPagesAhead + 1) * (maxConcurrentPrefixes + 1)} pages are held
+     * in memory.
+     *
+     * @param executor
+     *            The executor to list on; it is not shut down by this object.
+     * @param maxPagesAhead
+     *            The maximum number of pages of a prefix listed ahead of the
+     *            caller.
+     * @param maxConcurrentPrefixes
+     *            The maximum number of prefixes listed at the same time.
+     */
+    public S3Objects withPrefetch(ExecutorService executor, int maxPagesAhead, int maxConcurrentPrefixes) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (maxPagesAhead < 1 || maxConcurrentPrefixes < 1) {
+            throw new IllegalArgumentException("maxPagesAhead and maxConcurrentPrefixes must be positive");
+        }
+        this.prefetchExecutor = executor;
+        this.maxPagesAhead = maxPagesAhead;
+        this.maxConcurrentPrefixes = maxConcurrentPrefixes;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
@@ -99,6 +189,14 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return prefix;
     }
 
+    public List<String> getPrefixes() {
+        return prefixes == null ? null : Collections.unmodifiableList(prefixes);
+    }
+
+    public String getPrefixDiscoveryDelimiter() {
+        return discoveryDelimiter;
+    }
+
     public String getBucketName() {
         return bucketName;
     }
@@ -149,9 +247,55 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
 
     }
 
+    private class PrefetchingS3ObjectIterator extends ListingIterator<ObjectListing, S3ObjectSummary> {
+
+        PrefetchingS3ObjectIterator() {
+            super(prefixes == null ? Collections.singletonList(prefix) : prefixes,
+                    discoveryDelimiter, prefetchExecutor, maxPagesAhead, maxConcurrentPrefixes);
+        }
+
+        @Override
+        protected ObjectListing listFirst(String prefix, String delimiter) {
+            ListObjectsRequest req = new ListObjectsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(prefix);
+            req.setDelimiter(delimiter);
+            req.setMaxKeys(getBatchSize());
+            return getS3().listObjects(req);
+        }
+
+        @Override
+        protected ObjectListing listNext(ObjectListing previous) {
+            return getS3().listNextBatchOfObjects(previous);
+        }
+
+        @Override
+        protected boolean isTruncated(ObjectListing listing) {
+            return listing.isTruncated();
+        }
+
+        @Override
+        protected List<S3ObjectSummary> summariesOf(ObjectListing listing) {
+            return listing.getObjectSummaries();
+        }
+
+        @Override
+        protected List<String> commonPrefixesOf(ObjectListing listing) {
+            return listing.getCommonPrefixes();
+        }
+
+        @Override
+        protected String keyOf(S3ObjectSummary summary) {
+            return summary.getKey();
+        }
+    }
+
     @Override
     public Iterator<S3ObjectSummary> iterator() {
-        return new S3ObjectIterator();
+        if (prefixes == null && discoveryDelimiter == null && prefetchExecutor == null) {
+            return new S3ObjectIterator();
+        }
+        return new PrefetchingS3ObjectIterator();
     }
 
 }
@@ -14,7 +14,12 @@
  */
 package com.amazonaws.services.s3.iterable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
@@ -34,6 +39,14 @@ import com.amazonaws.services.s3.model.VersionListing;
  * The list of {@link S3VersionSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
  * {@link S3Versions#withBatchSize(int)} method.
+ * <p>
+ * As with {@link S3Objects}, the pages can instead be listed on an executor
+ * ahead of the caller with
+ * {@link S3Versions#withPrefetch(ExecutorService, int, int)}, and the listing
+ * split into prefixes listed in parallel, either given with
+ * {@link S3Versions#withPrefixes(AmazonS3, String, Collection)} or discovered
+ * with {@link S3Versions#withPrefixDiscovery(String)}. The versions are still
+ * iterated in key order.
  */
 public class S3Versions implements Iterable<S3VersionSummary> {
 
@@ -42,6 +55,11 @@ public class S3Versions implements Iterable<S3VersionSummary> {
     private String prefix;
     private String key;
     private Integer batchSize;
+    private List<String> prefixes;
+    private String discoveryDelimiter;
+    private ExecutorService prefetchExecutor;
+    private int maxPagesAhead;
+    private int maxConcurrentPrefixes;
 
     private S3Versions(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -81,6 +99,27 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return versions;
     }
 
+    /**
+     * Constructs an iterable that covers the versions in an Amazon S3 bucket
+     * where the object key begins with any of the given prefixes. The
+     * versions are iterated in key order, each once even if several of the
+     * prefixes match its key.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefixes
+     *            The prefixes.
+     * @return An iterator for object version summaries.
+     */
+    public static S3Versions withPrefixes(AmazonS3 s3, String bucketName,
+            Collection<String> prefixes) {
+        S3Versions versions = new S3Versions(s3, bucketName);
+        versions.prefixes = new ArrayList<String>(prefixes);
+        return versions;
+    }
+
     /**
      * Constructs an iterable that covers the versions of a single Amazon S3
      * object.
@@ -111,6 +150,58 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return this;
     }
 
+    /**
+     * Splits the listing of each prefix into the prefixes that extend it up to
+     * the next occurrence of the given delimiter, as found by first listing
+     * the common prefixes, so that they can be listed in parallel when
+     * prefetching. The versions found directly under a prefix are iterated
+     * from the pages of that first listing as they arrive, and it is only
+     * read ahead until the given number of prefixes are waiting to be listed,
+     * so the first versions do not wait for every prefix to be found. Has no
+     * effect on the versions of a single object.
+     *
+     * @param delimiter
+     *            The delimiter, such as "/".
+     */
+    public S3Versions withPrefixDiscovery(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("delimiter must not be empty");
+        }
+        this.discoveryDelimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Lists the pages on the given executor ahead of the caller: the next
+     * page of a prefix is requested as soon as the previous one arrives,
+     * until the given number of pages of the prefix are waiting to be
+     * iterated, and the prefixes after the current one are listed at the
+     * same time. At most
+     * {@code (maxPagesAhead + 1) * (maxConcurrentPrefixes + 1)} pages are held
+     * in memory.
+     *
+     * @param executor
+     *            The executor to list on; it is not shut down by this object.
+     * @param maxPagesAhead
+     *            The maximum number of pages of a prefix listed ahead of the
+     *            caller.
+     * @param maxConcurrentPrefixes
+     *            The maximum number of prefixes listed at the same time.
+     */
+    public S3Versions withPrefetch(ExecutorService executor, int maxPagesAhead,
+            int maxConcurrentPrefixes) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        if (maxPagesAhead < 1 || maxConcurrentPrefixes < 1) {
+            throw new IllegalArgumentException("maxPagesAhead and maxConcurrentPrefixes must be positive");
+        }
+        this.prefetchExecutor = executor;
+        this.maxPagesAhead = maxPagesAhead;
+        this.maxConcurrentPrefixes = maxConcurrentPrefixes;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
@@ -119,6 +210,14 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return prefix;
     }
 
+    public List<String> getPrefixes() {
+        return prefixes == null ? null : Collections.unmodifiableList(prefixes);
+    }
+
+    public String getPrefixDiscoveryDelimiter() {
+        return discoveryDelimiter;
+    }
+
     public String getKey() {
         return key;
     }
@@ -197,9 +296,69 @@ public class S3Versions implements Iterable<S3VersionSummary> {
 
     }
 
+    private class PrefetchingVersionIterator extends
+            ListingIterator<VersionListing, S3VersionSummary> {
+
+        PrefetchingVersionIterator() {
+            super(getKey() != null ? Collections.singletonList(getKey())
+                    : prefixes != null ? prefixes
+                    : Collections.singletonList(getPrefix()),
+                    getKey() != null ? null : discoveryDelimiter,
+                    prefetchExecutor, maxPagesAhead, maxConcurrentPrefixes);
+        }
+
+        @Override
+        protected VersionListing listFirst(String prefix, String delimiter) {
+            ListVersionsRequest req = new ListVersionsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(prefix);
+            req.setDelimiter(delimiter);
+            req.setMaxResults(getBatchSize());
+            return getS3().listVersions(req);
+        }
+
+        @Override
+        protected VersionListing listNext(VersionListing previous) {
+            return getS3().listNextBatchOfVersions(previous);
+        }
+
+        @Override
+        protected boolean isTruncated(VersionListing listing) {
+            return listing.isTruncated();
+        }
+
+        @Override
+        protected List<S3VersionSummary> summariesOf(VersionListing listing) {
+            if (getKey() == null) {
+                return listing.getVersionSummaries();
+            }
+            // Only the versions of the key itself, not of longer keys
+            List<S3VersionSummary> matching = new ArrayList<S3VersionSummary>();
+            for (S3VersionSummary summary : listing.getVersionSummaries()) {
+                if (summary.getKey().equals(getKey())) {
+                    matching.add(summary);
+                }
+            }
+            return matching;
+        }
+
+        @Override
+        protected List<String> commonPrefixesOf(VersionListing listing) {
+            return listing.getCommonPrefixes();
+        }
+
+        @Override
+        protected String keyOf(S3VersionSummary summary) {
+            return summary.getKey();
+        }
+    }
+
     @Override
     public Iterator<S3VersionSummary> iterator() {
-        return new VersionIterator();
+        if (prefixes == null && discoveryDelimiter == null && prefetchExecutor == null) {
+            return new VersionIterator();
+        }
+        return new PrefetchingVersionIterator();
     }
 
 }
@@ -27,6 +27,9 @@ import com.amazonaws.services.s3.internal.crypto.CryptoRuntime;
  * used during encryption and decryption.
  */
 public class CryptoConfiguration implements Cloneable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024*2;  // 2K
+    /** The buffer size must be a multiple of this. */
+    private static final int BUFFER_SIZE_UNIT = 512;
     private CryptoMode cryptoMode;
     private CryptoStorageMode storageMode;
     private Provider cryptoProvider;
@@ -43,6 +46,11 @@ public class CryptoConfiguration implements Cloneable {
      * null if no explicit KMS region is specified.
      */
     private Regions kmsRegion;
+    /**
+     * The size in bytes of the chunks in which content is read and encrypted
+     * or decrypted.
+     */
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
 
     /**
      * Creates a new CryptoConfiguration object with default storage mode and
@@ -219,6 +227,46 @@ public class CryptoConfiguration implements Cloneable {
         return this;
     }
 
+    /**
+     * Returns the size in bytes of the chunks in which the Amazon S3
+     * Encryption Client reads and encrypts or decrypts content. Default is 2K.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the size in bytes of the chunks in which the Amazon S3 Encryption
+     * Client reads and encrypts or decrypts content. Each stream being
+     * encrypted or decrypted holds two buffers of about this size, reused for
+     * every chunk; a larger size means fewer, larger reads from the underlying
+     * stream and calls to the cipher, which can help the throughput of large
+     * objects.
+     * 
+     * @param bufferSize
+     *            the buffer size, which must be a positive multiple of 512
+     * @throws IllegalArgumentException
+     *             if the buffer size is not a positive multiple of 512
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0 || bufferSize % BUFFER_SIZE_UNIT != 0) {
+            throw new IllegalArgumentException("bufferSize (" + bufferSize
+                    + ") must be a positive multiple of " + BUFFER_SIZE_UNIT);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Fluent API to set the size in bytes of the chunks in which the Amazon S3
+     * Encryption Client reads and encrypts or decrypts content.
+     * 
+     * @see #setBufferSize(int)
+     */
+    public CryptoConfiguration withBufferSize(int bufferSize) {
+        setBufferSize(bufferSize);
+        return this;
+    }
+
     /**
      * Checks if the crypto mode is supported by the runtime.
      * 
@@ -283,6 +331,12 @@ public class CryptoConfiguration implements Cloneable {
         @Override public CryptoConfiguration withKmsRegion(Regions kmsRegion) {
             throw new UnsupportedOperationException();
         }
+        @Override public void setBufferSize(int bufferSize) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withBufferSize(int bufferSize) {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
@@ -305,6 +359,7 @@ public class CryptoConfiguration implements Cloneable {
         that.cryptoProvider = this.cryptoProvider;
         that.ignoreMissingInstructionFile = this.ignoreMissingInstructionFile;
         that.kmsRegion = this.kmsRegion;
+        that.bufferSize = this.bufferSize;
         return that;
     }
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+
+/**
+ * Used to request the download and client-side decryption of a large S3
+ * object to a file via parallel ranged gets.
+ * <p>
+ * Objects encrypted with AES/GCM are fetched in parts of {@link #partSize}
+ * bytes concurrently, each decrypted independently and written to the file at
+ * its offset; the GCM authentication tag of the whole object is then verified
+ * before the file is made available at its destination. Objects encrypted
+ * otherwise are downloaded sequentially as with
+ * {@link AmazonS3EncryptionClient#getObject(GetObjectRequest, File)}.
+ *
+ * @see AmazonS3EncryptionClient#downloadObject(DownloadObjectRequest)
+ */
+public class DownloadObjectRequest extends EncryptedGetObjectRequest {
+    static final int DEFAULT_PART_SIZE = 5 << 20; // 5 MB
+    /**
+     * The cipher block size; part boundaries must fall on a block for each
+     * part to be decrypted independently.
+     */
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * The file the decrypted object is to be written to.
+     */
+    private final File file;
+    /**
+     * Part size (in bytes) of each ranged get. Default is
+     * {@value #DEFAULT_PART_SIZE}.
+     */
+    private long partSize = DEFAULT_PART_SIZE;
+    /**
+     * Optional configuration of a custom thread pool used for concurrent
+     * downloads.
+     */
+    private ExecutorService executorService;
+
+    public DownloadObjectRequest(String bucketName, String key, File file) {
+        this(new S3ObjectId(bucketName, key), file);
+    }
+
+    public DownloadObjectRequest(S3ObjectId s3ObjectId, File file) {
+        super(s3ObjectId);
+        if (file == null)
+            throw new IllegalArgumentException("file must be specified");
+        this.file = file;
+    }
+
+    /**
+     * Returns the file the decrypted object is to be written to.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the part size (in bytes) of each ranged get of this request.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Configures the part size (in bytes) of each ranged get. Must be a
+     * positive multiple of 16, the cipher block size.
+     *
+     * @return this object for method chaining purposes
+     */
+    public DownloadObjectRequest withPartSize(long partSize) {
+        if (partSize <= 0 || partSize % BLOCK_SIZE != 0)
+            throw new IllegalArgumentException(
+                    "partSize must be a positive multiple of " + BLOCK_SIZE);
+        this.partSize = partSize;
+        return this;
+    }
+
+    /**
+     * Returns a custom executor service for concurrent downloads; or null
+     * there is no customization.
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Configure a custom executor service for concurrent downloads.
+     *
+     * @return this object for method chaining purposes
+     */
+    public DownloadObjectRequest withExecutorService(
+            ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+}
@@ -30,6 +30,8 @@ import com.amazonaws.services.s3.AmazonS3EncryptionClient;
  * <li>specify encryption material description on a per-request basis;</li>
  * <li>specify whether a new set of encryption material is to be created for the
  * upload or not;</li>
+ * <li>specify the part size, so that the parts can be encrypted independently
+ * and uploaded concurrently;</li>
  * </ul>
  * In particular, {@link EncryptedInitiateMultipartUploadRequest} is only
  * recognized by {@link AmazonS3EncryptionClient}.
@@ -50,6 +52,12 @@ public class EncryptedInitiateMultipartUploadRequest extends
      * otherwise. Default is true.
      */
     private boolean createEncryptionMaterial = true;
+    /**
+     * The size (in bytes) of every part but the last, if the parts are to be
+     * encrypted independently and uploaded concurrently; or zero if they are
+     * to be uploaded in series. Default is zero.
+     */
+    private long partSize;
     
     public EncryptedInitiateMultipartUploadRequest(String bucketName, String key) {
         super(bucketName, key);
@@ -111,4 +119,46 @@ public class EncryptedInitiateMultipartUploadRequest extends
         this.createEncryptionMaterial = createEncryptionMaterial;
         return this;
     }
+
+    /**
+     * Returns the size (in bytes) of every part but the last, if the parts are
+     * to be encrypted independently and uploaded concurrently; or zero if they
+     * are to be uploaded in series.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Declares the size (in bytes) of every part of the upload but the last,
+     * which allows the parts to be encrypted independently and uploaded
+     * concurrently and in any order. Must be zero, the default, for parts to
+     * be uploaded in series, or else a positive multiple of 16, the cipher
+     * block size.
+     * <p>
+     * Only authenticated encryption supports concurrent part uploads; under
+     * {@link CryptoMode#EncryptionOnly} the part size is ignored and the parts
+     * must still be uploaded in series.
+     *
+     * @see AmazonS3EncryptionClient#isConcurrentPartUploadSupported()
+     */
+    public void setPartSize(long partSize) {
+        if (partSize < 0 || partSize % 16 != 0)
+            throw new IllegalArgumentException(
+                    "partSize must be zero or a positive multiple of 16");
+        this.partSize = partSize;
+    }
+
+    /**
+     * Declares the size (in bytes) of every part of the upload but the last,
+     * which allows the parts to be encrypted independently and uploaded
+     * concurrently and in any order.
+     *
+     * @see #setPartSize(long)
+     * @return this object for method chaining purposes
+     */
+    public EncryptedInitiateMultipartUploadRequest withPartSize(long partSize) {
+        setPartSize(partSize);
+        return this;
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.DownloadPartTracker;
+
+/**
+ * Waits for the parts of a multi-part download, then releases the destination
+ * file and checks its integrity. It is submitted after all the parts, so on the
+ * transfer manager's FIFO thread pool it never holds a thread that a part needs.
+ */
+final class CompleteMultipartDownload implements Callable<File> {
+
+    private final List<Future<Integer>> futures;
+    private final DownloadImpl download;
+    private final DownloadPartTracker tracker;
+    /** The metadata to check the file against, or null to skip the check. */
+    private final ObjectMetadata integrityCheckMetadata;
+
+    CompleteMultipartDownload(List<Future<Integer>> futures,
+            DownloadImpl download, DownloadPartTracker tracker,
+            ObjectMetadata integrityCheckMetadata) {
+        this.futures = futures;
+        this.download = download;
+        this.tracker = tracker;
+        this.integrityCheckMetadata = integrityCheckMetadata;
+    }
+
+    @Override
+    public File call() throws Exception {
+        try {
+            for (Future<Integer> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof AmazonClientException)
+                        throw (AmazonClientException) e.getCause();
+                    throw new AmazonClientException(
+                            "Unable to download part of object "
+                                    + download.getKey() + ": "
+                                    + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            tracker.close();
+            if (integrityCheckMetadata != null) {
+                ServiceUtils.verifyDownloadIntegrity(integrityCheckMetadata,
+                        tracker.getFile());
+            }
+            download.setState(TransferState.Completed);
+            return tracker.getFile();
+        } catch (Throwable t) {
+            tracker.cancel();
+            // Downloads aren't allowed to move from canceled to failed
+            if (download.getState() != TransferState.Canceled) {
+                download.setState(TransferState.Failed);
+            }
+            if (t instanceof Exception)
+                throw (Exception) t;
+            else
+                throw (Error) t;
+        }
+    }
+}
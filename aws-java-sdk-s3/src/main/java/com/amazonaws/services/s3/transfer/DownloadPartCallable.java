@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.DownloadPartTracker;
+
+/**
+ * Fetches one byte range of a multi-part download and writes it into the
+ * destination file at the offset of the range.
+ */
+final class DownloadPartCallable implements Callable<Integer> {
+    private static final Log log = LogFactory.getLog(DownloadPartCallable.class);
+
+    private final AmazonS3 s3;
+    private final CountDownLatch latch;
+    private final GetObjectRequest req;
+    private final int partNumber;
+    private final DownloadImpl download;
+    private final DownloadPartTracker tracker;
+
+    DownloadPartCallable(AmazonS3 s3, CountDownLatch latch,
+            GetObjectRequest req, int partNumber, DownloadImpl download,
+            DownloadPartTracker tracker) {
+        this.s3 = s3;
+        this.latch = latch;
+        this.req = req;
+        this.partNumber = partNumber;
+        this.download = download;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        latch.await();
+        if (tracker.markStarted()) {
+            download.setState(TransferState.InProgress);
+        }
+        boolean hasRetried = false;
+        for (;;) {
+            S3Object s3Object = s3.getObject(req);
+            if (s3Object == null) {
+                // The ETag constraint wasn't met
+                throw new AmazonClientException("The object " + req.getKey()
+                        + " (bucket " + req.getBucketName()
+                        + ") has changed during the download");
+            }
+            if (!tracker.register(s3Object)) {
+                throw new CancellationException();
+            }
+            try {
+                writePart(s3Object);
+                tracker.markCompleted(partNumber);
+                return partNumber;
+            } catch (AmazonClientException ace) {
+                if (!ace.isRetryable() || hasRetried || tracker.isCancelled())
+                    throw ace;
+                log.info("Retry the download of part " + partNumber
+                        + " of object " + req.getKey() + " (bucket "
+                        + req.getBucketName() + ")", ace);
+                hasRetried = true;
+            } finally {
+                tracker.unregister(s3Object);
+                s3Object.getObjectContent().abort();
+            }
+        }
+    }
+
+    private void writePart(S3Object s3Object) {
+        final long offset = tracker.getPartOffset(partNumber);
+        final long expectedLength = tracker.getPartLength(partNumber);
+        FileChannel channel = tracker.getChannel();
+        InputStream in = s3Object.getObjectContent();
+        byte[] buffer = new byte[1024*10];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long position = offset;
+        try {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                byteBuffer.clear();
+                byteBuffer.limit(bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        }
+        if (position - offset != expectedLength) {
+            throw new AmazonClientException("Expected " + expectedLength
+                    + " bytes for part " + partNumber + " but received "
+                    + (position - offset));
+        }
+    }
+}
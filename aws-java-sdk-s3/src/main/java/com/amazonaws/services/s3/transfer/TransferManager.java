@@ -20,9 +20,11 @@ import static com.amazonaws.services.s3.internal.ServiceUtils.OVERWRITE_MODE;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -46,8 +48,10 @@ import com.amazonaws.event.ProgressListener;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.AmazonS3Encryption;
 import com.amazonaws.services.s3.internal.FileLocks;
 import com.amazonaws.services.s3.internal.Mimetypes;
+import com.amazonaws.services.s3.internal.ServiceUtils;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
@@ -59,6 +63,7 @@ import com.amazonaws.services.s3.model.MultipartUploadListing;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.exception.FileLockException;
@@ -67,6 +72,7 @@ import com.amazonaws.services.s3.transfer.internal.CopyImpl;
 import com.amazonaws.services.s3.transfer.internal.CopyMonitor;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.DownloadPartTracker;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
@@ -743,6 +749,20 @@ public class TransferManager {
             final File file, final TransferStateChangeListener stateListener,
             final S3ProgressListener s3progressListener,
             final boolean resumeExistingDownload)
+    {
+        return doDownload(getObjectRequest, file, stateListener,
+                s3progressListener, resumeExistingDownload, null);
+    }
+
+    /**
+     * Same as above, but resumes the given paused multi-part download if it
+     * is not null.
+     */
+    private Download doDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final S3ProgressListener s3progressListener,
+            final boolean resumeExistingDownload,
+            final PersistableDownload pausedMultipartDownload)
     {
         appendSingleObjectUserAgent(getObjectRequest);
         String description = "Downloading from " + getObjectRequest.getBucketName() + "/" + getObjectRequest.getKey();
@@ -779,6 +799,14 @@ public class TransferManager {
             final ObjectMetadata objectMetadata = s3.getObjectMetadata(getObjectMetadataRequest);
 
             lastByte = objectMetadata.getContentLength() - 1;
+
+            if (pausedMultipartDownload != null
+                    || TransferManagerUtils.isDownloadParallelizable(getObjectRequest, s3 instanceof AmazonS3Encryption)
+                    && TransferManagerUtils.shouldUseMultipartDownload(objectMetadata.getContentLength(), configuration)) {
+                return doMultipartDownload(getObjectRequest, file,
+                        stateListener, description, transferProgress,
+                        listenerChain, objectMetadata, pausedMultipartDownload);
+            }
         }
         final long origStartingByte = startingByte;
         // We still pass the unfiltered listener chain into DownloadImpl
@@ -831,6 +859,111 @@ public class TransferManager {
         return download;
     }
 
+    /**
+     * Downloads the whole object in byte ranges that are fetched concurrently
+     * on the thread pool and written into the file at their offsets. Every
+     * range is only fetched while the object still has the ETag returned by
+     * the initial HEAD request, so that the parts can't mix two versions of
+     * the object.
+     */
+    private Download doMultipartDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final String description, final TransferProgress transferProgress,
+            final S3ProgressListenerChain listenerChain,
+            final ObjectMetadata objectMetadata,
+            final PersistableDownload pausedMultipartDownload)
+    {
+        final long contentLength = objectMetadata.getContentLength();
+        final String eTag = objectMetadata.getETag();
+        final long partSize;
+        final int[] completedParts;
+        if (pausedMultipartDownload != null) {
+            if (s3 instanceof AmazonS3Encryption) {
+                throw new AmazonClientException(
+                        "Multi-part downloads can't be resumed through an encryption client");
+            }
+            if (eTag == null || !eTag.equals(pausedMultipartDownload.getETag())) {
+                throw new AmazonClientException("The object "
+                        + getObjectRequest.getKey() + " (bucket "
+                        + getObjectRequest.getBucketName()
+                        + ") has changed since the download was paused");
+            }
+            partSize = pausedMultipartDownload.getPartSize();
+            completedParts = pausedMultipartDownload.getCompletedParts();
+        } else {
+            partSize = TransferManagerUtils.calculateOptimalPartSizeForDownload(
+                    configuration, contentLength);
+            completedParts = null;
+        }
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(getObjectRequest.getBucketName());
+        s3Object.setKey(getObjectRequest.getKey());
+        s3Object.setObjectMetadata(objectMetadata);
+        final DownloadImpl download = new DownloadImpl(description,
+                transferProgress, listenerChain, s3Object, stateListener,
+                getObjectRequest, file);
+        transferProgress.setTotalBytesToTransfer(contentLength);
+
+        final DownloadPartTracker tracker = new DownloadPartTracker(file,
+                contentLength, partSize, eTag, completedParts);
+        download.setPartTracker(tracker);
+        transferProgress.updateProgress(tracker.getCompletedBytes());
+
+        final boolean needIntegrityCheck = !ServiceUtils.skipMd5CheckPerRequest(getObjectRequest);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        Future<File> future;
+        try {
+            for (int partNumber = 1; partNumber <= tracker.getNumberOfParts(); partNumber++) {
+                if (tracker.isCompleted(partNumber))
+                    continue;
+                long offset = tracker.getPartOffset(partNumber);
+                GetObjectRequest partRequest = newDownloadPartRequest(
+                        getObjectRequest, offset,
+                        offset + tracker.getPartLength(partNumber) - 1, eTag);
+                Future<Integer> partFuture = threadPool.submit(
+                        new DownloadPartCallable(s3, latch, partRequest,
+                                partNumber, download, tracker));
+                tracker.addFuture(partFuture);
+                futures.add(partFuture);
+            }
+            future = threadPool.submit(new CompleteMultipartDownload(futures,
+                    download, tracker, needIntegrityCheck ? objectMetadata : null));
+        } catch (RuntimeException e) {
+            tracker.cancel();
+            throw e;
+        }
+        download.setMonitor(new DownloadMonitor(download, future));
+        latch.countDown();
+        return download;
+    }
+
+    /**
+     * Returns the request for one byte range of a multi-part download, with
+     * the same options as the original request.
+     */
+    private static GetObjectRequest newDownloadPartRequest(
+            GetObjectRequest origReq, long startingByte, long lastByte,
+            String eTag) {
+        GetObjectRequest req = new GetObjectRequest(origReq.getBucketName(),
+                origReq.getKey(), origReq.getVersionId());
+        req.setRange(startingByte, lastByte);
+        req.setResponseHeaders(origReq.getResponseHeaders());
+        req.setRequesterPays(origReq.isRequesterPays());
+        req.setSSECustomerKey(origReq.getSSECustomerKey());
+        if (eTag != null)
+            req.setMatchingETagConstraints(Collections.singletonList(eTag));
+        req.setGeneralProgressListener(origReq.getGeneralProgressListener());
+        req.setRequestMetricCollector(origReq.getRequestMetricCollector());
+        req.setRequestCredentials(origReq.getRequestCredentials());
+        if (origReq.getCustomRequestHeaders() != null) {
+            for (Map.Entry<String, String> e : origReq.getCustomRequestHeaders().entrySet())
+                req.putCustomRequestHeader(e.getKey(), e.getValue());
+        }
+        return appendMultipartUserAgent(req);
+    }
+
     /**
      * Downloads all objects in the virtual directory designated by the
      * keyPrefix given to the destination directory given. All virtual
@@ -1545,6 +1678,10 @@ public class TransferManager {
         request.setRequesterPays(persistableDownload.isRequesterPays());
         request.setResponseHeaders(persistableDownload.getResponseHeaders());
 
+        if (persistableDownload.getPartSize() > 0) {
+            return doDownload(request, new File(persistableDownload.getFile()),
+                    null, null, APPEND_MODE, persistableDownload);
+        }
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
                 APPEND_MODE);
     }
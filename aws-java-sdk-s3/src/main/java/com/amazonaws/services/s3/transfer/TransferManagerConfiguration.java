@@ -39,6 +39,21 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /**
+     * Default size threshold for when to download objects in parallel ranges;
+     * parallel downloads are disabled by default.
+     */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD = Long.MAX_VALUE;
+
+    /** Default size of each range of a multi-part download. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE = 16 * MB;
+
+    /**
+     * Default memory for buffering the parts of multipart uploads from input
+     * streams; stream uploads are sent one part at a time by default.
+     */
+    private static final long DEFAULT_STREAM_UPLOAD_BUFFER_SIZE = 0;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +92,26 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size threshold, in bytes, for when to use multi-part downloads.
+     * Downloads of whole objects at least this size are split into byte
+     * ranges that are fetched concurrently, while smaller objects are
+     * downloaded over a single connection.
+     */
+    private long multipartDownloadThreshold = DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The size in bytes of each byte range fetched by a multi-part download.
+     */
+    private long multipartDownloadPartSize = DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The total size in bytes of the part buffers that a multipart upload
+     * from an input stream may read ahead into while earlier parts are being
+     * uploaded.
+     */
+    private long streamUploadBufferSize = DEFAULT_STREAM_UPLOAD_BUFFER_SIZE;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -192,4 +227,98 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the size threshold in bytes for when to use multi-part
+     * downloads. Downloads of whole objects at least this size are split
+     * into byte ranges that are fetched concurrently on the transfer
+     * manager's thread pool, and written into the destination file at their
+     * offsets. By default multi-part downloads are disabled.
+     *
+     * @return The size threshold in bytes for when to use multi-part
+     *         downloads.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to use multi-part downloads.
+     * Downloads of whole objects at least this size are split into byte
+     * ranges that are fetched concurrently on the transfer manager's thread
+     * pool, and written into the destination file at their offsets. A
+     * multi-part download can be paused and resumed without fetching again
+     * the ranges that had already been written.
+     * <p>
+     * Downloads with an explicit byte range or with matching constraints, and
+     * downloads through an encryption client, always use a single
+     * connection.
+     *
+     * @param multipartDownloadThreshold
+     *            The size threshold in bytes for when to use multi-part
+     *            downloads.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the size in bytes of each byte range fetched by a multi-part
+     * download.
+     *
+     * @return The size in bytes of each range of a multi-part download.
+     */
+    public long getMultipartDownloadPartSize() {
+        return multipartDownloadPartSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range fetched by a multi-part
+     * download. Smaller parts make pausing and resuming finer grained, at the
+     * cost of a request per part.
+     *
+     * @param multipartDownloadPartSize
+     *            The size in bytes of each range of a multi-part download.
+     */
+    public void setMultipartDownloadPartSize(long multipartDownloadPartSize) {
+        this.multipartDownloadPartSize = multipartDownloadPartSize;
+    }
+
+    /**
+     * Returns the total size in bytes of the part buffers that a multipart
+     * upload from an input stream may read ahead into, so that its parts are
+     * uploaded concurrently. By default stream uploads don't buffer, and send
+     * their parts one at a time.
+     *
+     * @return The total size in bytes of the part buffers of a multipart
+     *         upload from an input stream.
+     */
+    public long getStreamUploadBufferSize() {
+        return streamUploadBufferSize;
+    }
+
+    /**
+     * Sets the total size in bytes of the part buffers that a multipart
+     * upload from an input stream may read ahead into. The stream is read
+     * into reusable buffers of one part each, and the buffered parts are
+     * uploaded concurrently on the transfer manager's thread pool. Once every
+     * buffer is in use, reading from the stream waits until a part has been
+     * uploaded.
+     * <p>
+     * Parallel stream uploads need room for at least two parts; with less,
+     * the parts are uploaded one at a time straight from the stream. Uploads
+     * through an encryption client in authenticated encryption mode are
+     * buffered and uploaded in parallel like any other, but those in
+     * {@link com.amazonaws.services.s3.model.CryptoMode#EncryptionOnly
+     * EncryptionOnly} mode, whose AES/CBC parts must be encrypted in order,
+     * stay serial. The buffers are allocated for each upload, so the memory
+     * used grows with the number of concurrent stream uploads.
+     *
+     * @param streamUploadBufferSize
+     *            The total size in bytes of the part buffers of a multipart
+     *            upload from an input stream.
+     */
+    public void setStreamUploadBufferSize(long streamUploadBufferSize) {
+        this.streamUploadBufferSize = streamUploadBufferSize;
+    }
+}
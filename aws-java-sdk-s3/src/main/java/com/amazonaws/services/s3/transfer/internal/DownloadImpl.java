@@ -35,12 +35,23 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private final PersistableDownload persistableDownload;
 
+    /**
+     * The state of a multi-part download, or null if the object is
+     * downloaded over a single connection.
+     */
+    private DownloadPartTracker partTracker;
+
+    private final GetObjectRequest getObjectRequest;
+    private final File file;
+
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
             TransferStateChangeListener listener,
             GetObjectRequest getObjectRequest, File file) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
         this.persistableDownload = captureDownloadState(getObjectRequest, file);
         S3ProgressPublisher.publishTransferPersistable(progressListenerChain,
                 persistableDownload);
@@ -82,7 +93,9 @@ public class DownloadImpl extends AbstractTransfer implements Download {
 
         this.monitor.getFuture().cancel(true);
 
-        if ( s3Object != null ) {
+        if ( partTracker != null ) {
+            partTracker.cancel();
+        } else if ( s3Object != null ) {
               s3Object.getObjectContent().abort();
         }
         setState(TransferState.Canceled);
@@ -95,6 +108,9 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     public synchronized void abortWithoutNotifyingStateChangeListener() throws IOException {
         this.monitor.getFuture().cancel(true);
+        if ( partTracker != null ) {
+            partTracker.cancel();
+        }
         this.state = TransferState.Canceled;
     }
 
@@ -105,6 +121,13 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         this.s3Object = s3Object;
     }
 
+    /**
+     * Set the state of the multi-part download of the object.
+     */
+    public synchronized void setPartTracker(DownloadPartTracker partTracker) {
+        this.partTracker = partTracker;
+    }
+
     /**
      * This method is also responsible for firing COMPLETED signal to the
      * listeners.
@@ -124,13 +147,24 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private PersistableDownload captureDownloadState(
             final GetObjectRequest getObjectRequest, final File file) {
+        return captureDownloadState(getObjectRequest, file, 0, null, null);
+    }
+
+    /**
+     * Same as above, but also captures the parts of a multi-part download
+     * that have been written to the file.
+     */
+    private PersistableDownload captureDownloadState(
+            final GetObjectRequest getObjectRequest, final File file,
+            long partSize, int[] completedParts, String eTag) {
         if (getObjectRequest.getSSECustomerKey() == null) {
             return new PersistableDownload(
                     getObjectRequest.getBucketName(),
                     getObjectRequest.getKey(), getObjectRequest.getVersionId(),
                     getObjectRequest.getRange(),
                     getObjectRequest.getResponseHeaders(),
-                    getObjectRequest.isRequesterPays(), file.getAbsolutePath());
+                    getObjectRequest.isRequesterPays(), file.getAbsolutePath(),
+                    partSize, completedParts, eTag);
         }
         return null;
     }
@@ -150,6 +184,16 @@ public class DownloadImpl extends AbstractTransfer implements Download {
             throw new PauseException(TransferManagerUtils.determinePauseStatus(
                     currentState, forceCancel));
         }
+        DownloadPartTracker tracker;
+        synchronized (this) {
+            tracker = partTracker;
+        }
+        if (tracker != null) {
+            tracker.cancel();
+            return captureDownloadState(getObjectRequest, file,
+                    tracker.getPartSize(), tracker.getCompletedParts(),
+                    tracker.getETag());
+        }
         return persistableDownload;
     }
 }
\ No newline at end of file
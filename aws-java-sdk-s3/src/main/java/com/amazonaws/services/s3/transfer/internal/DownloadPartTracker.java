@@ -0,0 +1,284 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.FileLocks;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.exception.FileLockException;
+
+/**
+ * Shared state of a multi-part download: the destination file that every part
+ * is written into at its own offset, the parts that have been written in full,
+ * and the part requests still in flight so that the download can be cancelled.
+ * <p>
+ * The destination file is locked from the creation of the tracker until it is
+ * closed or cancelled.
+ */
+@ThreadSafe
+public class DownloadPartTracker {
+    private static final Log log = LogFactory.getLog(DownloadPartTracker.class);
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final long contentLength;
+    private final long partSize;
+    private final int numberOfParts;
+    private final String eTag;
+
+    /** Parts written in full, indexed by part number minus one. */
+    private final BitSet completedParts;
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+    private final Set<S3Object> objectsInFlight = new HashSet<S3Object>();
+
+    private boolean started;
+    private boolean cancelled;
+    private boolean closed;
+
+    /**
+     * Locks and opens the destination file of a multi-part download.
+     *
+     * @param file
+     *            The file to download the object into.
+     * @param contentLength
+     *            The size of the object.
+     * @param partSize
+     *            The size of each byte range.
+     * @param eTag
+     *            The ETag of the object; every part is fetched only if the
+     *            object still has this ETag.
+     * @param completedParts
+     *            The parts already written into the file by a paused download,
+     *            or null to start a new download and truncate the file.
+     */
+    public DownloadPartTracker(File file, long contentLength, long partSize,
+            String eTag, int[] completedParts) {
+        if (partSize <= 0)
+            throw new IllegalArgumentException("Invalid part size: " + partSize);
+        long numberOfParts = (contentLength + partSize - 1) / partSize;
+        if (numberOfParts > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many parts for " + contentLength
+                    + " bytes with a part size of " + partSize);
+        this.file = file;
+        this.contentLength = contentLength;
+        this.partSize = partSize;
+        this.numberOfParts = (int) numberOfParts;
+        this.eTag = eTag;
+        this.completedParts = new BitSet(this.numberOfParts);
+        if (completedParts != null) {
+            for (int partNumber : completedParts) {
+                if (partNumber >= 1 && partNumber <= this.numberOfParts)
+                    this.completedParts.set(partNumber - 1);
+            }
+        }
+
+        File parentDirectory = file.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            if (!(parentDirectory.mkdirs())) {
+                throw new AmazonClientException(
+                        "Unable to create directory in the path"
+                                + parentDirectory.getAbsolutePath());
+            }
+        }
+        if (!FileLocks.lock(file)) {
+            throw new FileLockException("Fail to lock " + file
+                    + " for multi-part download");
+        }
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            if (completedParts == null)
+                randomAccessFile.setLength(0);
+            randomAccessFile.setLength(contentLength);
+        } catch (IOException e) {
+            FileLocks.unlock(file);
+            throw new AmazonClientException("Unable to open " + file
+                    + " for multi-part download: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the channel that the parts are written into with positional
+     * writes.
+     */
+    public FileChannel getChannel() {
+        return randomAccessFile.getChannel();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public int getNumberOfParts() {
+        return numberOfParts;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the offset of the first byte of the given part.
+     */
+    public long getPartOffset(int partNumber) {
+        return (partNumber - 1) * partSize;
+    }
+
+    /**
+     * Returns the number of bytes in the given part; only the last part may be
+     * shorter than the part size.
+     */
+    public long getPartLength(int partNumber) {
+        return Math.min(partSize, contentLength - getPartOffset(partNumber));
+    }
+
+    /**
+     * Returns true the first time it is called, so that the part that starts
+     * first can mark the whole download as in progress.
+     */
+    public synchronized boolean markStarted() {
+        if (started)
+            return false;
+        started = true;
+        return true;
+    }
+
+    public synchronized boolean isCompleted(int partNumber) {
+        return completedParts.get(partNumber - 1);
+    }
+
+    public synchronized void markCompleted(int partNumber) {
+        completedParts.set(partNumber - 1);
+    }
+
+    /**
+     * Returns the numbers of the parts written in full so far.
+     */
+    public synchronized int[] getCompletedParts() {
+        int[] parts = new int[completedParts.cardinality()];
+        int i = 0;
+        for (int index = completedParts.nextSetBit(0); index >= 0;
+                index = completedParts.nextSetBit(index + 1)) {
+            parts[i++] = index + 1;
+        }
+        return parts;
+    }
+
+    /**
+     * Returns the number of bytes of the parts written in full so far.
+     */
+    public synchronized long getCompletedBytes() {
+        long bytes = 0;
+        for (int index = completedParts.nextSetBit(0); index >= 0;
+                index = completedParts.nextSetBit(index + 1)) {
+            bytes += getPartLength(index + 1);
+        }
+        return bytes;
+    }
+
+    /**
+     * Records the future of a submitted part, so that it can be cancelled
+     * along with the download.
+     */
+    public synchronized void addFuture(Future<?> future) {
+        if (cancelled)
+            future.cancel(true);
+        else
+            futures.add(future);
+    }
+
+    /**
+     * Records an object whose content is being read. Returns false, after
+     * aborting the content, if the download has already been cancelled.
+     */
+    public boolean register(S3Object s3Object) {
+        synchronized (this) {
+            if (!cancelled) {
+                objectsInFlight.add(s3Object);
+                return true;
+            }
+        }
+        s3Object.getObjectContent().abort();
+        return false;
+    }
+
+    public synchronized void unregister(S3Object s3Object) {
+        objectsInFlight.remove(s3Object);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the parts still pending or in flight, aborts their connections
+     * and releases the destination file. The parts already written are kept,
+     * so that a paused download can resume from them.
+     */
+    public void cancel() {
+        List<Future<?>> pending;
+        List<S3Object> inFlight;
+        synchronized (this) {
+            if (cancelled)
+                return;
+            cancelled = true;
+            pending = new ArrayList<Future<?>>(futures);
+            inFlight = new ArrayList<S3Object>(objectsInFlight);
+        }
+        for (Future<?> future : pending) {
+            future.cancel(true);
+        }
+        for (S3Object s3Object : inFlight) {
+            s3Object.getObjectContent().abort();
+        }
+        close();
+    }
+
+    /**
+     * Closes and unlocks the destination file. Safe to call more than once.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            log.debug("Unable to close " + file, e);
+        } finally {
+            FileLocks.unlock(file);
+        }
+    }
+}
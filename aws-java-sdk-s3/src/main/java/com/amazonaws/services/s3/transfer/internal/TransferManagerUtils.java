@@ -22,6 +22,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.transfer.PauseStatus;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
@@ -56,21 +57,51 @@ public class TransferManagerUtils {
      *
      * @param putObjectRequest
      *            The request to check.
-     * @param isUsingEncryption
-     *            True if the upload is an encrypted upload, otherwise false.
+     * @param isEncryptedInSeries
+     *            True if the upload is an encrypted upload whose parts must be
+     *            encrypted in series, otherwise false.
      *
      * @return True if this request can use parallel part uploads for faster
      *         uploads.
      */
-    public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final boolean isUsingEncryption) {
-        // Each uploaded part in an encrypted upload depends on the encryption context
-        // from the previous upload, so we cannot parallelize encrypted upload parts.
-        if (isUsingEncryption) return false;
+    public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final boolean isEncryptedInSeries) {
+        // Each uploaded part in such an encrypted upload depends on the encryption context
+        // from the previous upload, so we cannot parallelize its upload parts.
+        if (isEncryptedInSeries) return false;
 
         // Otherwise, if there's a file, we can process the uploads concurrently.
         return (getRequestFile(putObjectRequest) != null);
     }
 
+    /**
+     * Returns true if the parts of the specified upload from an input stream
+     * can be buffered and uploaded in parallel for increased performance.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param configuration
+     *            Configuration containing the memory for part buffers.
+     * @param partSize
+     *            The size of each part of the upload.
+     * @param isEncryptedInSeries
+     *            True if the upload is an encrypted upload whose parts must be
+     *            encrypted in series, otherwise false.
+     *
+     * @return True if the parts of this request can be buffered and uploaded
+     *         in parallel.
+     */
+    public static boolean isStreamUploadParallelizable(final PutObjectRequest putObjectRequest,
+            final TransferManagerConfiguration configuration, final long partSize,
+            final boolean isEncryptedInSeries) {
+        // Such encrypted parts must be uploaded in order, see above.
+        if (isEncryptedInSeries) return false;
+        if (getRequestFile(putObjectRequest) != null || putObjectRequest.getInputStream() == null) return false;
+
+        // A part must fit in an array, and there must be room for at least two.
+        return partSize <= Integer.MAX_VALUE
+            && configuration.getStreamUploadBufferSize() / partSize >= 2;
+    }
+
     /**
      * Returns the size of the data in this request, otherwise -1 if the content
      * length is unknown.
@@ -164,6 +195,70 @@ public class TransferManagerUtils {
                 configuration.getMultipartCopyPartSize());
     }
 
+    /**
+     * Returns true if the specified download request can be split into byte
+     * ranges that are fetched in parallel. Only whole-object downloads without
+     * matching constraints qualify, and only through a client that returns the
+     * stored bytes as they are.
+     *
+     * @param getObjectRequest
+     *            The request to check.
+     * @param isUsingEncryption
+     *            True if the download is decrypted on the client, otherwise
+     *            false.
+     *
+     * @return True if this request can use parallel ranged gets.
+     */
+    public static boolean isDownloadParallelizable(final GetObjectRequest getObjectRequest, final boolean isUsingEncryption) {
+        // Decrypting a range depends on the data before it, so encrypted
+        // objects are read over a single connection.
+        if (isUsingEncryption) return false;
+
+        return getObjectRequest.getRange() == null
+            && getObjectRequest.getMatchingETagConstraints().isEmpty()
+            && getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+            && getObjectRequest.getModifiedSinceConstraint() == null
+            && getObjectRequest.getUnmodifiedSinceConstraint() == null;
+    }
+
+    /**
+     * Returns true if an object of the specified size should be downloaded in
+     * parallel byte ranges (instead of over a single connection).
+     *
+     * @param contentLength
+     *            The size of the object to download.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     *
+     * @return True if the object should be downloaded in parts.
+     */
+    public static boolean shouldUseMultipartDownload(long contentLength, TransferManagerConfiguration configuration) {
+        return contentLength > 0
+            && configuration.getMultipartDownloadPartSize() > 0
+            && contentLength >= configuration.getMultipartDownloadThreshold();
+    }
+
+    /**
+     * Returns the size, in bytes, of each byte range of a multi-part download
+     * of an object of the specified size; the configured part size is raised
+     * for very large objects to bound the number of parts.
+     *
+     * @param configuration
+     *            configuration containing the default part size.
+     * @param contentLength
+     *            content length of the Amazon S3 object.
+     * @return the part size for the download.
+     */
+    public static long calculateOptimalPartSizeForDownload(
+            TransferManagerConfiguration configuration, long contentLength) {
+        double optimalPartSize = (double) contentLength
+                / (double) MAXIMUM_UPLOAD_PARTS;
+        optimalPartSize = Math.ceil(optimalPartSize);
+        return (long) Math.max(optimalPartSize,
+                configuration.getMultipartDownloadPartSize());
+    }
+
     /**
      * Determines the pause status based on the current state of transfer.
      */
@@ -16,23 +16,29 @@ package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
@@ -171,20 +177,31 @@ public class UploadCallable implements Callable<UploadResult> {
      */
     private UploadResult uploadInParts() throws Exception {
         boolean isUsingEncryption = s3 instanceof AmazonS3Encryption;
+        // Unless the client can encrypt the parts independently, they must
+        // be encrypted and uploaded in series
+        boolean isEncryptedConcurrently = s3 instanceof AmazonS3EncryptionClient
+                && ((AmazonS3EncryptionClient) s3).isConcurrentPartUploadSupported();
+        boolean isEncryptedInSeries = isUsingEncryption && !isEncryptedConcurrently;
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
 
         try {
             if (multipartUploadId == null) {
                 multipartUploadId = initiateMultipartUpload(origReq,
-                        isUsingEncryption);
+                        isUsingEncryption, isEncryptedConcurrently ? optimalPartSize : 0);
             }
 
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(origReq, multipartUploadId, optimalPartSize);
 
-            if (TransferManagerUtils.isUploadParallelizable(origReq, isUsingEncryption)) {
-                captureUploadStateIfPossible();
+            if (TransferManagerUtils.isUploadParallelizable(origReq, isEncryptedInSeries)) {
+                // The encryption context of an upload can't be resumed
+                if (!isUsingEncryption)
+                    captureUploadStateIfPossible();
                 uploadPartsInParallel(requestFactory, multipartUploadId);
                 return null;
+            } else if (TransferManagerUtils.isStreamUploadParallelizable(
+                    origReq, configuration, optimalPartSize, isEncryptedInSeries)) {
+                uploadStreamPartsInParallel(requestFactory, optimalPartSize);
+                return null;
             } else {
                 return uploadPartsInSeries(requestFactory);
             }
@@ -294,6 +311,100 @@ public class UploadCallable implements Callable<UploadResult> {
         }
     }
 
+    /**
+     * Reads the parts of a stream upload into buffers from a bounded pool and
+     * submits a callable for each buffered part to our thread pool, recording
+     * its corresponding Future. When every buffer is in use, this thread
+     * uploads one of its parts still queued on the pool itself, or else waits
+     * for a part to finish, so reading never gets ahead of the memory budget
+     * and never depends on a free pool thread.
+     */
+    private void uploadStreamPartsInParallel(UploadPartRequestFactory requestFactory,
+            long partSize) throws InterruptedException {
+        int maxBuffers = (int) Math.min(requestFactory.getTotalNumberOfParts(),
+                configuration.getStreamUploadBufferSize() / partSize);
+        UploadPartBufferPool bufferPool = new UploadPartBufferPool((int) partSize, maxBuffers);
+        LinkedList<FutureTask<PartETag>> queuedParts = new LinkedList<FutureTask<PartETag>>();
+
+        while (requestFactory.hasMoreRequests()) {
+            if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+            UploadPartRequest request = requestFactory.getNextUploadPartRequest();
+
+            byte[] buffer;
+            while ((buffer = bufferPool.poll()) == null) {
+                FutureTask<PartETag> queuedPart = queuedParts.poll();
+                if (queuedPart == null) {
+                    buffer = bufferPool.take();
+                    break;
+                }
+                // Does nothing if a pool thread has already started the part
+                queuedPart.run();
+            }
+
+            int length = readPart(request, buffer);
+            request.setInputStream(new ByteArrayInputStream(buffer, 0, length));
+            FutureTask<PartETag> part = new FutureTask<PartETag>(
+                    new BufferedUploadPartCallable(s3, request, bufferPool, buffer));
+            futures.add(part);
+            queuedParts.add(part);
+            threadPool.execute(part);
+        }
+    }
+
+    /**
+     * Reads the content of the given part from the stream into the buffer and
+     * returns its length.
+     */
+    private static int readPart(UploadPartRequest request, byte[] buffer) {
+        InputStream in = request.getInputStream();
+        int length = (int) request.getPartSize();
+        int offset = 0;
+        try {
+            while (offset < length) {
+                int bytesRead = in.read(buffer, offset, length - offset);
+                if (bytesRead == -1) break;
+                offset += bytesRead;
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to read part "
+                    + request.getPartNumber() + " from the input stream: "
+                    + e.getMessage(), e);
+        }
+        if (offset < length) {
+            throw new AmazonClientException("The input stream ended after "
+                    + offset + " bytes of part " + request.getPartNumber()
+                    + ", which should have " + length + " bytes");
+        }
+        return length;
+    }
+
+    /**
+     * Uploads a part from a pooled buffer, and hands the buffer back once the
+     * part has been sent.
+     */
+    private static class BufferedUploadPartCallable implements Callable<PartETag> {
+        private final AmazonS3 s3;
+        private final UploadPartRequest request;
+        private final UploadPartBufferPool bufferPool;
+        private final byte[] buffer;
+
+        BufferedUploadPartCallable(AmazonS3 s3, UploadPartRequest request,
+                UploadPartBufferPool bufferPool, byte[] buffer) {
+            this.s3 = s3;
+            this.request = request;
+            this.bufferPool = bufferPool;
+            this.buffer = buffer;
+        }
+
+        public PartETag call() throws Exception {
+            try {
+                return s3.uploadPart(request).getPartETag();
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
     private Map<Integer, PartSummary> identifyExistingPartsForResume(
             String uploadId) {
         Map<Integer, PartSummary> partNumbers = new HashMap<Integer, PartSummary>();
@@ -320,16 +431,25 @@ public class UploadCallable implements Callable<UploadResult> {
     /**
      * Initiates a multipart upload and returns the upload id
      * @param isUsingEncryption
+     * @param encryptedPartSize
+     *            the part size, if the parts are to be encrypted independently
+     *            so they can be uploaded concurrently; otherwise zero
      */
-    private String initiateMultipartUpload(PutObjectRequest origReq, boolean isUsingEncryption) {
+    private String initiateMultipartUpload(PutObjectRequest origReq, boolean isUsingEncryption,
+            long encryptedPartSize) {
 
         InitiateMultipartUploadRequest req = null;
-        if (isUsingEncryption && origReq instanceof EncryptedPutObjectRequest) {
-            req = new EncryptedInitiateMultipartUploadRequest(
-                    origReq.getBucketName(), origReq.getKey()).withCannedACL(
-                    origReq.getCannedAcl()).withObjectMetadata(origReq.getMetadata());
-            ((EncryptedInitiateMultipartUploadRequest) req)
-                    .setMaterialsDescription(((EncryptedPutObjectRequest) origReq).getMaterialsDescription());
+        if (isUsingEncryption && (origReq instanceof EncryptedPutObjectRequest
+                || encryptedPartSize > 0)) {
+            EncryptedInitiateMultipartUploadRequest cryptoReq =
+                new EncryptedInitiateMultipartUploadRequest(
+                    origReq.getBucketName(), origReq.getKey()).withPartSize(encryptedPartSize);
+            if (origReq instanceof EncryptedPutObjectRequest) {
+                cryptoReq.setMaterialsDescription(
+                        ((EncryptedPutObjectRequest) origReq).getMaterialsDescription());
+            }
+            req = cryptoReq.withCannedACL(origReq.getCannedAcl())
+                .withObjectMetadata(origReq.getMetadata());
         } else {
             req = new InitiateMultipartUploadRequest(origReq.getBucketName(), origReq.getKey())
                 .withCannedACL(origReq.getCannedAcl())
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2015 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A bounded pool of reusable part buffers for a multipart upload from an input
+ * stream. Buffers are allocated on demand, up to the maximum number, and handed
+ * back once their part has been uploaded.
+ */
+@ThreadSafe
+class UploadPartBufferPool {
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final Deque<byte[]> freeBuffers = new ArrayDeque<byte[]>();
+    private int allocatedBuffers;
+
+    /**
+     * @param bufferSize
+     *            The size of each buffer, i.e. the part size.
+     * @param maxBuffers
+     *            The maximum number of buffers in use at any time.
+     */
+    UploadPartBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * Returns a free buffer, or null if every buffer is in use.
+     */
+    synchronized byte[] poll() {
+        if (!freeBuffers.isEmpty())
+            return freeBuffers.pop();
+        if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return new byte[bufferSize];
+        }
+        return null;
+    }
+
+    /**
+     * Returns a free buffer, waiting for one to be released if every buffer is
+     * in use.
+     */
+    synchronized byte[] take() throws InterruptedException {
+        byte[] buffer;
+        while ((buffer = poll()) == null) {
+            wait();
+        }
+        return buffer;
+    }
+
+    /**
+     * Hands back a buffer whose part is no longer needed.
+     */
+    synchronized void release(byte[] buffer) {
+        freeBuffers.push(buffer);
+        notifyAll();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.amazonaws.services.s3.model.CryptoConfiguration;
+
+/**
+ * Measures the throughput and allocation of encrypting and decrypting through
+ * a {@link CipherLiteInputStream} with AES/GCM and AES/CBC, at a range of the
+ * buffer sizes allowed by {@link CryptoConfiguration#setBufferSize(int)}, so
+ * that its 2K default can be checked again on new JVMs and providers. Not run
+ * as part of the build; run its main method on a quiet machine, with the
+ * number of megabytes to process and the name of the JCE provider as optional
+ * arguments. The provider defaults to SunJCE, as Bouncy Castle, which the
+ * encryption client prefers for AES/GCM, isn't a dependency of the SDK.
+ * Allocation is only reported on JVMs exposing per-thread allocated bytes.
+ */
+public class CipherLiteInputStreamBenchmark {
+    private static final int[] BUFFER_SIZES = {
+        512, 1024, 2048, 4096, 8192, 16384, 65536,
+    };
+
+    /** Defeats dead code elimination. */
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        String provider = args.length > 1 ? args[1] : "SunJCE";
+
+        Random random = new Random(42);
+        byte[] key = new byte[32];
+        byte[] iv = new byte[16];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        SecretKey cek = new SecretKeySpec(key, "AES");
+        byte[] plaintext = new byte[megabytes << 20];
+        random.nextBytes(plaintext);
+
+        for (ContentCryptoScheme scheme : new ContentCryptoScheme[] {
+                ContentCryptoScheme.AES_GCM, ContentCryptoScheme.AES_CBC }) {
+            byte[] schemeIv = new byte[scheme.getIVLengthInBytes()];
+            System.arraycopy(iv, 0, schemeIv, 0, schemeIv.length);
+            byte[] ciphertext = new byte[plaintext.length + 32];
+            ciphertext = Arrays.copyOf(ciphertext, process(newCipherLite(scheme,
+                    cek, schemeIv, Cipher.ENCRYPT_MODE, provider), plaintext,
+                    ciphertext, 2048));
+            boolean decrypt = streamsDecryption(scheme, cek, schemeIv, provider);
+            if (!decrypt) {
+                System.out.println(scheme.getCipherAlgorithm() + " decrypt: "
+                        + provider + " holds back the plaintext until the end,"
+                        + " so it can't be streamed; skipped");
+            }
+
+            for (int round = 0; round < 3; round++) {
+                for (int bufferSize : BUFFER_SIZES) {
+                    run(scheme, "encrypt", Cipher.ENCRYPT_MODE, cek, schemeIv,
+                            provider, plaintext, bufferSize);
+                    if (decrypt) {
+                        run(scheme, "decrypt", Cipher.DECRYPT_MODE, cek, schemeIv,
+                                provider, ciphertext, bufferSize);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(ContentCryptoScheme scheme, String name,
+            int cipherMode, SecretKey cek, byte[] iv, String provider,
+            byte[] input, int bufferSize) throws Exception {
+        CipherLite cipherLite = newCipherLite(scheme, cek, iv, cipherMode, provider);
+        byte[] output = new byte[input.length + 32];
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        int length = process(cipherLite, input, output, bufferSize);
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        sink += output[length - 1];
+
+        double megabytes = input.length / (double) (1 << 20);
+        System.out.println(scheme.getCipherAlgorithm() + " " + name + ", "
+                + bufferSize + " B buffer: "
+                + (long) (megabytes * 1000000000L / nanos) + " MB/s"
+                + (bytesBefore < 0 ? "" : ", " + (long) (bytes / megabytes) + " B/MB"));
+    }
+
+    /**
+     * Reads the given input through a cipher stream with the given buffer
+     * size into the given output, and returns the number of bytes read.
+     */
+    private static int process(CipherLite cipherLite, byte[] input,
+            byte[] output, int bufferSize) throws IOException {
+        InputStream in = new CipherLiteInputStream(
+                new ByteArrayInputStream(input), cipherLite, bufferSize);
+        try {
+            int length = 0;
+            for (int n; (n = in.read(output, length,
+                    Math.min(bufferSize, output.length - length))) != -1;) {
+                length += n;
+            }
+            return length;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns true if the provider's cipher returns plaintext as it decrypts,
+     * rather than only once the tag has been checked at the end, as SunJCE
+     * does for AES/GCM.
+     */
+    private static boolean streamsDecryption(ContentCryptoScheme scheme,
+            SecretKey cek, byte[] iv, String provider) throws Exception {
+        byte[] output = newCipherLite(scheme, cek, iv, Cipher.DECRYPT_MODE,
+                provider).update(new byte[4096], 0, 4096);
+        return output != null && output.length > 0;
+    }
+
+    private static CipherLite newCipherLite(ContentCryptoScheme scheme,
+            SecretKey cek, byte[] iv, int cipherMode, String provider)
+            throws Exception {
+        Cipher cipher = Cipher.getInstance(scheme.getCipherAlgorithm(), provider);
+        AlgorithmParameterSpec spec = scheme == ContentCryptoScheme.AES_GCM
+                ? new GCMParameterSpec(scheme.getTagLengthInBits(), iv)
+                : new IvParameterSpec(iv);
+        cipher.init(cipherMode, cek, spec);
+        return scheme.newCipherLite(cipher, cek, cipherMode);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * unsupported.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
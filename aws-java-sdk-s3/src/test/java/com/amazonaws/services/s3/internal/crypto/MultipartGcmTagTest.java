@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * Checks the tags and part ciphertexts of {@link MultipartGcmTag} against
+ * the AES/GCM cipher of the SunJCE provider, so that Bouncy Castle isn't
+ * needed.
+ */
+public class MultipartGcmTagTest {
+
+    private static final int TAG_LENGTH = 16;
+
+    /** Test Case 3 of the GCM specification, which has no additional data. */
+    @Test
+    public void testSpecificationTestCase3() throws Exception {
+        byte[] key = BinaryUtils.fromHex("feffe9928665731c6d6a8f9467308308");
+        byte[] iv = BinaryUtils.fromHex("cafebabefacedbaddecaf888");
+        byte[] plaintext = BinaryUtils.fromHex(
+                "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d8a318a72"
+              + "1c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b391aafd255");
+        byte[] expected = BinaryUtils.fromHex(
+                "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e"
+              + "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091473f5985"
+              + "4d5c2af327cd64a62cf35abd2ba6fab4");
+
+        for (int partSize = 16; partSize <= 64; partSize += 16) {
+            assertArrayEquals("part size " + partSize, expected,
+                    encryptInParts(key, iv, plaintext, partSize));
+        }
+    }
+
+    @Test
+    public void testMatchesSunJce() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            byte[] key = new byte[16];
+            byte[] iv = new byte[12];
+            random.nextBytes(key);
+            random.nextBytes(iv);
+            int partSize = GHash.BLOCK_SIZE * (1 + random.nextInt(32));
+            // Up to five parts, the last of which may be full or partial
+            byte[] plaintext = new byte[1 + random.nextInt(5 * partSize)];
+            random.nextBytes(plaintext);
+
+            assertArrayEquals("case " + i + ": partSize=" + partSize
+                    + ", length=" + plaintext.length,
+                    encrypt(key, iv, plaintext),
+                    encryptInParts(key, iv, plaintext, partSize));
+        }
+    }
+
+    @Test
+    public void testPartsRecordedInAnyOrder() throws Exception {
+        Random random = new Random(7);
+        byte[] key = new byte[16];
+        byte[] iv = new byte[12];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        int partSize = 64;
+        byte[] plaintext = new byte[4 * partSize + 5];
+        random.nextBytes(plaintext);
+        byte[] expected = encrypt(key, iv, plaintext);
+
+        MultipartGcmTag gcmTag = new MultipartGcmTag(encryptCipher(key, iv), partSize);
+        for (int partNumber : new int[] { 3, 1, 4, 2 }) {
+            recordPart(gcmTag, plaintext, partNumber, partSize, false);
+        }
+        byte[] tag = recordPart(gcmTag, plaintext, 5, partSize, true);
+
+        assertArrayEquals(Arrays.copyOfRange(expected, expected.length - TAG_LENGTH,
+                expected.length), tag);
+    }
+
+    /**
+     * Returns the ciphertext and tag of the given plaintext as computed by
+     * SunJCE.
+     */
+    private static byte[] encrypt(byte[] key, byte[] iv, byte[] plaintext)
+            throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding", "SunJCE");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"),
+                new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        return cipher.doFinal(plaintext);
+    }
+
+    private static CipherLite encryptCipher(byte[] key, byte[] iv) throws Exception {
+        SecretKey secretKey = new SecretKeySpec(key, "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding", "SunJCE");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey,
+                new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        return new CipherLite(cipher, ContentCryptoScheme.AES_GCM, secretKey,
+                Cipher.ENCRYPT_MODE);
+    }
+
+    /**
+     * Returns the ciphertext of the given plaintext encrypted part by part,
+     * followed by the tag computed from the hashes of the parts.
+     */
+    private static byte[] encryptInParts(byte[] key, byte[] iv, byte[] plaintext,
+            int partSize) throws Exception {
+        MultipartGcmTag gcmTag = new MultipartGcmTag(encryptCipher(key, iv), partSize);
+        int parts = (plaintext.length + partSize - 1) / partSize;
+        byte[] result = new byte[plaintext.length + TAG_LENGTH];
+        for (int partNumber = 1; partNumber <= parts; partNumber++) {
+            boolean lastPart = partNumber == parts;
+            int offset = (partNumber - 1) * partSize;
+            int length = Math.min(partSize, plaintext.length - offset);
+            byte[] ciphertext = gcmTag.cipherLiteForPart(partNumber, length)
+                    .doFinal(plaintext, offset, length);
+            System.arraycopy(ciphertext, 0, result, offset, length);
+            GHash.Digest digest = gcmTag.getGHash().newDigest();
+            digest.update(ciphertext, 0, ciphertext.length);
+            if (lastPart) {
+                byte[] tag = gcmTag.lastPartRead(partNumber, length, digest.finish());
+                System.arraycopy(tag, 0, result, plaintext.length, TAG_LENGTH);
+            } else {
+                gcmTag.partRead(partNumber, length, digest.finish());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encrypts and hashes the given part, feeding the ciphertext to the digest
+     * a few bytes at a time, and returns the tag if it is the last part.
+     */
+    private static byte[] recordPart(MultipartGcmTag gcmTag, byte[] plaintext,
+            int partNumber, int partSize, boolean lastPart) throws Exception {
+        int offset = (partNumber - 1) * partSize;
+        int length = Math.min(partSize, plaintext.length - offset);
+        byte[] ciphertext = gcmTag.cipherLiteForPart(partNumber, length)
+                .doFinal(plaintext, offset, length);
+        GHash.Digest digest = gcmTag.getGHash().newDigest();
+        for (int pos = 0; pos < ciphertext.length; pos += 7) {
+            digest.update(ciphertext, pos, Math.min(7, ciphertext.length - pos));
+        }
+        if (lastPart)
+            return gcmTag.lastPartRead(partNumber, length, digest.finish());
+        gcmTag.partRead(partNumber, length, digest.finish());
+        return null;
+    }
+}
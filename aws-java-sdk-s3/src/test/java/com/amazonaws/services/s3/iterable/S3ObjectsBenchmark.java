@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Compares the time to walk the keys under a prefix, and to get the first of
+ * them, with the lazy {@link S3Objects} iterator and with prefetching, with
+ * and without prefix discovery. The keys are listed by a fake client that
+ * waits a fixed latency on every page, so the walk is bound by listing
+ * latency as it is against a large bucket. Each walk is checked to return
+ * the keys in the same order as the lazy one. Not run as part of the build;
+ * run its main method, with the page latency in milliseconds, the number of
+ * keys, the batch size and the number of pages ahead and of concurrent
+ * prefixes as optional arguments.
+ */
+public class S3ObjectsBenchmark {
+    private static final String BUCKET = "bucket";
+    private static final String PREFIX = "logs/";
+
+    public static void main(String[] args) throws Exception {
+        long latency = args.length > 0 ? Long.parseLong(args[0]) : 20;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 1142;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int pagesAhead = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int prefixes = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+
+        AmazonS3 s3 = fakeS3(keys(keys), latency);
+        ExecutorService executor = Executors.newFixedThreadPool(2 * prefixes);
+        try {
+            List<String> expected = null;
+            for (int round = 0; round < 2; round++) {
+                expected = run("lazy", S3Objects.withPrefix(s3, BUCKET, PREFIX)
+                        .withBatchSize(batchSize), null);
+                run("prefetch", S3Objects.withPrefix(s3, BUCKET, PREFIX)
+                        .withBatchSize(batchSize)
+                        .withPrefetch(executor, pagesAhead, prefixes), expected);
+                run("prefetch, discovery", S3Objects.withPrefix(s3, BUCKET, PREFIX)
+                        .withBatchSize(batchSize)
+                        .withPrefixDiscovery("/")
+                        .withPrefetch(executor, pagesAhead, prefixes), expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<String> run(String name, S3Objects objects,
+            List<String> expected) {
+        List<String> walked = new ArrayList<String>();
+        long start = System.nanoTime();
+        long first = -1;
+        for (S3ObjectSummary summary : objects) {
+            if (first < 0) {
+                first = System.nanoTime() - start;
+            }
+            walked.add(summary.getKey());
+        }
+        long nanos = System.nanoTime() - start;
+        if (expected != null && !expected.equals(walked)) {
+            throw new IllegalStateException(name + " walked the keys out of order");
+        }
+        System.out.println(name + ": " + walked.size() + " keys in "
+                + nanos / 1000000 + " ms, first after " + first / 1000000 + " ms");
+        return walked;
+    }
+
+    /**
+     * Returns the given number of keys, sorted, spread over a month of daily
+     * prefixes, with a couple directly under the top prefix.
+     */
+    private static String[] keys(int count) {
+        String[] keys = new String[count];
+        keys[0] = PREFIX + "README";
+        if (count > 1) {
+            keys[1] = PREFIX + "index.html";
+        }
+        for (int i = 2; i < count; i++) {
+            keys[i] = String.format("%s2015-10-%02d/part-%05d", PREFIX, 1 + i % 30, i);
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Returns a client that lists the given sorted keys, waiting the given
+     * latency on every page, and supports nothing else.
+     */
+    private static AmazonS3 fakeS3(final String[] keys, final long latency) {
+        return (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(),
+                new Class<?>[] { AmazonS3.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+                    throws Throwable {
+                Thread.sleep(latency);
+                if (method.getName().equals("listObjects")
+                        && args[0] instanceof ListObjectsRequest) {
+                    ListObjectsRequest request = (ListObjectsRequest) args[0];
+                    return list(keys, request.getPrefix(), request.getDelimiter(),
+                            request.getMarker(), request.getMaxKeys());
+                }
+                if (method.getName().equals("listNextBatchOfObjects")
+                        && args[0] instanceof ObjectListing) {
+                    ObjectListing previous = (ObjectListing) args[0];
+                    return list(keys, previous.getPrefix(), previous.getDelimiter(),
+                            previous.getNextMarker(), previous.getMaxKeys());
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ObjectListing list(String[] keys, String prefix,
+            String delimiter, String marker, Integer maxKeys) {
+        if (prefix == null) {
+            prefix = "";
+        }
+        // The keys after the marker, or from the prefix on
+        boolean afterMarker = marker != null && marker.compareTo(prefix) >= 0;
+        int i = Arrays.binarySearch(keys, afterMarker ? marker : prefix);
+        i = i < 0 ? -i - 1 : (afterMarker ? i + 1 : i);
+
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(BUCKET);
+        listing.setPrefix(prefix);
+        listing.setDelimiter(delimiter);
+        listing.setMaxKeys(maxKeys == null ? 1000 : maxKeys);
+        List<String> commonPrefixes = new ArrayList<String>();
+        int entries = 0;
+        for (; i < keys.length && keys[i].startsWith(prefix)
+                && entries < listing.getMaxKeys(); i++, entries++) {
+            int end = delimiter == null ? -1 : keys[i].indexOf(delimiter, prefix.length());
+            if (end < 0) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(BUCKET);
+                summary.setKey(keys[i]);
+                listing.getObjectSummaries().add(summary);
+            } else {
+                String commonPrefix = keys[i].substring(0, end + delimiter.length());
+                commonPrefixes.add(commonPrefix);
+                while (i + 1 < keys.length && keys[i + 1].startsWith(commonPrefix)) {
+                    i++;
+                }
+            }
+            listing.setNextMarker(keys[i]);
+        }
+        listing.setCommonPrefixes(commonPrefixes);
+        listing.setTruncated(i < keys.length && keys[i].startsWith(prefix));
+        return listing;
+    }
+}
@@ -22,6 +22,8 @@ import com.amazonaws.services.simpleworkflow.AmazonSimpleWorkflow;
 import com.amazonaws.services.simpleworkflow.flow.generic.ActivityImplementation;
 import com.amazonaws.services.simpleworkflow.flow.pojo.POJOActivityImplementationFactory;
 import com.amazonaws.services.simpleworkflow.flow.worker.GenericActivityWorker;
+import com.amazonaws.services.simpleworkflow.flow.worker.GenericWorker;
+import com.amazonaws.services.simpleworkflow.flow.worker.PollerStatisticsMBean;
 import com.amazonaws.services.simpleworkflow.model.ActivityType;
 
 public class ActivityWorker implements WorkerBase {
@@ -228,6 +230,46 @@ public class ActivityWorker implements WorkerBase {
         genericWorker.setPollThreadCount(threadCount);
     }
 
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public boolean isAdaptivePolling() {
+        return genericWorker.isAdaptivePolling();
+    }
+
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public void setAdaptivePolling(boolean adaptivePolling) {
+        genericWorker.setAdaptivePolling(adaptivePolling);
+    }
+
+    public int getMinimumPollThreadCount() {
+        return genericWorker.getMinimumPollThreadCount();
+    }
+
+    /**
+     * @see GenericWorker#setMinimumPollThreadCount(int)
+     */
+    public void setMinimumPollThreadCount(int minimumPollThreadCount) {
+        genericWorker.setMinimumPollThreadCount(minimumPollThreadCount);
+    }
+
+    public boolean isRegisterPollerMBean() {
+        return genericWorker.isRegisterPollerMBean();
+    }
+
+    /**
+     * @see GenericWorker#setRegisterPollerMBean(boolean)
+     */
+    public void setRegisterPollerMBean(boolean registerPollerMBean) {
+        genericWorker.setRegisterPollerMBean(registerPollerMBean);
+    }
+
+    public PollerStatisticsMBean getPollerStatistics() {
+        return genericWorker.getPollerStatistics();
+    }
+
     @Override
     public void setDisableTypeRegistrationOnStart(boolean disableTypeRegistrationOnStart) {
         genericWorker.setDisableTypeRegistrationOnStart(disableTypeRegistrationOnStart);
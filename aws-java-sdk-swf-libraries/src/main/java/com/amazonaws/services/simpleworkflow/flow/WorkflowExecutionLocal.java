@@ -15,7 +15,9 @@
 package com.amazonaws.services.simpleworkflow.flow;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Contains value that is bound to a currently executing workflow. Has the same
@@ -54,6 +56,42 @@ public class WorkflowExecutionLocal<T> {
         }
     }
 
+    /**
+     * Same as {@link #before()}, but then restores the values saved at the end
+     * of an earlier decision of the same workflow execution by
+     * {@link #getValues()}, so that a decision can resume the workflow
+     * execution on a different thread. It is not a good idea to call this
+     * method from non framework code.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static void before(Map<WorkflowExecutionLocal<?>, Object> values) {
+        before();
+        for (Map.Entry<WorkflowExecutionLocal<?>, Object> entry : values.entrySet()) {
+            ((WorkflowExecutionLocal) entry.getKey()).set(entry.getValue());
+        }
+    }
+
+    /**
+     * Returns the values of all the workflow execution locals bound to the
+     * current decision, to be restored by {@link #before(Map)}. It is not a
+     * good idea to call this method from non framework code.
+     */
+    public static Map<WorkflowExecutionLocal<?>, Object> getValues() {
+        List<WorkflowExecutionLocal<?>> currentLocals;
+        synchronized (locals) {
+            currentLocals = new ArrayList<WorkflowExecutionLocal<?>>(locals);
+        }
+        // Identity, as hashCode() is that of the current value
+        Map<WorkflowExecutionLocal<?>, Object> values = new IdentityHashMap<WorkflowExecutionLocal<?>, Object>();
+        for (WorkflowExecutionLocal<?> local : currentLocals) {
+            Wrapper<?> w = local.value.get();
+            if (w != null) {
+                values.put(local, w.wrapped);
+            }
+        }
+        return values;
+    }
+
     /**
      * Must be called at the end of each decision. It is not a good idea to call
      * this method from non framework code for non testing scenarios.
@@ -25,6 +25,8 @@ import com.amazonaws.services.simpleworkflow.flow.DataConverter;
 import com.amazonaws.services.simpleworkflow.flow.WorkerBase;
 import com.amazonaws.services.simpleworkflow.flow.pojo.POJOActivityImplementationFactory;
 import com.amazonaws.services.simpleworkflow.flow.worker.GenericActivityWorker;
+import com.amazonaws.services.simpleworkflow.flow.worker.GenericWorker;
+import com.amazonaws.services.simpleworkflow.flow.worker.PollerStatisticsMBean;
 import com.amazonaws.services.simpleworkflow.model.ActivityType;
 
 public class SpringActivityWorker implements WorkerBase, SmartLifecycle {
@@ -160,6 +162,46 @@ public class SpringActivityWorker implements WorkerBase, SmartLifecycle {
     public void setPollThreadCount(int threadCount) {
         genericWorker.setPollThreadCount(threadCount);
     }
+
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public boolean isAdaptivePolling() {
+        return genericWorker.isAdaptivePolling();
+    }
+
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public void setAdaptivePolling(boolean adaptivePolling) {
+        genericWorker.setAdaptivePolling(adaptivePolling);
+    }
+
+    public int getMinimumPollThreadCount() {
+        return genericWorker.getMinimumPollThreadCount();
+    }
+
+    /**
+     * @see GenericWorker#setMinimumPollThreadCount(int)
+     */
+    public void setMinimumPollThreadCount(int minimumPollThreadCount) {
+        genericWorker.setMinimumPollThreadCount(minimumPollThreadCount);
+    }
+
+    public boolean isRegisterPollerMBean() {
+        return genericWorker.isRegisterPollerMBean();
+    }
+
+    /**
+     * @see GenericWorker#setRegisterPollerMBean(boolean)
+     */
+    public void setRegisterPollerMBean(boolean registerPollerMBean) {
+        genericWorker.setRegisterPollerMBean(registerPollerMBean);
+    }
+
+    public PollerStatisticsMBean getPollerStatistics() {
+        return genericWorker.getPollerStatistics();
+    }
     
     public int getTaskExecutorThreadPoolSize() {
         return genericWorker.getTaskExecutorThreadPoolSize();
@@ -22,7 +22,9 @@ import org.springframework.context.SmartLifecycle;
 import com.amazonaws.services.simpleworkflow.AmazonSimpleWorkflow;
 import com.amazonaws.services.simpleworkflow.flow.DataConverter;
 import com.amazonaws.services.simpleworkflow.flow.WorkerBase;
+import com.amazonaws.services.simpleworkflow.flow.worker.GenericWorker;
 import com.amazonaws.services.simpleworkflow.flow.worker.GenericWorkflowWorker;
+import com.amazonaws.services.simpleworkflow.flow.worker.PollerStatisticsMBean;
 import com.amazonaws.services.simpleworkflow.model.WorkflowType;
 
 /**
@@ -205,6 +207,65 @@ public class SpringWorkflowWorker implements WorkerBase, SmartLifecycle {
         genericWorker.setPollThreadCount(threadCount);
     }
 
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public boolean isAdaptivePolling() {
+        return genericWorker.isAdaptivePolling();
+    }
+
+    /**
+     * @see GenericWorker#setAdaptivePolling(boolean)
+     */
+    public void setAdaptivePolling(boolean adaptivePolling) {
+        genericWorker.setAdaptivePolling(adaptivePolling);
+    }
+
+    public int getMinimumPollThreadCount() {
+        return genericWorker.getMinimumPollThreadCount();
+    }
+
+    /**
+     * @see GenericWorker#setMinimumPollThreadCount(int)
+     */
+    public void setMinimumPollThreadCount(int minimumPollThreadCount) {
+        genericWorker.setMinimumPollThreadCount(minimumPollThreadCount);
+    }
+
+    public boolean isRegisterPollerMBean() {
+        return genericWorker.isRegisterPollerMBean();
+    }
+
+    /**
+     * @see GenericWorker#setRegisterPollerMBean(boolean)
+     */
+    public void setRegisterPollerMBean(boolean registerPollerMBean) {
+        genericWorker.setRegisterPollerMBean(registerPollerMBean);
+    }
+
+    public PollerStatisticsMBean getPollerStatistics() {
+        return genericWorker.getPollerStatistics();
+    }
+
+    public int getDeciderCacheSize() {
+        return genericWorker.getDeciderCacheSize();
+    }
+
+    /**
+     * @see GenericWorkflowWorker#setDeciderCacheSize(int)
+     */
+    public void setDeciderCacheSize(int deciderCacheSize) {
+        genericWorker.setDeciderCacheSize(deciderCacheSize);
+    }
+
+    public long getDeciderCacheHitCount() {
+        return genericWorker.getDeciderCacheHitCount();
+    }
+
+    public long getDeciderCacheMissCount() {
+        return genericWorker.getDeciderCacheMissCount();
+    }
+
     @Override
     public void suspendPolling() {
         genericWorker.suspendPolling();
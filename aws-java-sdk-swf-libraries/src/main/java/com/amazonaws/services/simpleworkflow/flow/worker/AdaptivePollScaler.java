@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ * use this file except in compliance with the License. A copy of the License is
+ * located at
+ * 
+ * http://aws.amazon.com/apache2.0
+ * 
+ * or in the "license" file accompanying this file. This file is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.simpleworkflow.flow.worker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Adjusts the number of concurrent polls of a worker between a minimum and a
+ * maximum, once per measurement interval of its {@link PollerStatistics}.
+ * <p>
+ * Long polls that return no task mean that there are more polls than tasks,
+ * so a high share of empty polls removes a quarter of the polls. Polls that
+ * all return a task mean that tasks are likely waiting in the task list, so a
+ * low share of empty polls doubles the polls, as far as there are free task
+ * execution slots to run the additional tasks. The number of polls is never reduced below the number
+ * needed, according to Little's law, to keep up with the observed task
+ * arrival rate given the observed poll latency. Having more polls than free
+ * task execution slots removes a poll, as the excess polls can only wait for
+ * a slot.
+ * <p>
+ * Poll tasks call {@link #adjust()} after each poll, then
+ * {@link #continuePolling()} to learn whether to poll again and
+ * {@link #startPolling()} to learn how many poll tasks to add.
+ */
+class AdaptivePollScaler {
+
+    private static final Log log = LogFactory.getLog(AdaptivePollScaler.class);
+
+    private static final double GROW_EMPTY_POLL_RATIO = 0.1;
+
+    private static final double SHRINK_EMPTY_POLL_RATIO = 0.5;
+
+    private final int minimumPollCount;
+
+    private final int maximumPollCount;
+
+    private final PollerStatistics statistics;
+
+    private final AtomicInteger runningPollTasks = new AtomicInteger();
+
+    AdaptivePollScaler(int minimumPollCount, int maximumPollCount, PollerStatistics statistics) {
+        if (minimumPollCount < 1 || minimumPollCount > maximumPollCount) {
+            throw new IllegalArgumentException("minimumPollCount=" + minimumPollCount + ", maximumPollCount="
+                    + maximumPollCount);
+        }
+        this.minimumPollCount = minimumPollCount;
+        this.maximumPollCount = maximumPollCount;
+        this.statistics = statistics;
+        statistics.setTargetPollCount(minimumPollCount);
+    }
+
+    /**
+     * Recomputes the target number of polls if the measurement interval has
+     * elapsed.
+     */
+    void adjust() {
+        if (!statistics.rollWindow() || statistics.getRecentPollCount() == 0) {
+            // All the polls are still waiting for a task
+            return;
+        }
+        int target = statistics.getTargetPollCount();
+        double emptyPollRatio = statistics.getRecentEmptyPollRatio();
+        int needed = (int) Math.ceil(statistics.getRecentTaskArrivalRate() * statistics.getRecentTaskPollLatencySeconds());
+        int freeTaskSlots = statistics.getFreeTaskSlots();
+        int newTarget = target;
+        if (freeTaskSlots < 0) {
+            newTarget = target - 1;
+        }
+        else if (emptyPollRatio <= GROW_EMPTY_POLL_RATIO && freeTaskSlots > 0) {
+            newTarget = Math.max(target, needed) + Math.min(target, freeTaskSlots);
+        }
+        else if (emptyPollRatio >= SHRINK_EMPTY_POLL_RATIO) {
+            newTarget = Math.max(target - Math.max(1, target / 4), needed);
+        }
+        newTarget = Math.max(minimumPollCount, Math.min(maximumPollCount, newTarget));
+        if (newTarget != target) {
+            if (log.isDebugEnabled()) {
+                log.debug("Poll count " + target + " -> " + newTarget + ": emptyPollRatio=" + emptyPollRatio
+                        + ", taskArrivalRate=" + statistics.getRecentTaskArrivalRate() + ", freeTaskSlots="
+                        + freeTaskSlots);
+            }
+            statistics.setTargetPollCount(newTarget);
+        }
+    }
+
+    /**
+     * @return number of poll tasks to start initially
+     */
+    int start() {
+        int target = statistics.getTargetPollCount();
+        runningPollTasks.set(target);
+        return target;
+    }
+
+    /**
+     * Called by a poll task after each poll.
+     * 
+     * @return false if the calling poll task should stop polling as there are
+     *         more poll tasks than the target
+     */
+    boolean continuePolling() {
+        while (true) {
+            int running = runningPollTasks.get();
+            if (running <= statistics.getTargetPollCount()) {
+                return true;
+            }
+            if (runningPollTasks.compareAndSet(running, running - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return number of poll tasks the caller should start to reach the target
+     */
+    int startPolling() {
+        while (true) {
+            int running = runningPollTasks.get();
+            int target = statistics.getTargetPollCount();
+            if (running >= target) {
+                return 0;
+            }
+            if (runningPollTasks.compareAndSet(running, target)) {
+                return target - running;
+            }
+        }
+    }
+}
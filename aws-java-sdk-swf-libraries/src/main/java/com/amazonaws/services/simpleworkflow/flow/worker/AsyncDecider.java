@@ -16,6 +16,7 @@ package com.amazonaws.services.simpleworkflow.flow.worker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 
 import org.apache.commons.logging.Log;
@@ -25,6 +26,7 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonServiceException.ErrorType;
 import com.amazonaws.services.simpleworkflow.flow.DecisionContext;
 import com.amazonaws.services.simpleworkflow.flow.WorkflowException;
+import com.amazonaws.services.simpleworkflow.flow.WorkflowExecutionLocal;
 import com.amazonaws.services.simpleworkflow.flow.core.AsyncScope;
 import com.amazonaws.services.simpleworkflow.flow.core.AsyncTaskInfo;
 import com.amazonaws.services.simpleworkflow.flow.core.Promise;
@@ -131,7 +133,7 @@ class AsyncDecider {
 
     private WorkflowDefinition definition;
 
-    private final HistoryHelper historyHelper;
+    private HistoryHelper historyHelper;
 
     private final DecisionsHelper decisionsHelper;
 
@@ -157,9 +159,30 @@ class AsyncDecider {
 
     private Throwable failure;
 
+    /**
+     * Whether the workflow definition is kept alive after a decision, so that
+     * the next decision task can be applied without replaying the history.
+     */
+    private final boolean resumable;
+
+    /** The id of the DecisionTaskStarted event of the last decision made */
+    private long lastStartedEventId;
+
+    /**
+     * The workflow execution locals of the last decision while suspended; or
+     * null if the workflow definition is not kept alive.
+     */
+    private Map<WorkflowExecutionLocal<?>, Object> suspendedLocals;
+
     public AsyncDecider(WorkflowDefinitionFactory workflowDefinitionFactory, HistoryHelper historyHelper,
             DecisionsHelper decisionsHelper) throws Exception {
+        this(workflowDefinitionFactory, historyHelper, decisionsHelper, false);
+    }
+
+    public AsyncDecider(WorkflowDefinitionFactory workflowDefinitionFactory, HistoryHelper historyHelper,
+            DecisionsHelper decisionsHelper, boolean resumable) throws Exception {
         this.workflowDefinitionFactory = workflowDefinitionFactory;
+        this.resumable = resumable;
         this.historyHelper = historyHelper;
         this.decisionsHelper = decisionsHelper;
         this.activityClient = new GenericActivityClientImpl(decisionsHelper);
@@ -444,10 +467,18 @@ class AsyncDecider {
     }
 
     public void decide() throws Exception {
+        boolean decided = false;
+        long startedEventId = historyHelper.getDecisionTask().getStartedEventId();
         try {
-            definition = workflowDefinitionFactory.getWorkflowDefinition(context);
-            if (definition == null) {
-                throw new IllegalStateException("Unknown workflow type: " + context.getWorkflowContext().getWorkflowType());
+            if (isSuspended()) {
+                WorkflowExecutionLocal.before(suspendedLocals);
+                suspendedLocals = null;
+            }
+            else {
+                definition = workflowDefinitionFactory.getWorkflowDefinition(context);
+                if (definition == null) {
+                    throw new IllegalStateException("Unknown workflow type: " + context.getWorkflowContext().getWorkflowType());
+                }
             }
             long lastNonReplayedEventId = historyHelper.getLastNonReplayEventId();
             // Buffer events until the next DecisionTaskStarted and then process them
@@ -461,6 +492,10 @@ class AsyncDecider {
                 int lastDecisionIndex = -1;
                 while (eventsIterator.hasNext()) {
                     HistoryEvent event = eventsIterator.next();
+                    if (event.getEventId() <= lastStartedEventId) {
+                        // Already applied when resuming from an earlier decision
+                        continue;
+                    }
                     EventType eventType = EventType.valueOf(event.getEventType());
                     if (eventType == EventType.DecisionTaskCompleted) {
                         decisionsHelper.setWorkflowContextData(event.getDecisionTaskCompletedEventAttributes().getExecutionContext());
@@ -523,6 +558,7 @@ class AsyncDecider {
                 unhandledDecision = false;
                 completeWorkflow();
             }
+            decided = true;
         }
         catch (AmazonServiceException e) {
             // We don't want to fail workflow on service exceptions like 500 or throttling
@@ -553,7 +589,53 @@ class AsyncDecider {
             catch (Throwable e) {
                 decisionsHelper.setWorkflowContextData(e.getMessage());
             }
-            workflowDefinitionFactory.deleteWorkflowDefinition(this.definition);
+            if (resumable && decided && !completed && !decisionsHelper.isWorkflowFailed()) {
+                lastStartedEventId = startedEventId;
+                suspendedLocals = WorkflowExecutionLocal.getValues();
+                WorkflowExecutionLocal.after();
+            }
+            else {
+                workflowDefinitionFactory.deleteWorkflowDefinition(this.definition);
+            }
+        }
+    }
+
+    /**
+     * Continues a suspended decider with the history of the next decision
+     * task of the same workflow execution. Only the events after the last
+     * decision of this decider are applied by the following {@link #decide()}.
+     */
+    void resume(HistoryHelper historyHelper) {
+        if (!isSuspended()) {
+            throw new IllegalStateException("Decider is not suspended");
+        }
+        this.historyHelper = historyHelper;
+    }
+
+    /**
+     * @return true if the workflow definition was kept alive after the last
+     *         decision, waiting for the next decision task to be applied to it
+     */
+    boolean isSuspended() {
+        return suspendedLocals != null;
+    }
+
+    /**
+     * @return the id of the DecisionTaskStarted event of the last decision
+     */
+    long getLastStartedEventId() {
+        return lastStartedEventId;
+    }
+
+    /**
+     * Deletes the workflow definition of a suspended decider that will not be
+     * resumed.
+     */
+    void dispose() {
+        if (isSuspended()) {
+            WorkflowExecutionLocal.before(suspendedLocals);
+            suspendedLocals = null;
+            workflowDefinitionFactory.deleteWorkflowDefinition(definition);
         }
     }
 
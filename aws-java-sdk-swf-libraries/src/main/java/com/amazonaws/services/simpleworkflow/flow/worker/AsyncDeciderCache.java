@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ * use this file except in compliance with the License. A copy of the License is
+ * located at
+ * 
+ * http://aws.amazon.com/apache2.0
+ * 
+ * or in the "license" file accompanying this file. This file is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.simpleworkflow.flow.worker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Bounded least recently used cache of suspended deciders keyed by workflow
+ * run ID. A decider taken from the cache is applied only to the events added
+ * since its last decision, instead of replaying the whole history.
+ * <p>
+ * A cached decider is only valid if its last decision was the last one
+ * completed for the workflow execution, which is the case if the
+ * previousStartedEventId of the next decision task matches it. Otherwise, for
+ * example if its decisions were rejected or timed out, or another worker
+ * decided the workflow execution since, it is discarded and the history is
+ * replayed in full.
+ */
+class AsyncDeciderCache {
+
+    private static final Log log = LogFactory.getLog(AsyncDeciderCache.class);
+
+    private final int maximumSize;
+
+    /**
+     * Use access-order to evict the least recently used decider first
+     */
+    private final LinkedHashMap<String, AsyncDecider> deciders;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public AsyncDeciderCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize should be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.deciders = new LinkedHashMap<String, AsyncDecider>(16, 0.75f, true);
+    }
+
+    /**
+     * Removes and returns the decider of the given workflow run if it can be
+     * resumed with a decision task whose previous decision task started with
+     * the given event; otherwise returns null.
+     */
+    public AsyncDecider take(String runId, long previousStartedEventId) {
+        if (previousStartedEventId == 0) {
+            // The first decision task of the run
+            return null;
+        }
+        AsyncDecider decider;
+        synchronized (deciders) {
+            decider = deciders.remove(runId);
+        }
+        if (decider != null && decider.getLastStartedEventId() == previousStartedEventId) {
+            hitCount.incrementAndGet();
+            return decider;
+        }
+        missCount.incrementAndGet();
+        if (decider != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Discarding stale decider: runId=" + runId + ", lastStartedEventId="
+                        + decider.getLastStartedEventId() + ", previousStartedEventId=" + previousStartedEventId);
+            }
+            dispose(decider);
+        }
+        return null;
+    }
+
+    /**
+     * Caches the given suspended decider of the given workflow run, evicting
+     * the least recently used deciders if the cache is full.
+     */
+    public void put(String runId, AsyncDecider decider) {
+        List<AsyncDecider> evicted = new ArrayList<AsyncDecider>();
+        synchronized (deciders) {
+            AsyncDecider previous = deciders.put(runId, decider);
+            if (previous != null && previous != decider) {
+                evicted.add(previous);
+            }
+            Iterator<AsyncDecider> eldest = deciders.values().iterator();
+            while (deciders.size() > maximumSize) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        for (AsyncDecider e : evicted) {
+            dispose(e);
+        }
+    }
+
+    /**
+     * Discards all the cached deciders.
+     */
+    public void clear() {
+        List<AsyncDecider> evicted;
+        synchronized (deciders) {
+            evicted = new ArrayList<AsyncDecider>(deciders.values());
+            deciders.clear();
+        }
+        for (AsyncDecider e : evicted) {
+            dispose(e);
+        }
+    }
+
+    public int size() {
+        synchronized (deciders) {
+            return deciders.size();
+        }
+    }
+
+    /**
+     * @return number of decision tasks applied to a cached decider
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of decision tasks, other than the first of a workflow
+     *         run, whose history had to be replayed in full
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private void dispose(AsyncDecider decider) {
+        try {
+            decider.dispose();
+        }
+        catch (Throwable e) {
+            log.warn("Failure disposing cached decider", e);
+        }
+    }
+}
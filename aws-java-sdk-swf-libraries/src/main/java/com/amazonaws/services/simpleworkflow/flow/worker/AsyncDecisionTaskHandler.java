@@ -39,15 +39,47 @@ public class AsyncDecisionTaskHandler extends DecisionTaskHandler {
 
     private final WorkflowDefinitionFactoryFactory definitionFactoryFactory;
 
+    private final AsyncDeciderCache deciderCache;
+
     public AsyncDecisionTaskHandler(WorkflowDefinitionFactoryFactory definitionFactoryFactory) {
+        this(definitionFactoryFactory, null);
+    }
+
+    /**
+     * @param deciderCache
+     *            cache of the deciders of open workflow executions, used to
+     *            apply a decision task without replaying the whole history;
+     *            or null to always replay the whole history
+     */
+    AsyncDecisionTaskHandler(WorkflowDefinitionFactoryFactory definitionFactoryFactory, AsyncDeciderCache deciderCache) {
         this.definitionFactoryFactory = definitionFactoryFactory;
+        this.deciderCache = deciderCache;
     }
 
     @Override
     public RespondDecisionTaskCompletedRequest handleDecisionTask(Iterator<DecisionTask> decisionTaskIterator) throws Exception {
         HistoryHelper historyHelper = new HistoryHelper(decisionTaskIterator);
-        AsyncDecider decider = createDecider(historyHelper);
+        AsyncDecider decider = null;
+        String runId = historyHelper.getDecisionTask().getWorkflowExecution().getRunId();
+        if (deciderCache != null) {
+            decider = deciderCache.take(runId, historyHelper.getLastNonReplayEventId());
+        }
+        if (decider != null) {
+            if (log.isDebugEnabled()) {
+                DecisionTask decisionTask = historyHelper.getDecisionTask();
+                log.debug("WorkflowTask received for cached decider: taskId=" + decisionTask.getStartedEventId()
+                        + ", taskToken=" + decisionTask.getTaskToken() + ", workflowExecution="
+                        + decisionTask.getWorkflowExecution());
+            }
+            decider.resume(historyHelper);
+        }
+        else {
+            decider = createDecider(historyHelper, deciderCache != null);
+        }
         decider.decide();
+        if (decider.isSuspended()) {
+            deciderCache.put(runId, decider);
+        }
         DecisionsHelper decisionsHelper = decider.getDecisionsHelper();
         Collection<Decision> decisions = decisionsHelper.getDecisions();
         String context = decisionsHelper.getWorkflowContextDataToReturn();
@@ -70,7 +102,7 @@ public class AsyncDecisionTaskHandler extends DecisionTaskHandler {
     @Override
     public WorkflowDefinition loadWorkflowThroughReplay(Iterator<DecisionTask> decisionTaskIterator) throws Exception {
         HistoryHelper historyHelper = new HistoryHelper(decisionTaskIterator);
-        AsyncDecider decider = createDecider(historyHelper);
+        AsyncDecider decider = createDecider(historyHelper, false);
         decider.decide();
         DecisionsHelper decisionsHelper = decider.getDecisionsHelper();
         if (decisionsHelper.isWorkflowFailed()) {
@@ -82,7 +114,7 @@ public class AsyncDecisionTaskHandler extends DecisionTaskHandler {
     @Override
     public List<AsyncTaskInfo> getAsynchronousThreadDump(Iterator<DecisionTask> decisionTaskIterator) throws Exception {
         HistoryHelper historyHelper = new HistoryHelper(decisionTaskIterator);
-        AsyncDecider decider = createDecider(historyHelper);
+        AsyncDecider decider = createDecider(historyHelper, false);
         decider.decide();
         return decider.getAsynchronousThreadDump();
     }
@@ -90,12 +122,12 @@ public class AsyncDecisionTaskHandler extends DecisionTaskHandler {
     @Override
     public String getAsynchronousThreadDumpAsString(Iterator<DecisionTask> decisionTaskIterator) throws Exception {
         HistoryHelper historyHelper = new HistoryHelper(decisionTaskIterator);
-        AsyncDecider decider = createDecider(historyHelper);
+        AsyncDecider decider = createDecider(historyHelper, false);
         decider.decide();
         return decider.getAsynchronousThreadDumpAsString();
     }
 
-    private AsyncDecider createDecider(HistoryHelper historyHelper) throws Exception {
+    private AsyncDecider createDecider(HistoryHelper historyHelper, boolean resumable) throws Exception {
         DecisionTask decisionTask = historyHelper.getDecisionTask();
         WorkflowType workflowType = decisionTask.getWorkflowType();
         if (log.isDebugEnabled()) {
@@ -112,7 +144,7 @@ public class AsyncDecisionTaskHandler extends DecisionTaskHandler {
             }
         }
         DecisionsHelper decisionsHelper = new DecisionsHelper(decisionTask);
-        AsyncDecider decider = new AsyncDecider(workflowDefinitionFactory, historyHelper, decisionsHelper);
+        AsyncDecider decider = new AsyncDecider(workflowDefinitionFactory, historyHelper, decisionsHelper, resumable);
         return decider;
     }
 }
@@ -45,6 +45,8 @@ public class GenericActivityWorker extends GenericWorker {
 
     private int taskExecutorThreadPoolSize = 100;
 
+    private ThreadPoolExecutor tasksExecutor;
+
     public GenericActivityWorker(AmazonSimpleWorkflow service, String domain, String taskListToPoll) {
         super(service, domain, taskListToPoll);
         if (service == null) {
@@ -93,13 +95,18 @@ public class GenericActivityWorker extends GenericWorker {
 
     @Override
     protected TaskPoller createPoller() {
-        ThreadPoolExecutor tasksExecutor = new ThreadPoolExecutor(1, taskExecutorThreadPoolSize, 1, TimeUnit.MINUTES,
+        tasksExecutor = new ThreadPoolExecutor(1, taskExecutorThreadPoolSize, 1, TimeUnit.MINUTES,
                 new SynchronousQueue<Runnable>());
         tasksExecutor.setThreadFactory(new ExecutorThreadFactory(ACTIVITY_THREAD_NAME_PREFIX + " " + getTaskListToPoll() + " "));
         tasksExecutor.setRejectedExecutionHandler(new BlockCallerPolicy());
         return new ActivityTaskPoller(service, domain, getTaskListToPoll(), activityImplementationFactory, tasksExecutor);
     }
 
+    @Override
+    protected ThreadPoolExecutor getTaskExecutor() {
+        return tasksExecutor;
+    }
+
     @Override
     public void registerTypesToPoll() {
         registerActivityTypes(service, domain, getTaskListToPoll(), activityImplementationFactory);
@@ -24,9 +24,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.ObjectName;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.jmx.MBeans;
 import com.amazonaws.services.simpleworkflow.AmazonSimpleWorkflow;
 import com.amazonaws.services.simpleworkflow.flow.WorkerBase;
 import com.amazonaws.services.simpleworkflow.flow.common.FlowConstants;
@@ -91,7 +94,20 @@ public abstract class GenericWorker implements WorkerBase {
                 if (pollExecutor.isTerminating()) {
                     return;
                 }
-                poller.pollAndProcessSingleTask();
+                long pollStart = pollerStatistics.pollStarted();
+                boolean taskReceived;
+                try {
+                    taskReceived = poller.pollAndProcessSingleTask();
+                }
+                catch (Exception e) {
+                    pollerStatistics.pollFailed();
+                    throw e;
+                }
+                catch (Error e) {
+                    pollerStatistics.pollFailed();
+                    throw e;
+                }
+                pollerStatistics.pollCompleted(pollStart, taskReceived);
                 pollBackoffThrottler.success();
             }
             catch (Throwable e) {
@@ -103,7 +119,7 @@ public abstract class GenericWorker implements WorkerBase {
             finally {
                 // Resubmit itself back to pollExecutor
                 if (!pollExecutor.isShutdown()) {
-                    pollExecutor.execute(this);
+                    resubmit(this);
                 }
             }
         }
@@ -145,6 +161,18 @@ public abstract class GenericWorker implements WorkerBase {
 
     private int pollThreadCount = 1;
 
+    private boolean adaptivePolling;
+
+    private int minimumPollThreadCount = 1;
+
+    private boolean registerPollerMBean;
+
+    private volatile PollerStatistics pollerStatistics;
+
+    private AdaptivePollScaler pollScaler;
+
+    private String pollerMBeanName;
+
     private BackoffThrottler pollBackoffThrottler;
 
     private Throttler pollRateThrottler;
@@ -338,6 +366,70 @@ public abstract class GenericWorker implements WorkerBase {
         this.pollThreadCount = threadCount;
     }
 
+    /**
+     * @see #setAdaptivePolling(boolean)
+     */
+    public boolean isAdaptivePolling() {
+        return adaptivePolling;
+    }
+
+    /**
+     * When enabled the number of concurrent polls varies between
+     * {@link #setMinimumPollThreadCount(int) the minimum poll thread count}
+     * and {@link #setPollThreadCount(int) the poll thread count}, based on
+     * the share of polls that return no task, the task arrival rate and the
+     * free task execution slots, instead of always being the poll thread
+     * count. Default is <code>false</code>.
+     */
+    public void setAdaptivePolling(boolean adaptivePolling) {
+        checkStarted();
+        this.adaptivePolling = adaptivePolling;
+    }
+
+    public int getMinimumPollThreadCount() {
+        return minimumPollThreadCount;
+    }
+
+    /**
+     * The number of concurrent polls that adaptive polling starts with and
+     * never goes below. Capped by the poll thread count. Default is 1.
+     * 
+     * @see #setAdaptivePolling(boolean)
+     */
+    public void setMinimumPollThreadCount(int minimumPollThreadCount) {
+        if (minimumPollThreadCount < 1) {
+            throw new IllegalArgumentException("expected value should be positive: " + minimumPollThreadCount);
+        }
+        checkStarted();
+        this.minimumPollThreadCount = minimumPollThreadCount;
+    }
+
+    /**
+     * @see #setRegisterPollerMBean(boolean)
+     */
+    public boolean isRegisterPollerMBean() {
+        return registerPollerMBean;
+    }
+
+    /**
+     * Should the {@link #getPollerStatistics() poller statistics} be
+     * registered as an MBean on startup, under the name
+     * <code>com.amazonaws.services.simpleworkflow.flow:type=&lt;worker class&gt;,domain=&lt;domain&gt;,taskList=&lt;task list&gt;</code>.
+     * Default is <code>false</code>.
+     */
+    public void setRegisterPollerMBean(boolean registerPollerMBean) {
+        checkStarted();
+        this.registerPollerMBean = registerPollerMBean;
+    }
+
+    /**
+     * @return statistics of the polls of the worker, or null if the worker
+     *         has not been started
+     */
+    public PollerStatisticsMBean getPollerStatistics() {
+        return pollerStatistics;
+    }
+
     @Override
     public void setDisableTypeRegistrationOnStart(boolean disableTypeRegistrationOnStart) {
         this.disableTypeRegitrationOnStart = disableTypeRegistrationOnStart;
@@ -380,11 +472,76 @@ public abstract class GenericWorker implements WorkerBase {
         pollBackoffThrottler = new BackoffThrottler(pollBackoffInitialInterval, pollBackoffMaximumInterval,
                 pollBackoffCoefficient);
         poller = createPoller();
-        for (int i = 0; i < pollThreadCount; i++) {
+        pollerStatistics = new PollerStatistics(getTaskExecutor(), pollThreadCount);
+        int initialPollThreadCount = pollThreadCount;
+        if (adaptivePolling) {
+            // Let the threads of removed polls go
+            pollExecutor.allowCoreThreadTimeOut(true);
+            pollScaler = new AdaptivePollScaler(Math.min(minimumPollThreadCount, pollThreadCount), pollThreadCount,
+                    pollerStatistics);
+            initialPollThreadCount = pollScaler.start();
+        }
+        if (registerPollerMBean) {
+            registerPollerMBean();
+        }
+        for (int i = 0; i < initialPollThreadCount; i++) {
             pollExecutor.execute(new PollServiceTask(poller));
         }
     }
 
+    private void resubmit(PollServiceTask task) {
+        if (pollScaler == null) {
+            pollerStatistics.rollWindow();
+            pollExecutor.execute(task);
+            return;
+        }
+        pollScaler.adjust();
+        if (pollScaler.continuePolling()) {
+            pollExecutor.execute(task);
+        }
+        for (int i = pollScaler.startPolling(); i > 0; i--) {
+            pollExecutor.execute(new PollServiceTask(poller));
+        }
+    }
+
+    private void registerPollerMBean() {
+        String name = "com.amazonaws.services.simpleworkflow.flow:type=" + getClass().getSimpleName() + ",domain="
+                + ObjectName.quote(domain) + ",taskList=" + ObjectName.quote(taskListToPoll);
+        try {
+            if (MBeans.registerMBean(name, pollerStatistics)) {
+                pollerMBeanName = name;
+            }
+            else if (log.isWarnEnabled()) {
+                log.warn("MBean already registered: " + name);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Failure registering MBean " + name, e);
+        }
+    }
+
+    private void unregisterPollerMBean() {
+        String name = pollerMBeanName;
+        if (name == null) {
+            return;
+        }
+        pollerMBeanName = null;
+        try {
+            MBeans.unregisterMBean(name);
+        }
+        catch (Exception e) {
+            log.warn("Failure unregistering MBean " + name, e);
+        }
+    }
+
+    /**
+     * @return executor the polled tasks are handed over to, or null if they
+     *         are processed on the poll threads
+     */
+    protected ThreadPoolExecutor getTaskExecutor() {
+        return null;
+    }
+
     private ExecutorThreadFactory getExecutorThreadFactory() {
         ExecutorThreadFactory pollExecutorThreadFactory = new ExecutorThreadFactory(getPollThreadNamePrefix());
         return pollExecutorThreadFactory;
@@ -440,6 +597,7 @@ public abstract class GenericWorker implements WorkerBase {
         }
         pollExecutor.shutdown();
         poller.shutdown();
+        unregisterPollerMBean();
     }
 
     @Override
@@ -455,6 +613,7 @@ public abstract class GenericWorker implements WorkerBase {
         }
         pollExecutor.shutdownNow();
         poller.shutdownNow();
+        unregisterPollerMBean();
     }
 
     @Override
@@ -481,6 +640,7 @@ public abstract class GenericWorker implements WorkerBase {
         }
         finally {
             poller.shutdown();
+            unregisterPollerMBean();
         }
         long elapsed = System.currentTimeMillis() - start;
         long left = TimeUnit.MILLISECONDS.convert(timeout, unit) - elapsed;
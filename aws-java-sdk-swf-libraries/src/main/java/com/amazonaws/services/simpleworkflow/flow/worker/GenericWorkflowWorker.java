@@ -38,6 +38,10 @@ public class GenericWorkflowWorker extends GenericWorker {
 
     private WorkflowDefinitionFactoryFactory workflowDefinitionFactoryFactory;
 
+    private int deciderCacheSize;
+
+    private volatile AsyncDeciderCache deciderCache;
+
     public GenericWorkflowWorker() {
         setIdentity(ManagementFactory.getRuntimeMXBean().getName());
     }
@@ -57,6 +61,51 @@ public class GenericWorkflowWorker extends GenericWorker {
         this.workflowDefinitionFactoryFactory = workflowDefinitionFactoryFactory;
     }
 
+    public int getDeciderCacheSize() {
+        return deciderCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of open workflow executions whose deciders are
+     * kept in memory between decision tasks. A decision task for a cached
+     * workflow execution is applied to its decider without replaying the
+     * history that preceded the previous decision, which saves CPU for long
+     * histories. The whole history is still retrieved from the service. The
+     * least recently used deciders are discarded once the cache is full, and
+     * a discarded or stale decider simply falls back to a full replay.
+     * <p>
+     * Workflow implementation objects, and the values of any
+     * {@link com.amazonaws.services.simpleworkflow.flow.WorkflowExecutionLocal}
+     * they use, live as long as their decider is cached. Default is 0, which
+     * replays the whole history for every decision task.
+     */
+    public void setDeciderCacheSize(int deciderCacheSize) {
+        checkStarted();
+        if (deciderCacheSize < 0) {
+            throw new IllegalArgumentException("negative deciderCacheSize: " + deciderCacheSize);
+        }
+        this.deciderCacheSize = deciderCacheSize;
+    }
+
+    /**
+     * @return number of decision tasks applied to a cached decider since the
+     *         worker started
+     */
+    public long getDeciderCacheHitCount() {
+        AsyncDeciderCache cache = deciderCache;
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    /**
+     * @return number of decision tasks, other than the first of a workflow
+     *         execution, that required a full replay of the history since the
+     *         worker started
+     */
+    public long getDeciderCacheMissCount() {
+        AsyncDeciderCache cache = deciderCache;
+        return cache == null ? 0 : cache.getMissCount();
+    }
+
     protected DecisionTaskPoller createWorkflowPoller() {
         DecisionTaskPoller poller = new DecisionTaskPoller();
         return poller;
@@ -75,7 +124,10 @@ public class GenericWorkflowWorker extends GenericWorker {
     @Override
     protected TaskPoller createPoller() {
         DecisionTaskPoller result = new DecisionTaskPoller();
-        result.setDecisionTaskHandler(new AsyncDecisionTaskHandler(workflowDefinitionFactoryFactory));
+        if (deciderCacheSize > 0) {
+            deciderCache = new AsyncDeciderCache(deciderCacheSize);
+        }
+        result.setDecisionTaskHandler(new AsyncDecisionTaskHandler(workflowDefinitionFactoryFactory, deciderCache));
         result.setDomain(getDomain());
         result.setIdentity(getIdentity());
         result.setService(getService());
@@ -83,6 +135,25 @@ public class GenericWorkflowWorker extends GenericWorker {
         return result;
     }
 
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        clearDeciderCache();
+    }
+
+    @Override
+    public void shutdownNow() {
+        super.shutdownNow();
+        clearDeciderCache();
+    }
+
+    private void clearDeciderCache() {
+        AsyncDeciderCache cache = deciderCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     @Override
     public void registerTypesToPoll() {
         registerWorkflowTypes(service, domain, getTaskListToPoll(), workflowDefinitionFactoryFactory);
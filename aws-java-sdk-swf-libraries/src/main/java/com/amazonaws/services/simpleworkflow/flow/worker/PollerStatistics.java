@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ * use this file except in compliance with the License. A copy of the License is
+ * located at
+ * 
+ * http://aws.amazon.com/apache2.0
+ * 
+ * or in the "license" file accompanying this file. This file is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.simpleworkflow.flow.worker;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the polls of a worker and their outcome. Rates and ratios are
+ * measured over intervals delimited by {@link #rollWindow()}, which the poll
+ * threads call after each poll.
+ */
+class PollerStatistics implements PollerStatisticsMBean {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ThreadPoolExecutor taskExecutor;
+
+    private final AtomicLong pollCount = new AtomicLong();
+
+    private final AtomicLong emptyPollCount = new AtomicLong();
+
+    private final AtomicLong failedPollCount = new AtomicLong();
+
+    private final AtomicLong taskCount = new AtomicLong();
+
+    private final AtomicLong taskPollNanos = new AtomicLong();
+
+    private final AtomicLong maximumTaskPollNanos = new AtomicLong();
+
+    private final AtomicInteger outstandingPollCount = new AtomicInteger();
+
+    private volatile int targetPollCount;
+
+    private volatile long windowEnd;
+
+    // Guarded by this
+    private long lastPollCount;
+
+    private long lastEmptyPollCount;
+
+    private long lastTaskCount;
+
+    private long lastTaskPollNanos;
+
+    private volatile long recentPollCount;
+
+    private volatile double recentEmptyPollRatio;
+
+    private volatile double recentTaskArrivalRate;
+
+    private volatile double recentTaskPollLatencySeconds;
+
+    /**
+     * @param taskExecutor
+     *            executor of the polled tasks, or null if tasks are processed
+     *            on the poll threads
+     * @param targetPollCount
+     *            initial number of concurrent polls
+     */
+    PollerStatistics(ThreadPoolExecutor taskExecutor, int targetPollCount) {
+        this.taskExecutor = taskExecutor;
+        this.targetPollCount = targetPollCount;
+        this.windowEnd = System.nanoTime() + WINDOW_NANOS;
+    }
+
+    /**
+     * @return start time of the poll to pass to
+     *         {@link #pollCompleted(long, boolean)}
+     */
+    long pollStarted() {
+        outstandingPollCount.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void pollCompleted(long startNanos, boolean taskReceived) {
+        outstandingPollCount.decrementAndGet();
+        if (taskReceived) {
+            long elapsed = System.nanoTime() - startNanos;
+            taskPollNanos.addAndGet(elapsed);
+            long maximum;
+            while (elapsed > (maximum = maximumTaskPollNanos.get())) {
+                if (maximumTaskPollNanos.compareAndSet(maximum, elapsed)) {
+                    break;
+                }
+            }
+            taskCount.incrementAndGet();
+        }
+        else {
+            emptyPollCount.incrementAndGet();
+        }
+        pollCount.incrementAndGet();
+    }
+
+    void pollFailed() {
+        outstandingPollCount.decrementAndGet();
+        failedPollCount.incrementAndGet();
+        pollCount.incrementAndGet();
+    }
+
+    /**
+     * Closes the current measurement interval and updates the recent rates
+     * and ratios, unless the interval has not yet elapsed.
+     * 
+     * @return true if the interval was closed
+     */
+    boolean rollWindow() {
+        long now = System.nanoTime();
+        if (now - windowEnd < 0) {
+            return false;
+        }
+        synchronized (this) {
+            long windowStart = windowEnd - WINDOW_NANOS;
+            if (now - windowEnd < 0) {
+                return false;
+            }
+            windowEnd = now + WINDOW_NANOS;
+            long polls = pollCount.get();
+            long emptyPolls = emptyPollCount.get();
+            long tasks = taskCount.get();
+            long nanos = taskPollNanos.get();
+            long windowPolls = polls - lastPollCount;
+            long windowTasks = tasks - lastTaskCount;
+            recentPollCount = windowPolls;
+            recentEmptyPollRatio = windowPolls == 0 ? 0 : (double) (emptyPolls - lastEmptyPollCount) / windowPolls;
+            recentTaskArrivalRate = windowTasks * (double) TimeUnit.SECONDS.toNanos(1) / (now - windowStart);
+            recentTaskPollLatencySeconds = windowTasks == 0 ? 0 : (nanos - lastTaskPollNanos) / 1e9 / windowTasks;
+            lastPollCount = polls;
+            lastEmptyPollCount = emptyPolls;
+            lastTaskCount = tasks;
+            lastTaskPollNanos = nanos;
+            return true;
+        }
+    }
+
+    /**
+     * @return number of polls completed during the last measurement interval
+     */
+    long getRecentPollCount() {
+        return recentPollCount;
+    }
+
+    /**
+     * @return average time, in seconds, of a poll that returned a task during
+     *         the last measurement interval
+     */
+    double getRecentTaskPollLatencySeconds() {
+        return recentTaskPollLatencySeconds;
+    }
+
+    /**
+     * @return number of tasks that could start executing in addition to the
+     *         ones already executing or being polled for, or
+     *         Integer.MAX_VALUE if tasks are processed on the poll threads
+     */
+    int getFreeTaskSlots() {
+        if (taskExecutor == null) {
+            return Integer.MAX_VALUE;
+        }
+        return taskExecutor.getMaximumPoolSize() - taskExecutor.getActiveCount() - outstandingPollCount.get();
+    }
+
+    void setTargetPollCount(int targetPollCount) {
+        this.targetPollCount = targetPollCount;
+    }
+
+    @Override
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    @Override
+    public long getEmptyPollCount() {
+        return emptyPollCount.get();
+    }
+
+    @Override
+    public long getFailedPollCount() {
+        return failedPollCount.get();
+    }
+
+    @Override
+    public long getTaskCount() {
+        return taskCount.get();
+    }
+
+    @Override
+    public double getAverageTaskPollLatencyMillis() {
+        long tasks = taskCount.get();
+        return tasks == 0 ? 0 : taskPollNanos.get() / 1e6 / tasks;
+    }
+
+    @Override
+    public long getMaximumTaskPollLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maximumTaskPollNanos.get());
+    }
+
+    @Override
+    public double getRecentEmptyPollRatio() {
+        return recentEmptyPollRatio;
+    }
+
+    @Override
+    public double getRecentTaskArrivalRate() {
+        return recentTaskArrivalRate;
+    }
+
+    @Override
+    public int getOutstandingPollCount() {
+        return outstandingPollCount.get();
+    }
+
+    @Override
+    public int getTargetPollCount() {
+        return targetPollCount;
+    }
+
+    @Override
+    public int getActiveTaskCount() {
+        return taskExecutor == null ? -1 : taskExecutor.getActiveCount();
+    }
+
+    @Override
+    public double getTaskExecutorSaturation() {
+        if (taskExecutor == null) {
+            return -1;
+        }
+        return (double) taskExecutor.getActiveCount() / taskExecutor.getMaximumPoolSize();
+    }
+
+    @Override
+    public String toString() {
+        return "PollerStatistics[pollCount=" + getPollCount() + ", emptyPollCount=" + getEmptyPollCount()
+                + ", taskCount=" + getTaskCount() + ", outstandingPollCount=" + getOutstandingPollCount()
+                + ", targetPollCount=" + getTargetPollCount() + "]";
+    }
+}
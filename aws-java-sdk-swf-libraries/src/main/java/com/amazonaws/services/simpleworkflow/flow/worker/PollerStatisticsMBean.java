@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ * use this file except in compliance with the License. A copy of the License is
+ * located at
+ * 
+ * http://aws.amazon.com/apache2.0
+ * 
+ * or in the "license" file accompanying this file. This file is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.simpleworkflow.flow.worker;
+
+/**
+ * JMX view of the polling activity of a worker.
+ * 
+ * @see GenericWorker#setRegisterPollerMBean(boolean)
+ */
+public interface PollerStatisticsMBean {
+
+    /**
+     * @return number of polls completed, including empty and failed ones
+     */
+    long getPollCount();
+
+    /**
+     * @return number of polls that timed out without returning a task
+     */
+    long getEmptyPollCount();
+
+    /**
+     * @return number of polls that failed
+     */
+    long getFailedPollCount();
+
+    /**
+     * @return number of tasks received
+     */
+    long getTaskCount();
+
+    /**
+     * @return average time, in milliseconds, of a poll that returned a task.
+     *         For a workflow worker this includes the time taken to decide,
+     *         as decision tasks are processed on the poll thread.
+     */
+    double getAverageTaskPollLatencyMillis();
+
+    /**
+     * @return longest time, in milliseconds, of a poll that returned a task
+     */
+    long getMaximumTaskPollLatencyMillis();
+
+    /**
+     * @return share of the polls completed during the last measurement
+     *         interval that returned no task
+     */
+    double getRecentEmptyPollRatio();
+
+    /**
+     * @return number of tasks received per second during the last
+     *         measurement interval
+     */
+    double getRecentTaskArrivalRate();
+
+    /**
+     * @return number of polls currently outstanding
+     */
+    int getOutstandingPollCount();
+
+    /**
+     * @return number of concurrent polls the worker currently aims for; equal
+     *         to the poll thread count unless adaptive polling is enabled
+     */
+    int getTargetPollCount();
+
+    /**
+     * @return number of tasks currently executing, or -1 if tasks are
+     *         processed on the poll threads
+     */
+    int getActiveTaskCount();
+
+    /**
+     * @return share of the task execution threads that are busy, or -1 if
+     *         tasks are processed on the poll threads
+     */
+    double getTaskExecutorSaturation();
+}